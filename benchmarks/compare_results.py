@@ -0,0 +1,44 @@
+# Daniel Puckett & Joe Puckett | Place Engineering, PLLC
+# Compares two benchmark result files (JMH -rf json, or engine_bench.py output).
+#   python compare_results.py results/jmh-20260101-0900.json results/jmh-20260201-0900.json
+# Prints one row per benchmark + params with the change in score; for time modes a
+# positive change is slower, for throughput (thrpt) it is faster.
+
+import json
+import sys
+
+THRESHOLD = 0.10  # flag changes bigger than 10%
+
+def load(path):
+    with open(path, "r", encoding="utf-8") as f:
+        data = json.load(f)
+    out = {}
+    for r in data:
+        params = ",".join(f"{k}={v}" for k, v in sorted((r.get("params") or {}).items()))
+        out[(r["benchmark"].split(".", 3)[-1], params)] = r
+    return out
+
+def main(old_path, new_path):
+    old, new = load(old_path), load(new_path)
+    regressions = 0
+    for key in sorted(set(old) | set(new)):
+        name, params = key
+        if key not in old or key not in new:
+            print(f"{'(new)' if key in new else '(gone)':>9}  {name} [{params}]")
+            continue
+
+        a, b = old[key]["primaryMetric"], new[key]["primaryMetric"]
+        change = (b["score"] - a["score"]) / a["score"] if a["score"] else 0.0
+        worse = -change if old[key].get("mode") == "thrpt" else change
+        flag = "  <-- slower" if worse > THRESHOLD else ("  faster" if worse < -THRESHOLD else "")
+        if worse > THRESHOLD: regressions += 1
+        print(f"{change:+8.1%}  {name} [{params}]  {a['score']:.3f} -> {b['score']:.3f} {b['scoreUnit']}{flag}")
+
+    print(f"\n{regressions} regression(s) over {THRESHOLD:.0%}")
+    return 1 if regressions else 0
+
+if __name__ == "__main__":
+    if len(sys.argv) != 3:
+        print("Usage: compare_results.py <old.json> <new.json>")
+        sys.exit(2)
+    sys.exit(main(sys.argv[1], sys.argv[2]))
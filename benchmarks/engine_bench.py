@@ -0,0 +1,112 @@
+# Daniel Puckett & Joe Puckett | Place Engineering, PLLC
+# Timing harness for the Python engine paths JMH can't reach:
+# SCR / topo LSP generation, EsriJSON -> GeoDataFrame parsing and cached layer reads.
+#
+# Results are written in the same JSON shape as JMH (-rf json), so
+# compare_results.py treats both files the same way.
+#   python engine_bench.py --out results/engine.json [--rows 100,1000,10000,100000]
+
+import json
+import os
+import random
+import sys
+import tempfile
+import time
+
+sys.path.insert(0, os.path.join(os.path.dirname(os.path.abspath(__file__)), "..", "scripts"))
+import address_to_scr as engine
+
+ROWS = [100, 1000, 10000, 100000]
+MIN_SECONDS = 2.0
+
+
+# --- 1. SYNTHETIC INPUT (seeded, identical between runs) ---
+
+def esri_features(n, kind):
+    rnd = random.Random(5)
+    feats = []
+    for i in range(n):
+        cx, cy = 2100000 + rnd.random() * 10000, 730000 + rnd.random() * 10000
+        pts = [[cx + rnd.random() * 50, cy + rnd.random() * 50] for _ in range(12)]
+        geom = {"paths": [pts]} if kind == "line" else {"rings": [pts + [pts[0]]]}
+        feats.append({
+            "attributes": {"OBJECTID": i, "PIN_NUM": f"07{i:08d}", "OWNER": "SMITH, JOHN", "ELEV": 300 + i % 50},
+            "geometry": geom,
+        })
+    return feats
+
+
+# --- 2. TIMING ---
+
+def measure(fn):
+    # Repeats fn until MIN_SECONDS have passed; returns per-call times in ms
+    fn()  # warmup
+    samples, start = [], time.perf_counter()
+    while time.perf_counter() - start < MIN_SECONDS or len(samples) < 3:
+        t0 = time.perf_counter()
+        fn()
+        samples.append((time.perf_counter() - t0) * 1000)
+    return samples
+
+def result(name, rows, samples):
+    samples = sorted(samples)
+    mean = sum(samples) / len(samples)
+    return {
+        "benchmark": f"engine.{name}",
+        "mode": "avgt",
+        "params": {"rows": str(rows)},
+        "primaryMetric": {
+            "score": mean,
+            "scoreUnit": "ms/op",
+            "rawData": [samples],
+            "scorePercentiles": {"50.0": samples[len(samples) // 2], "100.0": samples[-1]},
+        },
+    }
+
+
+# --- 3. CASES ---
+
+def run(rows_list, out_dir):
+    results = []
+    engine.OUTPUT_FOLDER = out_dir
+    engine.sys.stdout = open(os.devnull, "w", encoding="utf-8")  # engine prints progress lines
+
+    for rows in rows_list:
+        lines = esri_features(rows, "line")
+        polys = esri_features(rows, "poly")
+
+        results.append(result("esriToGdf", rows, measure(lambda: engine.esri_to_gdf(json.loads(json.dumps(polys))))))
+
+        gdf = engine.esri_to_gdf(json.loads(json.dumps(polys)))
+        results.append(result("prepareLayer", rows, measure(lambda: engine.prepare_layer(gdf))))
+
+        # Reading a cached layer back: the feature store vs the shapefile it replaced
+        pef = engine.store_layer(gdf, "parcels", out_dir)
+        shp = engine.save_layer(gdf, "parcels", out_dir)
+        results.append(result("readStore", rows, measure(lambda: engine.feature_store.read(pef))))
+        results.append(result("readShapefile", rows, measure(lambda: engine.gpd.read_file(shp))))
+
+        topo = engine.prepare_layer(engine.esri_to_gdf(json.loads(json.dumps(lines))))
+        lsp = os.path.join(out_dir, "topo.lsp")
+        results.append(result("writeTopoEntities", rows, measure(lambda: engine.write_topo_entities(topo, lsp))))
+
+        layers = [os.path.join(out_dir, f"layer{i}.shp") for i in range(min(rows, 50))] + [lsp]
+        results.append(result("generateScript", rows, measure(lambda: engine.generate_script(2105000, 735000, layers))))
+
+        print(f"rows={rows} done", file=sys.__stdout__)
+    return results
+
+if __name__ == "__main__":
+    out, rows = os.path.join("results", "engine.json"), ROWS
+    argv = iter(sys.argv[1:])
+    for a in argv:
+        if a == "--out": out = next(argv)
+        elif a == "--rows": rows = [int(v) for v in next(argv).split(",")]
+
+    with tempfile.TemporaryDirectory() as tmp:
+        data = run(rows, tmp)
+
+    os.makedirs(os.path.dirname(os.path.abspath(out)), exist_ok=True)
+    with open(out, "w", encoding="utf-8") as f:
+        json.dump(data, f, indent=1)
+    print(f"Saved: {out}", file=sys.__stdout__)
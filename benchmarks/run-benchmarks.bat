@@ -0,0 +1,49 @@
+@echo off
+setlocal
+
+:: --- 1. DEFINE PATHS ---
+SET "BENCH_ROOT=%~dp0"
+SET "PROJECT_ROOT=%BENCH_ROOT%.."
+SET "RESULTS=%BENCH_ROOT%results"
+
+if not exist "%RESULTS%" mkdir "%RESULTS%"
+for /f %%i in ('powershell -NoProfile -Command "Get-Date -Format yyyyMMdd-HHmm"') do set STAMP=%%i
+
+echo ==========================================
+echo      PE TOOLS BENCHMARKS
+echo ==========================================
+echo Results: %RESULTS%
+echo.
+
+:: --- 2. BUILD APP + BENCHMARK JAR ---
+echo [1/3] Building PE Tools and the benchmark jar...
+cd /d "%PROJECT_ROOT%"
+call mvn -q install
+if %ERRORLEVEL% NEQ 0 goto :failed
+
+cd /d "%BENCH_ROOT%"
+call mvn -q clean package
+if %ERRORLEVEL% NEQ 0 goto :failed
+
+:: --- 3. JAVA HOT PATHS (extra args go to JMH, e.g. ProjectStore -p rows=1000) ---
+echo.
+echo [2/3] Running JMH...
+java -jar target\benchmarks.jar -rf json -rff "%RESULTS%\jmh-%STAMP%.json" %*
+if %ERRORLEVEL% NEQ 0 goto :failed
+
+:: --- 4. PYTHON ENGINE (SCR generation + GIS parsing) ---
+echo.
+echo [3/3] Running engine benchmarks...
+python engine_bench.py --out "%RESULTS%\engine-%STAMP%.json"
+
+echo.
+echo ==========================================
+echo      DONE! Compare against an older run with:
+echo      python compare_results.py results\jmh-OLD.json results\jmh-%STAMP%.json
+echo ==========================================
+exit /b 0
+
+:failed
+echo.
+echo ❌ ERROR: Benchmark run failed.
+exit /b 1
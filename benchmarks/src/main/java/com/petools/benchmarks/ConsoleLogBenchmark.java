@@ -0,0 +1,70 @@
+package com.petools.benchmarks;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.petools.features.autocad.ConsoleLog;
+
+/**
+ * AutoCADView.log append throughput. The TextArea is modelled by a StringBuilder
+ * plus a getText() copy per line, which is what the control costs per append.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsoleLogBenchmark {
+
+    // Lines already in the console when the measured appends start
+    @Param({"100", "10000", "100000"})
+    int existingLines;
+
+    private final StringBuilder text = new StringBuilder();
+    private List<String> lines;
+    private String seed;
+    private int next;
+
+    @Setup
+    public void setup() {
+        lines = Datasets.engineLines(1000);
+        StringBuilder sb = new StringBuilder();
+        LocalTime t = LocalTime.NOON;
+        for (int i = 0; i < existingLines; i++) {
+            sb.append(ConsoleLog.line(t, "✅ Saved: C:\\Users\\eng\\.petools\\CAD-IMPORTS\\layer" + i + ".shp"));
+        }
+        seed = sb.toString();
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        text.setLength(0);
+        text.append(seed);
+        next = 0;
+    }
+
+    @Benchmark
+    public int append() {
+        String message = lines.get(next++ % lines.size());
+        String current = text.toString();
+        int cut = ConsoleLog.progressCut(current, message);
+        if (cut >= 0) text.setLength(cut);
+        text.append(ConsoleLog.line(LocalTime.NOON, message));
+        return text.length();
+    }
+}
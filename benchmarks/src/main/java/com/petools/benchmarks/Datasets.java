@@ -0,0 +1,134 @@
+package com.petools.benchmarks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import com.petools.features.projects.ProjectView.Project;
+
+/**
+ * Synthetic inputs shaped like real user data. Everything is seeded, so two
+ * runs of the same version see byte-identical datasets.
+ */
+final class Datasets {
+
+    private static final String[] STATUSES = {"Active", "Inactive", "On Hold", "Closed"};
+    private static final String[] CLIENTS = {"Town of Cary", "Raleigh Water", "Wake County", "Apex Homes, LLC", "NCDOT"};
+    private static final String[] STREETS = {"Main St", "Barrett Rd", "Tryon Rd", "Six Forks Rd", "Hillsborough St"};
+
+    private Datasets() {}
+
+    static List<Project> projects(int rows) {
+        Random rnd = new Random(42);
+        List<Project> list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            String street = STREETS[rnd.nextInt(STREETS.length)];
+            list.add(new Project(
+                "P" + (10000 + i) + " " + street + " Improvements",
+                CLIENTS[rnd.nextInt(CLIENTS.length)],
+                STATUSES[rnd.nextInt(STATUSES.length)],
+                "\\\\fileserver\\projects\\" + (2020 + i % 7) + "\\P" + (10000 + i),
+                (100 + rnd.nextInt(9900)) + " " + street + ", Raleigh"));
+        }
+        return list;
+    }
+
+    /** HTML that looks like a week of notes: checklists, links, paragraphs. */
+    static String noteHtml(int bytes) {
+        Random rnd = new Random(7);
+        StringBuilder sb = new StringBuilder(bytes + 256);
+        sb.append("<html dir=\"ltr\"><head></head><body contenteditable=\"true\">");
+        while (sb.length() < bytes) {
+            switch (rnd.nextInt(3)) {
+                case 0 -> sb.append("<p>☐ Follow up with ").append(CLIENTS[rnd.nextInt(CLIENTS.length)])
+                            .append(" on ").append(STREETS[rnd.nextInt(STREETS.length)]).append(" comments</p>");
+                case 1 -> sb.append("<ul><li>Revise grading plan, sheet C-").append(rnd.nextInt(900))
+                            .append("</li><li>Submit to review</li></ul>");
+                default -> sb.append("<p><a href=\"https://maps.wake.gov/\">Parcel ")
+                            .append(rnd.nextInt(1_000_000)).append("</a> — check easements.</p>");
+            }
+        }
+        sb.append("</body></html>");
+        return sb.toString();
+    }
+
+    /** Engine output as the console sees it, including the overwriting "..." progress lines. */
+    static List<String> engineLines(int count) {
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(i % 10 == 0 ? "📦 Fetching layer: Parcels" : "   ... " + (i * 2000) + " items found");
+        }
+        return lines;
+    }
+
+    /** Polygon shapefile of square-ish parcels over a 10,000 ft site, 5 to 40 vertices each. */
+    static void writePolygonShapefile(Path shp, int features) throws IOException {
+        Random rnd = new Random(11);
+        List<double[]> rings = new ArrayList<>(features);
+        int contentBytes = 0;
+        for (int i = 0; i < features; i++) {
+            double cx = 2_100_000 + rnd.nextDouble() * 10_000, cy = 730_000 + rnd.nextDouble() * 10_000;
+            double r = 20 + rnd.nextDouble() * 80;
+            int n = 5 + rnd.nextInt(36);
+            double[] ring = new double[(n + 1) * 2];
+            for (int k = 0; k < n; k++) {
+                double a = 2 * Math.PI * k / n;
+                ring[k * 2] = cx + Math.cos(a) * r;
+                ring[k * 2 + 1] = cy + Math.sin(a) * r;
+            }
+            ring[n * 2] = ring[0];
+            ring[n * 2 + 1] = ring[1];
+            rings.add(ring);
+            contentBytes += 8 + 44 + 4 + ring.length * 8;
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(100 + contentBytes);
+        buf.order(ByteOrder.BIG_ENDIAN).putInt(0, 9994);
+        buf.putInt(24, buf.capacity() / 2);
+        buf.order(ByteOrder.LITTLE_ENDIAN).putInt(28, 1000).putInt(32, 5);
+
+        int pos = 100, recNo = 1;
+        for (double[] ring : rings) {
+            int points = ring.length / 2;
+            int content = 44 + 4 + points * 16;
+            buf.order(ByteOrder.BIG_ENDIAN).putInt(pos, recNo++).putInt(pos + 4, content / 2);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+
+            double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+            for (int k = 0; k < points; k++) {
+                minX = Math.min(minX, ring[k * 2]); maxX = Math.max(maxX, ring[k * 2]);
+                minY = Math.min(minY, ring[k * 2 + 1]); maxY = Math.max(maxY, ring[k * 2 + 1]);
+            }
+            int c = pos + 8;
+            buf.putInt(c, 5)
+               .putDouble(c + 4, minX).putDouble(c + 12, minY).putDouble(c + 20, maxX).putDouble(c + 28, maxY)
+               .putInt(c + 36, 1).putInt(c + 40, points).putInt(c + 44, 0);
+            for (int k = 0; k < ring.length; k++) buf.putDouble(c + 48 + k * 8, ring[k]);
+            pos += 8 + content;
+        }
+
+        try (FileChannel ch = FileChannel.open(shp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                               StandardOpenOption.TRUNCATE_EXISTING)) {
+            buf.rewind();
+            while (buf.hasRemaining()) ch.write(buf);
+        }
+    }
+
+    static void deleteTree(Path dir) {
+        if (dir == null || !Files.exists(dir)) return;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try { Files.delete(p); } catch (IOException e) {}
+            });
+        } catch (IOException e) {}
+    }
+}
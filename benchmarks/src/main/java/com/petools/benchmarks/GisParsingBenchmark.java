@@ -0,0 +1,86 @@
+package com.petools.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.petools.features.autocad.PackedRTree;
+import com.petools.features.autocad.ShapefileReader;
+
+/** Reading engine output for the layer preview: open, index, query, decode. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GisParsingBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    int features;
+
+    private Path dir;
+    private Path shp;
+    private ShapefileReader reader;
+    private PackedRTree tree;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("petools-bench-gis");
+        shp = dir.resolve("parcels.shp");
+        Datasets.writePolygonShapefile(shp, features);
+        reader = ShapefileReader.open(shp);
+        tree = new PackedRTree(reader.featureBounds());
+    }
+
+    @TearDown
+    public void tearDown() {
+        reader = null;
+        Datasets.deleteTree(dir);
+    }
+
+    @Benchmark
+    public int open() throws IOException {
+        return ShapefileReader.open(shp).featureCount();
+    }
+
+    @Benchmark
+    public PackedRTree buildIndex() {
+        return new PackedRTree(reader.featureBounds());
+    }
+
+    @Benchmark
+    public void queryTile(Blackhole bh) {
+        // One 256px preview tile at street zoom: ~1/16 of the site
+        double[] b = tree.bounds();
+        double w = (b[2] - b[0]) / 4, h = (b[3] - b[1]) / 4;
+        tree.search(b[0] + w, b[1] + h, b[0] + 2 * w, b[1] + 2 * h, bh::consume);
+    }
+
+    @Benchmark
+    public void decodeAll(Blackhole bh) {
+        ShapefileReader.PathSink sink = new ShapefileReader.PathSink() {
+            @Override public void moveTo(double x, double y) { bh.consume(x); }
+            @Override public void lineTo(double x, double y) { bh.consume(y); }
+            @Override public void point(double x, double y) { bh.consume(x + y); }
+        };
+        for (int i = 0; i < reader.featureCount(); i++) {
+            reader.decode(i, 0.5, sink);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.petools.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.petools.features.todo.NoteStore;
+
+/** Saving a note page (runs on every key release) and the weekly rollover. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteStoreBenchmark {
+
+    private static final String LAST_WEEK = "Week 41 (2026)";
+    private static final String THIS_WEEK = "Week 42 (2026)";
+
+    // 1 KB, 100 KB, 1 MB, 10 MB
+    @Param({"1024", "102400", "1048576", "10485760"})
+    int noteBytes;
+
+    // Other pages in the folder the rollover has to scan past
+    @Param({"10", "500"})
+    int pages;
+
+    private Path dir;
+    private NoteStore store;
+    private String html;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("petools-bench-notes");
+        store = new NoteStore(dir);
+        html = Datasets.noteHtml(noteBytes);
+        for (int i = 0; i < pages; i++) {
+            store.save("Project " + i, Datasets.noteHtml(1024));
+        }
+        store.save(LAST_WEEK, html);
+    }
+
+    @Setup(Level.Invocation)
+    public void removeThisWeek() throws IOException {
+        Files.deleteIfExists(store.pathFor(THIS_WEEK));
+    }
+
+    @TearDown
+    public void tearDown() {
+        Datasets.deleteTree(dir);
+    }
+
+    @Benchmark
+    public void save() {
+        store.save(LAST_WEEK, html);
+    }
+
+    @Benchmark
+    public Path rollover() {
+        return store.rollover(THIS_WEEK);
+    }
+}
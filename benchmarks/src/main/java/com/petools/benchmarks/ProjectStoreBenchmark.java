@@ -0,0 +1,80 @@
+package com.petools.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.petools.features.projects.ProjectStore;
+import com.petools.features.projects.ProjectView.Project;
+
+/** projects.csv load / save and the search box predicate. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectStoreBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    int rows;
+
+    @Param({"ral", "zzz"})
+    String search;
+
+    private Path dir;
+    private Path csv;
+    private Path scratch;
+    private List<Project> projects;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("petools-bench-projects");
+        csv = dir.resolve("projects.csv");
+        scratch = dir.resolve("projects-save.csv");
+        projects = Datasets.projects(rows);
+        ProjectStore.save(csv, projects);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Datasets.deleteTree(dir);
+    }
+
+    @Benchmark
+    public List<Project> load() {
+        return ProjectStore.load(csv);
+    }
+
+    @Benchmark
+    public void save() {
+        ProjectStore.save(scratch, projects);
+    }
+
+    @Benchmark
+    public int filter() {
+        // What a keystroke in the search box costs: build the predicate, test every row
+        Predicate<Project> predicate = ProjectStore.filter(search);
+        int matches = 0;
+        for (Project p : projects) {
+            if (predicate.test(p)) matches++;
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,133 @@
+package com.petools.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time-to-first-frame of the jlink image, with and without its CDS archive.
+ * Not a JMH benchmark: every sample is a fresh JVM, which is the thing being measured.
+ *
+ *   java -cp benchmarks.jar com.petools.benchmarks.StartupBenchmark ..\target\petools [runs]
+ *
+ * "cold" is the first launch of each series. On Linux, when run as root, the OS file
+ * cache is dropped before it; elsewhere it only means "first launch in a while", so run
+ * it after a reboot (or after other work) for a true cold number.
+ * Results go to results/startup-<timestamp>.json in the JMH result format.
+ */
+public class StartupBenchmark {
+
+    private static final String MARKER = "petools.firstFrameMs=";
+    private static final Path DROP_CACHES = Paths.get("/proc/sys/vm/drop_caches");
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: StartupBenchmark <jlink image dir> [warm runs, default 10]");
+            System.exit(2);
+        }
+        Path image = Paths.get(args[0]).toAbsolutePath();
+        int warmRuns = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        Path java = image.resolve("bin").resolve(isWindows() ? "java.exe" : "java");
+        if (!Files.exists(java)) throw new IllegalArgumentException("No java launcher in " + image);
+
+        Path home = Files.createTempDirectory("petools-startup-home");
+        try {
+            boolean archiveUsable = run(java, home, List.of("-Xshare:on", "-version"), false) != null;
+            System.out.println(archiveUsable
+                ? "CDS archive: OK (" + image.resolve("lib/server/classes.jsa") + ")"
+                : "⚠️ CDS archive missing or rejected; build the image with mvn -Pcds package");
+
+            List<String> results = new ArrayList<>();
+            for (String archive : List.of("on", "off")) {
+                List<String> flags = archive.equals("on") ? List.of("-Xshare:auto") : List.of("-Xshare:off");
+
+                boolean dropped = dropOsCaches();
+                long cold = firstFrame(java, home, flags);
+                System.out.printf(Locale.ROOT, "archive=%s cold: %d ms%s%n", archive, cold, dropped ? " (OS cache dropped)" : "");
+                results.add(result(archive, "cold", new long[] { cold }));
+
+                long[] warm = new long[warmRuns];
+                for (int i = 0; i < warmRuns; i++) warm[i] = firstFrame(java, home, flags);
+                System.out.printf(Locale.ROOT, "archive=%s warm: %.0f ms avg, %d ms min%n",
+                    archive, Arrays.stream(warm).average().orElse(0), Arrays.stream(warm).min().orElse(0));
+                results.add(result(archive, "warm", warm));
+            }
+
+            Path out = Paths.get("results", "startup-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmm")) + ".json");
+            Files.createDirectories(out.getParent());
+            try (Writer w = Files.newBufferedWriter(out)) {
+                w.write("[\n" + String.join(",\n", results) + "\n]\n");
+            }
+            System.out.println("Saved: " + out.toAbsolutePath());
+        } finally {
+            Datasets.deleteTree(home);
+        }
+    }
+
+    private static long firstFrame(Path java, Path home, List<String> flags) throws IOException, InterruptedException {
+        List<String> args = new ArrayList<>(flags);
+        args.addAll(List.of("-Dpetools.firstFrameExit=true", "-Dprism.order=sw", "-m", "com.petools/com.petools.App"));
+        String line = run(java, home, args, true);
+        if (line == null) throw new IllegalStateException("App exited without reporting a first frame");
+        return Long.parseLong(line.substring(MARKER.length()).trim());
+    }
+
+    // Returns the marker line (or "" when not waiting for one), null when the JVM failed
+    private static String run(Path java, Path home, List<String> args, boolean wantMarker) throws IOException, InterruptedException {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(java.toString());
+        cmd.add("-Duser.home=" + home);
+        cmd.addAll(args);
+
+        Process p = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+        String found = wantMarker ? null : "";
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.startsWith(MARKER)) found = line;
+            }
+        }
+        if (!p.waitFor(2, TimeUnit.MINUTES)) {
+            p.destroyForcibly();
+            return null;
+        }
+        return p.exitValue() == 0 ? found : null;
+    }
+
+    private static boolean dropOsCaches() {
+        if (isWindows() || !Files.isWritable(DROP_CACHES)) return false;
+        try {
+            new ProcessBuilder("sync").start().waitFor();
+            Files.writeString(DROP_CACHES, "3");
+            return true;
+        } catch (IOException | InterruptedException e) {
+            return false;
+        }
+    }
+
+    private static String result(String archive, String phase, long[] samples) {
+        double mean = Arrays.stream(samples).average().orElse(0);
+        StringBuilder raw = new StringBuilder();
+        for (long s : samples) raw.append(raw.length() == 0 ? "" : ",").append(s);
+        return String.format(Locale.ROOT,
+            "  {\"benchmark\":\"startup.firstFrame\",\"mode\":\"ss\",\"params\":{\"archive\":\"%s\",\"phase\":\"%s\"},"
+            + "\"primaryMetric\":{\"score\":%.1f,\"scoreUnit\":\"ms\",\"rawData\":[[%s]]}}",
+            archive, phase, mean, raw);
+    }
+
+    private static boolean isWindows() {
+        return System.getProperty("os.name").toLowerCase(Locale.ROOT).contains("win");
+    }
+}
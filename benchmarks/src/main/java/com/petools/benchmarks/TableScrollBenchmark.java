@@ -0,0 +1,161 @@
+package com.petools.benchmarks;
+
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.petools.features.projects.ProjectStore;
+import com.petools.features.projects.ProjectView;
+import com.petools.features.settings.AppSettings;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.control.TableView;
+import javafx.scene.control.skin.VirtualFlow;
+import javafx.stage.Stage;
+
+/**
+ * Frame rate while scrolling the Project Database table, standard vs high-volume mode.
+ * Not a JMH benchmark: it needs a real window and the FX pulse loop.
+ *
+ *   java -cp target\benchmarks.jar com.petools.benchmarks.TableScrollBenchmark [rows, default 50000] [seconds per mode, default 10]
+ *
+ * The table scrolls a fixed distance every frame, wrapping at the bottom. Pulses run
+ * uncapped (javafx.animation.fullspeed), so the frame rate shows the real per-frame cost
+ * instead of sitting at 60. Also reports bytes allocated on the FX thread per frame.
+ * Results go to results/table-scroll-<timestamp>.json in the JMH result format.
+ */
+public class TableScrollBenchmark {
+
+    private static final double PIXELS_PER_FRAME = 120;
+    private static final int WARMUP_FRAMES = 120;
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        // The app keeps its data under user.home; point it at a scratch folder before anything loads
+        Path home = Files.createTempDirectory("petools-table-home");
+        System.setProperty("user.home", home.toString());
+        System.setProperty("javafx.animation.fullspeed", "true");
+        Files.createDirectories(ProjectStore.DATA_FILE.getParent());
+        ProjectStore.save(ProjectStore.DATA_FILE, Datasets.projects(rows));
+
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(started::countDown);
+        started.await();
+
+        try {
+            List<String> results = new ArrayList<>();
+            for (String mode : List.of("standard", "highVolume")) {
+                AppSettings.set(ProjectView.KEY_HIGH_VOLUME_ROWS, mode.equals("standard") ? Integer.toString(Integer.MAX_VALUE) : "0");
+                Run run = measure(rows, seconds);
+                System.out.printf(Locale.ROOT, "%s: %.1f fps avg, p99 frame %.2f ms, %.1f KB allocated per frame%n",
+                    mode, run.fps(), run.percentile(0.99), run.bytesPerFrame() / 1024.0);
+                results.add(result(mode, rows, "fps", run.fps(), "ops/s"));
+                results.add(result(mode, rows, "p99FrameMs", run.percentile(0.99), "ms"));
+                results.add(result(mode, rows, "bytesPerFrame", run.bytesPerFrame(), "B"));
+            }
+
+            Path out = Paths.get("results", "table-scroll-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmm")) + ".json");
+            Files.createDirectories(out.getParent());
+            try (Writer w = Files.newBufferedWriter(out)) {
+                w.write("[\n" + String.join(",\n", results) + "\n]\n");
+            }
+            System.out.println("Saved: " + out.toAbsolutePath());
+        } finally {
+            Platform.exit();
+            Datasets.deleteTree(home);
+        }
+    }
+
+    private record Run(long[] frameNanos, long allocatedBytes) {
+        double fps() {
+            return frameNanos.length / (Arrays.stream(frameNanos).sum() / 1e9);
+        }
+
+        double percentile(double p) {
+            long[] sorted = frameNanos.clone();
+            Arrays.sort(sorted);
+            return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+        }
+
+        double bytesPerFrame() {
+            return (double) allocatedBytes / frameNanos.length;
+        }
+    }
+
+    private static Run measure(int rows, int seconds) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        Run[] run = new Run[1];
+
+        Platform.runLater(() -> {
+            ProjectView view = new ProjectView();
+            Stage stage = new Stage();
+            stage.setScene(new Scene(view, 1280, 900));
+            stage.show();
+
+            @SuppressWarnings("unchecked")
+            TableView<ProjectView.Project> table = (TableView<ProjectView.Project>) view.lookup(".table-view");
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+            new AnimationTimer() {
+                final List<Long> frames = new ArrayList<>();
+                long last, allocStart, endAt;
+                int warmup = WARMUP_FRAMES;
+
+                @Override
+                public void handle(long now) {
+                    // Wait for a paged load to hand over every row
+                    if (table.getItems().size() < rows) return;
+
+                    VirtualFlow<?> flow = (VirtualFlow<?>) table.lookup(".virtual-flow");
+                    if (flow.getLastVisibleCell() != null && flow.getLastVisibleCell().getIndex() >= rows - 1) {
+                        table.scrollTo(0);
+                    } else {
+                        flow.scrollPixels(PIXELS_PER_FRAME);
+                    }
+
+                    if (warmup > 0) {
+                        if (--warmup == 0) {
+                            last = now;
+                            allocStart = threads.getCurrentThreadAllocatedBytes();
+                            endAt = now + TimeUnit.SECONDS.toNanos(seconds);
+                        }
+                        return;
+                    }
+                    frames.add(now - last);
+                    last = now;
+                    if (now >= endAt) {
+                        long allocated = threads.getCurrentThreadAllocatedBytes() - allocStart;
+                        stop();
+                        stage.close();
+                        run[0] = new Run(frames.stream().mapToLong(Long::longValue).toArray(), allocated);
+                        done.countDown();
+                    }
+                }
+            }.start();
+        });
+
+        if (!done.await(seconds + 120L, TimeUnit.SECONDS)) throw new IllegalStateException("Scroll run did not finish");
+        return run[0];
+    }
+
+    private static String result(String mode, int rows, String metric, double score, String unit) {
+        return String.format(Locale.ROOT,
+            "  {\"benchmark\":\"tableScroll.%s\",\"mode\":\"thrpt\",\"params\":{\"mode\":\"%s\",\"rows\":\"%d\"},"
+            + "\"primaryMetric\":{\"score\":%.2f,\"scoreUnit\":\"%s\",\"rawData\":[[%.2f]]}}",
+            metric, mode, rows, score, unit, score);
+    }
+}
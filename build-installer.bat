@@ -27,6 +27,8 @@ echo [3/3] Generating MSI Installer (Version %AppVersion%)...
 ::                     KEEP THIS ID THE SAME FOREVER. Do not change it.
 :: --win-dir-chooser:  Removed. Allowing users to change install paths breaks auto-updates often.
 ::                     Standard install location is safer for upgrades.
+:: --add-launcher:     petools-cli.exe, a console launcher for the headless CLI
+::                     (petools-cli import "123 Main St" / batch / cache), for scheduled tasks.
 
 jpackage --type msi ^
     --dest "%USERPROFILE%\Desktop" ^
@@ -38,6 +40,7 @@ jpackage --type msi ^
     --win-menu ^
     --win-shortcut ^
     --win-upgrade-uuid "a06c8882-7f21-41d3-9723-57a53c664320" ^
+    --add-launcher "petools-cli=petools-cli.properties" ^
     --app-version %AppVersion%
 
 echo.
@@ -0,0 +1,266 @@
+# Daniel Puckett & Joe Puckett | Place Engineering, PLLC
+# Offline geocoder for our service counties, built from county address points.
+#
+# Built once from a county export (shp / gpkg / geojson) and stored as <county>.aidx:
+# every address normalized to "<number> <street>#<unit>" (USPS suffix and directional
+# abbreviations, unit designators folded away), sorted by UTF-8 bytes, with its state
+# plane point and city. Sorted keys work like a flattened trie: any prefix is one
+# contiguous run found by binary search, so "123 MAIN" finds 123 Main St and Main Ave.
+# Same memory-mapped file layout as parcel_index, so a lookup reads a few pages.
+
+import datetime
+import os
+import re
+
+import numpy as np
+
+import parcel_index
+
+INDEX_DIR = os.path.join(os.path.expanduser("~"), ".petools", "addresses")
+MAGIC = b"PEADDR1\0"
+
+
+# --- 1. NORMALIZATION ---
+
+SUFFIXES = {
+    "ALLEY": "ALY", "AVENUE": "AVE", "AV": "AVE", "BEND": "BND", "BOULEVARD": "BLVD", "BRANCH": "BR",
+    "CENTER": "CTR", "CIRCLE": "CIR", "COURT": "CT", "COVE": "CV", "CREEK": "CRK", "CROSSING": "XING",
+    "DRIVE": "DR", "EXPRESSWAY": "EXPY", "EXTENSION": "EXT", "FREEWAY": "FWY", "GLEN": "GLN",
+    "GROVE": "GRV", "HEIGHTS": "HTS", "HIGHWAY": "HWY", "HILL": "HL", "HOLLOW": "HOLW", "KNOLL": "KNL",
+    "LAKE": "LK", "LANDING": "LNDG", "LANE": "LN", "MEADOW": "MDW", "MEADOWS": "MDWS", "MILL": "ML",
+    "PARKWAY": "PKWY", "PLACE": "PL", "PLAZA": "PLZ", "POINT": "PT", "RIDGE": "RDG", "ROAD": "RD",
+    "SPRINGS": "SPGS", "SQUARE": "SQ", "STATION": "STA", "STREET": "ST", "STR": "ST", "SUMMIT": "SMT",
+    "TERRACE": "TER", "TRACE": "TRCE", "TRAIL": "TRL", "VALLEY": "VLY", "VIEW": "VW", "VILLAGE": "VLG",
+    "WOODS": "WDS",
+}
+DIRECTIONS = {
+    "NORTH": "N", "SOUTH": "S", "EAST": "E", "WEST": "W",
+    "NORTHEAST": "NE", "NORTHWEST": "NW", "SOUTHEAST": "SE", "SOUTHWEST": "SW",
+}
+ORDINALS = {
+    "FIRST": "1ST", "SECOND": "2ND", "THIRD": "3RD", "FOURTH": "4TH", "FIFTH": "5TH",
+    "SIXTH": "6TH", "SEVENTH": "7TH", "EIGHTH": "8TH", "NINTH": "9TH", "TENTH": "10TH",
+}
+UNIT_WORDS = {"APT", "APARTMENT", "UNIT", "STE", "SUITE", "BLDG", "BUILDING", "FL", "FLOOR",
+              "RM", "ROOM", "LOT", "SPC", "SPACE", "#"}
+STATE_WORDS = {"NC", "NORTH CAROLINA"}
+
+_TOKEN = re.compile(r"#|[^\s#]+")
+
+def _word(token):
+    return SUFFIXES.get(token) or DIRECTIONS.get(token) or ORDINALS.get(token) or token
+
+def normalize(line):
+    # "123 N. Main Street Apt 4B" -> ("123 N MAIN ST", "4B"); (None, "") without a house number
+    tokens = _TOKEN.findall(re.sub(r"[.,;]", " ", str(line).upper()))
+    if not tokens or not tokens[0][0].isdigit():
+        return None, ""
+    street, unit, in_unit = [], [], False
+    for token in tokens:
+        in_unit = in_unit or token in UNIT_WORDS
+        if not in_unit: street.append(_word(token))
+        elif token not in UNIT_WORDS: unit.append(token)
+    return " ".join(street), "".join(unit)
+
+def _key(street, unit=""):
+    return f"{street}#{unit}".encode("utf-8")
+
+
+# --- 2. BUILD ---
+
+FULL_FIELDS = ["FULL_ADDRESS", "FULLADDRESS", "FULLADDR", "FULL_ADDR", "SITE_ADDRESS", "SITE_ADDRE", "ADDRESS", "ADDR"]
+NUMBER_FIELDS = ["ADD_NUMBER", "ADDR_NUM", "ADDRESS_NUMBER", "ADDRNUM", "HOUSE_NUM", "STNUM"]
+STREET_FIELDS = [
+    ["ST_PREDIR", "STPRE", "PREDIR", "PRE_DIR"],
+    ["ST_PRETYP", "PRETYPE"],
+    ["ST_NAME", "STNAME", "STREET_NAME", "STREETNAME", "STREET"],
+    ["ST_POSTYP", "STTYPE", "STREET_TYPE", "ST_TYPE", "SUFFIX"],
+    ["ST_POSDIR", "STSUF", "SUFDIR", "POST_DIR"],
+]
+UNIT_FIELDS = ["UNIT", "UNIT_NUM", "UNITNUM", "UNIT_NUMBER", "ADDR_UNIT"]
+CITY_FIELDS = ["POST_COMM", "POSTAL_CITY", "CITY", "MUNICIPALITY", "INC_MUNI", "PLACE_NAME", "MSAG_COMM"]
+
+def _field(columns, candidates):
+    upper = {str(c).upper(): c for c in columns}
+    return next((upper[c] for c in candidates if c in upper), None)
+
+def _text(value):
+    return "" if value is None or value != value else str(value).strip()
+
+def build(export_path, county, out_dir=INDEX_DIR):
+    import geopandas as gpd
+
+    print(f"📦 Building address index: {county.title()}")
+    gdf = gpd.read_file(export_path)
+    if gdf.crs is not None and gdf.crs.to_epsg() != 2264:
+        gdf = gdf.to_crs(epsg=2264)
+    gdf = gdf[gdf.geometry.notna() & ~gdf.geometry.is_empty].reset_index(drop=True)
+
+    full = _field(gdf.columns, FULL_FIELDS)
+    number = _field(gdf.columns, NUMBER_FIELDS)
+    parts = [f for f in (_field(gdf.columns, c) for c in STREET_FIELDS) if f]
+    unit_col = _field(gdf.columns, UNIT_FIELDS)
+    city_col = _field(gdf.columns, CITY_FIELDS)
+    if not full and not (number and parts):
+        print("❌ Export has no address field (full address, or number + street name)")
+        return None
+
+    points = gdf.geometry.representative_point()
+    xs, ys = points.x.tolist(), points.y.tolist()
+    column = lambda c: gdf[c].tolist() if c else [None] * len(gdf)
+    if full:
+        lines = [_text(v) for v in column(full)]
+    else:
+        pieces = [column(c) for c in [number] + parts]
+        lines = [" ".join(t for t in (_text(v) for v in row) if t) for row in zip(*pieces)]
+    units, city_names = column(unit_col), column(city_col)
+
+    cities, city_ids, records = [], {}, []
+    for i, line in enumerate(lines):
+        street, unit = normalize(line)
+        if not street: continue
+        if _text(units[i]):
+            unit = normalize("0 # " + _text(units[i]))[1]
+        city = _text(city_names[i]).title()
+        if city not in city_ids:
+            city_ids[city] = len(cities)
+            cities.append(city)
+        records.append((_key(street, unit), xs[i], ys[i], city_ids[city]))
+
+    if not records:
+        print("❌ Export has no usable addresses")
+        return None
+    records.sort(key=lambda r: r[0])
+
+    key_offsets = np.zeros(len(records) + 1, dtype="<i8")
+    key_offsets[1:] = np.cumsum([len(r[0]) for r in records])
+    xy = np.array([(r[1], r[2]) for r in records], dtype="<f8")
+    city_idx = np.array([r[3] for r in records], dtype="<i4")
+
+    os.makedirs(out_dir, exist_ok=True)
+    path = os.path.join(out_dir, parcel_index.county_key(county) + ".aidx")
+    header = {
+        "county": parcel_index.county_key(county),
+        "count": len(records),
+        "cities": cities,
+        "crs": "EPSG:2264",
+        "source": os.path.basename(export_path),
+        "built": datetime.date.today().isoformat(),
+    }
+    parcel_index._write_sections(path, MAGIC, header, [
+        ("key_offsets", key_offsets.tobytes()),
+        ("keys", b"".join(r[0] for r in records)),
+        ("xy", xy.tobytes()),
+        ("city", city_idx.tobytes()),
+    ])
+    print(f"✅ Indexed {len(records)} addresses: {path}")
+    return path
+
+
+# --- 3. LOOKUP ---
+
+class AddressIndex:
+
+    def __init__(self, path):
+        self._mm = np.memmap(path, mode="r", dtype=np.uint8)
+        self.header = parcel_index._read_header(self._mm, MAGIC)
+        self.count = self.header["count"]
+        self.county = self.header["county"].replace("_", " ").title() + " County"
+        self.cities = self.header["cities"]
+        self._offsets = parcel_index._section(self._mm, self.header, "key_offsets", "<i8")
+        self._keys_at = self.header["sections"]["keys"][0]
+        self._xy = parcel_index._section(self._mm, self.header, "xy", "<f8").reshape(-1, 2)
+        self._city = parcel_index._section(self._mm, self.header, "city", "<i4")
+
+    def key(self, i):
+        return bytes(self._mm[self._keys_at + int(self._offsets[i]):self._keys_at + int(self._offsets[i + 1])])
+
+    def lower_bound(self, key):
+        lo, hi = 0, self.count
+        while lo < hi:
+            mid = (lo + hi) // 2
+            if self.key(mid) < key: lo = mid + 1
+            else: hi = mid
+        return lo
+
+    def prefix(self, prefix, limit=50):
+        # Record ids whose key starts with prefix, in key order
+        ids = []
+        i = self.lower_bound(prefix)
+        while i < self.count and len(ids) < limit and self.key(i).startswith(prefix):
+            ids.append(i)
+            i += 1
+        return ids
+
+    def street(self, i):
+        return self.key(i).decode("utf-8").split("#", 1)[0]
+
+    def city(self, i):
+        return self.cities[self._city[i]]
+
+    def point(self, i):
+        return float(self._xy[i, 0]), float(self._xy[i, 1]), self.city(i) or None
+
+
+def _parse(address):
+    # "123 Main St Apt 4, Raleigh, NC 27601" -> (street, unit, [hint words])
+    parts = [p.strip() for p in str(address).split(",") if p.strip()]
+    if not parts: return None, "", []
+    street, unit = normalize(parts[0])
+    hints = []
+    for p in parts[1:]:
+        p = re.sub(r"\b\d{5}(-\d{4})?\b", "", p.upper()).strip()
+        if p and p not in STATE_WORDS: hints.append(p)
+    return street, unit, hints
+
+def _choose(index, ids, hints):
+    # Given a city hint, only records in that city count (unless the index has no cities);
+    # the answer must be one street in one city, anything else goes to the network geocoder
+    pool = ids
+    if hints and any(index.city(i) for i in ids):
+        pool = [i for i in ids if index.city(i) and any(f" {index.city(i).upper()} " in f" {h} " for h in hints)]
+        if not pool: return None
+    return pool[0] if len({(index.street(i), index.city(i)) for i in pool}) == 1 else None
+
+def lookup(index, street, unit, hints):
+    # Exact street (+ unit), then the same with trailing words read as the city,
+    # then a prefix match when the suffix was left off ("123 Main, Raleigh")
+    words = street.split()
+    for n in range(len(words), 1, -1):
+        candidate = " ".join(words[:n])
+        extra = [" ".join(words[n:])] if n < len(words) else []
+        ids = index.prefix(_key(candidate, unit), limit=20) if unit else []
+        ids = [i for i in ids if index.key(i) == _key(candidate, unit)]
+        if not ids:
+            ids = index.prefix(_key(candidate), limit=20)
+        if ids:
+            hit = _choose(index, ids, hints + extra)
+            if hit is not None: return hit
+    ids = index.prefix((street + " ").encode("utf-8"), limit=20)
+    return _choose(index, ids, hints) if ids else None
+
+_open = {}
+
+def open_all(index_dir=INDEX_DIR):
+    if index_dir not in _open:
+        indexes = []
+        if os.path.isdir(index_dir):
+            for name in sorted(os.listdir(index_dir)):
+                if not name.endswith(".aidx"): continue
+                try:
+                    indexes.append(AddressIndex(os.path.join(index_dir, name)))
+                except (OSError, ValueError, KeyError):
+                    pass
+        _open[index_dir] = indexes
+    return _open[index_dir]
+
+def geocode(address, index_dir=INDEX_DIR):
+    # (x, y, city, county) in EPSG:2264 from the first county index that knows the address, else None
+    street, unit, hints = _parse(address)
+    if not street: return None
+    for index in open_all(index_dir):
+        hit = lookup(index, street, unit, hints)
+        if hit is not None:
+            x, y, city = index.point(hit)
+            return x, y, city, index.county
+    return None
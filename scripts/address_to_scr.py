@@ -12,6 +12,20 @@ import pandas as pd
 import sys
 import os
 import io
+import queue
+import re
+import threading
+import time
+from concurrent.futures import ThreadPoolExecutor
+from urllib.parse import urlparse
+
+import address_index
+import delta_sync
+import endpoint_health
+import feature_store
+import layer_cache
+import layer_profiles
+import parcel_index
 
 # --- 1. DYNAMIC PATH SETUP (For Java/Exe Compatibility) ---
 # Detect User Desktop automatically
@@ -32,6 +46,34 @@ def suppress_warnings():
     import warnings
     warnings.filterwarnings("ignore")
 
+# --- BACKGROUND MODE (Prefetch runs must not compete with the user) ---
+class Throttle:
+    # Sleeps after each response so the average rate stays under max_kbps
+    def __init__(self, max_kbps):
+        self.bytes_per_sec = max(1.0, max_kbps) * 1024 / 8
+        self.start = time.monotonic()
+        self.total = 0
+        self.lock = threading.Lock()  # paging threads share one budget
+
+    def consume(self, nbytes):
+        with self.lock:
+            self.total += nbytes
+            ahead = self.total / self.bytes_per_sec - (time.monotonic() - self.start)
+        if ahead > 0: time.sleep(ahead)
+
+THROTTLE = None
+
+def lower_priority():
+    try:
+        if os.name == "nt":
+            import ctypes
+            BELOW_NORMAL_PRIORITY_CLASS = 0x4000
+            ctypes.windll.kernel32.SetPriorityClass(ctypes.windll.kernel32.GetCurrentProcess(), BELOW_NORMAL_PRIORITY_CLASS)
+        else:
+            os.nice(10)
+    except Exception:
+        pass
+
 # --- 2. ENGINEERING GRADE SESSION (Handles Connection Drops) ---
 def get_session():
     session = requests.Session()
@@ -40,8 +82,9 @@ def get_session():
     adapter = HTTPAdapter(max_retries=retries)
     session.mount('http://', adapter)
     session.mount('https://', adapter)
-    # Browser header to avoid 403 blocks
-    session.headers.update({'User-Agent': 'Mozilla/5.0 (Windows NT 10.0; Win64; x64)'})
+    # Browser header to avoid 403 blocks; JSON compresses ~10x, so always ask for it compressed
+    session.headers.update({'User-Agent': 'Mozilla/5.0 (Windows NT 10.0; Win64; x64)',
+                            'Accept-Encoding': 'gzip, deflate'})
     return session
 
 def get_coords_nconemap(address):
@@ -71,119 +114,449 @@ def get_coords_nconemap(address):
         pass
     return None, None, city, county
 
-def get_layer(x, y, layer_name, urls_list):
+def get_layer(x, y, layer_name, urls_list, county=None, out_dir=OUTPUT_FOLDER, on_fetch=None, envelope=None):
     print(f"📦 Fetching layer: {layer_name.title()}")
+    envelope = envelope or site_envelope(x, y)
+
+    # Parcels come from the local county index whenever it covers the site
+    if layer_name == "parcels" and county:
+        local_gdf = get_local_parcels(county, envelope)
+        if local_gdf is not None:
+            return store_layer(local_gdf, layer_name, out_dir)
 
     if isinstance(urls_list, str): urls_list = [urls_list]
-    out_path = os.path.join(OUTPUT_FOLDER, f"{layer_name}.shp")
     session = get_session()
 
-    # --- ACTIVE FAILOVER LOOP ---
-    for url in urls_list:
-        offset = 0
-        limit = 2000
-        all_gdfs = []
-        failed_this_url = False
-
-        while True:
-            params = {
-                "geometry": f"{x-5000},{y-5000},{x+5000},{y+5000}",
-                "geometryType": "esriGeometryEnvelope",
-                "inSR": 2264,
-                "spatialRel": "esriSpatialRelIntersects",
-                "outFields": "*",
-                "returnGeometry": True,
-                "resultOffset": offset,
-                "f": "json"
-            }
-            try:
-                response = session.get(url, params=params, timeout=30)
-
-                if response.status_code != 200:
-                    failed_this_url = True; break
-
-                data = response.json()
-                if "features" not in data or not data["features"]:
-                    break
-
-                # --- CRITICAL FIX: Manual EsriJSON -> GeoJSON Translation ---
-                # This prevents the 'NoneType' crash and handles messy data
-                clean_features = []
-                for feat in data["features"]:
-                    attrs = feat.get("attributes", {})
-                    clean_attrs = {}
-                    for k, v in attrs.items():
-                        if k is None or k == "": clean_attrs["field"] = v
-                        else: clean_attrs[str(k)] = v
-
-                    geom = feat.get("geometry")
-                    if geom:
-                        if "paths" in geom:
-                            geom["type"] = "MultiLineString"
-                            geom["coordinates"] = geom.pop("paths")
-                        elif "rings" in geom:
-                            geom["type"] = "Polygon"
-                            geom["coordinates"] = geom.pop("rings")
-                        elif "x" in geom and "y" in geom:
-                            geom["type"] = "Point"
-                            geom["coordinates"] = [geom["x"], geom["y"]]
-
-                    clean_features.append({
-                        "type": "Feature", "geometry": geom, "properties": clean_attrs
-                    })
-
-                gdf = gpd.GeoDataFrame.from_features(clean_features, crs="EPSG:2264")
-                if gdf.empty: break
-
-                all_gdfs.append(gdf)
-                count = len(gdf)
-
-                # Java Console Progress Update
-                if sum(len(g) for g in all_gdfs) > 0:
-                    print(f"   ... {sum(len(g) for g in all_gdfs)} items found")
-
-                if count < limit: break
-                offset += limit
+    # --- ACTIVE FAILOVER: fastest healthy source first, a mirror joins in when it's slow ---
+    sources, skipped = endpoint_health.order(urls_list), endpoint_health.skipped(urls_list)
+    if skipped and len(skipped) == len(urls_list):
+        print(f"⚠️ Every source for {layer_name} is failing, trying {urlparse(sources[0]).netloc} early")
+    else:
+        for url, wait in skipped:
+            print(f"⚠️ Skipping {urlparse(url).netloc} (failing, next try in {wait / 60:.0f} min)")
+    hit = fetch_hedged(session, sources, envelope, layer_name)
+    if hit and not hit[1].empty:
+        url, gdf = hit
+        # Success! Process and Save
+        if on_fetch: on_fetch(session, url, gdf)
+        return store_layer(gdf, layer_name, out_dir)
+
+    if hit:
+        print(f"⚠️ No features found for {layer_name}")
+    else:
+        print(f"⚠️ Skipped {layer_name}: no source could be reached")
+    return None
 
+def fetch_hedged(session, urls, envelope, layer_name):
+    # Returns (url, gdf) from the first source with features, else (url, empty gdf) if some
+    # source answered with none, else None. Sources run one at a time, except that one still
+    # running past its hedge delay gets the next mirror started alongside; whichever answers
+    # first wins and the rest are stopped.
+    results = queue.Queue()
+    stop = threading.Event()
+    pending = list(urls)
+    running = 0
+    empty = None
+
+    def attempt(url, progress):
+        started = time.monotonic()
+        gdf = query_features(session, url, envelope, progress=progress, layer=layer_name, stop=stop)
+        if gdf is not None:
+            endpoint_health.record(url, True, time.monotonic() - started)
+        elif not stop.is_set():
+            endpoint_health.record(url, False)
+        results.put((url, gdf))
+
+    def start_next(progress):
+        nonlocal running
+        url = pending.pop(0)
+        running += 1
+        # Daemon: a losing source must not hold the engine open
+        threading.Thread(target=attempt, args=(url, progress), daemon=True).start()
+        return url
+
+    if not pending: return None
+    current = start_next(True)
+    while running:
+        try:
+            url, gdf = results.get(timeout=endpoint_health.hedge_delay(current) if pending else None)
+        except queue.Empty:
+            current = start_next(False)
+            print(f"⏱️ Slow response, also trying {urlparse(current).netloc}")
+            continue
+        running -= 1
+        if gdf is not None and not gdf.empty:
+            stop.set()
+            return url, gdf
+        if gdf is not None:
+            empty = (url, gdf)
+        if pending and not running:
+            current = start_next(True)
+    return empty
+
+# --- QUERY EXTENT (Sized to the subject parcel instead of a fixed square) ---
+DEFAULT_BUFFER = 500                        # ft around the subject parcel
+LAYER_BUFFERS = {"roads": 1000, "stream": 1500}  # layers that need context well past the lot
+FALLBACK_HALF_SIZE = 5000                   # no parcel found: the old fixed square
+MAX_HALF_SIZE = 5000                        # never reach further than this from the site point
+
+def site_envelope(x, y, half_size=FALLBACK_HALF_SIZE):
+    return (x - half_size, y - half_size, x + half_size, y + half_size)
+
+def site_extent(x, y, parcel, buffer):
+    # Parcel bounds (always including the site point) plus buffer, clipped to MAX_HALF_SIZE
+    if parcel is None or parcel.is_empty:
+        return site_envelope(x, y)
+    minx, miny, maxx, maxy = parcel.bounds
+    return (max(min(minx, x) - buffer, x - MAX_HALF_SIZE), max(min(miny, y) - buffer, y - MAX_HALF_SIZE),
+            min(max(maxx, x) + buffer, x + MAX_HALF_SIZE), min(max(maxy, y) + buffer, y + MAX_HALF_SIZE))
+
+def extent_radius(x, y, envelope):
+    # Smallest circle around the site point that reaches every edge of the envelope
+    return round(max(x - envelope[0], envelope[2] - x, y - envelope[1], envelope[3] - y))
+
+def subject_parcel(x, y, county, parcels_urls):
+    # The parcel under the site point as (geometry, {field: value}); (None, {}) when none found.
+    # The local county index first, then the parcels services (none given: local only).
+    index = parcel_index.open_for(county)
+    if index is not None:
+        hits = index.query_point(x, y)
+        if hits:
+            attrs = index.attributes(hits[:1])
+            return index.geometry(hits[0]), {k: v[0] for k, v in attrs.items()}
+
+    if not parcels_urls: return None, {}
+    from shapely.geometry import Point
+    point = Point(x, y)
+    session = get_session()
+    for url in parcels_urls:
+        gdf = query_features(session, url, (x - 1, y - 1, x + 1, y + 1), layer="parcels")
+        if gdf is None or gdf.empty: continue
+        inside = gdf[gdf.geometry.covers(point)]
+        row = (inside if not inside.empty else gdf).iloc[0]
+        return row.geometry, row.drop(labels=gdf.geometry.name).to_dict()
+    return None, {}
+
+# --- PAGING (Object id chunks, fetched in parallel) ---
+PAGE_WORKERS = 4
+MAX_CHUNK = 2000          # ids per request, when the service allows that many
+CHUNK_ATTEMPTS = 3
+
+def query_features(session, url, envelope=None, where=None, object_ids=None, progress=False, layer=None, stop=None):
+    # Returns a GeoDataFrame (empty when nothing matched), None on failure.
+    # Lists the matching object ids first, then fetches them in maxRecordCount chunks on a few
+    # threads; services that won't list ids are paged by offset instead.
+    # layer: apply that layer's profile (fields, precision, generalization; see layer_profiles)
+    # stop: an Event that abandons the fetch (returns None) once set
+    profile = layer_profiles.query_params(session, url, layer) if layer else {"outFields": "*"}
+    params = {"where": where or "1=1", "returnGeometry": True, "f": "json", **profile}
+    if envelope:
+        params.update({
+            "geometry": ",".join(str(v) for v in envelope),
+            "geometryType": "esriGeometryEnvelope",
+            "inSR": 2264,
+            "spatialRel": "esriSpatialRelIntersects",
+        })
+
+    ids = sorted(object_ids) if object_ids else list_object_ids(session, url, params)
+    if ids is None:
+        return query_by_offset(session, url, params, progress, stop)
+    if not ids:
+        return gpd.GeoDataFrame(geometry=[], crs="EPSG:2264")
+
+    info = delta_sync.service_info(session, url) or {}
+    size = max(1, min(int(info.get("maxRecordCount") or 1000), MAX_CHUNK))
+    chunks = [ids[i:i + size] for i in range(0, len(ids), size)]
+    chunk_params = {k: v for k, v in params.items() if k not in ("where", "geometry", "geometryType", "inSR", "spatialRel")}
+
+    parts, found, wire_bytes = [None] * len(chunks), 0, 0
+    with ThreadPoolExecutor(max_workers=min(PAGE_WORKERS, len(chunks))) as pool:
+        futures = [pool.submit(fetch_chunk, session, url, chunk_params, chunk, stop) for chunk in chunks]
+        # Collected in submission order so the result keeps object id order
+        for i, future in enumerate(futures):
+            gdf, received = future.result()
+            if gdf is None:
+                for f in futures: f.cancel()
+                return None
+            parts[i] = gdf
+            found += len(gdf)
+            wire_bytes += received
+            # Java Console Progress Update
+            if progress:
+                print(f"   ... {found} items found ({wire_bytes / 1048576:.1f} MB)")
+
+    parts = [g for g in parts if not g.empty]
+    if not parts:
+        return gpd.GeoDataFrame(geometry=[], crs="EPSG:2264")
+    return gpd.GeoDataFrame(pd.concat(parts, ignore_index=True), crs="EPSG:2264")
+
+def list_object_ids(session, url, params):
+    # Object ids matching the query, or None when the service can't list them
+    id_params = {k: v for k, v in params.items() if k not in ("outFields", "outSR", "geometryPrecision", "maxAllowableOffset")}
+    id_params.update({"returnIdsOnly": True, "returnGeometry": False})
+    data, _ = get_json(session, url, id_params)
+    if data is None or "objectIds" not in data: return None
+    return sorted(data["objectIds"] or [])
+
+def fetch_chunk(session, url, params, ids, stop=None):
+    # One chunk of object ids, retried with backoff; (gdf, bytes received) or (None, 0)
+    received = 0
+    for attempt in range(CHUNK_ATTEMPTS):
+        if stop and stop.is_set(): break
+        if attempt: time.sleep(2 ** (attempt - 1))
+        # POST: a few thousand ids don't fit in a URL
+        data, n = get_json(session, url, {**params, "objectIds": ",".join(str(i) for i in ids)}, post=True)
+        received += n
+        if data is not None:
+            try:
+                return esri_to_gdf(data.get("features") or []), received
             except Exception:
-                failed_this_url = True
-                break
+                pass
+    return None, 0
 
-        if failed_this_url: continue
-        if not all_gdfs: continue
+def get_json(session, url, params, post=False):
+    # One query request; returns (json dict, bytes received), dict None on any failure
+    try:
+        response = session.post(url, data=params, timeout=30) if post else session.get(url, params=params, timeout=30)
+        # Bytes as received, before gzip is undone
+        received = (response.raw.tell() if hasattr(response.raw, "tell") else 0) or len(response.content)
+        if THROTTLE: THROTTLE.consume(received)
+        if response.status_code != 200: return None, received
+        data = response.json()
+        return (None if "error" in data else data), received
+    except Exception:
+        return None, 0
+
+def query_by_offset(session, url, params, progress=False, stop=None):
+    # Sequential resultOffset paging, for services that won't list object ids
+    offset = 0
+    all_gdfs = []
+    wire_bytes = 0
+
+    while True:
+        if stop and stop.is_set(): return None
+        data, received = get_json(session, url, {**params, "resultOffset": offset})
+        wire_bytes += received
+        if data is None:
+            return None
+        if not data.get("features"):
+            break
+
+        gdf = esri_to_gdf(data["features"])
+        if gdf.empty: break
+        all_gdfs.append(gdf)
+
+        # Java Console Progress Update
+        if progress:
+            print(f"   ... {sum(len(g) for g in all_gdfs)} items found ({wire_bytes / 1048576:.1f} MB)")
+
+        # The service says when a page was cut short by its record limit
+        if not data.get("exceededTransferLimit"): break
+        offset += len(data["features"])
+
+    if not all_gdfs:
+        return gpd.GeoDataFrame(geometry=[], crs="EPSG:2264")
+    return gpd.GeoDataFrame(pd.concat(all_gdfs, ignore_index=True), crs="EPSG:2264")
+
+def esri_to_gdf(features):
+    # --- CRITICAL FIX: Manual EsriJSON -> GeoJSON Translation ---
+    # This prevents the 'NoneType' crash and handles messy data
+    clean_features = []
+    for feat in features:
+        attrs = feat.get("attributes", {})
+        clean_attrs = {}
+        for k, v in attrs.items():
+            if k is None or k == "": clean_attrs["field"] = v
+            else: clean_attrs[str(k)] = v
+
+        geom = feat.get("geometry")
+        if geom:
+            if "paths" in geom:
+                geom["type"] = "MultiLineString"
+                geom["coordinates"] = geom.pop("paths")
+            elif "rings" in geom:
+                geom["type"] = "Polygon"
+                geom["coordinates"] = geom.pop("rings")
+            elif "x" in geom and "y" in geom:
+                geom["type"] = "Point"
+                geom["coordinates"] = [geom["x"], geom["y"]]
+
+        clean_features.append({
+            "type": "Feature", "geometry": geom, "properties": clean_attrs
+        })
+
+    return gpd.GeoDataFrame.from_features(clean_features, crs="EPSG:2264")
+
+def prepare_layer(final_gdf):
+    # Shapefile-safe copy: valid geometry, plain dates, unique 10-character lowercase columns
+    final_gdf = final_gdf.copy()
+    if not final_gdf.is_valid.all(): final_gdf["geometry"] = final_gdf.buffer(0)
+
+    for col in final_gdf.select_dtypes(include=['datetime64[ns]', 'datetime64[ns, UTC]']).columns:
+        final_gdf[col] = final_gdf[col].apply(lambda v: v.date() if pd.notna(v) and hasattr(v, 'date') else v)
+
+    # Truncate & Dedup Columns
+    final_gdf.columns = [(str(col).lower() if col is not None else "field").replace("__", "_")[:10] for col in final_gdf.columns]
+
+    final_cols = []
+    col_counts = {}
+    for col in final_gdf.columns:
+        if col in col_counts:
+            col_counts[col] += 1
+            suffix = str(col_counts[col])
+            final_cols.append(col[:10-len(suffix)-1] + "_" + suffix)
+        else:
+            col_counts[col] = 0
+            final_cols.append(col)
+    final_gdf.columns = final_cols
+    return final_gdf
 
-        # Success! Process and Save
-        final_gdf = pd.concat(all_gdfs, ignore_index=True)
-        if not final_gdf.is_valid.all(): final_gdf["geometry"] = final_gdf.buffer(0)
-
-        for col in final_gdf.select_dtypes(include=['datetime64[ns]', 'datetime64[ns, UTC]']).columns:
-            final_gdf[col] = final_gdf[col].apply(lambda v: v.date() if pd.notna(v) and hasattr(v, 'date') else v)
-
-        # Truncate & Dedup Columns
-        final_gdf.columns = [(str(col).lower() if col is not None else "field").replace("__", "_")[:10] for col in final_gdf.columns]
-
-        final_cols = []
-        col_counts = {}
-        for col in final_gdf.columns:
-            if col in col_counts:
-                col_counts[col] += 1
-                suffix = str(col_counts[col])
-                final_cols.append(col[:10-len(suffix)-1] + "_" + suffix)
-            else:
-                col_counts[col] = 0
-                final_cols.append(col)
-        final_gdf.columns = final_cols
+def store_layer(gdf, layer_name, out_dir):
+    # Working copy between stages (feature_store): full field names, spatially indexed
+    try:
+        return feature_store.write(os.path.join(out_dir, f"{layer_name}.pef"), gdf)
+    except Exception as e:
+        print(f"❌ Failed to save {layer_name}: {e}")
+        return None
 
-        try:
-            final_gdf.to_file(out_path, driver="ESRI Shapefile", encoding='utf-8')
-            print(f"✅ Saved: {out_path}")
-            return out_path
-        except Exception as e:
-            print(f"❌ Failed to save {layer_name}: {e}")
-            return None
+def save_layer(final_gdf, layer_name, out_dir=OUTPUT_FOLDER):
+    out_path = os.path.join(out_dir, f"{layer_name}.shp")
+    final_gdf = prepare_layer(final_gdf)
 
-    print(f"⚠️ No features found for {layer_name}")
-    return None
+    # Topo skips MAPIMPORT: elevation + linetype generation go straight into the entities
+    if layer_name == "topo":
+        return write_topo_entities(final_gdf, os.path.join(out_dir, "topo.lsp"))
+
+    try:
+        final_gdf.to_file(out_path, driver="ESRI Shapefile", encoding='utf-8')
+        return out_path
+    except Exception as e:
+        print(f"❌ Failed to save {layer_name}: {e}")
+        return None
+
+# --- EXPORT (The only stage that writes shapefiles) ---
+def build_export(pef, layer_name):
+    # The layer's shapefile / topo.lsp, next to its store; rebuilt only when the store is newer
+    out_dir = os.path.dirname(pef)
+    out = os.path.join(out_dir, "topo.lsp" if layer_name == "topo" else f"{layer_name}.shp")
+    if os.path.exists(out) and os.stat(out).st_mtime_ns > os.stat(pef).st_mtime_ns:
+        return out
+    return save_layer(feature_store.read(pef), layer_name, out_dir)
+
+def export_layer(pef, layer_name, label="Saved"):
+    # Copies the export into CAD-IMPORTS, with the store alongside for the layer preview
+    out = build_export(pef, layer_name)
+    if not out: return None
+    try:
+        out = layer_cache.copy_out(out, OUTPUT_FOLDER)
+    except OSError as e:
+        print(f"❌ Failed to export {layer_name}: {e}")
+        return None
+    print(f"✅ {label}: {out}")
+    return out
+
+# --- OFFLINE PARCELS (Local index built from a county export) ---
+def get_local_parcels(county, envelope):
+    index = parcel_index.open_for(county)
+    if index is None: return None
+
+    if not index.covers(*envelope):
+        return None
+
+    ids = index.query_envelope(*envelope)
+    if not ids: return None
+    print(f"   ... {len(ids)} items found (offline index, built {index.header['built']})")
+    return index.to_geodataframe(ids)
+
+def print_subject_parcel(parcel, attrs, envelope):
+    if parcel is None:
+        print(f"⚠️ Subject parcel not found, using the full {2 * FALLBACK_HALF_SIZE} ft query extent")
+        return
+    pin = next((attrs[k] for k in ("PIN_NUM", "pin_num", "PIN", "pin") if k in attrs), None)
+    owner = next((attrs[k] for k in ("OWNER", "owner") if k in attrs), None)
+    print(f"🏠 Subject Parcel: PIN {pin or '?'}" + (f" ({owner})" if owner else "")
+          + f", {parcel.area / 43560:.2f} ac")
+    print(f"📐 Query extent: {envelope[2] - envelope[0]:.0f} x {envelope[3] - envelope[1]:.0f} ft")
+
+# --- TOPO BAKING (Replaces the OD:topo elevation pass) ---
+# Contours are written as entmake calls so every LWPOLYLINE is born with its
+# elevation (DXF 38) and linetype generation (DXF 70 bit 128) already set.
+TOPO_LAYER = "V-TOPO-MINR"
+ELEVATION_FIELDS = ["elev", "elevation", "contour", "z"]
+
+def write_topo_entities(gdf, lsp_path):
+    elev_col = next((c for c in ELEVATION_FIELDS if c in gdf.columns), None)
+    if elev_col is None:
+        print("⚠️ Topo layer has no elevation field, contours will be flat")
+
+    count = 0
+    try:
+        with open(lsp_path, "w", encoding="utf-8") as f:
+            # Tagged like a shapefile import (PetoolsPostImport), so a refresh clears exactly these
+            f.write('(regapp "PETOOLS_TOPO")\n')
+            f.write("(defun petools:mkpl (lay elev closed pts)\n")
+            f.write("  (entmake (append (list '(0 . \"LWPOLYLINE\") '(100 . \"AcDbEntity\") (cons 8 lay)\n")
+            f.write("                         '(100 . \"AcDbPolyline\") (cons 90 (length pts))\n")
+            f.write("                         (cons 70 (+ 128 closed)) (cons 38 elev))\n")
+            f.write("                   (mapcar '(lambda (p) (cons 10 p)) pts)\n")
+            f.write("                   '((-3 (\"PETOOLS_TOPO\" (1000 . \"topo\")))))))\n")
+
+            for _, row in gdf.iterrows():
+                geom = row.geometry
+                if geom is None or geom.is_empty: continue
+
+                try:
+                    elev = float(row[elev_col]) if elev_col is not None else 0.0
+                except (TypeError, ValueError):
+                    elev = 0.0
+
+                for coords, closed in _topo_parts(geom):
+                    if len(coords) < 2: continue
+                    pts = " ".join(f"({px:.3f} {py:.3f})" for px, py, *_ in coords)
+                    f.write(f'(petools:mkpl "{TOPO_LAYER}" {elev:.2f} {closed} \'({pts}))\n')
+                    count += 1
+
+            f.write("(princ)\n")
+
+        print(f"   ... {count} contours")
+        return lsp_path
+    except Exception as e:
+        print(f"❌ Failed to save topo: {e}")
+        return None
+
+def _topo_parts(geom):
+    # Yields (coords, closed_flag) for every polyline a contour geometry produces
+    if geom.geom_type == "LineString":
+        yield list(geom.coords), 0
+    elif geom.geom_type == "MultiLineString":
+        for part in geom.geoms: yield list(part.coords), 0
+    elif geom.geom_type == "Polygon":
+        yield list(geom.exterior.coords)[:-1], 1
+    elif geom.geom_type == "MultiPolygon":
+        for part in geom.geoms: yield list(part.exterior.coords)[:-1], 1
+
+# --- DELTA SYNC (Re-imports only pull what changed since the last sync) ---
+def sync_layer(x, y, layer_name, urls_list, county, site, envelope):
+    # Updates the site's cached copy of a layer; returns (path, changed since the last sync)
+    session = get_session()
+
+    if layer_name != "parcels" or parcel_index.open_for(county) is None:
+        print(f"📦 Refreshing layer: {layer_name.title()}")
+        result = delta_sync.refresh(
+            session, site, layer_name, envelope,
+            fetch=lambda url, where=None, object_ids=None: query_features(
+                session, url, None if object_ids else envelope, where, object_ids, layer=layer_name),
+            save=lambda gdf, out_dir: store_layer(gdf, layer_name, out_dir))
+        if result:
+            return result
+
+    # Full fetch, or parcels from the local index: changed only if the store came out different
+    old = os.path.join(layer_cache.site_dir(site), f"{layer_name}.pef")
+    before = layer_cache.fingerprint(old) if os.path.exists(old) else None
+    pef = get_layer(x, y, layer_name, urls_list, county, out_dir=layer_cache.site_dir(site),
+                    on_fetch=lambda s, url, gdf: delta_sync.record(s, site, layer_name, url, gdf),
+                    envelope=envelope)
+    return pef, pef is not None and layer_cache.fingerprint(pef) != before
 
 def get_urls(city, county):
     if not city or not county: return {}
@@ -242,50 +615,132 @@ def get_urls(city, county):
         'topo': topo_urls if topo_urls else None
     }
 
-def generate_script(x, y, shapefile_paths):
-    radius = 5000
+def ipf_layers(ipf_path):
+    # {table: target layer} from the import profile's ProfileTables
+    try:
+        with open(ipf_path, "r", encoding="utf-8", errors="replace") as f:
+            text = f.read()
+    except OSError:
+        return {}
+    pairs = re.findall(r"<UniqueName>Default:([^<]+)</UniqueName>.*?<LayerName>([^<]*)</LayerName>", text, re.S)
+    return {table.lower(): layer for table, layer in pairs if layer}
+
+def generate_script(x, y, shapefile_paths, replace=False, radius=FALLBACK_HALF_SIZE):
+    # replace=True: the drawing already has this site, swap out only the given layers.
+    # Returns True once the script is written.
     script_path = os.path.join(OUTPUT_FOLDER, "circle_layers.scr")
     # Dynamic IPF path assuming it lives in the same folder
     ipf_path = os.path.join(OUTPUT_FOLDER, "gis data.ipf")
 
     try:
         with open(script_path, "w") as f:
-            f.write("CIRCLE\n")
-            f.write(f"{x},{y}\n")
-            f.write(f"{radius}\n")
+            if not replace:
+                f.write("CIRCLE\n")
+                f.write(f"{x},{y}\n")
+                f.write(f"{radius}\n")
             f.write(f"ZOOM\nC\n{x},{y}\n{2 * radius}\n")
+            f.write('(load "petools_post_import.lsp")\n')
 
             def write_import(path):
+                # One post-import pass per table right after its import: tags (for refreshes) + bit 128
+                table = os.path.splitext(os.path.basename(path))[0]
+                f.write("(setq *petools-layer-mark* (entlast))\n")
                 f.write(f"-MAPIMPORT\nshp\n{path}\nyes\n")
                 f.write(f"{ipf_path}\nproceed\n")
-
-            topo_layer = next((s for s in shapefile_paths if "topo" in s.lower()), None)
-            if topo_layer:
-                write_import(topo_layer)
-                f.write('(load "apply_topo_elevation.lsp") AssignTopoElevation\n')
+                f.write(f'(PetoolsPostImport "{table}" *petools-layer-mark*)\n')
+
+            if replace:
+                if not shapefile_paths:
+                    print("✅ All layers up to date, nothing to re-import")
+                # The target layer is the fallback for drawings imported before tagging
+                layers = ipf_layers(ipf_path)
+                for shp in shapefile_paths:
+                    table = os.path.splitext(os.path.basename(shp))[0]
+                    layer = layers.get(table.lower())
+                    if not layer:
+                        print(f"⚠️ {table} has no target layer in the import profile; an untagged older import of it won't be cleared")
+                    target = f'"{layer}"' if layer else "nil"
+                    f.write(f'(PetoolsClearImport "{table}" {target})\n')
 
             for shp in shapefile_paths:
-                if "topo" not in shp.lower():
+                if shp.lower().endswith(".shp"):
                     write_import(shp)
 
-            f.write('(load "enable_linetype_generation.lsp") EnableLinetypeGeneration\n')
+            # Baked topo goes in last, it needs no post-processing
+            topo_lsp = next((s for s in shapefile_paths if s.lower().endswith(".lsp")), None)
+            if topo_lsp:
+                f.write(f'(load "{topo_lsp.replace(os.sep, "/")}")\n')
 
         print(f"📁 Script generated: {script_path}")
+        return True
     except Exception as e:
         print(f"❌ Failed to write script: {e}")
+        return False
 
 if __name__ == "__main__":
     suppress_warnings()
 
+    # --- MAINTENANCE: address_to_scr.exe --build-parcel-index <export> <county> ---
+    if len(sys.argv) >= 4 and sys.argv[1] == "--build-parcel-index":
+        sys.exit(0 if parcel_index.build(sys.argv[2], sys.argv[3]) else 1)
+
+    # --- MAINTENANCE: address_to_scr.exe --build-address-index <export> <county> ---
+    if len(sys.argv) >= 4 and sys.argv[1] == "--build-address-index":
+        sys.exit(0 if address_index.build(sys.argv[2], sys.argv[3]) else 1)
+
+    # --- MAINTENANCE: address_to_scr.exe --prune-cache [days] ---
+    if len(sys.argv) >= 2 and sys.argv[1] == "--prune-cache":
+        days = int(sys.argv[2]) if len(sys.argv) >= 3 else 30
+        print(f"🧹 Removed {layer_cache.prune(days)} cached site(s) older than {days} days")
+        print("DONE")
+        sys.exit(0)
+
     # --- JAVA / CLI INPUT HANDLING ---
-    if len(sys.argv) >= 2:
-        address = sys.argv[1]
+    # address_to_scr.exe <address> [y|n] [--prefetch] [--refresh] [--max-kbps N] [--low-priority]
+    #                    [--buffer FT] [--layer-buffer <layer>=FT ...]
+    args, flags, max_kbps = [], set(), None
+    buffer, layer_buffers = DEFAULT_BUFFER, dict(LAYER_BUFFERS)
+    argv = iter(sys.argv[1:])
+    for a in argv:
+        try:
+            if a == "--max-kbps": max_kbps = next(argv, None)
+            elif a == "--buffer": buffer = max(0.0, float(next(argv, "")))
+            elif a == "--layer-buffer":
+                name, _, ft = next(argv, "").partition("=")
+                layer_buffers[name.strip().lower()] = max(0.0, float(ft))
+            elif a.startswith("--"): flags.add(a)
+            else: args.append(a)
+        except ValueError:
+            print(f"⚠️ Ignoring bad value for {a}")
+    prefetch = "--prefetch" in flags
+    refresh = "--refresh" in flags
+
+    if args:
+        address = args[0]
     else:
         print("Enter address as argument.")
         sys.exit(1)
 
+    if max_kbps:
+        THROTTLE = Throttle(float(max_kbps))
+
+    if prefetch or "--low-priority" in flags:
+        lower_priority()
+
     address += ", NC"
-    x, y, city, county = get_coords_nconemap(address)
+    # Local address points first: instant and free of Nominatim's rate limits
+    local_geo = address_index.geocode(address)
+    if local_geo and not local_geo[2]: local_geo = None  # export had no city; the layer sources need one
+    cached_geo = None if local_geo else layer_cache.get_geocode(address)
+    if local_geo:
+        x, y, city, county = local_geo
+        print("🏘️ Address found in the local address index")
+    elif cached_geo:
+        x, y, city, county = cached_geo
+    else:
+        x, y, city, county = get_coords_nconemap(address)
+        if x is not None and city and county:
+            layer_cache.store_geocode(address, x, y, city, county)
 
     if x is None:
         print("❌ Address not found.")
@@ -300,23 +755,61 @@ if __name__ == "__main__":
 
     # Java passes "y", "true", or nothing
     dl_arg = "false"
-    if len(sys.argv) >= 3:
-        dl_arg = sys.argv[2].strip().lower()
-
-    paths = []
-    if dl_arg == "true" or dl_arg.startswith('y'):
-        urls = get_urls(city, county)
+    if len(args) >= 2:
+        dl_arg = args[1].strip().lower()
+    downloads = prefetch or dl_arg == "true" or dl_arg.startswith('y')
+
+    # Without downloads only the local parcel index is asked; nothing goes out on the network
+    urls = get_urls(city, county) if downloads else {}
+    parcel, parcel_attrs = subject_parcel(x, y, county, urls.get("parcels"))
+    extent = site_extent(x, y, parcel, buffer)
+    print_subject_parcel(parcel, parcel_attrs, extent)
+
+    site = layer_cache.site_key(x, y)
+    paths, changed = [], []
+    imports = {}  # {layer: .pef} of what the script will import, recorded once it's written
+    if downloads:
         if not urls:
             print("⚠️ No data sources for this location.")
         else:
             for name, url_list in urls.items():
                 if not url_list: continue
-                shp = get_layer(x, y, name, url_list)
-                if shp: paths.append(shp)
+                envelope = site_extent(x, y, parcel, layer_buffers.get(name, buffer))
+
+                if prefetch:
+                    # Fill the cache only (store + export); CAD-IMPORTS belongs to interactive runs
+                    if layer_cache.is_fresh(site, name, envelope=envelope): continue
+                    pef, _ = sync_layer(x, y, name, url_list, county, site, envelope)
+                    if pef:
+                        layer_cache.mark(site, name, pef, envelope)
+                        build_export(pef, name)
+                    continue
+
+                # --refresh always asks the service what changed; otherwise a fresh cache wins
+                pef = None if refresh else layer_cache.cached_path(site, name, envelope=envelope)
+                if pef:
+                    print(f"📦 Fetching layer: {name.title()}")
+                    layer_changed = False
+                else:
+                    pef, layer_changed = sync_layer(x, y, name, url_list, county, site, envelope)
+                    if pef: layer_cache.mark(site, name, pef, envelope)
+                shp = export_layer(pef, name, "Saved" if layer_changed else "Cached") if pef else None
+                if shp:
+                    paths.append(shp)
+                    # Against what the drawing got last, not the last sync: a prefetch may have synced since
+                    pending = layer_cache.import_pending(site, name, pef)
+                    if pending: changed.append(shp)
+                    if pending or not refresh: imports[name] = pef
     else:
         print("⚠️ Skipping layer downloads per request.")
 
-    generate_script(x, y, paths)
+    radius = extent_radius(x, y, extent)
+    if refresh:
+        if generate_script(x, y, changed, replace=True, radius=radius):
+            layer_cache.mark_imported(site, imports)
+    elif not prefetch:
+        if generate_script(x, y, paths, radius=radius):
+            layer_cache.mark_imported(site, imports)
 
     print("DONE") # Signal for Java ProcessBuilder
     sys.exit(0)
\ No newline at end of file
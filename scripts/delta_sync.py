@@ -0,0 +1,202 @@
+# Daniel Puckett & Joe Puckett | Place Engineering, PLLC
+# Incremental layer refresh: pull only the features edited since the last sync.
+#
+# Each cached layer (see layer_cache) gets a sync record in <site>/sync.json:
+#   url          service the layer came from (object ids are per service)
+#   oid_field    object id field, edit_field editor-tracking date field (or None)
+#   high_water   newest edit date seen, epoch ms
+#   oids         object ids inside the site envelope at the last sync
+# A refresh asks the service for the current id list (cheap, no geometry), then
+# fetches only new ids plus anything edited after high_water, and merges them
+# into the cached feature store. Services without editor tracking still get adds and
+# deletes through the id diff.
+
+import datetime
+import json
+import os
+import time
+
+import feature_store
+import layer_cache
+
+ID_CHUNK = 500
+EDIT_DATE_FIELDS = ["last_edited_date", "editdate", "edit_date", "date_modified", "last_update", "lastupdate"]
+
+
+# --- 1. SYNC RECORDS ---
+
+def _sync_path(site):
+    return os.path.join(layer_cache.LAYER_DIR, site, "sync.json")
+
+def _load(site):
+    try:
+        with open(_sync_path(site), "r", encoding="utf-8") as f:
+            return json.load(f)
+    except (OSError, ValueError):
+        return {}
+
+def _save(site, data):
+    path = _sync_path(site)
+    os.makedirs(os.path.dirname(path), exist_ok=True)
+    tmp = path + ".tmp"
+    with open(tmp, "w", encoding="utf-8") as f:
+        json.dump(data, f)
+    os.replace(tmp, path)
+
+def forget(site, layer):
+    data = _load(site)
+    if data.pop(layer, None) is not None:
+        _save(site, data)
+
+
+# --- 2. SERVICE METADATA ---
+
+_service_info = {}
+
+def service_info(session, url):
+    # The layer's metadata, fetched once per run; None when the service won't say
+    if url not in _service_info:
+        # ".../FeatureServer/0/query" -> ".../FeatureServer/0?f=json"
+        base = url[:-len("/query")] if url.endswith("/query") else url
+        try:
+            info = session.get(base, params={"f": "json"}, timeout=15).json()
+        except Exception:
+            info = None
+        _service_info[url] = None if not isinstance(info, dict) or "error" in info else info
+    return _service_info[url]
+
+def layer_info(session, url):
+    info = service_info(session, url)
+    if info is None: return None, None
+
+    fields = info.get("fields") or []
+    oid_field = info.get("objectIdField") or next(
+        (f["name"] for f in fields if f.get("type") == "esriFieldTypeOID"), None)
+
+    edit_field = (info.get("editFieldsInfo") or {}).get("editDateField")
+    if not edit_field:
+        dates = {f["name"].lower(): f["name"] for f in fields if f.get("type") == "esriFieldTypeDate"}
+        edit_field = next((dates[n] for n in EDIT_DATE_FIELDS if n in dates), None)
+    return oid_field, edit_field
+
+def _high_water(gdf, edit_field):
+    if not edit_field or edit_field not in gdf.columns: return 0
+    values = [v for v in gdf[edit_field] if isinstance(v, (int, float)) and v == v]
+    return int(max(values)) if values else 0
+
+def record(session, site, layer, url, raw_gdf):
+    # Called right after a full fetch, with the features as the service returned them
+    oid_field, edit_field = layer_info(session, url)
+    if not oid_field or oid_field not in raw_gdf.columns:
+        forget(site, layer)
+        return
+
+    data = _load(site)
+    data[layer] = {
+        "url": url,
+        "oid_field": oid_field,
+        "edit_field": edit_field,
+        "high_water": _high_water(raw_gdf, edit_field),
+        "synced": time.time(),
+        "oids": sorted(int(v) for v in raw_gdf[oid_field] if v == v),
+    }
+    _save(site, data)
+
+
+# --- 3. REFRESH ---
+
+def _current_ids(session, url, envelope):
+    params = {
+        "geometry": ",".join(str(v) for v in envelope),
+        "geometryType": "esriGeometryEnvelope",
+        "inSR": 2264,
+        "spatialRel": "esriSpatialRelIntersects",
+        "returnIdsOnly": True,
+        "f": "json",
+    }
+    try:
+        data = session.get(url, params=params, timeout=30).json()
+    except Exception:
+        return None
+    if "error" in data: return None
+    return set(data.get("objectIds") or [])
+
+def _where_edited_since(edit_field, high_water):
+    # Standardized SQL timestamp literal, in UTC like the stored edit dates
+    stamp = datetime.datetime.fromtimestamp(high_water / 1000, datetime.timezone.utc)
+    return f"{edit_field} > timestamp '{stamp:%Y-%m-%d %H:%M:%S}'"
+
+def refresh(session, site, layer, envelope, fetch, save):
+    """
+    Brings the cached layer up to date. Returns (path, changed), or None when the
+    layer has no usable sync record and must be fetched in full.
+
+    fetch(url, where=None, object_ids=None) -> raw GeoDataFrame / None on error
+    save(gdf, out_dir) -> written path
+    """
+    import geopandas as gpd
+    import pandas as pd
+
+    state = _load(site).get(layer)
+    cached = os.path.join(layer_cache.LAYER_DIR, site, f"{layer}.pef")
+    if not state or not os.path.exists(cached):
+        return None
+
+    url, oid_field, edit_field = state["url"], state["oid_field"], state["edit_field"]
+    current = _current_ids(session, url, envelope)
+    if current is None:
+        return None
+
+    stored = set(state["oids"])
+    added = current - stored
+    deleted = stored - current
+
+    parts = []
+    if edit_field and state["high_water"]:
+        edited = fetch(url, where=_where_edited_since(edit_field, state["high_water"]))
+        if edited is None: return None
+        if not edited.empty:
+            # Edited features that moved out of the envelope count as deleted
+            edited = edited[edited[oid_field].isin(current)]
+            added -= set(int(v) for v in edited[oid_field])
+            parts.append(edited)
+
+    added = sorted(added)
+    for i in range(0, len(added), ID_CHUNK):
+        chunk = fetch(url, object_ids=added[i:i + ID_CHUNK])
+        if chunk is None: return None
+        parts.append(chunk)
+
+    delta = pd.concat(parts, ignore_index=True) if parts else None
+    if delta is not None and delta.empty: delta = None
+
+    high_water = state["high_water"]
+    if delta is not None:
+        high_water = max(high_water, _high_water(delta, edit_field))
+
+    state.update({"high_water": high_water, "synced": time.time(), "oids": sorted(current)})
+    data = _load(site)
+    data[layer] = state
+
+    if delta is None and not deleted:
+        _save(site, data)
+        print("   ... no changes since last sync")
+        return cached, False
+
+    # Merge: drop replaced / deleted rows from the cached layer, append the delta
+    # The store keeps the service's field names, so the delta lines up as fetched
+    base = feature_store.read(cached)
+    replaced = set(deleted)
+    if delta is not None:
+        replaced |= set(int(v) for v in delta[oid_field])
+
+    keep = base[~base[oid_field].isin(replaced)]
+    merged = keep if delta is None else pd.concat([keep, delta], ignore_index=True)
+    merged = gpd.GeoDataFrame(merged, geometry="geometry", crs=base.crs or "EPSG:2264")
+
+    print(f"   ... {0 if delta is None else len(delta)} changed, {len(deleted)} removed since last sync")
+    path = save(merged, layer_cache.site_dir(site))
+    if not path:
+        return None
+    _save(site, data)
+    return path, True
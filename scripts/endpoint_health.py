@@ -0,0 +1,105 @@
+# Daniel Puckett & Joe Puckett | Place Engineering, PLLC
+# Health of every layer endpoint across runs (~/.petools/cache/engine/endpoints.json).
+#
+# Per URL: recent fetch times and outcomes, last success, and a circuit breaker.
+# Three failures in a row open the circuit: the URL is skipped for 5 minutes,
+# doubling with each trip up to 6 hours, then gets one trial fetch (half-open)
+# that closes it on success. order() puts the fastest healthy mirror first (or, when
+# every circuit is open, the one due soonest as an early trial) and hedge_delay()
+# says how long to give a source before a mirror joins in.
+
+import json
+import os
+import threading
+import time
+
+import layer_cache
+
+HEALTH_FILE = os.path.join(layer_cache.CACHE_DIR, "endpoints.json")
+
+WINDOW = 20                 # recent fetches kept per URL
+FAILURES_TO_OPEN = 3
+OPEN_SECONDS = 300
+MAX_OPEN_SECONDS = 6 * 3600
+UNKNOWN_SECONDS = 10.0      # assumed fetch time for a URL with no history
+MIN_HEDGE_SECONDS = 3.0
+MAX_HEDGE_SECONDS = 30.0
+
+_lock = threading.Lock()
+
+
+def _load():
+    try:
+        with open(HEALTH_FILE, "r", encoding="utf-8") as f:
+            return json.load(f)
+    except (OSError, ValueError):
+        return {}
+
+def _save(data):
+    os.makedirs(os.path.dirname(HEALTH_FILE), exist_ok=True)
+    tmp = f"{HEALTH_FILE}.{os.getpid()}.tmp"
+    with open(tmp, "w", encoding="utf-8") as f:
+        json.dump(data, f, indent=1)
+    os.replace(tmp, HEALTH_FILE)
+
+def _percentile(values, q):
+    ordered = sorted(values)
+    return ordered[min(len(ordered) - 1, int(q * len(ordered)))]
+
+def _is_open(entry, now):
+    return entry.get("open_until", 0) > now
+
+
+# --- 1. CHOOSING A SOURCE ---
+
+def order(urls):
+    # Mostly-failing sources after the rest, each group fastest first (stable for ties, so
+    # the configured order still decides between unknowns). Open circuits are left out,
+    # unless that leaves nothing: then they all go, soonest trial first, as a half-open trial.
+    data, now = _load(), time.time()
+
+    def rank(url):
+        entry = data.get(url)
+        if not entry: return (0, UNKNOWN_SECONDS)
+        outcomes = entry.get("outcomes") or []
+        failing = outcomes.count(0) * 2 >= len(outcomes) > 0
+        latency = _percentile(entry["times"], 0.5) if entry.get("times") else UNKNOWN_SECONDS
+        return (1 if failing else 0, latency)
+
+    closed = [u for u in urls if not _is_open(data.get(u, {}), now)]
+    if not closed:
+        return sorted(urls, key=lambda u: data[u]["open_until"])
+    return sorted(closed, key=rank)
+
+def skipped(urls):
+    # (url, seconds until its next trial) for every source with an open circuit
+    data, now = _load(), time.time()
+    return [(u, data[u]["open_until"] - now) for u in urls if _is_open(data.get(u, {}), now)]
+
+def hedge_delay(url):
+    # 1.5x the source's 90th percentile fetch time, within bounds
+    entry = _load().get(url) or {}
+    times = entry.get("times") or []
+    if len(times) < 3: return UNKNOWN_SECONDS
+    return min(MAX_HEDGE_SECONDS, max(MIN_HEDGE_SECONDS, 1.5 * _percentile(times, 0.9)))
+
+
+# --- 2. RECORDING OUTCOMES ---
+
+def record(url, ok, seconds=0.0):
+    with _lock:
+        data = _load()
+        entry = data.setdefault(url, {"times": [], "outcomes": [], "failures": 0, "trips": 0,
+                                      "open_until": 0, "last_success": 0})
+        now = time.time()
+        entry["outcomes"] = (entry["outcomes"] + [1 if ok else 0])[-WINDOW:]
+        if ok:
+            entry["times"] = (entry["times"] + [round(seconds, 2)])[-WINDOW:]
+            entry.update(failures=0, trips=0, open_until=0, last_success=now)
+        else:
+            entry["failures"] += 1
+            # A failed half-open trial reopens straight away, for longer
+            if entry["failures"] >= FAILURES_TO_OPEN or entry["open_until"]:
+                entry["trips"] += 1
+                entry["open_until"] = now + min(MAX_OPEN_SECONDS, OPEN_SECONDS * 2 ** (entry["trips"] - 1))
+        _save(data)
@@ -0,0 +1,195 @@
+# Daniel Puckett & Joe Puckett | Place Engineering, PLLC
+# The engine's working format for layers between fetch and export (<layer>.pef).
+#
+# One file per layer, same memory-mapped layout as parcel_index:
+#   tree_boxes / tree_refs / level_ends  packed STR R-tree, features stored in leaf order
+#   geom_types                           shapely type id per feature (-1 = no geometry)
+#   coords + off0..off2                  2D vertices and ragged offsets (GeoArrow layout,
+#                                        every feature as the multi type of its family)
+#   c0, c1, ...                          attributes, one column per field, full field names
+# Opening reads only the header; a query touches the tree and the pages of the features
+# it returns. Shapefiles (10-character fields, three files, no index) are written from
+# this only at the final export step.
+
+import os
+
+import numpy as np
+
+import parcel_index
+
+MAGIC = b"PEFEAT1\0"
+NODE_SIZE = parcel_index.NODE_SIZE
+
+# Shapely type ids per family: the single type, the multi type it is stored as
+FAMILIES = {"point": (0, 4), "line": (1, 5), "polygon": (3, 6)}
+DEPTH = {"point": 1, "line": 2, "polygon": 3}
+EMPTY_WKT = {"point": "MULTIPOINT EMPTY", "line": "MULTILINESTRING EMPTY", "polygon": "MULTIPOLYGON EMPTY"}
+LINEARRING, COLLECTION = 2, 7
+
+
+# --- 1. WRITE ---
+
+def write(path, gdf):
+    import shapely
+
+    geoms = np.asarray(gdf.geometry.values, dtype=object)
+    types = shapely.get_type_id(geoms).astype(np.int8)
+    types[shapely.is_empty(geoms)] = -1
+
+    family = _family(types)
+    geoms, dropped = _conform(geoms, types, family)
+    if dropped:
+        print(f"⚠️ {dropped} feature(s) with other geometry types left out of {os.path.basename(path)}")
+
+    # Leaf order, so features that are close on the map are close in the file
+    boxes = shapely.bounds(geoms)
+    boxes[types < 0] = [np.inf, np.inf, -np.inf, -np.inf]
+    order = parcel_index.str_order(boxes) if len(geoms) else np.empty(0, dtype=np.int64)
+    geoms, types = geoms[order], types[order]
+    tree_boxes, refs, level_ends = parcel_index.pack_tree(np.ascontiguousarray(boxes[order], dtype="<f8"))
+
+    coords, offsets = _ragged(geoms, types, family)
+    columns, column_sections = parcel_index.column_sections(
+        gdf.drop(columns=gdf.geometry.name).iloc[order].reset_index(drop=True))
+
+    root = tree_boxes[-1] if len(geoms) else None
+    header = {
+        "layer": os.path.splitext(os.path.basename(path))[0],
+        "count": len(geoms),
+        "node_size": NODE_SIZE,
+        "family": family,
+        "crs": gdf.crs.to_string() if gdf.crs is not None else None,
+        "bounds": [float(v) for v in root] if root is not None and np.isfinite(root).all() else None,
+        "columns": columns,
+    }
+    parcel_index._write_sections(path, MAGIC, header, [
+        ("tree_boxes", tree_boxes.tobytes()),
+        ("tree_refs", refs.tobytes()),
+        ("level_ends", level_ends.tobytes()),
+        ("geom_types", types.tobytes()),
+        ("coords", coords.tobytes()),
+    ] + [(f"off{k}", o.tobytes()) for k, o in enumerate(offsets)] + column_sections)
+    return path
+
+def _family(types):
+    # The family most features belong to; a layer of nothing but empties is stored as points
+    counts = {f: int(np.isin(types, t).sum()) for f, t in FAMILIES.items()}
+    counts["line"] += int((types == LINEARRING).sum())
+    best = max(counts, key=counts.get)
+    return best if counts[best] else "point"
+
+def _conform(geoms, types, family):
+    # Everything becomes the family's single or multi type; types is updated in place
+    import shapely
+
+    geoms = geoms.copy()
+    single, multi = FAMILIES[family]
+    for i in np.flatnonzero(types == COLLECTION):
+        # Keep the collection's parts of this family, if any
+        parts = shapely.get_parts(shapely.get_parts(geoms[i]))
+        parts = parts[shapely.get_type_id(parts) == single]
+        if len(parts):
+            geoms[i] = {"point": shapely.multipoints, "line": shapely.multilinestrings,
+                        "polygon": shapely.multipolygons}[family](parts)
+            types[i] = multi
+    if family == "line":
+        for i in np.flatnonzero(types == LINEARRING):
+            geoms[i] = shapely.linestrings(shapely.get_coordinates(geoms[i]))
+            types[i] = single
+
+    other = ~np.isin(types, FAMILIES[family])
+    dropped = int((other & (types >= 0)).sum())
+    types[other] = -1
+    if other.any():
+        geoms[other] = shapely.from_wkt(np.full(int(other.sum()), EMPTY_WKT[family], dtype=object))
+    return geoms, dropped
+
+def _ragged(geoms, types, family):
+    # Flat 2D coords plus one offsets array per nesting level, innermost first
+    import shapely
+
+    n, depth = len(geoms), DEPTH[family]
+    if not (types >= 0).any():
+        return np.empty((0, 2), dtype="<f8"), [np.zeros(n + 1, dtype="<i8")] * depth
+
+    _, coords, offsets = shapely.to_ragged_array(geoms, include_z=False)
+    offsets = [np.asarray(o, dtype="<i8") for o in offsets]
+    if len(offsets) < depth:
+        # Only single types in the layer: each becomes a one-part multi
+        parts = np.diff(offsets[-1]) > 0 if offsets else np.ones(n, dtype=bool)
+        top = np.zeros(n + 1, dtype="<i8")
+        top[1:] = np.cumsum(parts)
+        offsets.append(top)
+    return np.ascontiguousarray(coords, dtype="<f8"), offsets
+
+
+# --- 2. READ ---
+
+class FeatureStore:
+
+    def __init__(self, path):
+        self._mm = np.memmap(path, mode="r", dtype=np.uint8)
+        self.header = parcel_index._read_header(self._mm, MAGIC)
+
+        self.count = self.header["count"]
+        self.family = self.header["family"]
+        self._boxes = self._section("tree_boxes", "<f8").reshape(-1, 4)
+        self._refs = self._section("tree_refs", "<i4")
+        self._level_ends = self._section("level_ends", "<i4")
+        self._types = self._section("geom_types", "<i1")
+        self._coords = self._section("coords", "<f8").reshape(-1, 2)
+        self._offsets = [self._section(f"off{k}", "<i8") for k in range(DEPTH[self.family])]
+
+    def _section(self, name, dtype):
+        return parcel_index._section(self._mm, self.header, name, dtype)
+
+    def query(self, minx, miny, maxx, maxy):
+        # Feature ids whose bounds intersect the envelope, in file order
+        return sorted(parcel_index.search_tree(self._boxes, self._refs, self._level_ends,
+                                               self.header["node_size"], minx, miny, maxx, maxy))
+
+    def geometries(self, ids=None):
+        import shapely
+
+        offsets, coords, types = self._offsets, self._coords, self._types
+        if ids is not None:
+            ids = np.asarray(ids, dtype=np.int64)
+            offsets, coord_ids = _take(offsets, ids)
+            coords, types = coords[coord_ids], types[ids]
+        if len(types) == 0:
+            return np.empty(0, dtype=object)
+
+        single, multi = FAMILIES[self.family]
+        geoms = shapely.from_ragged_array(shapely.GeometryType(multi), coords, tuple(offsets))
+        # Back to the type each feature came in as
+        was_single = types == single
+        geoms[was_single] = shapely.get_geometry(geoms[was_single], 0)
+        geoms[types < 0] = None
+        return geoms
+
+    def attributes(self, ids=None):
+        return parcel_index.read_columns(self._mm, self.header,
+                                         None if ids is None else np.asarray(ids, dtype=np.int64))
+
+    def to_geodataframe(self, ids=None):
+        import geopandas as gpd
+        return gpd.GeoDataFrame(self.attributes(ids), geometry=self.geometries(ids),
+                                crs=self.header["crs"])
+
+def _take(offsets, ids):
+    # Offsets (innermost first) and coordinate ids for a subset of the features
+    taken = [None] * len(offsets)
+    for level in range(len(offsets) - 1, -1, -1):
+        off = offsets[level]
+        starts, counts = off[ids], off[ids + 1] - off[ids]
+        new = np.zeros(len(ids) + 1, dtype="<i8")
+        new[1:] = np.cumsum(counts)
+        taken[level] = new
+        ids = np.repeat(starts - new[:-1], counts) + np.arange(new[-1])
+    return taken, ids
+
+def read(path, envelope=None):
+    # The layer (or the features whose bounds meet envelope) as a GeoDataFrame.
+    # Nothing returned points into the mapping, so the file can be replaced right after.
+    store = FeatureStore(path)
+    return store.to_geodataframe(None if envelope is None else store.query(*envelope))
@@ -0,0 +1,140 @@
+# Daniel Puckett & Joe Puckett | Place Engineering, PLLC
+# Local cache of geocodes and finished layer files (~/.petools/cache/engine).
+#
+# Layers are cached per site as feature stores (<layer>.pef, see feature_store) with their
+# last shapefile / topo.lsp export beside them, so a cache hit is a file copy into
+# CAD-IMPORTS unless the layer changed since it was exported. Each layer also remembers
+# the store it was last imported into CAD from, so a refresh re-imports only what differs
+# (however the store got updated: a prefetch, a delta sync, the local parcel index).
+
+import glob
+import hashlib
+import json
+import os
+import shutil
+import time
+
+CACHE_DIR = os.path.join(os.path.expanduser("~"), ".petools", "cache", "engine")
+GEOCODE_FILE = os.path.join(CACHE_DIR, "geocode.json")
+LAYER_DIR = os.path.join(CACHE_DIR, "layers")
+
+MAX_AGE_DAYS = 7
+
+
+# --- 1. GEOCODES ---
+
+def _normalize(address):
+    return " ".join(address.lower().replace(",", " ").split())
+
+def _load_json(path):
+    try:
+        with open(path, "r", encoding="utf-8") as f:
+            return json.load(f)
+    except (OSError, ValueError):
+        return {}
+
+def _save_json(path, data):
+    os.makedirs(os.path.dirname(path), exist_ok=True)
+    tmp = path + ".tmp"
+    with open(tmp, "w", encoding="utf-8") as f:
+        json.dump(data, f, indent=1)
+    os.replace(tmp, path)
+
+def get_geocode(address):
+    hit = _load_json(GEOCODE_FILE).get(_normalize(address))
+    if not hit: return None
+    return hit["x"], hit["y"], hit.get("city"), hit.get("county")
+
+def store_geocode(address, x, y, city, county):
+    data = _load_json(GEOCODE_FILE)
+    data[_normalize(address)] = {"x": x, "y": y, "city": city, "county": county, "ts": time.time()}
+    _save_json(GEOCODE_FILE, data)
+
+
+# --- 2. LAYERS ---
+
+def site_key(x, y):
+    return f"{x:.0f}_{y:.0f}"
+
+def site_dir(site):
+    path = os.path.join(LAYER_DIR, site)
+    os.makedirs(path, exist_ok=True)
+    return path
+
+def _meta_path(site):
+    return os.path.join(LAYER_DIR, site, "meta.json")
+
+def _siblings(path):
+    # A shapefile is several files sharing one stem (.shp .shx .dbf .prj .cpg), plus the .pef
+    stem = os.path.splitext(path)[0]
+    return [p for p in glob.glob(glob.escape(stem) + ".*") if not p.endswith(".tmp")]
+
+def _covers(outer, inner):
+    return outer[0] <= inner[0] and outer[1] <= inner[1] and outer[2] >= inner[2] and outer[3] >= inner[3]
+
+def is_fresh(site, layer, max_age_days=MAX_AGE_DAYS, envelope=None):
+    # envelope: the extent this run needs; a layer fetched for a smaller one doesn't count.
+    # Entries without an extent predate adaptive extents and hold the full fixed square.
+    entry = _load_json(_meta_path(site)).get(layer)
+    if not entry: return False
+    if time.time() - entry["ts"] > max_age_days * 86400: return False
+    if envelope and entry.get("extent") and not _covers(entry["extent"], envelope): return False
+    # Shapefile entries predate the feature store and are fetched again
+    if not entry["file"].lower().endswith(".pef"): return False
+    return os.path.exists(os.path.join(LAYER_DIR, site, entry["file"]))
+
+def mark(site, layer, path, envelope=None):
+    # Record a layer that was written straight into the site's cache folder
+    meta = _load_json(_meta_path(site))
+    imported = (meta.get(layer) or {}).get("imported")
+    meta[layer] = {"file": os.path.basename(path), "ts": time.time()}
+    if envelope: meta[layer]["extent"] = list(envelope)
+    if imported: meta[layer]["imported"] = imported
+    _save_json(_meta_path(site), meta)
+
+def fingerprint(path):
+    digest = hashlib.sha1()
+    with open(path, "rb") as f:
+        for block in iter(lambda: f.read(1 << 20), b""):
+            digest.update(block)
+    return digest.hexdigest()
+
+def import_pending(site, layer, path):
+    # True when the store differs from the one the layer was last imported into CAD from
+    entry = _load_json(_meta_path(site)).get(layer) or {}
+    return entry.get("imported") != fingerprint(path)
+
+def mark_imported(site, layers):
+    # layers: {layer: store path} that a written SCR imports
+    meta = _load_json(_meta_path(site))
+    for layer, path in layers.items():
+        if layer in meta: meta[layer]["imported"] = fingerprint(path)
+    _save_json(_meta_path(site), meta)
+
+def cached_path(site, layer, max_age_days=MAX_AGE_DAYS, envelope=None):
+    # The fresh cached store for a layer, else None
+    if not is_fresh(site, layer, max_age_days, envelope): return None
+    return os.path.join(LAYER_DIR, site, _load_json(_meta_path(site))[layer]["file"])
+
+def copy_out(path, out_dir):
+    # Copies a cached file and everything sharing its stem (shapefile parts, the store)
+    # into out_dir; returns the copy's path
+    for src in _siblings(path):
+        shutil.copy2(src, os.path.join(out_dir, os.path.basename(src)))
+    return os.path.join(out_dir, os.path.basename(path))
+
+
+# --- 3. MAINTENANCE ---
+
+def prune(max_age_days=30):
+    # Removes site folders whose newest layer is older than max_age_days
+    removed = 0
+    if not os.path.isdir(LAYER_DIR): return removed
+    cutoff = time.time() - max_age_days * 86400
+    for site in os.listdir(LAYER_DIR):
+        meta = _load_json(_meta_path(site))
+        newest = max((e["ts"] for e in meta.values()), default=0)
+        if newest < cutoff:
+            shutil.rmtree(os.path.join(LAYER_DIR, site), ignore_errors=True)
+            removed += 1
+    return removed
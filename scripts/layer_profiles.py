@@ -0,0 +1,77 @@
+# Daniel Puckett & Joe Puckett | Place Engineering, PLLC
+# Per-layer query profiles: which attributes to download and how finely to send geometry.
+#
+#   fields       columns to keep, as the shapefile names them (lower case, 10 characters,
+#                the names "gis data.ipf" maps); "*" keeps everything
+#   precision    geometryPrecision, decimal places of a foot (None = full precision)
+#   max_offset   maxAllowableOffset in feet, server-side generalization (0 = none)
+#
+# ~/.petools/layer_profiles.json overrides the defaults per layer and per key, e.g.
+#   {"roads": {"max_offset": 0.5}, "buildings": {"fields": "*"}}
+# The object id and edit date fields are always requested so delta sync keeps working.
+
+import json
+import os
+
+import delta_sync
+
+PROFILE_FILE = os.path.join(os.path.expanduser("~"), ".petools", "layer_profiles.json")
+
+PLANIMETRIC_FIELDS = ["objectid", "descriptio", "subtype", "impervious", "update_dat", "shape_area", "shape_leng"]
+
+DEFAULT_PROFILES = {
+    "parcels": {"fields": "*", "precision": 3, "max_offset": 0},
+    "roads": {"fields": PLANIMETRIC_FIELDS, "precision": 2, "max_offset": 0.25},
+    "buildings": {"fields": PLANIMETRIC_FIELDS + ["ftr_code", "globalid"], "precision": 2, "max_offset": 0.1},
+    "stream": {"fields": ["objectid", "stream_nam", "river_basi", "dwq_index_", "dwq_class", "dwq_cldate",
+                          "descrip_cl", "index_305b", "index_303d", "use_rating", "use_basis", "causes",
+                          "sources", "descrip_ur"], "precision": 2, "max_offset": 0.5},
+    "parking": {"fields": PLANIMETRIC_FIELDS, "precision": 2, "max_offset": 0.1},
+    "vegetation": {"fields": PLANIMETRIC_FIELDS, "precision": 2, "max_offset": 0.5},
+    "driveways": {"fields": PLANIMETRIC_FIELDS, "precision": 2, "max_offset": 0.1},
+    "sidewalks": {"fields": PLANIMETRIC_FIELDS, "precision": 2, "max_offset": 0.1},
+    "topo": {"fields": ["objectid", "elev", "elevation", "contour", "z", "ftr_type", "ftr_subtyp", "update_dat"],
+             "precision": 1, "max_offset": 0.5},
+}
+FALLBACK_PROFILE = {"fields": "*", "precision": None, "max_offset": 0}
+
+_overrides = None
+
+
+def column_name(field):
+    # The same lower-case, 10-character form prepare_layer gives a column
+    return str(field).lower().replace("__", "_")[:10]
+
+def profile(layer):
+    global _overrides
+    if _overrides is None:
+        try:
+            with open(PROFILE_FILE, "r", encoding="utf-8") as f:
+                _overrides = json.load(f)
+        except (OSError, ValueError):
+            _overrides = {}
+    merged = dict(DEFAULT_PROFILES.get(layer, FALLBACK_PROFILE))
+    merged.update(_overrides.get(layer) or {})
+    return merged
+
+def out_fields(session, url, wanted):
+    # The service's own names for the wanted columns; "*" when they can't be checked,
+    # since a name the service doesn't have fails the whole query
+    if wanted == "*" or not wanted: return "*"
+    info = delta_sync.service_info(session, url)
+    fields = [f["name"] for f in (info or {}).get("fields") or []]
+    if not fields: return "*"
+
+    wanted = {column_name(w) for w in wanted}
+    oid_field, edit_field = delta_sync.layer_info(session, url)
+    keep = [f for f in fields if column_name(f) in wanted or f in (oid_field, edit_field)]
+    return ",".join(keep) if keep else "*"
+
+def query_params(session, url, layer):
+    # Query parameters for one layer from one service. outSR makes the precision and
+    # offset units feet, whatever the service stores.
+    p = profile(layer)
+    params = {"outFields": out_fields(session, url, p.get("fields")), "outSR": 2264}
+    if p.get("precision") is not None: params["geometryPrecision"] = int(p["precision"])
+    if p.get("max_offset"): params["maxAllowableOffset"] = float(p["max_offset"])
+    return params
@@ -0,0 +1,293 @@
+# Daniel Puckett & Joe Puckett | Place Engineering, PLLC
+# Offline parcel database for our service counties.
+#
+# Built once from a county export (shp / gpkg / geojson) and stored as two files:
+#   <county>.pidx  packed STR R-tree over parcel bounds + WKB geometries
+#   <county>.pcol  attributes, one contiguous column per field
+# Both are memory-mapped, so opening is instant and a query only touches the pages it needs.
+
+import datetime
+import json
+import os
+
+import numpy as np
+
+INDEX_DIR = os.path.join(os.path.expanduser("~"), ".petools", "parcels")
+NODE_SIZE = 16
+
+MAGIC_IDX = b"PEPIDX1\0"
+MAGIC_COL = b"PEPCOL1\0"
+
+
+# --- 1. PACKING (Sort-Tile-Recursive, same layout as PackedRTree.java) ---
+
+def str_order(boxes, node_size=NODE_SIZE):
+    # Vertical slices by center X, each slice sorted by center Y
+    n = len(boxes)
+    cx = boxes[:, 0] + boxes[:, 2]
+    cy = boxes[:, 1] + boxes[:, 3]
+    order = np.argsort(cx, kind="stable")
+
+    leaves = -(-n // node_size)
+    slice_size = int(np.ceil(np.sqrt(leaves))) * node_size
+    for s in range(0, n, slice_size):
+        seg = order[s:s + slice_size]
+        order[s:s + slice_size] = seg[np.argsort(cy[seg], kind="stable")]
+    return order
+
+def pack_tree(leaf_boxes, node_size=NODE_SIZE):
+    # Level 0 must already be in STR order; refs there are feature ids,
+    # refs above point at the position of a node's first child.
+    all_boxes = [leaf_boxes]
+    all_refs = [np.arange(len(leaf_boxes), dtype="<i4")]
+    level_ends = [len(leaf_boxes)]
+
+    level_start = 0
+    cur = leaf_boxes
+    while len(cur) > 1:
+        starts = np.arange(0, len(cur), node_size)
+        parent = np.column_stack([
+            np.minimum.reduceat(cur[:, 0], starts),
+            np.minimum.reduceat(cur[:, 1], starts),
+            np.maximum.reduceat(cur[:, 2], starts),
+            np.maximum.reduceat(cur[:, 3], starts),
+        ])
+        refs = (level_start + starts).astype("<i4")
+
+        order = str_order(parent, node_size)
+        parent, refs = parent[order], refs[order]
+
+        level_start = level_ends[-1]
+        all_boxes.append(parent)
+        all_refs.append(refs)
+        level_ends.append(level_start + len(parent))
+        cur = parent
+
+    return (np.ascontiguousarray(np.vstack(all_boxes), dtype="<f8"),
+            np.concatenate(all_refs).astype("<i4"),
+            np.asarray(level_ends, dtype="<i4"))
+
+
+# --- 2. FILE LAYOUT (magic, header length, JSON header, 8-byte aligned sections) ---
+
+def _write_sections(path, magic, header, sections):
+    # Section offsets depend on the header size, which depends on the offsets: fix-point it
+    offsets = {}
+    for _ in range(3):
+        header["sections"] = offsets
+        head = json.dumps(header).encode("utf-8")
+        pos = _align(len(magic) + 4 + len(head) + 64)
+        offsets = {}
+        for name, data in sections:
+            offsets[name] = [pos, len(data)]
+            pos = _align(pos + len(data))
+    header["sections"] = offsets
+    head = json.dumps(header).encode("utf-8")
+
+    tmp = path + ".tmp"
+    with open(tmp, "wb") as f:
+        f.write(magic)
+        f.write(len(head).to_bytes(4, "little"))
+        f.write(head)
+        for name, data in sections:
+            f.seek(offsets[name][0])
+            f.write(data)
+    os.replace(tmp, path)
+
+def _read_header(mm, magic):
+    if bytes(mm[:len(magic)]) != magic:
+        raise ValueError("Not a PE Tools index file")
+    head_len = int.from_bytes(bytes(mm[len(magic):len(magic) + 4]), "little")
+    start = len(magic) + 4
+    return json.loads(bytes(mm[start:start + head_len]).decode("utf-8"))
+
+def _section(mm, header, name, dtype):
+    offset, length = header["sections"][name]
+    if length == 0:
+        return np.empty(0, dtype=dtype)
+    return np.frombuffer(mm, dtype=dtype, count=length // np.dtype(dtype).itemsize, offset=offset)
+
+def _align(n, a=8):
+    return (n + a - 1) // a * a
+
+
+# --- 3. BUILD ---
+
+def build(export_path, county, out_dir=INDEX_DIR):
+    import geopandas as gpd
+
+    print(f"📦 Building parcel index: {county.title()}")
+    gdf = gpd.read_file(export_path)
+    if gdf.crs is not None and gdf.crs.to_epsg() != 2264:
+        gdf = gdf.to_crs(epsg=2264)
+    gdf = gdf[gdf.geometry.notna() & ~gdf.geometry.is_empty].reset_index(drop=True)
+    if gdf.empty:
+        print("❌ Export has no parcel geometry")
+        return None
+
+    # Features are stored in leaf order, so parcels that are close on the map
+    # are close in the file and a query reads a handful of pages
+    boxes = gdf.geometry.bounds.to_numpy(dtype="<f8")
+    order = str_order(boxes)
+    gdf = gdf.iloc[order].reset_index(drop=True)
+    tree_boxes, refs, level_ends = pack_tree(np.ascontiguousarray(boxes[order]))
+
+    wkb = [g.wkb for g in gdf.geometry]
+    geom_offsets = np.zeros(len(wkb) + 1, dtype="<i8")
+    geom_offsets[1:] = np.cumsum([len(w) for w in wkb])
+
+    os.makedirs(out_dir, exist_ok=True)
+    base = os.path.join(out_dir, county_key(county))
+    header = {
+        "county": county_key(county),
+        "count": len(gdf),
+        "node_size": NODE_SIZE,
+        "crs": "EPSG:2264",
+        "bounds": [float(v) for v in tree_boxes[-1]],
+        "source": os.path.basename(export_path),
+        "built": datetime.date.today().isoformat(),
+    }
+    _write_sections(base + ".pidx", MAGIC_IDX, header, [
+        ("boxes", tree_boxes.tobytes()),
+        ("refs", refs.tobytes()),
+        ("level_ends", level_ends.tobytes()),
+        ("geom_offsets", geom_offsets.tobytes()),
+        ("geoms", b"".join(wkb)),
+    ])
+    _write_columns(base + ".pcol", gdf.drop(columns=gdf.geometry.name))
+
+    print(f"✅ Indexed {len(gdf)} parcels: {base}.pidx")
+    return base
+
+def _write_columns(path, df):
+    columns, sections = column_sections(df)
+    _write_sections(path, MAGIC_COL, {"count": len(df), "columns": columns}, sections)
+
+def column_sections(df):
+    # One section per field (c0, c1, ...), shared with feature_store
+    import pandas as pd
+
+    columns, sections = [], []
+    for name in df.columns:
+        s = df[name]
+        key = f"c{len(columns)}"
+        if pd.api.types.is_integer_dtype(s) and not s.isna().any():
+            columns.append({"name": str(name), "type": "i8"})
+            sections.append((key, s.to_numpy(dtype="<i8").tobytes()))
+        elif pd.api.types.is_numeric_dtype(s) and not pd.api.types.is_bool_dtype(s):
+            columns.append({"name": str(name), "type": "f8"})
+            sections.append((key, s.to_numpy(dtype="<f8", na_value=np.nan).tobytes()))
+        else:
+            # Strings (and dates, as ISO text): offsets + one UTF-8 blob
+            values = ["" if pd.isna(v) else str(v) for v in s]
+            encoded = [v.encode("utf-8") for v in values]
+            offsets = np.zeros(len(encoded) + 1, dtype="<i8")
+            offsets[1:] = np.cumsum([len(e) for e in encoded])
+            columns.append({"name": str(name), "type": "str"})
+            sections.append((key, offsets.tobytes()))
+            sections.append((key + "_data", b"".join(encoded)))
+    return columns, sections
+
+def read_columns(mm, header, ids=None):
+    # Column-at-a-time gather: one vectorised take per numeric field.
+    # ids=None reads every row; numbers are always copied out of the mapping.
+    out = {}
+    for n, col in enumerate(header["columns"]):
+        key = f"c{n}"
+        if col["type"] in ("i8", "f8"):
+            values = _section(mm, header, key, "<" + col["type"])
+            out[col["name"]] = np.array(values) if ids is None else values[ids]
+        else:
+            offsets = _section(mm, header, key, "<i8")
+            at, length = header["sections"][key + "_data"]
+            if ids is not None:
+                # A few rows: slice them straight out of the mapping
+                out[col["name"]] = [bytes(mm[at + offsets[i]:at + offsets[i + 1]]).decode("utf-8") for i in ids]
+                continue
+            blob = bytes(mm[at:at + length])
+            pairs = zip(offsets[:-1].tolist(), offsets[1:].tolist())
+            # Pure ASCII (the usual case): byte offsets are character offsets, slice the text
+            text = blob.decode("utf-8")
+            if len(text) == len(blob):
+                out[col["name"]] = [text[a:b] for a, b in pairs]
+            else:
+                out[col["name"]] = [blob[a:b].decode("utf-8") for a, b in pairs]
+    return out
+
+
+# --- 4. QUERY ---
+
+def search_tree(boxes, refs, level_ends, node_size, minx, miny, maxx, maxy):
+    # Ids of the level-0 entries whose boxes intersect the envelope (shared with feature_store)
+    hits = []
+    if len(refs) == 0: return hits
+    top = len(level_ends) - 1
+    stack = [(int(level_ends[top]) - 1, top)]
+    while stack:
+        start, level = stack.pop()
+        end = min(start + node_size, int(level_ends[level]))
+        b = boxes[start:end]
+        mask = (b[:, 0] <= maxx) & (b[:, 1] <= maxy) & (b[:, 2] >= minx) & (b[:, 3] >= miny)
+        for pos in np.flatnonzero(mask) + start:
+            if level == 0:
+                hits.append(int(refs[pos]))
+            else:
+                stack.append((int(refs[pos]), level - 1))
+    return hits
+
+class ParcelIndex:
+
+    def __init__(self, base):
+        self._idx = np.memmap(base + ".pidx", mode="r", dtype=np.uint8)
+        self._col = np.memmap(base + ".pcol", mode="r", dtype=np.uint8)
+        self.header = _read_header(self._idx, MAGIC_IDX)
+        self._col_header = _read_header(self._col, MAGIC_COL)
+
+        self.count = self.header["count"]
+        self.node_size = self.header["node_size"]
+        self.bounds = self.header["bounds"]
+        self._boxes = _section(self._idx, self.header, "boxes", "<f8").reshape(-1, 4)
+        self._refs = _section(self._idx, self.header, "refs", "<i4")
+        self._level_ends = _section(self._idx, self.header, "level_ends", "<i4")
+        self._geom_offsets = _section(self._idx, self.header, "geom_offsets", "<i8")
+        self._geoms_at = self.header["sections"]["geoms"][0]
+
+    def covers(self, minx, miny, maxx, maxy):
+        b = self.bounds
+        return b[0] <= minx and b[1] <= miny and b[2] >= maxx and b[3] >= maxy
+
+    def query_envelope(self, minx, miny, maxx, maxy):
+        # Returns feature ids whose bounds intersect the envelope
+        return search_tree(self._boxes, self._refs, self._level_ends, self.node_size, minx, miny, maxx, maxy)
+
+    def query_point(self, x, y):
+        # Exact point-in-parcel test on the (few) bounding-box hits
+        from shapely.geometry import Point
+        p = Point(x, y)
+        return [i for i in self.query_envelope(x, y, x, y) if self.geometry(i).covers(p)]
+
+    def geometry(self, i):
+        from shapely import wkb
+        a, b = int(self._geom_offsets[i]), int(self._geom_offsets[i + 1])
+        return wkb.loads(bytes(self._idx[self._geoms_at + a:self._geoms_at + b]))
+
+    def attributes(self, ids):
+        return read_columns(self._col, self._col_header, np.asarray(ids, dtype=np.int64))
+
+    def to_geodataframe(self, ids):
+        import geopandas as gpd
+        return gpd.GeoDataFrame(self.attributes(ids), geometry=[self.geometry(i) for i in ids], crs="EPSG:2264")
+
+
+def county_key(county):
+    return (county or "").lower().replace(" county", "").strip().replace(" ", "_")
+
+def open_for(county, index_dir=INDEX_DIR):
+    # None when no index has been built for this county
+    base = os.path.join(index_dir, county_key(county))
+    if not (os.path.exists(base + ".pidx") and os.path.exists(base + ".pcol")):
+        return None
+    try:
+        return ParcelIndex(base)
+    except (OSError, ValueError):
+        return None
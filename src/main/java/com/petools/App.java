@@ -1,12 +1,19 @@
 package com.petools;
 
 import java.io.InputStream;
+import java.time.Instant;
 
+import com.petools.features.autocad.PrefetchScheduler;
+import com.petools.features.projects.ProjectView;
+import com.petools.features.settings.SettingsView;
+import com.petools.features.webcache.CachingProxy;
 import com.petools.layout.MainLayout;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.image.Image;
+import javafx.scene.input.InputEvent;
 import javafx.scene.layout.BorderPane;
 import javafx.stage.Stage;
 public class App extends Application {
@@ -26,14 +33,54 @@ public class App extends Application {
         stage.setScene(tempScene);
         stage.show();
 
+        // Map WebViews load through the local cache; must be set up before any WebView exists
+        CachingProxy.install();
+
         // The MainLayout now handles Sidebar and View switching
         MainLayout root = new MainLayout();
 
         Scene scene = new Scene(root, 1100, 675);
         stage.setTitle("PE Tools");
 
+        // Background prefetch only runs while nobody is using the app
+        PrefetchScheduler prefetch = PrefetchScheduler.shared();
+        scene.addEventFilter(InputEvent.ANY, e -> prefetch.noteUserActivity());
+        prefetch.start();
+
         stage.setScene(scene);
         stage.show();
+
+        // Build-time probes for the CDS archive (see pom.xml profile "cds")
+        if (Boolean.getBoolean("petools.cdsTraining") || Boolean.getBoolean("petools.firstFrameExit")) {
+            probeFirstFrame(scene, root);
+        }
+    }
+
+    // --- Startup probes ---
+
+    /**
+     * Waits for the first pulse that lays out the main scene, prints the time since
+     * the process started, then exits. A training run visits the other views first
+     * so their classes land in the class list too.
+     */
+    private void probeFirstFrame(Scene scene, MainLayout root) {
+        Runnable[] listener = new Runnable[1];
+        listener[0] = () -> {
+            scene.removePostLayoutPulseListener(listener[0]);
+            // Rendering finishes inside the same pulse; runLater lands right after it
+            Platform.runLater(() -> {
+                long startedAt = ProcessHandle.current().info().startInstant()
+                    .map(Instant::toEpochMilli).orElse(System.currentTimeMillis());
+                System.out.println("petools.firstFrameMs=" + (System.currentTimeMillis() - startedAt));
+
+                if (Boolean.getBoolean("petools.cdsTraining")) {
+                    root.setView(new ProjectView());
+                    root.setView(new SettingsView());
+                }
+                Platform.runLater(() -> System.exit(0));
+            });
+        };
+        scene.addPostLayoutPulseListener(listener[0]);
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,479 @@
+package com.petools;
+
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+import com.petools.features.autocad.EngineFiles;
+import com.petools.features.autocad.DxfCleaner;
+import com.petools.features.autocad.EngineRunner;
+import com.petools.features.autocad.EpanetDxfConverter;
+import com.petools.features.projects.ProjectStore;
+import com.petools.features.projects.ProjectView.Project;
+
+/**
+ * Headless entry point: site imports, batch imports, drawing conversion and cleanup, and cache maintenance from a
+ * scheduled task or build machine. Never touches the JavaFX toolkit.
+ *
+ * Every line on stdout is one JSON event; the process exit code is the outcome.
+ *
+ *   petools import "123 Main St, Raleigh" [--no-layers] [--refresh] [--max-kbps N] [--timeout MIN]
+ *   petools batch addresses.txt|--projects [--refresh] [--prefetch] [--max-kbps N] [--timeout MIN] [--stop-on-error]
+ *   petools epanet model.inp [model.dxf] [--force]
+ *   petools cleanup drawing.dxf... [--in-place] [--map layer_map.csv]
+ *   petools cache stats
+ *   petools cache prune [--days N]
+ */
+public final class HeadlessCli {
+
+    // --- Exit codes ---
+    public static final int OK = 0;
+    public static final int FAILED = 1;
+    public static final int USAGE = 2;
+    public static final int ENGINE_MISSING = 3;
+    public static final int TIMED_OUT = 4;
+    public static final int CANCELLED = 5;
+    public static final int PARTIAL = 6;  // batch/cleanup: some sites or drawings failed
+
+    private static final Set<String> COMMANDS = Set.of("import", "batch", "epanet", "cleanup", "cache", "help", "--help", "-h");
+
+    private static final Path PETOOLS_DIR = Paths.get(System.getProperty("user.home"), ".petools");
+
+    // Same limits as the GUI run button
+    private static final Duration RUN_TIMEOUT = Duration.ofMinutes(10);
+    private static final Duration STAGE_TIMEOUT = Duration.ofMinutes(3);
+
+    private final PrintStream out = new PrintStream(new FileOutputStream(FileDescriptor.out), true, StandardCharsets.UTF_8);
+    private volatile EngineRunner.Run currentRun;
+
+    private HeadlessCli() {}
+
+    /** True when the launcher should run the CLI instead of the window. */
+    public static boolean isCommand(String[] args) {
+        return args.length > 0 && COMMANDS.contains(args[0]);
+    }
+
+    public static int run(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        HeadlessCli cli = new HeadlessCli();
+
+        // Ctrl+C / task kill: take the engine's process tree down with us
+        Runtime.getRuntime().addShutdownHook(new Thread(cli::cancelCurrent, "cli-shutdown"));
+
+        try {
+            return switch (args[0]) {
+                case "import" -> cli.importSite(args);
+                case "batch" -> cli.batch(args);
+                case "epanet" -> cli.epanet(args);
+                case "cleanup" -> cli.cleanup(args);
+                case "cache" -> cli.cache(args);
+                default -> cli.usage(null);
+            };
+        } catch (IllegalArgumentException e) {
+            return cli.usage(e.getMessage());
+        }
+    }
+
+    // --- Commands ---
+
+    private int importSite(String[] args) {
+        Options opts = Options.parse(args, 1);
+        if (opts.positional.size() != 1) throw new IllegalArgumentException("import needs exactly one address");
+        if (!engineReady()) return ENGINE_MISSING;
+
+        String address = opts.positional.get(0);
+        event("start", "command", "import", "address", address);
+        EngineRunner.Result result = runEngine(address, opts);
+        return exitCode(result);
+    }
+
+    private int batch(String[] args) {
+        Options opts = Options.parse(args, 1);
+        List<String> addresses;
+        if (opts.flags.contains("--projects")) {
+            addresses = activeProjectAddresses();
+        } else if (opts.positional.size() == 1) {
+            addresses = readAddresses(Paths.get(opts.positional.get(0)));
+        } else {
+            throw new IllegalArgumentException("batch needs an address file or --projects");
+        }
+        if (!engineReady()) return ENGINE_MISSING;
+
+        event("start", "command", "batch", "sites", addresses.size());
+
+        int completed = 0, failed = 0;
+        for (int i = 0; i < addresses.size(); i++) {
+            String address = addresses.get(i);
+            event("site", "index", i + 1, "of", addresses.size(), "address", address);
+
+            EngineRunner.Result result = runEngine(address, opts);
+            if (result.status() == EngineRunner.Status.COMPLETED) {
+                completed++;
+            } else {
+                failed++;
+                if (result.status() == EngineRunner.Status.CANCELLED || opts.flags.contains("--stop-on-error")) break;
+            }
+        }
+
+        int skipped = addresses.size() - completed - failed;
+        event("summary", "sites", addresses.size(), "completed", completed, "failed", failed, "skipped", skipped);
+        if (failed == 0 && skipped == 0) return OK;
+        return completed > 0 ? PARTIAL : FAILED;
+    }
+
+    private int epanet(String[] args) {
+        Options opts = Options.parse(args, 1);
+        if (opts.positional.isEmpty() || opts.positional.size() > 2) throw new IllegalArgumentException("epanet needs an .inp file and optionally the .dxf to write");
+        Path inp = Paths.get(opts.positional.get(0));
+        Path dxf = opts.positional.size() == 2 ? Paths.get(opts.positional.get(1)) : EpanetDxfConverter.defaultOutput(inp);
+        // Same rule as the GUI: the drawing next to the model may hold hand edits
+        if (opts.positional.size() == 1 && Files.exists(dxf) && !opts.flags.contains("--force")) {
+            throw new IllegalArgumentException(dxf + " already exists; pass --force to replace it, or name the .dxf to write");
+        }
+
+        event("start", "command", "epanet", "input", inp.toString());
+        try {
+            EpanetDxfConverter.Result result = EpanetDxfConverter.convert(inp, dxf, line -> event("progress", "line", line.trim()));
+            event("result",
+                "status", "COMPLETED",
+                "path", result.output().toString(),
+                "nodes", result.nodes(),
+                "links", result.links(),
+                "skipped", result.skipped(),
+                "elapsedMs", result.millis());
+            return OK;
+        } catch (IOException e) {
+            event("error", "message", "EPANET conversion failed: " + e.getMessage());
+            return FAILED;
+        }
+    }
+
+    private int cleanup(String[] args) {
+        Options opts = Options.parse(args, 1);
+        if (opts.positional.isEmpty()) throw new IllegalArgumentException("cleanup needs at least one .dxf file");
+
+        DxfCleaner.LayerMap map;
+        try {
+            map = opts.values.containsKey("--map") ? DxfCleaner.LayerMap.load(Paths.get(opts.values.get("--map"))) : DxfCleaner.LayerMap.load();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read layer map: " + e.getMessage());
+        }
+
+        event("start", "command", "cleanup", "drawings", opts.positional.size());
+        int cleaned = 0, failed = 0;
+        for (String name : opts.positional) {
+            Path input = Paths.get(name);
+            Path output = opts.flags.contains("--in-place") ? input : DxfCleaner.defaultOutput(input);
+            try {
+                DxfCleaner.Result result = DxfCleaner.clean(input, output, map, line -> event("progress", "line", line.trim()));
+                event("drawing",
+                    "path", result.output().toString(),
+                    "report", result.report().toString(),
+                    "layersPurged", result.layersPurged(),
+                    "linetypesPurged", result.linetypesPurged(),
+                    "blocksPurged", result.blocksPurged(),
+                    "layersRemapped", result.layersRemapped(),
+                    "findings", result.findings(),
+                    "elapsedMs", result.millis());
+                cleaned++;
+            } catch (IOException e) {
+                event("error", "path", input.toString(), "message", e.getMessage());
+                failed++;
+            }
+        }
+
+        event("summary", "drawings", opts.positional.size(), "cleaned", cleaned, "failed", failed);
+        if (failed == 0) return OK;
+        return cleaned > 0 ? PARTIAL : FAILED;
+    }
+
+    private int cache(String[] args) {
+        Options opts = Options.parse(args, 2);
+        String action = args.length > 1 ? args[1] : "";
+
+        switch (action) {
+            case "stats" -> {
+                cacheArea("engine", PETOOLS_DIR.resolve("cache").resolve("engine"));
+                cacheArea("preview", PETOOLS_DIR.resolve("cache").resolve("preview"));
+                cacheArea("parcels", PETOOLS_DIR.resolve("parcels"));
+                cacheArea("cad-imports", EngineFiles.CAD_OUTPUT_DIR);
+                return OK;
+            }
+            case "prune" -> {
+                if (!engineReady()) return ENGINE_MISSING;
+                int days = opts.intOption("--days", 30);
+                event("start", "command", "cache prune", "days", days);
+                // The engine owns its cache layout, so pruning goes through it like every other run
+                EngineRunner.Request request = new EngineRunner.Request(
+                    EngineFiles.SCRIPT_PATH, List.of("--prune-cache", Integer.toString(days)),
+                    Duration.ofMinutes(5), Duration.ofMinutes(5));
+                return exitCode(await(EngineRunner.shared().submit(request, this::engineLine)));
+            }
+            default -> throw new IllegalArgumentException("cache needs 'stats' or 'prune'");
+        }
+    }
+
+    private int usage(String problem) {
+        if (problem != null) event("error", "message", problem);
+        event("usage", "commands", List.of(
+            "import <address> [--no-layers] [--refresh] [--max-kbps N] [--timeout MIN]",
+            "batch <file>|--projects [--refresh] [--prefetch] [--max-kbps N] [--timeout MIN] [--stop-on-error]",
+            "epanet <model.inp> [model.dxf] [--force]",
+            "cleanup <drawing.dxf>... [--in-place] [--map layer_map.csv]",
+            "cache stats",
+            "cache prune [--days N]"));
+        return problem == null ? OK : USAGE;
+    }
+
+    // --- Engine ---
+
+    private boolean engineReady() {
+        EngineFiles.ensureInstalled(message -> event("log", "line", message));
+        if (Files.exists(EngineFiles.SCRIPT_PATH)) return true;
+        event("error", "message", "Engine not found: " + EngineFiles.SCRIPT_PATH);
+        return false;
+    }
+
+    private EngineRunner.Result runEngine(String address, Options opts) {
+        List<String> args = new ArrayList<>(List.of(address, opts.flags.contains("--no-layers") ? "n" : "y"));
+        if (opts.flags.contains("--refresh")) args.add("--refresh");
+        if (opts.flags.contains("--prefetch")) args.add("--prefetch");
+        if (opts.values.containsKey("--max-kbps")) args.addAll(List.of("--max-kbps", opts.values.get("--max-kbps")));
+        args.addAll(EngineRunner.extentArgs());
+
+        Duration runTimeout = Duration.ofMinutes(opts.intOption("--timeout", (int) RUN_TIMEOUT.toMinutes()));
+        EngineRunner.Request request = new EngineRunner.Request(
+            EngineFiles.SCRIPT_PATH, args, runTimeout, STAGE_TIMEOUT);
+
+        return await(EngineRunner.shared().submit(request, this::engineLine));
+    }
+
+    private EngineRunner.Result await(EngineRunner.Run run) {
+        currentRun = run;
+        try {
+            EngineRunner.Result result = run.result().get();
+            event("result",
+                "status", result.status().name(),
+                "exitCode", result.exitCode(),
+                "elapsedMs", result.elapsed().toMillis(),
+                "cpuMs", result.cpu().toMillis(),
+                "peakRssBytes", result.peakRssBytes());
+            return result;
+        } catch (InterruptedException | ExecutionException e) {
+            run.cancel();
+            event("error", "message", "Interrupted: " + e.getMessage());
+            return new EngineRunner.Result(EngineRunner.Status.CANCELLED, -1, Duration.ZERO, Duration.ZERO, 0);
+        } finally {
+            currentRun = null;
+        }
+    }
+
+    // Engine output -> structured events for the lines that carry meaning
+    private void engineLine(String line) {
+        String text = line.trim();
+        if (text.startsWith("📦")) {
+            event("stage", "layer", text.replaceFirst("^📦\\s*(Fetching|Refreshing) layer:\\s*", ""));
+        } else if (text.startsWith("✅ Saved:") || text.startsWith("✅ Cached:")) {
+            event("layer", "path", text.substring(text.indexOf(':') + 1).trim().replaceFirst(" \\(\\d+ contours\\)$", ""),
+                  "cached", text.startsWith("✅ Cached:"));
+        } else if (text.startsWith("📁 Script generated:")) {
+            event("script", "path", text.substring(text.indexOf(':') + 1).trim());
+        } else if (text.startsWith("... ")) {
+            event("progress", "line", text);
+        } else if (!text.isEmpty() && !text.equals("DONE")) {
+            event("log", "line", text);
+        }
+    }
+
+    private void cancelCurrent() {
+        EngineRunner.Run run = currentRun;
+        if (run == null) return;
+        run.cancel();
+        try {
+            run.result().get(5, TimeUnit.SECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {}
+    }
+
+    private static int exitCode(EngineRunner.Result result) {
+        return switch (result.status()) {
+            case COMPLETED -> OK;
+            case TIMED_OUT -> TIMED_OUT;
+            case CANCELLED -> CANCELLED;
+            default -> FAILED;
+        };
+    }
+
+    // --- Inputs ---
+
+    // One address per line, or a CSV whose header has an "address" column; # starts a comment
+    private static List<String> readAddresses(Path file) {
+        List<String> list = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            int column = -1;
+            boolean first = true;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.trim().startsWith("#")) continue;
+                if (first) {
+                    first = false;
+                    List<String> header = splitCsv(line);
+                    for (int i = 0; i < header.size(); i++) {
+                        if (header.get(i).trim().equalsIgnoreCase("address")) column = i;
+                    }
+                    if (column >= 0) continue;
+                }
+                if (column < 0) {
+                    list.add(line.trim());
+                } else {
+                    List<String> parts = splitCsv(line);
+                    if (parts.size() > column && !parts.get(column).isBlank()) list.add(parts.get(column).trim());
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read " + file + ": " + e.getMessage());
+        }
+        return list;
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> parts = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') { cur.append('"'); i++; }
+                else quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                parts.add(cur.toString());
+                cur.setLength(0);
+            } else {
+                cur.append(c);
+            }
+        }
+        parts.add(cur.toString());
+        return parts;
+    }
+
+    private static List<String> activeProjectAddresses() {
+        List<String> list = new ArrayList<>();
+        for (Project p : ProjectStore.load(ProjectStore.DATA_FILE)) {
+            if ("Active".equalsIgnoreCase(p.getStatus()) && !p.getAddress().isBlank()) list.add(p.getAddress().trim());
+        }
+        return list;
+    }
+
+    private void cacheArea(String name, Path dir) {
+        long[] totals = new long[2];
+        if (Files.isDirectory(dir)) {
+            try (Stream<Path> walk = Files.walk(dir)) {
+                walk.filter(Files::isRegularFile).forEach(p -> {
+                    totals[0]++;
+                    try { totals[1] += Files.size(p); } catch (IOException e) {}
+                });
+            } catch (IOException e) {}
+        }
+        event("cache", "area", name, "path", dir.toString(), "files", totals[0], "bytes", totals[1]);
+    }
+
+    // --- Output (one JSON object per line) ---
+
+    private synchronized void event(String type, Object... fields) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("event", type);
+        for (int i = 0; i + 1 < fields.length; i += 2) map.put((String) fields[i], fields[i + 1]);
+        out.println(json(map));
+    }
+
+    private static String json(Object value) {
+        if (value == null) return "null";
+        if (value instanceof Number || value instanceof Boolean) return value.toString();
+        if (value instanceof Map<?, ?> map) {
+            StringBuilder sb = new StringBuilder("{");
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                if (sb.length() > 1) sb.append(',');
+                sb.append(json(e.getKey().toString())).append(':').append(json(e.getValue()));
+            }
+            return sb.append('}').toString();
+        }
+        if (value instanceof List<?> list) {
+            StringBuilder sb = new StringBuilder("[");
+            for (Object o : list) {
+                if (sb.length() > 1) sb.append(',');
+                sb.append(json(o));
+            }
+            return sb.append(']').toString();
+        }
+
+        String s = value.toString();
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    // --- Argument parsing ---
+
+    private static final class Options {
+        private static final Set<String> WITH_VALUE = Set.of("--max-kbps", "--timeout", "--days", "--map");
+
+        final List<String> positional = new ArrayList<>();
+        final Set<String> flags = new HashSet<>();
+        final Map<String, String> values = new LinkedHashMap<>();
+
+        static Options parse(String[] args, int from) {
+            Options o = new Options();
+            for (int i = from; i < args.length; i++) {
+                String a = args[i];
+                if (WITH_VALUE.contains(a)) {
+                    if (i + 1 >= args.length) throw new IllegalArgumentException(a + " needs a value");
+                    o.values.put(a, args[++i]);
+                } else if (a.startsWith("--")) {
+                    o.flags.add(a);
+                } else {
+                    o.positional.add(a);
+                }
+            }
+            return o;
+        }
+
+        int intOption(String name, int fallback) {
+            String v = values.get(name);
+            if (v == null) return fallback;
+            try {
+                return Integer.parseInt(v.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(name + " must be a whole number");
+            }
+        }
+    }
+}
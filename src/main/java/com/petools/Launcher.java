@@ -2,6 +2,11 @@ package com.petools;
 
 public class Launcher {
     public static void main(String[] args) {
+        // --- Headless CLI (import / batch / cache): no JavaFX at all ---
+        if (HeadlessCli.isCommand(args)) {
+            System.exit(HeadlessCli.run(args));
+        }
+
         // --- FIX: Force Software Rendering to prevent WebView Crashes ---
         System.setProperty("prism.order", "sw");
         System.setProperty("prism.text", "t2k");
@@ -1,44 +1,55 @@
 package com.petools.features.autocad;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 
 import javafx.application.Platform;
 import javafx.geometry.Insets;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.ButtonType;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.Separator;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
 
 public class AutoCADView extends VBox {
 
     private final TextField addressField;
     private final CheckBox downloadLayersCheck;
+    private final CheckBox refreshOnlyCheck;
     private final TextArea consoleLog;
+    private final Button cancelBtn;
+    private final LayerPreviewPane preview;
+
+    private volatile EngineRunner.Run currentRun;
 
     // --- PATHS ---
-    // 1. Where the .exe lives (.petools/scripts)
-    private static final Path SCRIPT_DIR = Paths.get(System.getProperty("user.home"), ".petools", "scripts");
-    private static final Path SCRIPT_PATH = SCRIPT_DIR.resolve("address_to_scr.exe");
+    // 1. Engine + CAD outputs (see EngineFiles)
+    private static final Path SCRIPT_PATH = EngineFiles.SCRIPT_PATH;
+    private static final Path CAD_OUTPUT_DIR = EngineFiles.CAD_OUTPUT_DIR;
+
+    // 2. Private copies of the output layers for the preview pane (.petools/cache/preview)
+    private static final Path PREVIEW_SNAPSHOT_DIR = Paths.get(System.getProperty("user.home"), ".petools", "cache", "preview");
 
-    // 2. Where the CAD outputs go (.petools/cad-imports)
-    private static final Path CAD_OUTPUT_DIR = Paths.get(System.getProperty("user.home"), ".petools", "cad-imports");
+    // 3. Engine limits (a dead endpoint should never leave the exe running forever)
+    private static final Duration RUN_TIMEOUT = Duration.ofMinutes(10);
+    private static final Duration STAGE_TIMEOUT = Duration.ofMinutes(3);
 
     public AutoCADView() {
         this.setSpacing(20);
@@ -81,9 +92,19 @@ public class AutoCADView extends VBox {
         downloadLayersCheck = new CheckBox("Download GIS Layers? (Parcels, Topo, Streams)");
         downloadLayersCheck.setSelected(true);
 
+        // Delta sync: the drawing already has this site, only re-import layers that changed
+        refreshOnlyCheck = new CheckBox("Refresh changed layers only (site already in drawing)");
+        refreshOnlyCheck.disableProperty().bind(downloadLayersCheck.selectedProperty().not());
+
         Button runScriptBtn = createActionBtn("Run Site Import Script", "#0078D7");
         runScriptBtn.setOnAction(e -> runExeScript());
 
+        cancelBtn = createActionBtn("Cancel", "#dc3545");
+        cancelBtn.setDisable(true);
+        cancelBtn.setOnAction(e -> cancelRun());
+
+        HBox runControls = new HBox(10, runScriptBtn, cancelBtn);
+
         // Status Check
         File scriptFile = SCRIPT_PATH.toAbsolutePath().toFile();
         Label statusLabel = new Label();
@@ -95,7 +116,7 @@ public class AutoCADView extends VBox {
             statusLabel.setStyle("-fx-text-fill: green; -fx-font-weight: bold;");
         }
 
-        siteSection.getChildren().addAll(section1Label, new Separator(), addrLabel, addressField, downloadLayersCheck, runScriptBtn, statusLabel);
+        siteSection.getChildren().addAll(section1Label, new Separator(), addrLabel, addressField, downloadLayersCheck, refreshOnlyCheck, runControls, statusLabel);
 
         // --- Section 2: Engineering Utilities ---
         VBox utilsSection = new VBox(10);
@@ -106,13 +127,13 @@ public class AutoCADView extends VBox {
 
         VBox buttonBox = new VBox(10);
 
-        Button epaNetBtn = createActionBtn("Convert EPANET to DWG", "#28a745");
+        Button epaNetBtn = createActionBtn("Convert EPANET to DXF", "#28a745");
         epaNetBtn.setMaxWidth(Double.MAX_VALUE);
-        epaNetBtn.setOnAction(e -> runPlaceholderTask("Reading .inp file... mapping nodes to blocks... export complete."));
+        epaNetBtn.setOnAction(e -> convertEpanet(epaNetBtn));
 
         Button cleanupBtn = createActionBtn("Standard Layer Cleanup", "#6c757d");
         cleanupBtn.setMaxWidth(Double.MAX_VALUE);
-        cleanupBtn.setOnAction(e -> runPlaceholderTask("Purging unused layers... fixing linetypes... auditing drawing... Cleaned."));
+        cleanupBtn.setOnAction(e -> cleanupDrawings(cleanupBtn));
 
         buttonBox.getChildren().addAll(epaNetBtn, cleanupBtn);
         utilsSection.getChildren().addAll(section2Label, new Separator(), buttonBox);
@@ -123,61 +144,25 @@ public class AutoCADView extends VBox {
         HBox.setHgrow(utilsSection, Priority.ALWAYS);
         topRow.getChildren().addAll(siteSection, utilsSection);
 
-        // --- Section 3: Log ---
-        VBox logSection = new VBox(10);
-        VBox.setVgrow(logSection, Priority.ALWAYS);
+        // --- Section 3: Log & Preview ---
+        preview = new LayerPreviewPane(CAD_OUTPUT_DIR, PREVIEW_SNAPSHOT_DIR);
 
-        Label logLabel = new Label("Automation Log");
-        logLabel.setStyle("-fx-font-weight: bold;");
+        Tab logTab = new Tab("Automation Log", consoleLog);
+        Tab previewTab = new Tab("Layer Preview", preview);
+        // Nothing is mapped or decoded until someone actually looks at the preview
+        previewTab.setOnSelectionChanged(e -> {
+            if (previewTab.isSelected()) preview.ensureLoaded();
+        });
 
-        logSection.getChildren().addAll(logLabel, consoleLog);
+        TabPane logSection = new TabPane(logTab, previewTab);
+        logSection.setTabClosingPolicy(TabPane.TabClosingPolicy.UNAVAILABLE);
+        VBox.setVgrow(logSection, Priority.ALWAYS);
 
         this.getChildren().addAll(header, topRow, logSection);
     }
 
     private void ensureScriptExists() {
-        try {
-            // A. Create Directories
-            if (!Files.exists(SCRIPT_DIR)) Files.createDirectories(SCRIPT_DIR);
-            if (!Files.exists(CAD_OUTPUT_DIR)) Files.createDirectories(CAD_OUTPUT_DIR);
-
-            // B. Extract/Update EXE (Logic Engine)
-            extractResource("address_to_scr.exe", SCRIPT_PATH);
-
-            // C. Extract CAD Assets (Templates & LISP) -> .petools/cad-imports
-            String[] assetsToExtract = {
-                "gis data.ipf",
-                "CXXXXX_Xref_Surv.dwt",
-                "apply_topo_elevation.lsp",
-                "enable_linetype_generation.lsp",
-                "full_draw_circ.lsp"
-            };
-
-            for (String asset : assetsToExtract) {
-                Path dest = CAD_OUTPUT_DIR.resolve(asset);
-                extractResource(asset, dest);
-            }
-
-        } catch (IOException e) {
-            log("Error updating files: " + e.getMessage());
-        }
-    }
-
-    // --- Helper to reduce Copy/Paste ---
-    private void extractResource(String resourceName, Path destination) throws IOException {
-        // Only extract if missing (to avoid overwriting user edits)
-        if (Files.exists(destination)) return;
-
-        String resourcePath = "/" + resourceName;
-
-        try (InputStream in = getClass().getResourceAsStream(resourcePath)) {
-            if (in != null) {
-                Files.copy(in, destination, StandardCopyOption.REPLACE_EXISTING);
-                log("Restored " + resourceName);
-            } else {
-                log("⚠️ Missing in JAR: " + resourceName);
-            }
-        }
+        EngineFiles.ensureInstalled(this::log);
     }
 
     private void runExeScript() {
@@ -192,48 +177,117 @@ public class AutoCADView extends VBox {
         log("🚀 Launching Automation Engine...");
         log("   Target: " + CAD_OUTPUT_DIR.toString());
 
-        new Thread(() -> {
-            try {
-                String commandPath = SCRIPT_PATH.toAbsolutePath().toString();
+        List<String> args = new ArrayList<>(List.of(address, downloadArg));
+        if (downloadLayersCheck.isSelected() && refreshOnlyCheck.isSelected()) args.add("--refresh");
+        args.addAll(EngineRunner.extentArgs());
 
-                ProcessBuilder pb = new ProcessBuilder(commandPath, address, downloadArg);
-                pb.environment().put("PYTHONIOENCODING", "utf-8");
-                pb.redirectErrorStream(true);
+        EngineRunner.Request request = new EngineRunner.Request(
+            SCRIPT_PATH, args, RUN_TIMEOUT, STAGE_TIMEOUT);
 
-                Process process = pb.start();
+        EngineRunner.Run run = EngineRunner.shared().submit(request, this::log);
+        currentRun = run;
+        cancelBtn.setDisable(false);
 
-                BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)
-                );
-
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    final String outputLine = line;
-                    Platform.runLater(() -> log(outputLine));
+        run.result().thenAccept(result -> Platform.runLater(() -> {
+            switch (result.status()) {
+                case COMPLETED -> {
+                    log("\n✅ Process Complete. Files in: " + CAD_OUTPUT_DIR.getFileName());
+                    preview.reload();
                 }
+                case CANCELLED -> log("\n🛑 Process Cancelled.");
+                case TIMED_OUT -> log("\n⏱️ Process Timed Out.");
+                default -> log("\n❌ Process Failed (Exit Code: " + result.exitCode() + ")");
+            }
+            log("   " + result.summary());
 
-                int exitCode = process.waitFor();
+            if (currentRun == run) {
+                currentRun = null;
+                cancelBtn.setDisable(true);
+            }
+        }));
+    }
+
+    private void cancelRun() {
+        EngineRunner.Run run = currentRun;
+        if (run != null) {
+            log("🛑 Cancelling engine...");
+            run.cancel();
+        }
+    }
 
-                Platform.runLater(() -> {
-                    if (exitCode == 0) log("\n✅ Process Complete. Files in: " + CAD_OUTPUT_DIR.getFileName());
-                    else log("\n❌ Process Failed (Exit Code: " + exitCode + ")");
-                });
+    private void convertEpanet(Button trigger) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Select EPANET Model");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("EPANET input (*.inp)", "*.inp"));
+        File picked = chooser.showOpenDialog(getScene() == null ? null : getScene().getWindow());
+        if (picked == null) return;
+
+        Path inp = picked.toPath();
+        Path dxf = EpanetDxfConverter.defaultOutput(inp);
+        if (Files.exists(dxf)) {
+            Alert confirm = new Alert(Alert.AlertType.CONFIRMATION,
+                dxf.getFileName() + " already exists next to the model. Replace it?", ButtonType.YES, ButtonType.NO);
+            confirm.setHeaderText(null);
+            if (confirm.showAndWait().orElse(ButtonType.NO) != ButtonType.YES) {
+                log("⚠️ EPANET conversion cancelled, " + dxf.getFileName() + " left as it was.");
+                return;
+            }
+        }
+        log("💧 Converting EPANET model: " + inp.getFileName());
+        trigger.setDisable(true);
 
-            } catch (IOException | InterruptedException e) {
-                Platform.runLater(() -> log("❌ Error: " + e.getMessage()));
+        Thread worker = new Thread(() -> {
+            try {
+                EpanetDxfConverter.Result result = EpanetDxfConverter.convert(inp, dxf, this::log);
+                log(String.format("✅ DXF written: %s (%,d nodes, %,d links in %,d ms)",
+                    result.output(), result.nodes(), result.links(), result.millis()));
+                if (result.skipped() > 0) log("⚠️ " + result.skipped() + " elements had no coordinates and were left out.");
+            } catch (IOException | RuntimeException ex) {
+                log("❌ EPANET conversion failed: " + ex.getMessage());
+            } finally {
+                Platform.runLater(() -> trigger.setDisable(false));
+                log("--------------------------------------------------");
             }
-        }).start();
+        }, "epanet-convert");
+        worker.setDaemon(true);
+        worker.start();
     }
 
-    private void runPlaceholderTask(String successMessage) {
-        log("⏳ Starting process...");
-        new Thread(() -> {
-            try { Thread.sleep(800); } catch (InterruptedException e) {}
-            Platform.runLater(() -> {
-                log("✅ " + successMessage);
+    private void cleanupDrawings(Button trigger) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Select Drawings to Clean");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("ASCII DXF (*.dxf)", "*.dxf"));
+        List<File> picked = chooser.showOpenMultipleDialog(getScene() == null ? null : getScene().getWindow());
+        if (picked == null || picked.isEmpty()) return;
+
+        log("🧹 Cleaning " + picked.size() + " drawing(s) against the layer standard...");
+        trigger.setDisable(true);
+
+        Thread worker = new Thread(() -> {
+            try {
+                DxfCleaner.LayerMap map = DxfCleaner.LayerMap.load();
+                for (File file : picked) {
+                    Path input = file.toPath();
+                    try {
+                        DxfCleaner.Result result = DxfCleaner.clean(input, DxfCleaner.defaultOutput(input), map, this::log);
+                        log(String.format("✅ Cleaned: %s (purged %d layers, %d linetypes, %d blocks; %d layers remapped)",
+                            result.output().getFileName(), result.layersPurged(), result.linetypesPurged(),
+                            result.blocksPurged(), result.layersRemapped()));
+                        for (String finding : result.findings()) log("   ⚠️ " + finding);
+                        log("   Audit report: " + result.report().getFileName());
+                    } catch (IOException | RuntimeException ex) {
+                        log("❌ " + input.getFileName() + ": " + ex.getMessage());
+                    }
+                }
+            } catch (IOException ex) {
+                log("❌ Cannot read the layer map: " + ex.getMessage());
+            } finally {
+                Platform.runLater(() -> trigger.setDisable(false));
                 log("--------------------------------------------------");
-            });
-        }).start();
+            }
+        }, "dxf-cleanup");
+        worker.setDaemon(true);
+        worker.start();
     }
 
     private Button createActionBtn(String text, String colorHex) {
@@ -244,25 +298,12 @@ public class AutoCADView extends VBox {
 
     private void log(String message) {
         Platform.runLater(() -> {
-            String timestamp = LocalTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss"));
-            String fullMessage = String.format("[%s] %s", timestamp, message);
-
-            boolean isProgressUpdate = message.trim().startsWith("...");
-
-            if (isProgressUpdate) {
-                String currentText = consoleLog.getText();
-                if (!currentText.isEmpty()) {
-                    int lastNewLineIndex = currentText.lastIndexOf('\n', currentText.length() - 2);
-                    String lastLine = (lastNewLineIndex >= 0)
-                        ? currentText.substring(lastNewLineIndex + 1)
-                        : currentText;
-
-                    if (lastLine.contains("...")) {
-                        consoleLog.deleteText(lastNewLineIndex + 1, currentText.length());
-                    }
-                }
+            String text = consoleLog.getText();
+            int cut = ConsoleLog.progressCut(text, message);
+            if (cut >= 0) {
+                consoleLog.deleteText(cut, text.length());
             }
-            consoleLog.appendText(fullMessage + "\n");
+            consoleLog.appendText(ConsoleLog.line(LocalTime.now(), message));
         });
     }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.petools.features.autocad;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Text rules for the automation console: timestamped lines, and engine
+ * progress lines ("   ... 4000 items found") that overwrite the previous one
+ * instead of scrolling the log.
+ */
+public final class ConsoleLog {
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private ConsoleLog() {}
+
+    public static String line(LocalTime time, String message) {
+        return String.format("[%s] %s", time.format(TIME), message) + "\n";
+    }
+
+    /**
+     * Where to cut the current log text before appending this message: the start
+     * of the last line when both are progress updates, otherwise -1.
+     */
+    public static int progressCut(String currentText, String message) {
+        boolean isProgressUpdate = message.trim().startsWith("...");
+        if (!isProgressUpdate || currentText.isEmpty()) return -1;
+
+        int lastNewLineIndex = currentText.lastIndexOf('\n', currentText.length() - 2);
+        String lastLine = (lastNewLineIndex >= 0)
+            ? currentText.substring(lastNewLineIndex + 1)
+            : currentText;
+
+        return lastLine.contains("...") ? lastNewLineIndex + 1 : -1;
+    }
+}
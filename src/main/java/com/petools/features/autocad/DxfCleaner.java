@@ -0,0 +1,909 @@
+package com.petools.features.autocad;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Standard Layer Cleanup for ASCII DXF drawings, outside AutoCAD: purges unused layers,
+ * linetypes and blocks, moves layers onto the office standard through {@link LayerMap},
+ * and reports what an audit would complain about.
+ *
+ * Two passes, both streamed through a FileChannel. The first only collects references
+ * (names, block dependencies and handle pointers, a few bytes per distinct name); the
+ * second rewrites the drawing one record at a time. Memory does not grow with the file,
+ * so a 500 MB drawing cleans in the same heap as a 5 MB one.
+ *
+ * Values are read as ISO-8859-1, one char per byte, so anything not renamed is written
+ * back byte for byte whatever code page or UTF-8 the drawing uses. Table entries other
+ * objects point to by handle are kept even when nothing is drawn on them.
+ */
+public final class DxfCleaner {
+
+    /** One cleaned drawing: what was purged and renamed, and the audit findings. */
+    public record Result(Path output, Path report, int layersPurged, int linetypesPurged, int blocksPurged,
+                         int layersRemapped, List<String> findings, long millis) {}
+
+    public static final Path LAYER_MAP_FILE = Paths.get(System.getProperty("user.home"), ".petools", "layer_map.csv");
+
+    private static final Set<String> KEEP_LAYERS = Set.of("0", "DEFPOINTS");
+    private static final Set<String> KEEP_LINETYPES = Set.of("CONTINUOUS", "BYLAYER", "BYBLOCK");
+    private static final int MAX_NAMES = 8;  // names listed per finding before "and N more"
+
+    private DxfCleaner() {}
+
+    public static Result clean(Path input, Path output, LayerMap map, Consumer<String> log) throws IOException {
+        long started = System.nanoTime();
+
+        log.accept("   ... scanning references in " + input.getFileName());
+        Scan scan = new Scan(map);
+        try (PairReader in = new PairReader(input)) {
+            in.records(scan::accept);
+        }
+        scan.decide();
+
+        log.accept("   ... rewriting " + input.getFileName());
+        Path tmp = output.resolveSibling(output.getFileName() + ".tmp");
+        try (PairReader in = new PairReader(input); PairWriter out = new PairWriter(tmp, in.eol())) {
+            Rewrite rewrite = new Rewrite(scan, out);
+            in.records(rewrite::accept);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, output, StandardCopyOption.REPLACE_EXISTING);
+
+        List<String> findings = scan.findings();
+        Path report = reportPath(output);
+        Files.write(report, scan.report(input, output, findings), StandardCharsets.UTF_8);
+
+        return new Result(output, report, scan.purgedLayers.size(), scan.purgedLinetypes.size(), scan.purgedBlocks.size(),
+            scan.remapped.size(), findings, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /** The cleaned copy next to the original: {@code site.dxf -> site-clean.dxf}. */
+    public static Path defaultOutput(Path input) {
+        String name = input.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return input.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + "-clean.dxf");
+    }
+
+    private static Path reportPath(Path output) {
+        String name = output.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return output.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".audit.txt");
+    }
+
+    private static String key(String name) {
+        return name.trim().toUpperCase(Locale.ROOT);
+    }
+
+    // Layer 0, DEFPOINTS and xref-dependent layers keep their names whatever the map says
+    private static boolean fixedLayer(String name) {
+        String k = key(name);
+        return KEEP_LAYERS.contains(k) || k.contains("|");
+    }
+
+    private static String standardName(LayerMap map, String name) {
+        return fixedLayer(name) ? name : map.target(name);
+    }
+
+    // --- Layer map ---
+
+    /**
+     * Standard layer table, read from ~/.petools/layer_map.csv or the bundled default.
+     * Rows are {@code pattern,standard layer[,colour[,linetype]]}; the first match wins.
+     */
+    public static final class LayerMap {
+        record Rule(Pattern pattern, String target, Integer color, String linetype) {}
+
+        private final List<Rule> rules = new ArrayList<>();
+        private final Map<String, Rule> standards = new HashMap<>();  // by standard layer name
+        private final Map<String, Rule> resolved = new HashMap<>();
+
+        public static LayerMap load() throws IOException {
+            if (Files.exists(LAYER_MAP_FILE)) return load(LAYER_MAP_FILE);
+            try (InputStream in = DxfCleaner.class.getResourceAsStream("/layer_map.csv")) {
+                if (in == null) return new LayerMap();
+                return parse(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+            }
+        }
+
+        public static LayerMap load(Path file) throws IOException {
+            try (BufferedReader reader = Files.newBufferedReader(file)) {
+                return parse(reader);
+            }
+        }
+
+        private static LayerMap parse(BufferedReader reader) throws IOException {
+            LayerMap map = new LayerMap();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.trim().startsWith("#")) continue;
+                String[] parts = line.split(",", -1);
+                if (parts.length < 2 || parts[0].isBlank() || parts[1].isBlank()) continue;
+
+                Integer color = null;
+                if (parts.length > 2 && !parts[2].isBlank()) {
+                    try {
+                        color = Math.abs(Integer.parseInt(parts[2].trim()));
+                    } catch (NumberFormatException e) {}
+                }
+                String linetype = parts.length > 3 && !parts[3].isBlank() ? parts[3].trim() : null;
+                String target = parts[1].trim();
+                Rule rule = new Rule(glob(key(parts[0])), target.equals("=") ? null : target, color, linetype);
+                map.rules.add(rule);
+                if (rule.target() != null) map.standards.putIfAbsent(key(target), rule);
+            }
+            return map;
+        }
+
+        private static Pattern glob(String pattern) {
+            StringBuilder regex = new StringBuilder();
+            for (char c : pattern.toCharArray()) {
+                if (c == '*') regex.append(".*");
+                else if (c == '?') regex.append('.');
+                else regex.append(Pattern.quote(String.valueOf(c)));
+            }
+            return Pattern.compile(regex.toString());
+        }
+
+        /** The rule for a layer name, or null when the layer is not on the standard. */
+        Rule rule(String name) {
+            String k = key(name);
+            return resolved.computeIfAbsent(k, n -> {
+                for (Rule r : rules) {
+                    if (r.pattern().matcher(n).matches()) return r;
+                }
+                return standards.get(n);  // a standard layer nobody wrote a pattern for
+            });
+        }
+
+        /** Standard name for a layer: the mapped target, or the name itself. */
+        String target(String name) {
+            Rule r = rule(name);
+            return r == null || r.target() == null ? name : r.target();
+        }
+
+        boolean isStandard(String name) {
+            return rule(name) != null;
+        }
+    }
+
+    // --- Pass 1: references ---
+
+    private static final class LayerDef {
+        final String name;
+        int color = 7, flags, entities, colorOverrides;
+        String linetype = "CONTINUOUS", handle;
+
+        LayerDef(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final class BlockDef {
+        final String name;
+        int flags;
+        String handle;  // of its BLOCK_RECORD (R2000 and later)
+        final Set<String> layers = new HashSet<>(), linetypes = new HashSet<>(), blocks = new HashSet<>();
+
+        BlockDef(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final class Scan {
+        final LayerMap map;
+        String version = "unknown";
+
+        // Table entries by upper-case name
+        final Map<String, LayerDef> layers = new LinkedHashMap<>();
+        final Map<String, String> linetypes = new LinkedHashMap<>();   // name -> handle
+        final Map<String, BlockDef> blocks = new LinkedHashMap<>();
+        final Set<String> duplicates = new HashSet<>();
+
+        // Direct references from model/paper space, the header and dimension styles
+        final Set<String> usedLayers = new HashSet<>(), usedLinetypes = new HashSet<>(), usedBlocks = new HashSet<>();
+        final Set<String> inserted = new HashSet<>();  // block names INSERTs use, anywhere
+        final Set<String> pointers = new HashSet<>();  // handles some object points at
+        final Map<String, Integer> undefinedLayerRefs = new TreeMap<>(), undefinedLinetypeRefs = new TreeMap<>(),
+            undefinedBlockRefs = new TreeMap<>();
+        final Map<String, Integer> spaceEntities = new HashMap<>();  // per layer, ENTITIES section only
+        int onLayer0, onDefpoints;
+
+        // Decisions, filled in by decide()
+        final Set<String> keptLinetypes = new HashSet<>(), keptBlocks = new HashSet<>();
+        final Map<String, String> layerEmitAs = new LinkedHashMap<>();  // kept layer entry -> name it is written as
+        final List<String> purgedLayers = new ArrayList<>(), purgedLinetypes = new ArrayList<>(), purgedBlocks = new ArrayList<>();
+        final List<String> remapped = new ArrayList<>(), keptByHandle = new ArrayList<>(), missingStandardLinetypes = new ArrayList<>();
+
+        private String section = "", table = "";
+        private BlockDef block;  // definition being read in BLOCKS
+
+        Scan(LayerMap map) {
+            this.map = map;
+        }
+
+        void accept(Record r) {
+            String type = r.type();
+            pointers(r);
+            switch (type) {
+                case "SECTION" -> {
+                    section = key(r.find(2, ""));
+                    if (section.equals("HEADER")) header(r);
+                }
+                case "ENDSEC" -> section = "";
+                case "TABLE" -> table = key(r.find(2, ""));
+                case "ENDTAB" -> table = "";
+                default -> {
+                    switch (section) {
+                        case "TABLES" -> tableEntry(type, r);
+                        case "BLOCKS" -> blockRecord(type, r);
+                        case "ENTITIES" -> references(type, r, null);
+                        default -> {}
+                    }
+                }
+            }
+        }
+
+        private void header(Record r) {
+            for (int i = 1; i + 1 < r.size(); i++) {
+                if (r.code(i) != 9) continue;
+                String variable = r.value(i).trim(), value = r.value(i + 1);
+                switch (variable) {
+                    case "$ACADVER" -> version = value.trim();
+                    case "$CLAYER" -> usedLayers.add(key(value));
+                    case "$CELTYPE" -> usedLinetypes.add(key(value));
+                    case "$DIMBLK", "$DIMBLK1", "$DIMBLK2", "$DIMLDRBLK" -> {
+                        if (!value.isBlank()) usedBlocks.add(key(value));
+                    }
+                    default -> {}
+                }
+            }
+        }
+
+        private void tableEntry(String type, Record r) {
+            String name = key(r.find(2, ""));
+            if (name.isEmpty()) return;
+            switch (type) {
+                case "LAYER" -> {
+                    if (layers.containsKey(name)) {
+                        duplicates.add("LAYER " + name);
+                        return;
+                    }
+                    LayerDef def = new LayerDef(r.find(2, "").trim());
+                    def.color = r.intValue(62, 7);
+                    def.flags = r.intValue(70, 0);
+                    def.linetype = key(r.find(6, "CONTINUOUS"));
+                    def.handle = r.find(5, null);
+                    layers.put(name, def);
+                }
+                case "LTYPE" -> {
+                    if (linetypes.containsKey(name)) duplicates.add("LTYPE " + name);
+                    else linetypes.put(name, r.find(5, null));
+                }
+                case "BLOCK_RECORD" -> blocks.computeIfAbsent(name, BlockDef::new).handle = r.find(5, null);
+                case "DIMSTYLE" -> {
+                    // Codes 5, 6 and 7 of a dimension style are arrow block names (its handle is 105)
+                    for (int code = 5; code <= 7; code++) {
+                        String arrow = r.find(code, "");
+                        if (!arrow.isBlank()) usedBlocks.add(key(arrow));
+                    }
+                }
+                default -> {}
+            }
+        }
+
+        private void blockRecord(String type, Record r) {
+            if (type.equals("BLOCK")) {
+                String name = key(r.find(2, ""));
+                block = blocks.computeIfAbsent(name, BlockDef::new);
+                block.flags = r.intValue(70, 0);
+                references(type, r, block);
+            } else if (type.equals("ENDBLK")) {
+                block = null;
+            } else {
+                references(type, r, block);
+            }
+        }
+
+        // Layer (8, xdata 1003), linetype (6) and block (2 of INSERT/DIMENSION) names one record uses
+        private void references(String type, Record r, BlockDef owner) {
+            boolean inserts = type.equals("INSERT") || type.equals("DIMENSION");
+            String layer = null;
+            boolean override = false;
+            for (int i = 1; i < r.size(); i++) {
+                int code = r.code(i);
+                if (code == 8 || code == 1003) {
+                    String name = key(r.value(i));
+                    if (code == 8) layer = name;
+                    if (owner != null) owner.layers.add(name);
+                    else usedLayers.add(name);
+                } else if (code == 6) {
+                    String name = key(r.value(i));
+                    if (owner != null) owner.linetypes.add(name);
+                    else usedLinetypes.add(name);
+                } else if (code == 2 && inserts) {
+                    String name = key(r.value(i));
+                    if (owner != null) owner.blocks.add(name);
+                    else usedBlocks.add(name);
+                    if (type.equals("INSERT")) inserted.add(name);
+                } else if (code == 62) {
+                    override = r.intValueAt(i, 256) != 256;
+                }
+            }
+            // Vertices, attributes and SEQENDs ride along with their parent
+            if (owner != null || layer == null || type.equals("VERTEX") || type.equals("ATTRIB") || type.equals("SEQEND")) return;
+
+            spaceEntities.merge(layer, 1, Integer::sum);
+            if (layer.equals("0")) onLayer0++;
+            if (layer.equals("DEFPOINTS")) onDefpoints++;
+            if (override) {
+                LayerDef def = layers.get(layer);
+                if (def != null) def.colorOverrides++;
+            }
+        }
+
+        // Handles other objects refer to: soft/hard pointers and xdata handles (never the owner, 330)
+        private void pointers(Record r) {
+            for (int i = 1; i < r.size(); i++) {
+                int code = r.code(i);
+                if ((code > 330 && code < 350) || (code >= 360 && code < 370) || code == 1005) {
+                    pointers.add(key(r.value(i)));
+                }
+            }
+        }
+
+        // --- Decisions ---
+
+        void decide() {
+            // Blocks: everything reachable from what is drawn, plus the ones AutoCAD owns
+            ArrayDeque<String> todo = new ArrayDeque<>(usedBlocks);
+            for (BlockDef def : blocks.values()) {
+                boolean pointed = def.handle != null && pointers.contains(key(def.handle));
+                if (def.name.startsWith("*") || (def.flags & 4) != 0 || def.name.contains("|") || pointed) todo.add(def.name);
+            }
+            while (!todo.isEmpty()) {
+                String name = todo.poll();
+                if (!keptBlocks.add(name)) continue;
+                BlockDef def = blocks.get(name);
+                if (def == null) continue;
+                usedLayers.addAll(def.layers);
+                usedLinetypes.addAll(def.linetypes);
+                todo.addAll(def.blocks);
+            }
+            for (String name : blocks.keySet()) {
+                if (!keptBlocks.contains(name)) purgedBlocks.add(name);
+            }
+
+            // Layers: used, reserved, xref-dependent, pointed at, or the standard target of a kept layer
+            Set<String> keptLayers = new HashSet<>(KEEP_LAYERS);
+            for (Map.Entry<String, LayerDef> e : layers.entrySet()) {
+                String name = e.getKey();
+                LayerDef def = e.getValue();
+                if (usedLayers.contains(name) || name.contains("|")) {
+                    keptLayers.add(name);
+                } else if (def.handle != null && pointers.contains(key(def.handle))) {
+                    keptLayers.add(name);
+                    keptByHandle.add(def.name);
+                }
+            }
+            for (String name : new ArrayList<>(keptLayers)) {
+                if (layers.containsKey(name)) keptLayers.add(key(standardName(map, layers.get(name).name)));
+            }
+
+            Map<String, String> targets = new HashMap<>();  // standard name -> entry written under it
+            for (Map.Entry<String, LayerDef> e : layers.entrySet()) {
+                String name = e.getKey();
+                LayerDef def = e.getValue();
+                if (!keptLayers.contains(name)) {
+                    purgedLayers.add(def.name);
+                    continue;
+                }
+                String target = standardName(map, def.name);
+                if (key(target).equals(name)) {
+                    // The standard layer itself wins over anything renamed to it
+                    String earlier = targets.put(name, name);
+                    if (earlier != null && !earlier.equals(name)) layerEmitAs.remove(earlier);
+                    layerEmitAs.put(name, def.name);
+                } else {
+                    remapped.add(def.name + " -> " + target);
+                    if (targets.putIfAbsent(key(target), name) == null) layerEmitAs.put(name, target);
+                }
+            }
+
+            // Linetypes: drawn with, used by a kept layer, or pointed at
+            keptLinetypes.addAll(KEEP_LINETYPES);
+            keptLinetypes.addAll(usedLinetypes);
+            for (String name : layerEmitAs.keySet()) {
+                keptLinetypes.add(layers.get(name).linetype);
+                LayerMap.Rule rule = fixedLayer(name) ? null : map.rule(layerEmitAs.get(name));
+                if (rule != null && rule.linetype() != null) {
+                    if (linetypes.containsKey(key(rule.linetype()))) keptLinetypes.add(key(rule.linetype()));
+                    else missingStandardLinetypes.add(layerEmitAs.get(name) + " (" + rule.linetype() + ")");
+                }
+            }
+            for (Map.Entry<String, String> e : linetypes.entrySet()) {
+                if (e.getValue() != null && pointers.contains(key(e.getValue()))) keptLinetypes.add(e.getKey());
+                if (!keptLinetypes.contains(e.getKey())) purgedLinetypes.add(e.getKey());
+            }
+        }
+
+        // --- Audit ---
+
+        List<String> findings() {
+            // Undefined names, counted by how many records use them
+            for (Map.Entry<String, Integer> e : spaceEntities.entrySet()) {
+                if (!layers.containsKey(e.getKey())) undefinedLayerRefs.put(e.getKey(), e.getValue());
+            }
+            for (String name : usedLinetypes) {
+                if (!linetypes.containsKey(name) && !KEEP_LINETYPES.contains(name)) undefinedLinetypeRefs.put(name, 1);
+            }
+            for (String name : inserted) {
+                if (!blocks.containsKey(name)) undefinedBlockRefs.put(name, 1);
+            }
+
+            List<String> findings = new ArrayList<>();
+            if (!undefinedLayerRefs.isEmpty()) {
+                int count = undefinedLayerRefs.values().stream().mapToInt(Integer::intValue).sum();
+                findings.add(count + " entities on layers missing from the layer table: " + counted(undefinedLayerRefs));
+            }
+            if (!undefinedBlockRefs.isEmpty()) findings.add("Inserts of undefined blocks: " + names(undefinedBlockRefs.keySet()));
+            if (!undefinedLinetypeRefs.isEmpty()) findings.add("Undefined linetypes in use: " + names(undefinedLinetypeRefs.keySet()));
+
+            List<String> nonStandard = new ArrayList<>();
+            Map<String, Integer> hidden = new TreeMap<>(), overrides = new TreeMap<>();
+            for (Map.Entry<String, LayerDef> e : layers.entrySet()) {
+                String name = e.getKey();
+                LayerDef def = e.getValue();
+                if (!layerEmitAs.containsKey(name)) continue;
+                int drawn = spaceEntities.getOrDefault(name, 0);
+                if (!fixedLayer(name) && !map.isStandard(def.name)) nonStandard.add(def.name);
+                if (drawn > 0 && ((def.flags & 1) != 0 || def.color < 0)) hidden.put(def.name, drawn);
+                if (def.colorOverrides > 0) overrides.put(def.name, def.colorOverrides);
+            }
+            if (!nonStandard.isEmpty()) findings.add(nonStandard.size() + " layers are not on the standard and have no mapping: " + names(nonStandard));
+            if (onLayer0 > 0) findings.add(onLayer0 + " entities drawn on layer 0 outside blocks");
+            if (onDefpoints > 0) findings.add(onDefpoints + " entities on DEFPOINTS, which never plots");
+            if (!hidden.isEmpty()) findings.add("Entities on frozen or off layers: " + counted(hidden));
+            if (!overrides.isEmpty()) findings.add("Colour overrides instead of ByLayer: " + counted(overrides));
+            if (!duplicates.isEmpty()) findings.add("Duplicate table entries (later copies dropped): " + names(duplicates));
+            if (!missingStandardLinetypes.isEmpty()) findings.add("Standard linetype not defined in the drawing, left as is: " + names(missingStandardLinetypes));
+            if (!keptByHandle.isEmpty()) findings.add("Unused layers kept because other objects point to them: " + names(keptByHandle));
+            return findings;
+        }
+
+        List<String> report(Path input, Path output, List<String> findings) {
+            List<String> lines = new ArrayList<>();
+            lines.add("PE Tools layer cleanup: " + input);
+            lines.add("Written to: " + output);
+            lines.add("DXF version: " + version);
+            lines.add("");
+            lines.add("Purged " + purgedLayers.size() + " layers, " + purgedLinetypes.size() + " linetypes, " + purgedBlocks.size() + " blocks");
+            section(lines, "Purged layers", purgedLayers);
+            section(lines, "Purged linetypes", purgedLinetypes);
+            section(lines, "Purged blocks", purgedBlocks);
+            section(lines, "Remapped layers", remapped);
+            section(lines, "Audit findings", findings.isEmpty() ? List.of("None") : findings);
+            return lines;
+        }
+
+        private static void section(List<String> lines, String title, List<String> items) {
+            if (items.isEmpty()) return;
+            lines.add("");
+            lines.add(title + ":");
+            for (String item : items) lines.add("  " + item);
+        }
+
+        private static String names(Iterable<String> names) {
+            List<String> list = new ArrayList<>();
+            names.forEach(list::add);
+            list.sort(null);
+            if (list.size() <= MAX_NAMES) return String.join(", ", list);
+            return String.join(", ", list.subList(0, MAX_NAMES)) + " and " + (list.size() - MAX_NAMES) + " more";
+        }
+
+        private static String counted(Map<String, Integer> counts) {
+            List<String> list = new ArrayList<>();
+            counts.forEach((name, n) -> list.add(name + " (" + n + ")"));
+            return names(list);
+        }
+    }
+
+    // --- Pass 2: rewrite ---
+
+    private static final class Rewrite {
+        private final Scan scan;
+        private final PairWriter out;
+        private final Map<String, String> layerNames = new HashMap<>();  // raw name in the file -> name written
+        private final Set<String> writtenLayers = new HashSet<>(), writtenLinetypes = new HashSet<>(), writtenRecords = new HashSet<>();
+        private String section = "", table = "";
+        private boolean dropping;  // inside a purged block definition
+
+        Rewrite(Scan scan, PairWriter out) {
+            this.scan = scan;
+            this.out = out;
+        }
+
+        void accept(Record r) throws IOException {
+            String type = r.type();
+            switch (type) {
+                case "SECTION" -> {
+                    section = key(r.find(2, ""));
+                    if (section.equals("HEADER")) header(r);
+                    else out.record(r);
+                }
+                case "ENDSEC" -> {
+                    section = "";
+                    out.record(r);
+                }
+                case "TABLE" -> {
+                    table = key(r.find(2, ""));
+                    tableHeader(r);
+                }
+                case "ENDTAB" -> {
+                    table = "";
+                    out.record(r);
+                }
+                default -> {
+                    switch (section) {
+                        case "TABLES" -> tableEntry(type, r);
+                        case "BLOCKS" -> {
+                            if (type.equals("BLOCK")) dropping = !scan.keptBlocks.contains(key(r.find(2, "")));
+                            if (!dropping) remapped(r);
+                            if (type.equals("ENDBLK")) dropping = false;
+                        }
+                        case "ENTITIES" -> remapped(r);
+                        default -> out.record(r);
+                    }
+                }
+            }
+        }
+
+        private void header(Record r) throws IOException {
+            for (int i = 0; i < r.size(); i++) {
+                if (i > 0 && r.code(i - 1) == 9 && r.value(i - 1).trim().equals("$CLAYER")) out.pair(r.code(i), layer(r.value(i)));
+                else out.pair(r, i);
+            }
+        }
+
+        // The entry count (70) follows the purge
+        private void tableHeader(Record r) throws IOException {
+            int count = switch (table) {
+                case "LAYER" -> scan.layerEmitAs.size();
+                case "LTYPE" -> (int) scan.linetypes.keySet().stream().filter(scan.keptLinetypes::contains).count();
+                case "BLOCK_RECORD" -> (int) scan.blocks.values().stream()
+                    .filter(b -> b.handle != null && scan.keptBlocks.contains(key(b.name))).count();
+                default -> -1;
+            };
+            for (int i = 0; i < r.size(); i++) {
+                if (count >= 0 && r.code(i) == 70) out.pair(70, Integer.toString(count));
+                else out.pair(r, i);
+            }
+        }
+
+        private void tableEntry(String type, Record r) throws IOException {
+            String name = key(r.find(2, ""));
+            switch (type) {
+                case "LAYER" -> {
+                    String target = scan.layerEmitAs.get(name);
+                    if (target == null || !writtenLayers.add(name)) return;
+                    LayerMap.Rule rule = fixedLayer(target) ? null : scan.map.rule(target);
+                    for (int i = 0; i < r.size(); i++) {
+                        int code = r.code(i);
+                        if (code == 2) {
+                            out.pair(2, target);
+                        } else if (code == 62 && rule != null && rule.color() != null) {
+                            out.pair(62, Integer.toString(r.intValueAt(i, 7) < 0 ? -rule.color() : rule.color()));
+                        } else if (code == 6 && rule != null && rule.linetype() != null && scan.linetypes.containsKey(key(rule.linetype()))) {
+                            out.pair(6, rule.linetype());
+                        } else {
+                            out.pair(r, i);
+                        }
+                    }
+                }
+                case "LTYPE" -> {
+                    if (scan.keptLinetypes.contains(name) && writtenLinetypes.add(name)) out.record(r);
+                }
+                case "BLOCK_RECORD" -> {
+                    if (scan.keptBlocks.contains(name) && writtenRecords.add(name)) out.record(r);
+                }
+                default -> out.record(r);
+            }
+        }
+
+        private void remapped(Record r) throws IOException {
+            for (int i = 0; i < r.size(); i++) {
+                int code = r.code(i);
+                if (code == 8 || code == 1003) out.pair(code, layer(r.value(i)));
+                else out.pair(r, i);
+            }
+        }
+
+        private String layer(String raw) {
+            return layerNames.computeIfAbsent(raw, n -> {
+                String target = standardName(scan.map, n.trim());
+                return key(target).equals(key(n)) ? n : target;
+            });
+        }
+    }
+
+    // --- Group code / value pairs ---
+
+    /** One record: a 0 pair and everything up to the next one. Reused from record to record. */
+    static final class Record {
+        private int size;
+        private int[] codes = new int[64], starts = new int[64], lengths = new int[64];
+        private byte[] data = new byte[4096];
+        private int used;
+
+        void clear() {
+            size = 0;
+            used = 0;
+        }
+
+        void add(int code, byte[] buf, int off, int len) {
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, size * 2);
+                starts = Arrays.copyOf(starts, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+            }
+            if (used + len > data.length) data = Arrays.copyOf(data, Math.max(data.length * 2, used + len));
+            System.arraycopy(buf, off, data, used, len);
+            codes[size] = code;
+            starts[size] = used;
+            lengths[size] = len;
+            used += len;
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int code(int i) {
+            return codes[i];
+        }
+
+        String value(int i) {
+            return new String(data, starts[i], lengths[i], StandardCharsets.ISO_8859_1);
+        }
+
+        String type() {
+            return size > 0 && codes[0] == 0 ? value(0).trim() : "";
+        }
+
+        String find(int code, String fallback) {
+            for (int i = 1; i < size; i++) {
+                if (codes[i] == code) return value(i);
+            }
+            return fallback;
+        }
+
+        int intValue(int code, int fallback) {
+            for (int i = 1; i < size; i++) {
+                if (codes[i] == code) return intValueAt(i, fallback);
+            }
+            return fallback;
+        }
+
+        int intValueAt(int i, int fallback) {
+            try {
+                return Integer.parseInt(value(i).trim());
+            } catch (NumberFormatException e) {
+                return fallback;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordHandler {
+        void accept(Record r) throws IOException;
+    }
+
+    /** Reads pairs straight out of a FileChannel buffer; only the current record is kept. */
+    private static final class PairReader implements Closeable {
+        private final FileChannel channel;
+        private ByteBuffer buf = ByteBuffer.allocate(1 << 20);
+        private int pos, limit;
+        private boolean eof;
+        private long lineNo;
+        private int lineStart, lineEnd;
+        private boolean crlf;
+
+        PairReader(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            fill();
+            String start = new String(buf.array(), 0, Math.min(limit, 22), StandardCharsets.ISO_8859_1);
+            if (start.startsWith("AutoCAD Binary DXF")) {
+                channel.close();
+                throw new IOException(file.getFileName() + " is a binary DXF; save it as ASCII DXF first");
+            }
+            for (int i = 0; i < limit; i++) {
+                if (buf.array()[i] == '\n') {
+                    crlf = i > 0 && buf.array()[i - 1] == '\r';
+                    break;
+                }
+            }
+        }
+
+        byte[] eol() {
+            return crlf ? new byte[] {'\r', '\n'} : new byte[] {'\n'};
+        }
+
+        void records(RecordHandler handler) throws IOException {
+            Record record = new Record();
+            while (nextLine()) {
+                int code = parseCode();
+                if (!nextLine()) throw new IOException("DXF ends inside a group (line " + lineNo + ")");
+                if (code == 0 && record.size() > 0) {
+                    handler.accept(record);
+                    record.clear();
+                }
+                record.add(code, buf.array(), lineStart, lineEnd - lineStart);
+            }
+            if (record.size() > 0) handler.accept(record);
+        }
+
+        // The next line as [lineStart, lineEnd) in the buffer, without its line ending
+        private boolean nextLine() throws IOException {
+            byte[] a = buf.array();
+            while (true) {
+                for (int i = pos; i < limit; i++) {
+                    if (a[i] == '\n') {
+                        lineStart = pos;
+                        lineEnd = i > pos && a[i - 1] == '\r' ? i - 1 : i;
+                        pos = i + 1;
+                        lineNo++;
+                        return true;
+                    }
+                }
+                if (eof) {
+                    if (pos >= limit) return false;
+                    // Last line without a line ending
+                    lineStart = pos;
+                    lineEnd = a[limit - 1] == '\r' ? limit - 1 : limit;
+                    pos = limit;
+                    lineNo++;
+                    return true;
+                }
+                fill();
+                a = buf.array();
+            }
+        }
+
+        // Keep the unread tail, grow only for a line longer than the buffer, read more
+        private void fill() throws IOException {
+            int tail = limit - pos;
+            if (pos == 0 && limit == buf.capacity()) {
+                ByteBuffer bigger = ByteBuffer.allocate(buf.capacity() * 2);
+                bigger.put(buf.array(), 0, limit);
+                buf = bigger;
+            } else {
+                System.arraycopy(buf.array(), pos, buf.array(), 0, tail);
+            }
+            pos = 0;
+            buf.clear().position(tail);
+            while (buf.hasRemaining()) {
+                int n = channel.read(buf);
+                if (n < 0) {
+                    eof = true;
+                    break;
+                }
+                if (n == 0) break;
+            }
+            limit = buf.position();
+        }
+
+        private int parseCode() throws IOException {
+            byte[] a = buf.array();
+            int i = lineStart, end = lineEnd;
+            while (i < end && a[i] == ' ') i++;
+            while (end > i && a[end - 1] == ' ') end--;
+            boolean negative = i < end && a[i] == '-';
+            if (negative) i++;
+            if (i == end) throw new IOException("Not an ASCII DXF: empty group code at line " + lineNo);
+            int code = 0;
+            for (; i < end; i++) {
+                int d = a[i] - '0';
+                if (d < 0 || d > 9) throw new IOException("Not an ASCII DXF: bad group code at line " + lineNo);
+                code = code * 10 + d;
+            }
+            return negative ? -code : code;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /** Writes pairs through a FileChannel, with the group code right-aligned as AutoCAD does. */
+    private static final class PairWriter implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buf = ByteBuffer.allocate(1 << 20);
+        private final byte[] eol;
+
+        PairWriter(Path file, byte[] eol) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            this.eol = eol;
+        }
+
+        void record(Record r) throws IOException {
+            for (int i = 0; i < r.size(); i++) pair(r, i);
+        }
+
+        void pair(Record r, int i) throws IOException {
+            pair(r.code(i), r.data, r.starts[i], r.lengths[i]);
+        }
+
+        void pair(int code, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+            pair(code, bytes, 0, bytes.length);
+        }
+
+        private void pair(int code, byte[] data, int off, int len) throws IOException {
+            if (buf.remaining() < len + 16) flush();
+            if (buf.remaining() < len + 16) {
+                // A value bigger than the buffer: write it straight through
+                code(code);
+                flush();
+                write(ByteBuffer.wrap(data, off, len));
+                buf.put(eol);
+                return;
+            }
+            code(code);
+            buf.put(data, off, len).put(eol);
+        }
+
+        private void code(int code) {
+            String digits = Integer.toString(code);
+            for (int pad = 3 - digits.length(); pad > 0; pad--) buf.put((byte) ' ');
+            for (int i = 0; i < digits.length(); i++) buf.put((byte) digits.charAt(i));
+            buf.put(eol);
+        }
+
+        private void flush() throws IOException {
+            buf.flip();
+            write(buf);
+            buf.clear();
+        }
+
+        private void write(ByteBuffer b) throws IOException {
+            while (b.hasRemaining()) channel.write(b);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
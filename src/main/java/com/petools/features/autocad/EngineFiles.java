@@ -0,0 +1,68 @@
+package com.petools.features.autocad;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Consumer;
+
+/**
+ * Where the engine and its CAD assets live on disk, and the "self-heal" step that
+ * restores them from the JAR. Shared by AutoCADView and the headless CLI.
+ */
+public final class EngineFiles {
+
+    // --- PATHS ---
+    // 1. Where the .exe lives (.petools/scripts)
+    public static final Path SCRIPT_DIR = Paths.get(System.getProperty("user.home"), ".petools", "scripts");
+    public static final Path SCRIPT_PATH = EngineRunner.DEFAULT_ENGINE;
+
+    // 2. Where the CAD outputs go (.petools/cad-imports)
+    public static final Path CAD_OUTPUT_DIR = Paths.get(System.getProperty("user.home"), ".petools", "cad-imports");
+
+    // CAD Assets (Templates & LISP) -> .petools/cad-imports
+    private static final String[] ASSETS = {
+        "gis data.ipf",
+        "CXXXXX_Xref_Surv.dwt",
+        "petools_post_import.lsp",
+        "full_draw_circ.lsp"
+    };
+
+    private EngineFiles() {}
+
+    /** Creates the folders and extracts anything missing. Messages go to {@code log}. */
+    public static void ensureInstalled(Consumer<String> log) {
+        try {
+            // A. Create Directories
+            if (!Files.exists(SCRIPT_DIR)) Files.createDirectories(SCRIPT_DIR);
+            if (!Files.exists(CAD_OUTPUT_DIR)) Files.createDirectories(CAD_OUTPUT_DIR);
+
+            // B. Extract/Update EXE (Logic Engine)
+            extractResource("address_to_scr.exe", SCRIPT_PATH, log);
+
+            // C. Extract CAD Assets
+            for (String asset : ASSETS) {
+                extractResource(asset, CAD_OUTPUT_DIR.resolve(asset), log);
+            }
+
+        } catch (IOException e) {
+            log.accept("Error updating files: " + e.getMessage());
+        }
+    }
+
+    private static void extractResource(String resourceName, Path destination, Consumer<String> log) throws IOException {
+        // Only extract if missing (to avoid overwriting user edits)
+        if (Files.exists(destination)) return;
+
+        try (InputStream in = EngineFiles.class.getResourceAsStream("/" + resourceName)) {
+            if (in != null) {
+                Files.copy(in, destination, StandardCopyOption.REPLACE_EXISTING);
+                log.accept("Restored " + resourceName);
+            } else {
+                log.accept("⚠️ Missing in JAR: " + resourceName);
+            }
+        }
+    }
+}
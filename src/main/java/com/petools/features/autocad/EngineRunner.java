@@ -0,0 +1,360 @@
+package com.petools.features.autocad;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import com.petools.features.settings.AppSettings;
+
+/**
+ * Runs the Python automation engine (address_to_scr.exe) as managed child processes.
+ * Every run gets a virtual thread, waits for one of a bounded number of slots, is
+ * killed (with its whole process tree) on cancel or timeout, and identical requests
+ * that are already in flight are joined instead of started twice.
+ */
+public class EngineRunner {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED, TIMED_OUT }
+
+    // Engine prints this at the start of every layer fetch; each one is a "stage"
+    private static final String STAGE_MARKER = "📦";
+
+    public static final Path DEFAULT_ENGINE = Paths.get(System.getProperty("user.home"), ".petools", "scripts", "address_to_scr.exe");
+
+    // Query extent around the subject parcel; blank = the engine's defaults
+    public static final String KEY_EXTENT_BUFFER = "engine.extentBufferFt";
+    public static final String KEY_LAYER_BUFFERS = "engine.layerBuffers"; // "roads=1000, stream=1500"
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(250);
+    private static final Duration SAMPLE_INTERVAL = Duration.ofSeconds(1);
+
+    private static EngineRunner shared;
+
+    private final Semaphore slots;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Run> inFlight = new ConcurrentHashMap<>();
+
+    public EngineRunner(int maxConcurrentRuns) {
+        this.slots = new Semaphore(maxConcurrentRuns, true);
+    }
+
+    /** Engine flags for the configured query extent, for any run that downloads layers. */
+    public static List<String> extentArgs() {
+        List<String> args = new ArrayList<>();
+        String buffer = AppSettings.get(KEY_EXTENT_BUFFER, "").trim();
+        if (!buffer.isEmpty()) args.addAll(List.of("--buffer", buffer));
+        for (String entry : AppSettings.get(KEY_LAYER_BUFFERS, "").split(",")) {
+            if (entry.contains("=")) args.addAll(List.of("--layer-buffer", entry.trim()));
+        }
+        return args;
+    }
+
+    // One runner for the whole app so the concurrency limit covers every caller
+    public static synchronized EngineRunner shared() {
+        if (shared == null) shared = new EngineRunner(2);
+        return shared;
+    }
+
+    /**
+     * Starts the request, or joins the identical run already in flight.
+     * The listener receives every output line, from a background thread.
+     */
+    public synchronized Run submit(Request request, Consumer<String> listener) {
+        // Interactive imports always win: background prefetches step aside and retry later
+        if (!request.background()) {
+            for (Run r : inFlight.values()) {
+                if (r.request.background()) r.cancel();
+            }
+        }
+
+        Run existing = inFlight.get(request.key());
+        if (existing != null) {
+            existing.listeners.add(listener);
+            listener.accept("ℹ️ Joined identical run already in progress");
+            return existing;
+        }
+
+        Run run = new Run(request);
+        run.listeners.add(listener);
+        inFlight.put(request.key(), run);
+        executor.submit(() -> execute(run));
+        return run;
+    }
+
+    public boolean isRunning(Request request) {
+        return inFlight.containsKey(request.key());
+    }
+
+    public boolean hasInteractiveRuns() {
+        return inFlight.values().stream().anyMatch(r -> !r.request.background());
+    }
+
+    private void execute(Run run) {
+        Request request = run.request;
+        long queuedAt = System.nanoTime();
+        Process process = null;
+        ProcessSampler sampler = new ProcessSampler();
+
+        try {
+            if (!slots.tryAcquire()) {
+                run.emit("⏳ Waiting for a free engine slot...");
+                // Polled, so cancelling a queued run doesn't wait for another run to free a slot
+                while (!slots.tryAcquire(POLL_INTERVAL.toMillis(), TimeUnit.MILLISECONDS)) {
+                    if (run.cancelRequested) {
+                        finish(run, Status.CANCELLED, -1, queuedAt, sampler);
+                        return;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            finish(run, Status.CANCELLED, -1, queuedAt, sampler);
+            return;
+        }
+
+        try {
+            if (run.cancelRequested) {
+                finish(run, Status.CANCELLED, -1, queuedAt, sampler);
+                return;
+            }
+
+            ProcessBuilder pb = new ProcessBuilder(request.command());
+            pb.environment().put("PYTHONIOENCODING", "utf-8");
+            pb.redirectErrorStream(true);
+            process = pb.start();
+            run.attach(process);
+
+            Process started = process;
+            Future<?> pump = executor.submit(() -> pumpOutput(run, started));
+            executor.submit(() -> sampler.sampleUntilExit(started));
+
+            long runDeadline = System.nanoTime() + request.runTimeout().toNanos();
+            Status status = null;
+
+            while (!process.waitFor(POLL_INTERVAL.toMillis(), TimeUnit.MILLISECONDS)) {
+                long now = System.nanoTime();
+                if (run.cancelRequested) {
+                    status = Status.CANCELLED;
+                } else if (now > runDeadline) {
+                    run.emit("⏱️ Run exceeded " + request.runTimeout().toSeconds() + " s, stopping engine");
+                    status = Status.TIMED_OUT;
+                } else if (now - run.stageStartedAt > request.stageTimeout().toNanos()) {
+                    run.emit("⏱️ Stage \"" + run.currentStage + "\" exceeded " + request.stageTimeout().toSeconds() + " s, stopping engine");
+                    status = Status.TIMED_OUT;
+                }
+                if (status != null) {
+                    killTree(process);
+                    break;
+                }
+            }
+
+            process.waitFor();
+            drain(pump);
+            if (status == null && run.cancelRequested) status = Status.CANCELLED;
+            if (status == null) status = (process.exitValue() == 0) ? Status.COMPLETED : Status.FAILED;
+            finish(run, status, process.exitValue(), queuedAt, sampler);
+
+        } catch (IOException e) {
+            run.emit("❌ Error: " + e.getMessage());
+            finish(run, Status.FAILED, -1, queuedAt, sampler);
+        } catch (InterruptedException e) {
+            if (process != null) killTree(process);
+            finish(run, Status.CANCELLED, -1, queuedAt, sampler);
+        } finally {
+            slots.release();
+        }
+    }
+
+    private void pumpOutput(Run run, Process process) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(STAGE_MARKER)) {
+                    run.currentStage = line.substring(STAGE_MARKER.length()).trim();
+                    run.stageStartedAt = System.nanoTime();
+                }
+                run.emit(line);
+            }
+        } catch (IOException e) {
+            // Stream closes when the process tree is killed
+        }
+    }
+
+    // Let the last output lines reach the listeners before the result completes
+    private static void drain(Future<?> pump) throws InterruptedException {
+        try {
+            pump.get(2, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            pump.cancel(true);
+        }
+    }
+
+    private void finish(Run run, Status status, int exitCode, long queuedAt, ProcessSampler sampler) {
+        synchronized (this) {
+            inFlight.remove(run.request.key(), run);
+        }
+        Result result = new Result(status, exitCode,
+            Duration.ofNanos(System.nanoTime() - queuedAt),
+            sampler.totalCpu(), sampler.peakRssBytes);
+        run.status = status;
+        run.result.complete(result);
+    }
+
+    // --- Process tree control ---
+
+    static void killTree(Process process) {
+        // PyInstaller one-file exes re-launch themselves, so the real work is a descendant
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    // --- Request / Result ---
+
+    public record Request(Path executable, List<String> args, Duration runTimeout, Duration stageTimeout, boolean background) {
+
+        public Request(Path executable, List<String> args, Duration runTimeout, Duration stageTimeout) {
+            this(executable, args, runTimeout, stageTimeout, false);
+        }
+
+        public List<String> command() {
+            List<String> cmd = new ArrayList<>();
+            cmd.add(executable.toAbsolutePath().toString());
+            cmd.addAll(args);
+            return cmd;
+        }
+
+        // Identical command lines write the same output files, so they share a run
+        String key() {
+            return String.join("\u0000", command()).toLowerCase();
+        }
+    }
+
+    public record Result(Status status, int exitCode, Duration elapsed, Duration cpu, long peakRssBytes) {
+
+        public String summary() {
+            String rss = (peakRssBytes > 0) ? String.format("%.1f MB", peakRssBytes / (1024.0 * 1024.0)) : "n/a";
+            return String.format("%s in %.1f s (CPU %.1f s, peak RSS %s)",
+                status, elapsed.toMillis() / 1000.0, cpu.toMillis() / 1000.0, rss);
+        }
+    }
+
+    // --- Handle for one in-flight engine run ---
+
+    public static class Run {
+        private final Request request;
+        private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+        private final CompletableFuture<Result> result = new CompletableFuture<>();
+
+        private volatile boolean cancelRequested;
+        private volatile Process process;
+        private volatile Status status = Status.QUEUED;
+        private volatile String currentStage = "startup";
+        private volatile long stageStartedAt = System.nanoTime();
+
+        private Run(Request request) {
+            this.request = request;
+        }
+
+        private void attach(Process process) {
+            this.process = process;
+            this.status = Status.RUNNING;
+            this.stageStartedAt = System.nanoTime();
+        }
+
+        private void emit(String line) {
+            for (Consumer<String> l : listeners) l.accept(line);
+        }
+
+        public void cancel() {
+            cancelRequested = true;
+            Process p = process;
+            if (p != null) killTree(p);
+        }
+
+        public Status status() { return status; }
+        public CompletableFuture<Result> result() { return result; }
+    }
+
+    // --- CPU / RSS sampling of the engine process tree ---
+
+    private static class ProcessSampler {
+        private static final boolean HAS_PROC = Files.isDirectory(Paths.get("/proc/self"));
+
+        private final Map<Long, Duration> cpuByPid = new ConcurrentHashMap<>();
+        private volatile long peakRssBytes;
+
+        void sampleUntilExit(Process process) {
+            try {
+                while (process.isAlive()) {
+                    sample(process.toHandle());
+                    Thread.sleep(SAMPLE_INTERVAL.toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void sample(ProcessHandle root) {
+            List<ProcessHandle> tree = new ArrayList<>();
+            tree.add(root);
+            root.descendants().forEach(tree::add);
+
+            long rss = 0;
+            for (ProcessHandle h : tree) {
+                // Keep the last value per pid; the child's totals vanish once it exits
+                h.info().totalCpuDuration().ifPresent(cpu -> cpuByPid.put(h.pid(), cpu));
+                rss += rssBytes(h.pid());
+            }
+            if (rss > peakRssBytes) peakRssBytes = rss;
+        }
+
+        Duration totalCpu() {
+            return cpuByPid.values().stream().reduce(Duration.ZERO, Duration::plus);
+        }
+
+        private static long rssBytes(long pid) {
+            try {
+                if (HAS_PROC) {
+                    for (String line : Files.readAllLines(Paths.get("/proc", Long.toString(pid), "status"))) {
+                        if (line.startsWith("VmRSS:")) {
+                            return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                        }
+                    }
+                } else {
+                    // Windows: "Image","PID","Session","#","Mem Usage" -> "12,345 K"
+                    Process p = new ProcessBuilder("tasklist", "/FI", "PID eq " + pid, "/FO", "CSV", "/NH").start();
+                    String out = new String(p.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                    p.waitFor(2, TimeUnit.SECONDS);
+                    String[] cols = out.trim().split("\",\"");
+                    if (cols.length >= 5) {
+                        return Long.parseLong(cols[4].replaceAll("[^0-9]", "")) * 1024;
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                // Process already gone
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,624 @@
+package com.petools.features.autocad;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Converts an EPANET network (.inp) to a DXF drawing for AutoCAD: junctions, tanks and
+ * reservoirs as block inserts (with ID and elevation attributes), pipes, pumps and valves
+ * as polylines through their vertices, each kind on its own C-WATR layer.
+ *
+ * The .inp is streamed once, line by line, in whatever order its sections come. Ids are
+ * interned to ints and everything else goes straight into primitive arrays, so memory is a
+ * few dozen bytes per element and no section is ever held as text. Entities are formatted
+ * in groups on every core and written in order through a bounded window.
+ */
+public final class EpanetDxfConverter {
+
+    /** What was written; elements without coordinates are counted in {@code skipped}. */
+    public record Result(Path output, int nodes, int links, int vertices, int skipped, long millis) {}
+
+    // Node and link kinds index the layer/block tables below
+    static final byte JUNCTION = 0, RESERVOIR = 1, TANK = 2;
+    static final byte PIPE = 0, PUMP = 1, VALVE = 2;
+
+    private static final String[] NODE_LAYERS = {"C-WATR-JUNC", "C-WATR-RSVR", "C-WATR-TANK"};
+    private static final String[] NODE_BLOCKS = {"WTR-JUNC", "WTR-RSVR", "WTR-TANK"};
+    private static final int[] NODE_COLORS = {4, 5, 5};
+    private static final String[] LINK_LAYERS = {"C-WATR-PIPE", "C-WATR-PUMP", "C-WATR-VALV"};
+    private static final String[] LINK_BLOCKS = {null, "WTR-PUMP", "WTR-VALV"};
+    private static final int[] LINK_COLORS = {150, 1, 6};
+
+    private static final int GROUP_SIZE = 4096;
+    private static final Charset DXF_CHARSET = Charset.forName("windows-1252");
+
+    private EpanetDxfConverter() {}
+
+    public static Result convert(Path inp, Path dxf, Consumer<String> log) throws IOException {
+        long started = System.nanoTime();
+        Network net = Network.read(inp);
+        log.accept(String.format(Locale.ROOT, "   ... read %,d nodes, %,d links, %,d vertices (%d ms)",
+            net.nodeCount, net.linkCount, net.vertexCount, (System.nanoTime() - started) / 1_000_000));
+
+        int skipped = new DxfWriter(net).write(dxf);
+        return new Result(dxf, net.nodeCount, net.linkCount, net.vertexCount, skipped, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /** The .dxf next to an .inp: {@code model.inp -> model.dxf}. */
+    public static Path defaultOutput(Path inp) {
+        String name = inp.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return inp.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".dxf");
+    }
+
+    // --- Network (parsed .inp) ---
+
+    static final class Network {
+        private final Map<String, Integer> nodeIndex = new HashMap<>();
+        private final Map<String, Integer> linkIndex = new HashMap<>();
+        private final Map<String, Integer> pendingLinks = new HashMap<>(); // in [VERTICES] before their link
+
+        String[] nodeIds = new String[1024];
+        byte[] nodeKind = new byte[1024];
+        double[] nodeX = new double[1024], nodeY = new double[1024], nodeElev = new double[1024];
+        int nodeCount;
+
+        byte[] linkKind = new byte[1024];
+        int[] linkFrom = new int[1024], linkTo = new int[1024];
+        int linkCount;
+
+        int[] vertexLink = new int[1024];
+        double[] vertexX = new double[1024], vertexY = new double[1024];
+        int vertexCount;
+        int[] vertexStart; // per link, after read(): vertices of link i are [vertexStart[i], vertexStart[i + 1])
+
+        static Network read(Path inp) throws IOException {
+            Network net = new Network();
+            // EPANET writes the system code page; bad bytes only ever sit in comments and labels
+            var decoder = DXF_CHARSET.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(Files.newInputStream(inp), decoder), 1 << 16)) {
+                String section = "";
+                String[] tok = new String[4];
+                String line;
+                while ((line = in.readLine()) != null) {
+                    int comment = line.indexOf(';');
+                    if (comment >= 0) line = line.substring(0, comment);
+                    line = line.strip();
+                    if (line.isEmpty()) continue;
+                    if (line.charAt(0) == '[') {
+                        section = line.toUpperCase(Locale.ROOT);
+                        continue;
+                    }
+                    int n = tokens(line, tok);
+                    switch (section) {
+                        case "[JUNCTIONS]" -> net.node(tok, n, JUNCTION);
+                        case "[RESERVOIRS]" -> net.node(tok, n, RESERVOIR);
+                        case "[TANKS]" -> net.node(tok, n, TANK);
+                        case "[PIPES]" -> net.link(tok, n, PIPE);
+                        case "[PUMPS]" -> net.link(tok, n, PUMP);
+                        case "[VALVES]" -> net.link(tok, n, VALVE);
+                        case "[COORDINATES]" -> net.coordinates(tok, n);
+                        case "[VERTICES]" -> net.vertex(tok, n);
+                        default -> {} // options, curves, patterns, controls... nothing to draw
+                    }
+                }
+            }
+            net.indexVertices();
+            return net;
+        }
+
+        // First few whitespace-separated fields; the rest of the line is never split
+        private static int tokens(String line, String[] out) {
+            int n = 0, i = 0, len = line.length();
+            while (n < out.length && i < len) {
+                while (i < len && Character.isWhitespace(line.charAt(i))) i++;
+                int start = i;
+                while (i < len && !Character.isWhitespace(line.charAt(i))) i++;
+                if (i > start) out[n++] = line.substring(start, i);
+            }
+            return n;
+        }
+
+        private void node(String[] tok, int n, byte kind) {
+            if (n < 1) return;
+            int i = intern(tok[0]);
+            nodeKind[i] = kind;
+            if (n > 1) nodeElev[i] = number(tok[1]);
+        }
+
+        private void link(String[] tok, int n, byte kind) {
+            if (n < 3 || linkIndex.containsKey(tok[0])) return;
+            if (linkCount == linkKind.length) {
+                int size = linkCount * 2;
+                linkKind = Arrays.copyOf(linkKind, size);
+                linkFrom = Arrays.copyOf(linkFrom, size);
+                linkTo = Arrays.copyOf(linkTo, size);
+            }
+            linkIndex.put(tok[0], linkCount);
+            linkKind[linkCount] = kind;
+            linkFrom[linkCount] = intern(tok[1]);
+            linkTo[linkCount] = intern(tok[2]);
+            linkCount++;
+        }
+
+        private void coordinates(String[] tok, int n) {
+            if (n < 3) return;
+            int i = intern(tok[0]);
+            nodeX[i] = number(tok[1]);
+            nodeY[i] = number(tok[2]);
+        }
+
+        private void vertex(String[] tok, int n) {
+            if (n < 3) return;
+            // Links are usually listed first; otherwise the vertex waits under a pending id (< 0)
+            Integer link = linkIndex.get(tok[0]);
+            if (link == null) link = pendingLinks.computeIfAbsent(tok[0], id -> -1 - pendingLinks.size());
+            if (vertexCount == vertexLink.length) {
+                int size = vertexCount * 2;
+                vertexLink = Arrays.copyOf(vertexLink, size);
+                vertexX = Arrays.copyOf(vertexX, size);
+                vertexY = Arrays.copyOf(vertexY, size);
+            }
+            vertexLink[vertexCount] = link;
+            vertexX[vertexCount] = number(tok[1]);
+            vertexY[vertexCount] = number(tok[2]);
+            vertexCount++;
+        }
+
+        // Node ids can appear in [PIPES] before their own section; the kind is filled in later
+        private int intern(String id) {
+            Integer known = nodeIndex.get(id);
+            if (known != null) return known;
+            if (nodeCount == nodeIds.length) {
+                int size = nodeCount * 2;
+                nodeIds = Arrays.copyOf(nodeIds, size);
+                nodeKind = Arrays.copyOf(nodeKind, size);
+                nodeX = Arrays.copyOf(nodeX, size);
+                nodeY = Arrays.copyOf(nodeY, size);
+                nodeElev = Arrays.copyOf(nodeElev, size);
+            }
+            nodeIds[nodeCount] = id;
+            nodeX[nodeCount] = Double.NaN;
+            nodeY[nodeCount] = Double.NaN;
+            nodeIndex.put(id, nodeCount);
+            return nodeCount++;
+        }
+
+        private static double number(String s) {
+            try {
+                return Double.parseDouble(s);
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+
+        // Counting sort of the vertices by link (stable, so each link keeps its vertex order)
+        private void indexVertices() {
+            int[] pendingTarget = new int[pendingLinks.size()];
+            for (Map.Entry<String, Integer> e : pendingLinks.entrySet()) {
+                pendingTarget[-1 - e.getValue()] = linkIndex.getOrDefault(e.getKey(), -1);
+            }
+
+            vertexStart = new int[linkCount + 1];
+            int kept = 0;
+            for (int v = 0; v < vertexCount; v++) {
+                int link = vertexLink[v] < 0 ? pendingTarget[-1 - vertexLink[v]] : vertexLink[v];
+                vertexLink[v] = link;
+                if (link >= 0) {
+                    vertexStart[link + 1]++;
+                    kept++;
+                }
+            }
+            for (int i = 0; i < linkCount; i++) vertexStart[i + 1] += vertexStart[i];
+
+            int[] next = Arrays.copyOf(vertexStart, linkCount);
+            double[] xs = new double[kept], ys = new double[kept];
+            for (int v = 0; v < vertexCount; v++) {
+                int link = vertexLink[v];
+                if (link < 0) continue;
+                int at = next[link]++;
+                xs[at] = vertexX[v];
+                ys[at] = vertexY[v];
+            }
+            vertexX = xs;
+            vertexY = ys;
+            vertexLink = null;
+            vertexCount = kept;
+        }
+
+        boolean hasPoint(int node) {
+            return !Double.isNaN(nodeX[node]) && !Double.isNaN(nodeY[node]);
+        }
+    }
+
+    // --- DXF writer (R12 ASCII, which every AutoCAD and viewer opens) ---
+
+    private static final class DxfWriter {
+        private record Group(byte[] bytes, int skipped) {}
+
+        private final Network net;
+        private double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        private final double scale;
+
+        DxfWriter(Network net) {
+            this.net = net;
+            for (int i = 0; i < net.nodeCount; i++) {
+                if (net.hasPoint(i)) extend(net.nodeX[i], net.nodeY[i]);
+            }
+            for (int v = 0; v < net.vertexCount; v++) extend(net.vertexX[v], net.vertexY[v]);
+            if (minX > maxX) minX = minY = maxX = maxY = 0;
+            // Symbols are drawn at unit size; scale them to the network so they read at full extents
+            this.scale = Math.max(0.5, Math.hypot(maxX - minX, maxY - minY) / 1500);
+        }
+
+        private void extend(double x, double y) {
+            if (Double.isNaN(x) || Double.isNaN(y)) return;
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+
+        /** Writes the drawing through a temp file; returns the elements left out for lack of coordinates. */
+        int write(Path dxf) throws IOException {
+            Path tmp = dxf.resolveSibling(dxf.getFileName() + ".tmp");
+            int skipped;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16)) {
+                StringBuilder head = new StringBuilder(8192);
+                header(head);
+                tables(head);
+                blocks(head);
+                section(head, "ENTITIES");
+                out.write(head.toString().getBytes(DXF_CHARSET));
+
+                skipped = entities(out);
+
+                out.write("  0\nENDSEC\n  0\nEOF\n".getBytes(StandardCharsets.US_ASCII));
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(tmp);
+                throw e;
+            }
+            Files.move(tmp, dxf, StandardCopyOption.REPLACE_EXISTING);
+            return skipped;
+        }
+
+        // Nodes then links, GROUP_SIZE at a time. Groups render on every core but are written in
+        // order, and only a couple of groups per thread are ever in flight, so memory stays flat.
+        private int entities(OutputStream out) throws IOException {
+            int items = net.nodeCount + net.linkCount;
+            int groups = (items + GROUP_SIZE - 1) / GROUP_SIZE;
+            int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), groups));
+            ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "epanet-dxf");
+                t.setDaemon(true);
+                return t;
+            });
+            ArrayDeque<Future<Group>> window = new ArrayDeque<>();
+            int skipped = 0;
+            try {
+                for (int g = 0; g < groups; g++) {
+                    int from = g * GROUP_SIZE, to = Math.min(items, from + GROUP_SIZE);
+                    window.add(pool.submit(() -> render(from, to)));
+                    if (window.size() >= threads * 2) skipped += drain(window.poll(), out);
+                }
+                while (!window.isEmpty()) skipped += drain(window.poll(), out);
+            } finally {
+                pool.shutdownNow();
+            }
+            return skipped;
+        }
+
+        private static int drain(Future<Group> next, OutputStream out) throws IOException {
+            try {
+                Group group = next.get();
+                out.write(group.bytes());
+                return group.skipped();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("DXF export interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IOException("DXF export failed: " + e.getCause(), e.getCause());
+            }
+        }
+
+        private Group render(int from, int to) {
+            StringBuilder sb = new StringBuilder((to - from) * 160);
+            int skipped = 0;
+            for (int item = from; item < to; item++) {
+                boolean drawn = item < net.nodeCount ? node(sb, item) : link(sb, item - net.nodeCount);
+                if (!drawn) skipped++;
+            }
+            return new Group(sb.toString().getBytes(DXF_CHARSET), skipped);
+        }
+
+        private boolean node(StringBuilder sb, int i) {
+            if (!net.hasPoint(i)) return false;
+            String layer = NODE_LAYERS[net.nodeKind[i]];
+            double x = net.nodeX[i], y = net.nodeY[i];
+            insert(sb, layer, NODE_BLOCKS[net.nodeKind[i]], x, y, 0, true);
+            attrib(sb, layer, "ID", net.nodeIds[i], x, y, 0);
+            attrib(sb, layer, "ELEV", Double.isNaN(net.nodeElev[i]) ? "" : number(new StringBuilder(), net.nodeElev[i]).toString(), x, y, 1);
+            pair(sb, 0, "SEQEND").append("  8\n").append(layer).append('\n');
+            return true;
+        }
+
+        private boolean link(StringBuilder sb, int i) {
+            int a = net.linkFrom[i], b = net.linkTo[i];
+            if (!net.hasPoint(a) || !net.hasPoint(b)) return false;
+            String layer = LINK_LAYERS[net.linkKind[i]];
+            int first = net.vertexStart[i], last = net.vertexStart[i + 1];
+
+            pair(sb, 0, "POLYLINE").append("  8\n").append(layer).append('\n');
+            sb.append(" 66\n1\n 10\n0\n 20\n0\n 30\n0\n 70\n0\n");
+            vertex(sb, layer, net.nodeX[a], net.nodeY[a]);
+            for (int v = first; v < last; v++) {
+                if (!Double.isNaN(net.vertexX[v]) && !Double.isNaN(net.vertexY[v])) vertex(sb, layer, net.vertexX[v], net.vertexY[v]);
+            }
+            vertex(sb, layer, net.nodeX[b], net.nodeY[b]);
+            pair(sb, 0, "SEQEND").append("  8\n").append(layer).append('\n');
+
+            if (LINK_BLOCKS[net.linkKind[i]] != null) symbolAtMidpoint(sb, i, layer, a, b, first, last);
+            return true;
+        }
+
+        // Pumps and valves get their symbol halfway along the link, turned to follow it
+        private void symbolAtMidpoint(StringBuilder sb, int i, String layer, int a, int b, int first, int last) {
+            double length = 0;
+            double px = net.nodeX[a], py = net.nodeY[a];
+            for (int v = first; v <= last; v++) {
+                double x = v < last ? net.vertexX[v] : net.nodeX[b], y = v < last ? net.vertexY[v] : net.nodeY[b];
+                if (Double.isNaN(x) || Double.isNaN(y)) continue;
+                length += Math.hypot(x - px, y - py);
+                px = x;
+                py = y;
+            }
+
+            double remaining = length / 2, angle = 0, mx = net.nodeX[a], my = net.nodeY[a];
+            px = mx;
+            py = my;
+            for (int v = first; v <= last; v++) {
+                double x = v < last ? net.vertexX[v] : net.nodeX[b], y = v < last ? net.vertexY[v] : net.nodeY[b];
+                if (Double.isNaN(x) || Double.isNaN(y)) continue;
+                double step = Math.hypot(x - px, y - py);
+                if (step > 0) {
+                    angle = Math.toDegrees(Math.atan2(y - py, x - px));
+                    if (step >= remaining) {
+                        mx = px + (x - px) * remaining / step;
+                        my = py + (y - py) * remaining / step;
+                        break;
+                    }
+                    remaining -= step;
+                }
+                px = x;
+                py = y;
+            }
+            insert(sb, layer, LINK_BLOCKS[net.linkKind[i]], mx, my, angle, false);
+        }
+
+        // --- Entity records ---
+
+        private void insert(StringBuilder sb, String layer, String block, double x, double y, double angle, boolean attributes) {
+            pair(sb, 0, "INSERT").append("  8\n").append(layer).append('\n');
+            if (attributes) sb.append(" 66\n1\n");
+            pair(sb, 2, block);
+            point(sb, x, y);
+            number(sb.append(" 41\n"), scale).append('\n');
+            number(sb.append(" 42\n"), scale).append('\n');
+            number(sb.append(" 43\n"), scale).append('\n');
+            if (angle != 0) number(sb.append(" 50\n"), angle).append('\n');
+        }
+
+        // Invisible by default (70 = 1): the data travels with the block without cluttering the plan
+        private void attrib(StringBuilder sb, String layer, String tag, String value, double x, double y, int row) {
+            pair(sb, 0, "ATTRIB").append("  8\n").append(layer).append('\n');
+            point(sb, x + 0.6 * scale, y + (0.3 - 0.35 * row) * scale);
+            number(sb.append(" 40\n"), 0.25 * scale).append('\n');
+            pair(sb, 1, value);
+            pair(sb, 2, tag);
+            sb.append(" 70\n1\n");
+        }
+
+        private void vertex(StringBuilder sb, String layer, double x, double y) {
+            pair(sb, 0, "VERTEX").append("  8\n").append(layer).append('\n');
+            point(sb, x, y);
+        }
+
+        private static void point(StringBuilder sb, double x, double y) {
+            number(sb.append(" 10\n"), x).append('\n');
+            number(sb.append(" 20\n"), y).append('\n');
+            sb.append(" 30\n0\n");
+        }
+
+        private static StringBuilder pair(StringBuilder sb, int code, String value) {
+            if (code < 10) sb.append("  ");
+            else if (code < 100) sb.append(' ');
+            return sb.append(code).append('\n').append(value).append('\n');
+        }
+
+        // Fixed point to 4 places, trailing zeros dropped; String.valueOf/format would dominate the export
+        private static StringBuilder number(StringBuilder sb, double value) {
+            if (Double.isNaN(value) || Double.isInfinite(value)) return sb.append('0');
+            if (Math.abs(value) >= 1e14) return sb.append(String.format(Locale.ROOT, "%.4f", value));
+            long scaled = Math.round(Math.abs(value) * 10_000);
+            if (value < 0 && scaled != 0) sb.append('-');
+            sb.append(scaled / 10_000);
+            long frac = scaled % 10_000;
+            if (frac == 0) return sb;
+            int digits = 4;
+            while (frac % 10 == 0) {
+                frac /= 10;
+                digits--;
+            }
+            sb.append('.');
+            for (long p = pow10(digits - 1); p > frac; p /= 10) sb.append('0');
+            return sb.append(frac);
+        }
+
+        private static long pow10(int n) {
+            long p = 1;
+            while (n-- > 0) p *= 10;
+            return p;
+        }
+
+        // --- Header, tables and blocks ---
+
+        private static void section(StringBuilder sb, String name) {
+            pair(sb, 0, "SECTION");
+            pair(sb, 2, name);
+        }
+
+        private void header(StringBuilder sb) {
+            section(sb, "HEADER");
+            pair(sb, 9, "$ACADVER");
+            pair(sb, 1, "AC1009");
+            pair(sb, 9, "$DWGCODEPAGE");
+            pair(sb, 3, "ANSI_1252");
+            pair(sb, 9, "$INSBASE");
+            sb.append(" 10\n0\n 20\n0\n 30\n0\n");
+            pair(sb, 9, "$EXTMIN");
+            point(sb, minX, minY);
+            pair(sb, 9, "$EXTMAX");
+            point(sb, maxX, maxY);
+            pair(sb, 0, "ENDSEC");
+        }
+
+        private static void tables(StringBuilder sb) {
+            section(sb, "TABLES");
+
+            table(sb, "LTYPE", 1);
+            pair(sb, 0, "LTYPE");
+            pair(sb, 2, "CONTINUOUS");
+            sb.append(" 70\n0\n");
+            pair(sb, 3, "Solid line");
+            sb.append(" 72\n65\n 73\n0\n 40\n0\n");
+            pair(sb, 0, "ENDTAB");
+
+            table(sb, "LAYER", 1 + NODE_LAYERS.length + LINK_LAYERS.length);
+            layer(sb, "0", 7);
+            for (int k = 0; k < NODE_LAYERS.length; k++) layer(sb, NODE_LAYERS[k], NODE_COLORS[k]);
+            for (int k = 0; k < LINK_LAYERS.length; k++) layer(sb, LINK_LAYERS[k], LINK_COLORS[k]);
+            pair(sb, 0, "ENDTAB");
+
+            table(sb, "STYLE", 1);
+            pair(sb, 0, "STYLE");
+            pair(sb, 2, "STANDARD");
+            sb.append(" 70\n0\n 40\n0\n 41\n1\n 50\n0\n 71\n0\n 42\n0.2\n");
+            pair(sb, 3, "txt");
+            pair(sb, 4, "");
+            pair(sb, 0, "ENDTAB");
+
+            pair(sb, 0, "ENDSEC");
+        }
+
+        private static void table(StringBuilder sb, String name, int entries) {
+            pair(sb, 0, "TABLE");
+            pair(sb, 2, name);
+            pair(sb, 70, Integer.toString(entries));
+        }
+
+        private static void layer(StringBuilder sb, String name, int color) {
+            pair(sb, 0, "LAYER");
+            pair(sb, 2, name);
+            sb.append(" 70\n0\n");
+            pair(sb, 62, Integer.toString(color));
+            pair(sb, 6, "CONTINUOUS");
+        }
+
+        // Unit-size symbols on layer 0, so an insert takes its layer's colour
+        private static void blocks(StringBuilder sb) {
+            section(sb, "BLOCKS");
+
+            block(sb, "WTR-JUNC", true);
+            circle(sb, 0, 0, 0.5);
+            attdefs(sb);
+            pair(sb, 0, "ENDBLK").append("  8\n0\n");
+
+            block(sb, "WTR-RSVR", true);
+            polygon(sb, -0.5, -0.5, 0.5, -0.5, 0.5, 0.5, -0.5, 0.5);
+            line(sb, -0.35, 0.15, 0.35, 0.15);
+            line(sb, -0.25, -0.05, 0.25, -0.05);
+            attdefs(sb);
+            pair(sb, 0, "ENDBLK").append("  8\n0\n");
+
+            block(sb, "WTR-TANK", true);
+            polygon(sb, -0.5, -0.5, 0.5, -0.5, 0.5, 0.5, -0.5, 0.5);
+            circle(sb, 0, 0, 0.35);
+            attdefs(sb);
+            pair(sb, 0, "ENDBLK").append("  8\n0\n");
+
+            block(sb, "WTR-PUMP", false);
+            circle(sb, 0, 0, 0.5);
+            polygon(sb, -0.25, -0.3, 0.35, 0, -0.25, 0.3);
+            pair(sb, 0, "ENDBLK").append("  8\n0\n");
+
+            block(sb, "WTR-VALV", false);
+            polygon(sb, -0.5, -0.3, 0.5, 0.3, 0.5, -0.3, -0.5, 0.3);
+            pair(sb, 0, "ENDBLK").append("  8\n0\n");
+
+            pair(sb, 0, "ENDSEC");
+        }
+
+        private static void block(StringBuilder sb, String name, boolean attributes) {
+            pair(sb, 0, "BLOCK").append("  8\n0\n");
+            pair(sb, 2, name);
+            pair(sb, 70, attributes ? "2" : "0");
+            sb.append(" 10\n0\n 20\n0\n 30\n0\n");
+            pair(sb, 3, name);
+        }
+
+        private static void attdefs(StringBuilder sb) {
+            String[] tags = {"ID", "ELEV"};
+            for (int row = 0; row < tags.length; row++) {
+                pair(sb, 0, "ATTDEF").append("  8\n0\n");
+                point(sb, 0.6, 0.3 - 0.35 * row);
+                sb.append(" 40\n0.25\n");
+                pair(sb, 1, "");
+                pair(sb, 3, tags[row]);
+                pair(sb, 2, tags[row]);
+                sb.append(" 70\n1\n");
+            }
+        }
+
+        private static void circle(StringBuilder sb, double x, double y, double r) {
+            pair(sb, 0, "CIRCLE").append("  8\n0\n");
+            point(sb, x, y);
+            number(sb.append(" 40\n"), r).append('\n');
+        }
+
+        private static void line(StringBuilder sb, double x1, double y1, double x2, double y2) {
+            pair(sb, 0, "LINE").append("  8\n0\n");
+            point(sb, x1, y1);
+            number(sb.append(" 11\n"), x2).append('\n');
+            number(sb.append(" 21\n"), y2).append('\n');
+            sb.append(" 31\n0\n");
+        }
+
+        private static void polygon(StringBuilder sb, double... xy) {
+            for (int k = 0; k < xy.length; k += 2) {
+                int n = (k + 2) % xy.length;
+                line(sb, xy[k], xy[k + 1], xy[n], xy[n + 1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.petools.features.autocad;
+
+import java.util.function.IntConsumer;
+
+/** A layer the preview can query and draw: an engine feature store, or a shapefile indexed on open. */
+interface FeatureSource {
+
+    int featureCount();
+
+    /** Bounds of every feature (minX, minY, maxX, maxY), or null when there are none. */
+    double[] bounds();
+
+    /** Calls the visitor with the id of every feature whose box intersects the query box. */
+    void search(double minX, double minY, double maxX, double maxY, IntConsumer visitor);
+
+    /** Decodes one feature, dropping vertices closer than {@code tolerance} to the previous kept one. */
+    void decode(int i, double tolerance, ShapefileReader.PathSink sink);
+}
@@ -0,0 +1,182 @@
+package com.petools.features.autocad;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import com.petools.util.Json;
+
+/**
+ * Read-only, memory-mapped view of an engine feature store (.pef, see scripts/feature_store.py).
+ * The file carries its own packed R-tree and flat coordinate arrays, so opening reads the
+ * header and nothing else; searches and decodes work straight off the mapping.
+ */
+public final class FeatureStoreReader implements FeatureSource {
+
+    private static final byte[] MAGIC = "PEFEAT1\0".getBytes(StandardCharsets.US_ASCII);
+
+    private final int count;
+    private final int nodeSize;
+    private final double[] bounds;
+    private final DoubleBuffer boxes;   // 4 per tree node, features first (in STR order)
+    private final IntBuffer refs;       // level 0: feature id, above: position of first child
+    private final int[] levelEnds;      // exclusive end position of each level
+    private final DoubleBuffer coords;  // x, y per vertex
+    private final LongBuffer[] offsets; // ragged offsets, innermost (part -> vertex) first
+
+    private FeatureStoreReader(Path path, MappedByteBuffer buf) throws IOException {
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.capacity() < MAGIC.length + 4 || !buf.slice(0, MAGIC.length).equals(ByteBuffer.wrap(MAGIC))) {
+            throw new IOException("Not a feature store: " + path.getFileName());
+        }
+
+        Object header;
+        try {
+            byte[] head = new byte[buf.getInt(MAGIC.length)];
+            buf.get(MAGIC.length + 4, head);
+            header = Json.parse(new String(head, StandardCharsets.UTF_8));
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Damaged feature store: " + path.getFileName());
+        }
+
+        this.count = intValue(header, "count");
+        this.nodeSize = intValue(header, "node_size");
+        int depth = switch (String.valueOf(Json.string(header, "family"))) {
+            case "point" -> 1;
+            case "line" -> 2;
+            case "polygon" -> 3;
+            default -> throw new IOException("Unknown geometry family in " + path.getFileName());
+        };
+
+        List<?> b = Json.list(header, "bounds");
+        this.bounds = b.size() == 4 ? new double[] {
+            Json.number(b, 0), Json.number(b, 1), Json.number(b, 2), Json.number(b, 3) } : null;
+
+        this.boxes = section(buf, header, "tree_boxes").asDoubleBuffer();
+        this.refs = section(buf, header, "tree_refs").asIntBuffer();
+        IntBuffer ends = section(buf, header, "level_ends").asIntBuffer();
+        this.levelEnds = new int[ends.remaining()];
+        ends.get(levelEnds);
+        this.coords = section(buf, header, "coords").asDoubleBuffer();
+
+        this.offsets = new LongBuffer[depth];
+        for (int k = 0; k < depth; k++) offsets[k] = section(buf, header, "off" + k).asLongBuffer();
+        if (offsets[depth - 1].limit() != count + 1) throw new IOException("Damaged feature store: " + path.getFileName());
+    }
+
+    public static FeatureStoreReader open(Path pef) throws IOException {
+        try (FileChannel ch = FileChannel.open(pef, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) throw new IOException("Feature store too large to map: " + pef.getFileName());
+            return new FeatureStoreReader(pef, ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    public static boolean isFeatureStore(Path p) {
+        return Files.isRegularFile(p) && p.getFileName().toString().toLowerCase().endsWith(".pef");
+    }
+
+    private static ByteBuffer section(ByteBuffer buf, Object header, String name) throws IOException {
+        Double offset = Json.number(header, "sections", name, 0);
+        Double length = Json.number(header, "sections", name, 1);
+        if (offset == null || length == null || offset + length > buf.capacity()) {
+            throw new IOException("Feature store is missing its " + name + " section");
+        }
+        return buf.slice(offset.intValue(), length.intValue()).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int intValue(Object header, String key) throws IOException {
+        Double value = Json.number(header, key);
+        if (value == null) throw new IOException("Feature store header has no " + key);
+        return value.intValue();
+    }
+
+    @Override
+    public int featureCount() { return count; }
+
+    @Override
+    public double[] bounds() { return bounds == null ? null : Arrays.copyOf(bounds, 4); }
+
+    @Override
+    public void search(double minX, double minY, double maxX, double maxY, IntConsumer visitor) {
+        if (count == 0) return;
+
+        // Same walk as PackedRTree.search, over the tree the engine wrote
+        int top = levelEnds.length - 1;
+        int[] stack = new int[levelEnds.length * 2 * nodeSize];
+        int sp = 0;
+        stack[sp++] = levelEnds[top] - 1;
+        stack[sp++] = top;
+
+        while (sp > 0) {
+            int level = stack[--sp];
+            int start = stack[--sp];
+            int end = Math.min(start + nodeSize, levelEnds[level]);
+
+            for (int pos = start; pos < end; pos++) {
+                int b = pos * 4;
+                if (boxes.get(b) > maxX || boxes.get(b + 1) > maxY || boxes.get(b + 2) < minX || boxes.get(b + 3) < minY) continue;
+
+                if (level == 0) {
+                    visitor.accept(refs.get(pos));
+                } else {
+                    if (sp + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                    stack[sp++] = refs.get(pos);
+                    stack[sp++] = level - 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes one feature, dropping vertices closer than {@code tolerance} (world units)
+     * to the previous kept one. The last vertex of every part is always kept.
+     */
+    @Override
+    public void decode(int i, double tolerance, ShapefileReader.PathSink sink) {
+        // Offsets are int64 on disk, but nothing in a file under 2 GB needs more than an int
+        LongBuffer top = offsets[offsets.length - 1];
+        int first = (int) top.get(i), last = (int) top.get(i + 1);
+        switch (offsets.length) {
+            case 1 -> {
+                for (int v = first; v < last; v++) sink.point(coords.get(v * 2), coords.get(v * 2 + 1));
+            }
+            case 2 -> {
+                for (int part = first; part < last; part++) path(part, tolerance, sink);
+            }
+            default -> {
+                LongBuffer rings = offsets[1];
+                for (int poly = first; poly < last; poly++) {
+                    for (int ring = (int) rings.get(poly); ring < (int) rings.get(poly + 1); ring++) path(ring, tolerance, sink);
+                }
+            }
+        }
+    }
+
+    private void path(int part, double tolerance, ShapefileReader.PathSink sink) {
+        int start = (int) offsets[0].get(part), end = (int) offsets[0].get(part + 1);
+        if (end <= start) return;
+
+        double lastX = coords.get(start * 2), lastY = coords.get(start * 2 + 1);
+        sink.moveTo(lastX, lastY);
+        for (int k = start + 1; k < end; k++) {
+            double x = coords.get(k * 2), y = coords.get(k * 2 + 1);
+            if (k == end - 1 || Math.abs(x - lastX) >= tolerance || Math.abs(y - lastY) >= tolerance) {
+                sink.lineTo(x, y);
+                lastX = x;
+                lastY = y;
+            }
+        }
+    }
+}
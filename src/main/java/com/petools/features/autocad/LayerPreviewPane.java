@@ -0,0 +1,581 @@
+package com.petools.features.autocad;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+
+/**
+ * Quick-look map of the layers the engine just produced.
+ * The world is cut into 256 px tiles per zoom level; only tiles on screen are decoded
+ * (off the FX thread, through each layer's R-tree) and vertices closer than one pixel
+ * are dropped, so a frame only strokes what can actually be seen.
+ */
+public class LayerPreviewPane extends BorderPane {
+
+    private static final int TILE_PX = 256;
+    private static final int MAX_CACHED_TILES = 512;
+    private static final int MAX_FALLBACK_LEVELS = 4;
+
+    private static final Map<String, String> LAYER_COLORS = Map.of(
+        "parcels", "#ff6b6b",
+        "roads", "#d0d0d0",
+        "buildings", "#ffb74d",
+        "stream", "#4fc3f7",
+        "parking", "#9e9e9e",
+        "vegetation", "#81c784",
+        "driveways", "#bdbdbd",
+        "sidewalks", "#eeeeee",
+        "topo", "#a1887f"
+    );
+
+    private final Path sourceDir;
+    private final Path snapshotRoot;
+
+    private final Canvas canvas = new Canvas();
+    private final VBox layerList = new VBox(6);
+    private final Label statusLabel = new Label("Preview not loaded.");
+
+    private final ExecutorService decoder = Executors.newFixedThreadPool(
+        Math.max(1, Runtime.getRuntime().availableProcessors() - 1), r -> {
+            Thread t = new Thread(r, "preview-decoder");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+
+    // FX thread only
+    private List<Layer> layers = List.of();
+    private final Map<TileKey, Tile> tiles = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TileKey, Tile> eldest) {
+            return size() > MAX_CACHED_TILES;
+        }
+    };
+    private final Map<TileKey, Future<?>> pending = new HashMap<>();
+    private int generation;
+    private boolean loaded;
+    private boolean dirty;
+
+    // View state: world coordinate at the canvas center and world units per pixel
+    private double centerX, centerY, worldPerPixel = 1;
+    private double dragX, dragY;
+
+    private final AnimationTimer renderLoop = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            if (dirty) {
+                dirty = false;
+                render();
+            }
+        }
+    };
+
+    public LayerPreviewPane(Path sourceDir, Path snapshotRoot) {
+        this.sourceDir = sourceDir;
+        this.snapshotRoot = snapshotRoot;
+        this.setStyle("-fx-background-color: #2b2b2b;");
+
+        // --- Canvas (unmanaged so the holder can shrink as well as grow) ---
+        Pane holder = new Pane(canvas);
+        holder.setMinSize(0, 0);
+        canvas.setManaged(false);
+        canvas.widthProperty().bind(holder.widthProperty());
+        canvas.heightProperty().bind(holder.heightProperty());
+        canvas.widthProperty().addListener((obs, o, n) -> dirty = true);
+        canvas.heightProperty().addListener((obs, o, n) -> dirty = true);
+        this.setCenter(holder);
+
+        canvas.setOnMousePressed(e -> { dragX = e.getX(); dragY = e.getY(); });
+        canvas.setOnMouseDragged(e -> {
+            centerX -= (e.getX() - dragX) * worldPerPixel;
+            centerY += (e.getY() - dragY) * worldPerPixel;
+            dragX = e.getX();
+            dragY = e.getY();
+            dirty = true;
+        });
+        canvas.setOnScroll(e -> {
+            double factor = Math.pow(1.15, -e.getDeltaY() / 40.0);
+            // Keep the world point under the cursor fixed while zooming
+            double wx = toWorldX(e.getX()), wy = toWorldY(e.getY());
+            worldPerPixel *= factor;
+            centerX = wx - (e.getX() - canvas.getWidth() / 2) * worldPerPixel;
+            centerY = wy + (e.getY() - canvas.getHeight() / 2) * worldPerPixel;
+            dirty = true;
+        });
+        canvas.setOnMouseClicked(e -> {
+            if (e.getClickCount() == 2) zoomToExtents();
+        });
+
+        // --- Side panel: layer toggles ---
+        Label layersLabel = new Label("Layers");
+        layersLabel.setStyle("-fx-font-weight: bold; -fx-text-fill: white;");
+
+        Button reloadBtn = new Button("⟳ Reload");
+        reloadBtn.setOnAction(e -> reload());
+
+        Button fitBtn = new Button("Zoom Extents");
+        fitBtn.setOnAction(e -> zoomToExtents());
+
+        ScrollPane layerScroll = new ScrollPane(layerList);
+        layerScroll.setFitToWidth(true);
+        layerScroll.setStyle("-fx-background: #2b2b2b; -fx-background-color: transparent;");
+        VBox.setVgrow(layerScroll, Priority.ALWAYS);
+
+        VBox side = new VBox(10, layersLabel, new HBox(5, reloadBtn, fitBtn), layerScroll);
+        side.setPadding(new Insets(10));
+        side.setPrefWidth(190);
+        this.setLeft(side);
+
+        statusLabel.setStyle("-fx-text-fill: #aaa; -fx-font-size: 10px;");
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+        HBox statusBar = new HBox(statusLabel, spacer);
+        statusBar.setPadding(new Insets(4, 10, 4, 10));
+        this.setBottom(statusBar);
+
+        sceneProperty().addListener((obs, o, scene) -> {
+            if (scene != null) renderLoop.start();
+            else renderLoop.stop();
+        });
+    }
+
+    /** Loads the layers the first time the preview is shown. */
+    public void ensureLoaded() {
+        if (!loaded) reload();
+    }
+
+    /** Re-reads the output folder, e.g. after a completed engine run. */
+    public void reload() {
+        loaded = true;
+        statusLabel.setText("Loading layers...");
+        int gen = ++generation;
+
+        decoder.submit(() -> {
+            try {
+                List<Layer> opened = openSnapshot();
+                Platform.runLater(() -> {
+                    if (gen != generation) return;
+                    showLayers(opened);
+                });
+            } catch (IOException e) {
+                Platform.runLater(() -> statusLabel.setText("⚠️ Preview failed: " + e.getMessage()));
+            }
+        });
+    }
+
+    // --- Loading (background) ---
+
+    // The engine overwrites its output files on the next run, and Windows refuses to replace a
+    // file with a live mapping, so the preview maps a private copy of each run's output.
+    // A layer's feature store (.pef) is preferred over its shapefile: it brings its own index.
+    private List<Layer> openSnapshot() throws IOException {
+        Files.createDirectories(snapshotRoot);
+        deleteOldSnapshots();
+
+        Path snapshot = snapshotRoot.resolve("run-" + System.currentTimeMillis());
+        Files.createDirectories(snapshot);
+
+        Map<String, Path> sources = new TreeMap<>();
+        try (Stream<Path> files = Files.list(sourceDir)) {
+            for (Path p : files.toList()) {
+                boolean store = FeatureStoreReader.isFeatureStore(p);
+                if (!store && !ShapefileReader.isShapefile(p)) continue;
+                String name = p.getFileName().toString().replaceFirst("(?i)\\.(shp|pef)$", "");
+                if (store || !sources.containsKey(name)) sources.put(name, p);
+            }
+        }
+
+        List<Layer> opened = new ArrayList<>();
+        for (Map.Entry<String, Path> entry : sources.entrySet()) {
+            Path src = entry.getValue();
+            Path copy = snapshot.resolve(src.getFileName());
+            Files.copy(src, copy, StandardCopyOption.REPLACE_EXISTING);
+            try {
+                FeatureSource source = FeatureStoreReader.isFeatureStore(copy)
+                    ? FeatureStoreReader.open(copy) : new IndexedShapefile(ShapefileReader.open(copy));
+                opened.add(new Layer(entry.getKey(), colorFor(entry.getKey()), source));
+            } catch (IOException e) {
+                // Skip unreadable layers, show the rest
+            }
+        }
+        return opened;
+    }
+
+    private void deleteOldSnapshots() {
+        try (Stream<Path> dirs = Files.list(snapshotRoot)) {
+            for (Path dir : dirs.toList()) {
+                try (Stream<Path> walk = Files.walk(dir)) {
+                    for (Path p : walk.sorted(Comparator.reverseOrder()).toList()) {
+                        Files.deleteIfExists(p);
+                    }
+                } catch (IOException e) {
+                    // Still mapped by a previous load; retried next time
+                }
+            }
+        } catch (IOException e) {}
+    }
+
+    private void showLayers(List<Layer> opened) {
+        pending.values().forEach(f -> f.cancel(false));
+        pending.clear();
+        tiles.clear();
+        layers = opened;
+
+        layerList.getChildren().clear();
+        long features = 0;
+        for (Layer layer : opened) {
+            CheckBox toggle = new CheckBox(layer.name + " (" + layer.source.featureCount() + ")");
+            toggle.setSelected(true);
+            toggle.setStyle("-fx-text-fill: " + toHex(layer.color) + ";");
+            toggle.selectedProperty().addListener((obs, o, on) -> {
+                layer.visible = on;
+                dirty = true;
+            });
+            layerList.getChildren().add(toggle);
+            features += layer.source.featureCount();
+        }
+
+        if (opened.isEmpty()) {
+            statusLabel.setText("No layers found in " + sourceDir.getFileName() + ". Run a site import first.");
+        } else {
+            statusLabel.setText(opened.size() + " layers, " + features + " features. Drag to pan, scroll to zoom, double-click to fit.");
+        }
+        zoomToExtents();
+    }
+
+    // --- Rendering (FX thread) ---
+
+    private void render() {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double w = canvas.getWidth(), h = canvas.getHeight();
+
+        gc.setTransform(1, 0, 0, 1, 0, 0);
+        gc.setFill(Color.web("#1e1e1e"));
+        gc.fillRect(0, 0, w, h);
+        if (layers.isEmpty() || w <= 0 || h <= 0) return;
+
+        int level = levelFor(worldPerPixel);
+        double tileWorld = TILE_PX * Math.scalb(1.0, level);
+
+        long tx0 = (long) Math.floor(toWorldX(0) / tileWorld);
+        long tx1 = (long) Math.floor(toWorldX(w) / tileWorld);
+        long ty0 = (long) Math.floor(toWorldY(h) / tileWorld);
+        long ty1 = (long) Math.floor(toWorldY(0) / tileWorld);
+
+        Set<TileKey> visible = new HashSet<>();
+        Set<TileKey> drawn = new HashSet<>();
+        for (long tx = tx0; tx <= tx1; tx++) {
+            for (long ty = ty0; ty <= ty1; ty++) {
+                TileKey key = new TileKey(level, tx, ty);
+                visible.add(key);
+
+                Tile tile = tiles.get(key);
+                if (tile == null) {
+                    requestTile(key);
+                    tile = loadedAncestor(key, drawn);
+                }
+                if (tile != null && drawn.add(tile.key)) drawTile(gc, tile);
+            }
+        }
+
+        // Zoomed or panned away before these started: don't decode them at all
+        pending.entrySet().removeIf(e -> {
+            if (visible.contains(e.getKey())) return false;
+            e.getValue().cancel(false);
+            return true;
+        });
+
+        gc.setTransform(1, 0, 0, 1, 0, 0);
+    }
+
+    private void drawTile(GraphicsContext gc, Tile tile) {
+        double w = canvas.getWidth(), h = canvas.getHeight();
+        double scale = 1.0 / worldPerPixel;
+
+        // Tile coordinates are relative to the tile origin (floats keep full precision there)
+        gc.setTransform(scale, 0, 0, -scale,
+            (tile.originX - centerX) * scale + w / 2,
+            h / 2 - (tile.originY - centerY) * scale);
+        gc.setLineWidth(worldPerPixel);
+
+        for (int i = 0; i < layers.size(); i++) {
+            Layer layer = layers.get(i);
+            TileLayer data = tile.layers[i];
+            if (!layer.visible || data == null) continue;
+
+            gc.setStroke(layer.color);
+            gc.setFill(layer.color);
+
+            if (data.pathStarts.length > 0) {
+                gc.beginPath();
+                for (int p = 0; p < data.pathStarts.length; p++) {
+                    int start = data.pathStarts[p];
+                    int end = (p + 1 < data.pathStarts.length) ? data.pathStarts[p + 1] : data.coordCount;
+                    gc.moveTo(data.coords[start * 2], data.coords[start * 2 + 1]);
+                    for (int k = start + 1; k < end; k++) {
+                        gc.lineTo(data.coords[k * 2], data.coords[k * 2 + 1]);
+                    }
+                }
+                gc.stroke();
+            }
+
+            double size = 3 * worldPerPixel;
+            for (int k = 0; k < data.pointCount; k++) {
+                gc.fillRect(data.points[k * 2] - size / 2, data.points[k * 2 + 1] - size / 2, size, size);
+            }
+        }
+    }
+
+    // While a tile decodes, show a coarser tile that is already in memory
+    private Tile loadedAncestor(TileKey key, Set<TileKey> drawn) {
+        long tx = key.tx, ty = key.ty;
+        for (int up = 1; up <= MAX_FALLBACK_LEVELS; up++) {
+            tx = Math.floorDiv(tx, 2);
+            ty = Math.floorDiv(ty, 2);
+            TileKey parent = new TileKey(key.level + up, tx, ty);
+            if (drawn.contains(parent)) return null;
+            Tile t = tiles.get(parent);
+            if (t != null) return t;
+        }
+        return null;
+    }
+
+    private void requestTile(TileKey key) {
+        if (pending.containsKey(key)) return;
+
+        List<Layer> snapshot = layers;
+        int gen = generation;
+        pending.put(key, decoder.submit(() -> {
+            Tile tile = decodeTile(key, snapshot);
+            Platform.runLater(() -> {
+                if (gen != generation) return;
+                pending.remove(key);
+                tiles.put(key, tile);
+                dirty = true;
+            });
+        }));
+    }
+
+    // --- Tile decoding (background) ---
+
+    private static Tile decodeTile(TileKey key, List<Layer> layers) {
+        double pixel = Math.scalb(1.0, key.level);
+        double tileWorld = TILE_PX * pixel;
+        double minX = key.tx * tileWorld, minY = key.ty * tileWorld;
+
+        Tile tile = new Tile(key, minX, minY, layers.size());
+        for (int i = 0; i < layers.size(); i++) {
+            Layer layer = layers.get(i);
+            TileBuilder builder = new TileBuilder(minX, minY, tileWorld, 4 * pixel);
+            layer.source.search(minX, minY, minX + tileWorld, minY + tileWorld,
+                id -> layer.source.decode(id, pixel, builder));
+            tile.layers[i] = builder.build();
+        }
+        return tile;
+    }
+
+    /**
+     * Collects one layer's paths for a tile, clipped to the tile: segments that lie wholly off
+     * one side of it (plus a margin for the line width) are dropped and the path is broken
+     * there, so a parcel or road crossing many tiles is only stroked where it shows.
+     */
+    private static final class TileBuilder implements ShapefileReader.PathSink {
+        private final double originX, originY;
+        private final double clipMinX, clipMinY, clipMaxX, clipMaxY;
+        private float[] coords = new float[256];
+        private int coordCount;
+        private int[] starts = new int[16];
+        private int pathCount;
+        private float[] points = new float[16];
+        private int pointCount;
+
+        private double lastX, lastY;
+        private boolean penDown; // last vertex already emitted, so the next kept segment continues the path
+
+        TileBuilder(double originX, double originY, double size, double margin) {
+            this.originX = originX;
+            this.originY = originY;
+            this.clipMinX = originX - margin;
+            this.clipMinY = originY - margin;
+            this.clipMaxX = originX + size + margin;
+            this.clipMaxY = originY + size + margin;
+        }
+
+        private int outcode(double x, double y) {
+            return (x < clipMinX ? 1 : 0) | (x > clipMaxX ? 2 : 0) | (y < clipMinY ? 4 : 0) | (y > clipMaxY ? 8 : 0);
+        }
+
+        @Override
+        public void moveTo(double x, double y) {
+            lastX = x;
+            lastY = y;
+            penDown = false;
+        }
+
+        @Override
+        public void lineTo(double x, double y) {
+            if ((outcode(lastX, lastY) & outcode(x, y)) == 0) {
+                if (!penDown) {
+                    if (pathCount == starts.length) starts = Arrays.copyOf(starts, pathCount * 2);
+                    starts[pathCount++] = coordCount;
+                    add(lastX, lastY);
+                    penDown = true;
+                }
+                add(x, y);
+            } else {
+                penDown = false;
+            }
+            lastX = x;
+            lastY = y;
+        }
+
+        private void add(double x, double y) {
+            if (coordCount * 2 + 2 > coords.length) coords = Arrays.copyOf(coords, coords.length * 2);
+            coords[coordCount * 2] = (float) (x - originX);
+            coords[coordCount * 2 + 1] = (float) (y - originY);
+            coordCount++;
+        }
+
+        @Override
+        public void point(double x, double y) {
+            if (outcode(x, y) != 0) return;
+            if (pointCount * 2 + 2 > points.length) points = Arrays.copyOf(points, points.length * 2);
+            points[pointCount * 2] = (float) (x - originX);
+            points[pointCount * 2 + 1] = (float) (y - originY);
+            pointCount++;
+        }
+
+        TileLayer build() {
+            return new TileLayer(
+                Arrays.copyOf(coords, coordCount * 2), coordCount,
+                Arrays.copyOf(starts, pathCount),
+                Arrays.copyOf(points, pointCount * 2), pointCount);
+        }
+    }
+
+    // --- View helpers ---
+
+    private void zoomToExtents() {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (Layer layer : layers) {
+            double[] b = layer.source.bounds();
+            if (b == null || b[0] > b[2]) continue;
+            minX = Math.min(minX, b[0]);
+            minY = Math.min(minY, b[1]);
+            maxX = Math.max(maxX, b[2]);
+            maxY = Math.max(maxY, b[3]);
+        }
+        if (minX > maxX) return;
+
+        double w = Math.max(canvas.getWidth(), 1), h = Math.max(canvas.getHeight(), 1);
+        centerX = (minX + maxX) / 2;
+        centerY = (minY + maxY) / 2;
+        worldPerPixel = Math.max((maxX - minX) / w, (maxY - minY) / h) * 1.05;
+        if (worldPerPixel <= 0) worldPerPixel = 1;
+        dirty = true;
+    }
+
+    private double toWorldX(double sx) { return centerX + (sx - canvas.getWidth() / 2) * worldPerPixel; }
+    private double toWorldY(double sy) { return centerY - (sy - canvas.getHeight() / 2) * worldPerPixel; }
+
+    private static int levelFor(double worldPerPixel) {
+        return (int) Math.floor(Math.log(worldPerPixel) / Math.log(2));
+    }
+
+    private static Color colorFor(String name) {
+        String hex = LAYER_COLORS.get(name.toLowerCase());
+        if (hex != null) return Color.web(hex);
+        int hash = name.hashCode();
+        return Color.rgb(128 + ((hash >> 16) & 0x7F), 128 + ((hash >> 8) & 0x7F), 128 + (hash & 0x7F));
+    }
+
+    private static String toHex(Color c) {
+        return String.format("#%02x%02x%02x", (int) (c.getRed() * 255), (int) (c.getGreen() * 255), (int) (c.getBlue() * 255));
+    }
+
+    // --- Internal Model Classes --- //
+
+    private static final class Layer {
+        final String name;
+        final Color color;
+        final FeatureSource source;
+        volatile boolean visible = true;
+
+        Layer(String name, Color color, FeatureSource source) {
+            this.name = name;
+            this.color = color;
+            this.source = source;
+        }
+    }
+
+    /** A shapefile has no index of its own: one is packed from its bounds on open. */
+    private static final class IndexedShapefile implements FeatureSource {
+        private final ShapefileReader reader;
+        private final PackedRTree index;
+
+        IndexedShapefile(ShapefileReader reader) {
+            this.reader = reader;
+            this.index = new PackedRTree(reader.featureBounds());
+        }
+
+        @Override public int featureCount() { return reader.featureCount(); }
+        @Override public double[] bounds() { return index.bounds(); }
+        @Override public void decode(int i, double tolerance, ShapefileReader.PathSink sink) { reader.decode(i, tolerance, sink); }
+
+        @Override
+        public void search(double minX, double minY, double maxX, double maxY, IntConsumer visitor) {
+            index.search(minX, minY, maxX, maxY, visitor);
+        }
+    }
+
+    private record TileKey(int level, long tx, long ty) {}
+
+    private record TileLayer(float[] coords, int coordCount, int[] pathStarts, float[] points, int pointCount) {}
+
+    private static final class Tile {
+        final TileKey key;
+        final double originX, originY;
+        final TileLayer[] layers;
+
+        Tile(TileKey key, double originX, double originY, int layerCount) {
+            this.key = key;
+            this.originX = originX;
+            this.originY = originY;
+            this.layers = new TileLayer[layerCount];
+        }
+    }
+}
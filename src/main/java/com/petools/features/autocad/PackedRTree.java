@@ -0,0 +1,153 @@
+package com.petools.features.autocad;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Static R-tree bulk loaded with Sort-Tile-Recursive packing.
+ * Boxes live in one flat double[] (minX, minY, maxX, maxY per node) so a tree over
+ * hundreds of thousands of features is a couple of arrays, not millions of objects.
+ * Level 0 holds the items in STR order; every level above is packed from the one below.
+ */
+public final class PackedRTree {
+
+    public static final int DEFAULT_NODE_SIZE = 16;
+
+    private final int nodeSize;
+    private final int numItems;
+    private final double[] boxes;
+    private final int[] refs;       // level 0: item id, above: position of first child
+    private final int[] levelEnds;  // exclusive end position of each level
+
+    /**
+     * @param bounds 4 values per item (minX, minY, maxX, maxY), item id = position / 4
+     */
+    public PackedRTree(double[] bounds, int nodeSize) {
+        this.nodeSize = Math.max(2, nodeSize);
+        this.numItems = bounds.length / 4;
+
+        // Count nodes per level up front so everything fits in one allocation
+        int levels = 1;
+        int total = Math.max(numItems, 1);
+        for (int n = numItems; n > 1; levels++) {
+            n = ceilDiv(n, this.nodeSize);
+            total += n;
+        }
+        this.boxes = new double[total * 4];
+        this.refs = new int[total];
+        this.levelEnds = new int[levels];
+
+        // Level 0: the items themselves
+        double[] levelBoxes = bounds;
+        int[] levelRefs = new int[numItems];
+        for (int i = 0; i < numItems; i++) levelRefs[i] = i;
+
+        int pos = 0;
+        for (int level = 0; level < levels; level++) {
+            int count = levelRefs.length;
+            int[] order = strOrder(levelBoxes, count);
+
+            int levelStart = pos;
+            for (int i = 0; i < count; i++) {
+                int src = order[i];
+                System.arraycopy(levelBoxes, src * 4, boxes, pos * 4, 4);
+                refs[pos] = levelRefs[src];
+                pos++;
+            }
+            levelEnds[level] = pos;
+
+            if (count <= 1) break;
+
+            // Parents: one per consecutive group of nodeSize children
+            int parents = ceilDiv(count, this.nodeSize);
+            double[] parentBoxes = new double[parents * 4];
+            int[] parentRefs = new int[parents];
+            for (int p = 0; p < parents; p++) {
+                int first = levelStart + p * this.nodeSize;
+                int last = Math.min(first + this.nodeSize, pos);
+                double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+                double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+                for (int c = first; c < last; c++) {
+                    minX = Math.min(minX, boxes[c * 4]);
+                    minY = Math.min(minY, boxes[c * 4 + 1]);
+                    maxX = Math.max(maxX, boxes[c * 4 + 2]);
+                    maxY = Math.max(maxY, boxes[c * 4 + 3]);
+                }
+                parentBoxes[p * 4] = minX;
+                parentBoxes[p * 4 + 1] = minY;
+                parentBoxes[p * 4 + 2] = maxX;
+                parentBoxes[p * 4 + 3] = maxY;
+                parentRefs[p] = first;
+            }
+            levelBoxes = parentBoxes;
+            levelRefs = parentRefs;
+        }
+    }
+
+    public PackedRTree(double[] bounds) {
+        this(bounds, DEFAULT_NODE_SIZE);
+    }
+
+    public int size() { return numItems; }
+
+    /** Bounds of everything in the tree, or null when empty. */
+    public double[] bounds() {
+        if (numItems == 0) return null;
+        int root = levelEnds[levelEnds.length - 1] - 1;
+        return Arrays.copyOfRange(boxes, root * 4, root * 4 + 4);
+    }
+
+    /** Calls the visitor with the id of every item whose box intersects the query box. */
+    public void search(double minX, double minY, double maxX, double maxY, IntConsumer visitor) {
+        if (numItems == 0) return;
+
+        int top = levelEnds.length - 1;
+        int[] stack = new int[levelEnds.length * 2 * nodeSize];
+        int sp = 0;
+        stack[sp++] = levelEnds[top] - 1;
+        stack[sp++] = top;
+
+        while (sp > 0) {
+            int level = stack[--sp];
+            int start = stack[--sp];
+            int end = Math.min(start + nodeSize, levelEnds[level]);
+
+            for (int pos = start; pos < end; pos++) {
+                int b = pos * 4;
+                if (boxes[b] > maxX || boxes[b + 1] > maxY || boxes[b + 2] < minX || boxes[b + 3] < minY) continue;
+
+                if (level == 0) {
+                    visitor.accept(refs[pos]);
+                } else {
+                    if (sp + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                    stack[sp++] = refs[pos];
+                    stack[sp++] = level - 1;
+                }
+            }
+        }
+    }
+
+    // --- STR ordering: vertical slices by center X, each slice sorted by center Y ---
+
+    private int[] strOrder(double[] b, int count) {
+        Integer[] byX = new Integer[count];
+        for (int i = 0; i < count; i++) byX[i] = i;
+        Arrays.sort(byX, (i, j) -> Double.compare(b[i * 4] + b[i * 4 + 2], b[j * 4] + b[j * 4 + 2]));
+
+        int leaves = ceilDiv(count, nodeSize);
+        int slices = (int) Math.ceil(Math.sqrt(leaves));
+        int sliceSize = slices * nodeSize;
+
+        int[] order = new int[count];
+        for (int s = 0; s < count; s += sliceSize) {
+            int e = Math.min(s + sliceSize, count);
+            Arrays.sort(byX, s, e, (i, j) -> Double.compare(b[i * 4 + 1] + b[i * 4 + 3], b[j * 4 + 1] + b[j * 4 + 3]));
+        }
+        for (int i = 0; i < count; i++) order[i] = byX[i];
+        return order;
+    }
+
+    private static int ceilDiv(int a, int b) {
+        return (a + b - 1) / b;
+    }
+}
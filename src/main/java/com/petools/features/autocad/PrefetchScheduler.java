@@ -0,0 +1,237 @@
+package com.petools.features.autocad;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.petools.features.projects.ProjectStore;
+import com.petools.features.projects.ProjectView.Project;
+import com.petools.features.settings.AppSettings;
+
+/**
+ * Prepares active projects ahead of time: while the app is idle (or inside the
+ * configured time-of-day window) it runs the engine in --prefetch mode for each
+ * active project with a site address, so the geocode and every layer are already
+ * in the engine cache when someone clicks Run.
+ */
+public class PrefetchScheduler {
+
+    // Settings keys (see SettingsView)
+    public static final String KEY_ENABLED = "prefetch.enabled";
+    public static final String KEY_TIME = "prefetch.time";               // "HH:mm", blank = idle time only
+    public static final String KEY_MAX_KBPS = "prefetch.maxKbps";
+    public static final String KEY_MAX_CPU = "prefetch.maxCpuPercent";
+    public static final String KEY_IDLE_MINUTES = "prefetch.idleMinutes";
+
+    private static final Path STATE_FILE = Paths.get(System.getProperty("user.home"), ".petools", "cache", "prefetch-state.properties");
+
+    // The engine keeps layers for 7 days; refresh a day early so prepared sites never lapse
+    private static final Duration REFRESH_AFTER = Duration.ofDays(6);
+    private static final Duration TIME_WINDOW = Duration.ofHours(2);
+    private static final Duration TICK = Duration.ofMinutes(1);
+    private static final Duration RUN_TIMEOUT = Duration.ofMinutes(30);
+    private static final Duration STAGE_TIMEOUT = Duration.ofMinutes(10);
+    // A failed site waits before its next try, doubling with each failure in a row
+    private static final Duration RETRY_AFTER = Duration.ofMinutes(15);
+    private static final Duration MAX_RETRY_AFTER = Duration.ofHours(12);
+
+    private static PrefetchScheduler shared;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "prefetch-scheduler");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    private final Properties state = new Properties();
+    private final Map<String, Retry> retries = new HashMap<>(); // failed sites, by lowercased address; not saved
+
+    private record Retry(int failures, long at) {}
+
+    private volatile long lastUserActivity = System.currentTimeMillis();
+    private volatile String status = "Not started";
+    private boolean started;
+
+    public static synchronized PrefetchScheduler shared() {
+        if (shared == null) shared = new PrefetchScheduler();
+        return shared;
+    }
+
+    public synchronized void start() {
+        if (started) return;
+        started = true;
+        loadState();
+        timer.scheduleWithFixedDelay(this::tick, TICK.toSeconds(), TICK.toSeconds(), TimeUnit.SECONDS);
+        status = "Waiting for idle time";
+    }
+
+    /** Called for every key / mouse event in the main window. */
+    public void noteUserActivity() {
+        lastUserActivity = System.currentTimeMillis();
+    }
+
+    public String status() {
+        return status;
+    }
+
+    // --- Scheduling ---
+
+    private void tick() {
+        try {
+            if (!AppSettings.getBoolean(KEY_ENABLED, true)) {
+                status = "Disabled";
+                return;
+            }
+            if (!Files.exists(EngineRunner.DEFAULT_ENGINE)) {
+                status = "Engine not installed";
+                return;
+            }
+            if (EngineRunner.shared().hasInteractiveRuns()) {
+                status = "Paused (import running)";
+                return;
+            }
+            if (!inWindow()) {
+                status = "Waiting for idle time";
+                return;
+            }
+            if (cpuLoadPercent() > AppSettings.getInt(KEY_MAX_CPU, 50)) {
+                status = "Waiting (CPU busy)";
+                return;
+            }
+
+            String address = nextAddress();
+            if (address == null) {
+                status = retries.isEmpty() ? "All active projects prepared" : "Waiting to retry failed sites";
+                return;
+            }
+            prefetch(address);
+
+        } catch (Exception e) {
+            status = "Error: " + e.getMessage();
+        }
+    }
+
+    private boolean inWindow() {
+        long idleMillis = System.currentTimeMillis() - lastUserActivity;
+        if (idleMillis >= Duration.ofMinutes(AppSettings.getInt(KEY_IDLE_MINUTES, 5)).toMillis()) return true;
+
+        String time = AppSettings.get(KEY_TIME, "").trim();
+        if (time.isEmpty()) return false;
+        try {
+            LocalTime start = LocalTime.parse(time);
+            LocalTime now = LocalTime.now();
+            LocalTime end = start.plus(TIME_WINDOW);
+            return end.isAfter(start)
+                ? !now.isBefore(start) && now.isBefore(end)
+                : !now.isBefore(start) || now.isBefore(end); // window crosses midnight
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private static double cpuLoadPercent() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            double load = os.getCpuLoad();
+            if (load >= 0) return load * 100;
+        }
+        return 0;
+    }
+
+    private void prefetch(String address) throws InterruptedException {
+        status = "Preparing: " + address;
+
+        List<String> args = new ArrayList<>(List.of(address, "y", "--prefetch"));
+        int maxKbps = AppSettings.getInt(KEY_MAX_KBPS, 2000);
+        if (maxKbps > 0) args.addAll(List.of("--max-kbps", Integer.toString(maxKbps)));
+        args.addAll(EngineRunner.extentArgs());
+
+        EngineRunner.Request request = new EngineRunner.Request(
+            EngineRunner.DEFAULT_ENGINE, args, RUN_TIMEOUT, STAGE_TIMEOUT, true);
+
+        EngineRunner.Result result;
+        try {
+            result = EngineRunner.shared().submit(request, line -> {}).result().get();
+        } catch (ExecutionException e) {
+            markFailed(address);
+            status = "Error: " + e.getCause().getMessage();
+            return;
+        }
+
+        switch (result.status()) {
+            case COMPLETED -> {
+                retries.remove(address.toLowerCase());
+                markPrepared(address);
+                status = "Prepared: " + address;
+            }
+            // Interrupted by an interactive import: picked up again on a later tick
+            case CANCELLED -> status = "Paused (import running)";
+            default -> {
+                // Don't hammer a failing address every minute, but don't wait a whole refresh cycle either
+                markFailed(address);
+                status = "Failed: " + address + " (" + result.status() + ")";
+            }
+        }
+    }
+
+    // --- Projects & state ---
+
+    private String nextAddress() {
+        long now = System.currentTimeMillis();
+        long cutoff = now - REFRESH_AFTER.toMillis();
+        for (String address : loadActiveAddresses()) {
+            Retry retry = retries.get(address.toLowerCase());
+            if (retry != null && retry.at() > now) continue;
+            long last = Long.parseLong(state.getProperty(address.toLowerCase(), "0"));
+            if (last < cutoff) return address;
+        }
+        return null;
+    }
+
+    private List<String> loadActiveAddresses() {
+        List<String> list = new ArrayList<>();
+        for (Project p : ProjectStore.load(ProjectStore.DATA_FILE)) {
+            if ("Active".equalsIgnoreCase(p.getStatus()) && !p.getAddress().isBlank()) list.add(p.getAddress().trim());
+        }
+        return list;
+    }
+
+    private synchronized void loadState() {
+        if (!Files.exists(STATE_FILE)) return;
+        try (Reader reader = Files.newBufferedReader(STATE_FILE)) {
+            state.load(reader);
+        } catch (IOException e) {}
+    }
+
+    private void markFailed(String address) {
+        Retry last = retries.get(address.toLowerCase());
+        int failures = last == null ? 1 : last.failures() + 1;
+        long wait = Math.min(MAX_RETRY_AFTER.toMillis(), RETRY_AFTER.toMillis() << Math.min(failures - 1, 10));
+        retries.put(address.toLowerCase(), new Retry(failures, System.currentTimeMillis() + wait));
+    }
+
+    private synchronized void markPrepared(String address) {
+        state.setProperty(address.toLowerCase(), Long.toString(System.currentTimeMillis()));
+        try {
+            Files.createDirectories(STATE_FILE.getParent());
+            try (Writer writer = Files.newBufferedWriter(STATE_FILE)) {
+                state.store(writer, "Last prefetch per site address");
+            }
+        } catch (IOException e) {}
+    }
+}
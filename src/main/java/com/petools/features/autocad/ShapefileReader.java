@@ -0,0 +1,156 @@
+package com.petools.features.autocad;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Read-only, memory-mapped view of an ESRI .shp file.
+ * Opening only walks the record headers to collect offsets and bounds;
+ * vertices are decoded on demand, one feature at a time.
+ */
+public final class ShapefileReader {
+
+    // Shape types (the Z and M variants share the 2D prefix of their base type)
+    private static final int NULL = 0, POINT = 1, POLYLINE = 3, POLYGON = 5, MULTIPOINT = 8;
+
+    private final Path path;
+    private final MappedByteBuffer buf;
+    private final int shapeType;
+    private final int[] offsets;   // start of each record's content
+    private final double[] bounds; // 4 per feature
+
+    /** Receives decoded geometry in world coordinates. */
+    public interface PathSink {
+        void moveTo(double x, double y);
+        void lineTo(double x, double y);
+        /** A single point feature (or one point of a multipoint). */
+        void point(double x, double y);
+    }
+
+    private ShapefileReader(Path path, MappedByteBuffer buf) throws IOException {
+        this.path = path;
+        this.buf = buf;
+
+        if (buf.capacity() < 100 || buf.order(ByteOrder.BIG_ENDIAN).getInt(0) != 9994) {
+            throw new IOException("Not a shapefile: " + path.getFileName());
+        }
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        this.shapeType = baseType(buf.getInt(32));
+
+        // Pass 1: record headers only (number + length are big-endian)
+        int count = 0;
+        int limit = Math.min(buf.capacity(), buf.order(ByteOrder.BIG_ENDIAN).getInt(24) * 2);
+        int[] offs = new int[1024];
+        for (int pos = 100; pos + 8 <= limit; ) {
+            int contentLen = buf.order(ByteOrder.BIG_ENDIAN).getInt(pos + 4) * 2;
+            if (count == offs.length) offs = Arrays.copyOf(offs, count * 2);
+            offs[count++] = pos + 8;
+            pos += 8 + contentLen;
+        }
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+
+        this.offsets = Arrays.copyOf(offs, count);
+        this.bounds = new double[count * 4];
+        for (int i = 0; i < count; i++) readBounds(i);
+    }
+
+    public static ShapefileReader open(Path shp) throws IOException {
+        try (FileChannel ch = FileChannel.open(shp, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) throw new IOException("Shapefile too large to map: " + shp.getFileName());
+            return new ShapefileReader(shp, ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    public static boolean isShapefile(Path p) {
+        return Files.isRegularFile(p) && p.getFileName().toString().toLowerCase().endsWith(".shp");
+    }
+
+    public Path path() { return path; }
+    public int featureCount() { return offsets.length; }
+    public boolean isPointLayer() { return shapeType == POINT || shapeType == MULTIPOINT; }
+
+    /** Flat bounds array (minX, minY, maxX, maxY per feature), suitable for {@link PackedRTree}. */
+    public double[] featureBounds() { return bounds; }
+
+    private void readBounds(int i) {
+        int off = offsets[i];
+        int type = baseType(buf.getInt(off));
+        int b = i * 4;
+        if (type == POINT) {
+            double x = buf.getDouble(off + 4), y = buf.getDouble(off + 12);
+            bounds[b] = x; bounds[b + 1] = y; bounds[b + 2] = x; bounds[b + 3] = y;
+        } else if (type == NULL) {
+            // Never matches a search
+            bounds[b] = Double.POSITIVE_INFINITY; bounds[b + 1] = Double.POSITIVE_INFINITY;
+            bounds[b + 2] = Double.NEGATIVE_INFINITY; bounds[b + 3] = Double.NEGATIVE_INFINITY;
+        } else {
+            bounds[b] = buf.getDouble(off + 4);
+            bounds[b + 1] = buf.getDouble(off + 12);
+            bounds[b + 2] = buf.getDouble(off + 20);
+            bounds[b + 3] = buf.getDouble(off + 28);
+        }
+    }
+
+    /**
+     * Decodes one feature, dropping vertices closer than {@code tolerance} (world units)
+     * to the previous kept one. The last vertex of every part is always kept.
+     */
+    public void decode(int i, double tolerance, PathSink sink) {
+        int off = offsets[i];
+        int type = baseType(buf.getInt(off));
+
+        switch (type) {
+            case POINT -> sink.point(buf.getDouble(off + 4), buf.getDouble(off + 12));
+            case MULTIPOINT -> {
+                int n = buf.getInt(off + 36);
+                for (int k = 0; k < n; k++) {
+                    int p = off + 40 + k * 16;
+                    sink.point(buf.getDouble(p), buf.getDouble(p + 8));
+                }
+            }
+            case POLYLINE, POLYGON -> {
+                int numParts = buf.getInt(off + 36);
+                int numPoints = buf.getInt(off + 40);
+                int partsAt = off + 44;
+                int pointsAt = partsAt + numParts * 4;
+
+                for (int part = 0; part < numParts; part++) {
+                    int start = buf.getInt(partsAt + part * 4);
+                    int end = (part + 1 < numParts) ? buf.getInt(partsAt + (part + 1) * 4) : numPoints;
+                    if (end <= start) continue;
+
+                    double lastX = buf.getDouble(pointsAt + start * 16);
+                    double lastY = buf.getDouble(pointsAt + start * 16 + 8);
+                    sink.moveTo(lastX, lastY);
+
+                    for (int k = start + 1; k < end; k++) {
+                        double x = buf.getDouble(pointsAt + k * 16);
+                        double y = buf.getDouble(pointsAt + k * 16 + 8);
+                        if (k == end - 1 || Math.abs(x - lastX) >= tolerance || Math.abs(y - lastY) >= tolerance) {
+                            sink.lineTo(x, y);
+                            lastX = x;
+                            lastY = y;
+                        }
+                    }
+                }
+            }
+            default -> { }
+        }
+    }
+
+    private static int baseType(int type) {
+        return switch (type) {
+            case 11, 21 -> POINT;
+            case 13, 23 -> POLYLINE;
+            case 15, 25 -> POLYGON;
+            case 18, 28 -> MULTIPOINT;
+            default -> type;
+        };
+    }
+}
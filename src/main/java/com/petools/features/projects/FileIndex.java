@@ -0,0 +1,212 @@
+package com.petools.features.projects;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * File names and paths under every project folder, for the Projects view's file search.
+ * Filled by FolderScanner as it lists directories (so it is built in parallel and only
+ * changed folders are re-read) and saved per project in .petools/cache/files/<id>.idx.
+ *
+ * Search is a scan over flat per-folder arrays with lower-cased names prepared up front;
+ * a few hundred thousand files take a few milliseconds.
+ */
+public class FileIndex {
+
+    private static final Path DEFAULT_DIR = Paths.get(System.getProperty("user.home"), ".petools", "cache", "files");
+    private static final int MAGIC = 0x50544649; // "PTFI"
+    private static final int VERSION = 1;
+
+    /** A matching file; {@code path} is relative to the project folder, with / separators. */
+    public record Hit(String folder, String path, long size, long modified) {
+        public Path file() {
+            return Paths.get(folder, path.split("/"));
+        }
+
+        public String name() {
+            return path.substring(path.lastIndexOf('/') + 1);
+        }
+    }
+
+    /** One directory's files, laid out for scanning. */
+    static final class DirFiles {
+        final String rel;
+        final String lowerRel;
+        final String[] names;
+        final String[] lowerNames;
+        final long[] sizes;
+        final long[] modified;
+
+        DirFiles(String rel, List<String> names, List<Long> sizes, List<Long> modified) {
+            this.rel = rel;
+            this.lowerRel = rel.toLowerCase(Locale.ROOT);
+            this.names = names.toArray(String[]::new);
+            this.lowerNames = new String[this.names.length];
+            this.sizes = new long[this.names.length];
+            this.modified = new long[this.names.length];
+            for (int i = 0; i < this.names.length; i++) {
+                lowerNames[i] = this.names[i].toLowerCase(Locale.ROOT);
+                this.sizes[i] = sizes.get(i);
+                this.modified[i] = modified.get(i);
+            }
+        }
+    }
+
+    private final Path dir;
+    private final Map<String, Map<String, DirFiles>> projects = new ConcurrentHashMap<>(); // folder -> rel dir -> files
+
+    public FileIndex(Path dir) {
+        this.dir = dir;
+    }
+
+    public static FileIndex standard() {
+        return new FileIndex(DEFAULT_DIR);
+    }
+
+    // --- Updates (from FolderScanner) ---
+
+    /** Reads the saved index for a folder, once. */
+    void load(String folder) {
+        if (projects.containsKey(folder)) return;
+        Map<String, DirFiles> dirs = new ConcurrentHashMap<>();
+        Path file = indexFile(folder);
+        if (Files.exists(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() == MAGIC && in.readInt() == VERSION && in.readUTF().equals(folder)) {
+                    int dirCount = in.readInt();
+                    for (int d = 0; d < dirCount; d++) {
+                        String rel = in.readUTF();
+                        int n = in.readInt();
+                        List<String> names = new ArrayList<>(n);
+                        List<Long> sizes = new ArrayList<>(n);
+                        List<Long> modified = new ArrayList<>(n);
+                        for (int i = 0; i < n; i++) {
+                            names.add(in.readUTF());
+                            sizes.add(in.readLong());
+                            modified.add(in.readLong());
+                        }
+                        dirs.put(rel, new DirFiles(rel, names, sizes, modified));
+                    }
+                }
+            } catch (IOException e) {
+                dirs.clear(); // rebuilt by the next scan
+            }
+        }
+        projects.putIfAbsent(folder, dirs);
+    }
+
+    boolean hasDir(String folder, String rel) {
+        Map<String, DirFiles> dirs = projects.get(folder);
+        return dirs != null && dirs.containsKey(rel);
+    }
+
+    void putDir(String folder, String rel, List<String> names, List<Long> sizes, List<Long> modified) {
+        projects.computeIfAbsent(folder, f -> new ConcurrentHashMap<>()).put(rel, new DirFiles(rel, names, sizes, modified));
+    }
+
+    /** Drops directories the last walk didn't reach (deleted, or now past the depth limit) and saves. */
+    void finish(String folder, Set<String> seen) {
+        Map<String, DirFiles> dirs = projects.get(folder);
+        if (dirs == null) return;
+        dirs.keySet().retainAll(seen);
+        save(folder, dirs);
+    }
+
+    private void save(String folder, Map<String, DirFiles> dirs) {
+        Path file = indexFile(folder);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(dir);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(folder);
+                List<DirFiles> snapshot = new ArrayList<>(dirs.values());
+                out.writeInt(snapshot.size());
+                for (DirFiles d : snapshot) {
+                    out.writeUTF(d.rel);
+                    out.writeInt(d.names.length);
+                    for (int i = 0; i < d.names.length; i++) {
+                        out.writeUTF(d.names[i]);
+                        out.writeLong(d.sizes[i]);
+                        out.writeLong(d.modified[i]);
+                    }
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try { Files.deleteIfExists(temp); } catch (IOException ignored) {}
+        }
+    }
+
+    private Path indexFile(String folder) {
+        return dir.resolve(UUID.nameUUIDFromBytes(folder.getBytes(StandardCharsets.UTF_8)) + ".idx");
+    }
+
+    // --- Search ---
+
+    /**
+     * Newest-first files whose folder-relative path contains every word of {@code query}
+     * (case-insensitive), limited to {@code folders} (null = all) and to {@code extension}
+     * (blank = any; with or without the dot).
+     */
+    public List<Hit> search(String query, Collection<String> folders, String extension, int limit) {
+        if (limit <= 0) return List.of();
+        String[] words = query == null ? new String[0] : query.toLowerCase(Locale.ROOT).trim().split("\\s+");
+        if (words.length == 1 && words[0].isEmpty()) words = new String[0];
+        String ext = extension == null ? "" : extension.trim().toLowerCase(Locale.ROOT);
+        if (!ext.isEmpty() && !ext.startsWith(".")) ext = "." + ext;
+
+        // Min-heap on modified time keeps the newest `limit` hits
+        PriorityQueue<Hit> top = new PriorityQueue<>(Comparator.comparingLong(Hit::modified));
+        for (Map.Entry<String, Map<String, DirFiles>> project : projects.entrySet()) {
+            if (folders != null && !folders.contains(project.getKey())) continue;
+            for (DirFiles d : project.getValue().values()) {
+                for (int i = 0; i < d.names.length; i++) {
+                    String name = d.lowerNames[i];
+                    if (!ext.isEmpty() && !name.endsWith(ext)) continue;
+                    if (!matches(words, name, d.lowerRel)) continue;
+                    if (top.size() == limit && d.modified[i] <= top.peek().modified()) continue;
+                    top.add(new Hit(project.getKey(), d.rel.isEmpty() ? d.names[i] : d.rel + "/" + d.names[i], d.sizes[i], d.modified[i]));
+                    if (top.size() > limit) top.poll();
+                }
+            }
+        }
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(Comparator.comparingLong(Hit::modified).reversed());
+        return hits;
+    }
+
+    private static boolean matches(String[] words, String name, String rel) {
+        for (String w : words) {
+            if (!name.contains(w) && !rel.contains(w)) return false;
+        }
+        return true;
+    }
+
+    public int fileCount() {
+        int n = 0;
+        for (Map<String, DirFiles> dirs : projects.values()) {
+            for (DirFiles d : dirs.values()) n += d.names.length;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,227 @@
+package com.petools.features.projects;
+
+import java.awt.Desktop;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import com.petools.features.projects.FileIndex.Hit;
+import com.petools.features.projects.ProjectView.Project;
+
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.Separator;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+
+/**
+ * Side panel for the Projects view: search file names across every project folder
+ * (see FileIndex), newest first. Double-click or Enter opens the file.
+ */
+public class FileSearchPanel extends VBox {
+
+    private static final String ALL_PROJECTS = "All Projects";
+    private static final int MAX_RESULTS = 200;
+    private static final DateTimeFormatter MODIFIED = DateTimeFormatter.ofPattern("MMM d, yyyy").withZone(ZoneId.systemDefault());
+
+    private final FileIndex index;
+    private final Supplier<List<Project>> projects;
+    private final TextField queryField;
+    private final ComboBox<String> projectBox;
+    private final ComboBox<String> extBox;
+    private final ListView<Hit> results;
+    private final Label status;
+    private final Map<String, String> projectNames = new HashMap<>(); // folder -> project name
+
+    // One search at a time, off the FX thread; answers from an older query are dropped
+    private final ExecutorService searcher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "file-search");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile int generation;
+
+    public FileSearchPanel(FileIndex index, Supplier<List<Project>> projects) {
+        this.index = index;
+        this.projects = projects;
+        this.setSpacing(10);
+        this.setPadding(new Insets(0, 0, 0, 15));
+        this.setPrefWidth(380);
+
+        Label header = new Label("Find Files");
+        header.setStyle("-fx-font-size: 16px; -fx-font-weight: bold;");
+
+        queryField = new TextField();
+        queryField.setPromptText("e.g. grading plan");
+        queryField.textProperty().addListener((obs, o, n) -> search());
+
+        projectBox = new ComboBox<>();
+        projectBox.setMaxWidth(Double.MAX_VALUE);
+        projectBox.setOnAction(e -> search());
+        HBox.setHgrow(projectBox, Priority.ALWAYS);
+
+        extBox = new ComboBox<>();
+        extBox.setEditable(true);
+        extBox.getItems().addAll("", "dwg", "pdf", "xlsx", "docx");
+        extBox.setPromptText("Type");
+        extBox.setPrefWidth(80);
+        extBox.valueProperty().addListener((obs, o, n) -> search());
+
+        results = new ListView<>();
+        results.setCellFactory(list -> new HitCell());
+        results.setOnMouseClicked(e -> {
+            if (e.getClickCount() == 2) openSelected();
+        });
+        results.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ENTER) openSelected();
+        });
+        VBox.setVgrow(results, Priority.ALWAYS);
+        queryField.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.DOWN) {
+                results.requestFocus();
+                results.getSelectionModel().selectFirst();
+            }
+        });
+
+        Button openBtn = new Button("Open");
+        openBtn.setOnAction(e -> openSelected());
+        Button showBtn = new Button("Show in Folder");
+        showBtn.setOnAction(e -> showSelected());
+
+        status = new Label();
+        status.setStyle("-fx-text-fill: #555; -fx-font-size: 11px;");
+
+        this.getChildren().addAll(header, queryField, new HBox(5, projectBox, extBox), new Separator(),
+            results, new HBox(5, openBtn, showBtn), status);
+    }
+
+    /** Re-reads the project list (names for the filter and the results) and searches again. */
+    public void refresh() {
+        String selected = projectBox.getValue();
+        projectNames.clear();
+        List<String> names = new ArrayList<>();
+        for (Project p : projects.get()) {
+            String folder = p.getFolderPath();
+            if (folder == null || folder.isBlank()) continue;
+            if (projectNames.putIfAbsent(folder, p.getName()) == null) names.add(p.getName());
+        }
+        names.sort(String.CASE_INSENSITIVE_ORDER);
+        names.add(0, ALL_PROJECTS);
+        projectBox.getItems().setAll(names);
+        projectBox.setValue(selected != null && names.contains(selected) ? selected : ALL_PROJECTS);
+        search();
+        queryField.requestFocus();
+    }
+
+    private void search() {
+        String query = queryField.getText();
+        String ext = extBox.getValue();
+        String project = projectBox.getValue();
+        Set<String> folders = null;
+        if (project != null && !project.equals(ALL_PROJECTS)) {
+            folders = new HashSet<>();
+            for (Map.Entry<String, String> e : projectNames.entrySet()) {
+                if (e.getValue().equals(project)) folders.add(e.getKey());
+            }
+        }
+
+        int run = ++generation;
+        Set<String> scope = folders;
+        searcher.execute(() -> {
+            if (run != generation) return; // a newer query is already queued
+            long started = System.nanoTime();
+            List<Hit> hits = index.search(query, scope, ext, MAX_RESULTS);
+            double ms = (System.nanoTime() - started) / 1e6;
+            Platform.runLater(() -> {
+                if (run != generation) return;
+                results.getItems().setAll(hits);
+                status.setText(String.format(Locale.ROOT, "%s%d match%s · %.0f ms · %,d files indexed",
+                    hits.size() == MAX_RESULTS ? "First " : "", hits.size(), hits.size() == 1 ? "" : "es", ms, index.fileCount()));
+            });
+        });
+    }
+
+    // --- Opening ---
+
+    private void openSelected() {
+        Hit hit = results.getSelectionModel().getSelectedItem();
+        if (hit == null) return;
+        Path file = hit.file();
+        // Desktop calls on a network path can stall; keep them off the FX thread
+        Thread.ofVirtual().start(() -> {
+            try {
+                if (!Files.exists(file)) {
+                    Platform.runLater(() -> new Alert(Alert.AlertType.ERROR, "File not found (moved or deleted since the last scan):\n" + file).showAndWait());
+                } else if (Desktop.isDesktopSupported()) {
+                    Desktop.getDesktop().open(file.toFile());
+                }
+            } catch (IOException e) {}
+        });
+    }
+
+    private void showSelected() {
+        Hit hit = results.getSelectionModel().getSelectedItem();
+        if (hit == null) return;
+        Path file = hit.file();
+        Thread.ofVirtual().start(() -> {
+            try {
+                if (System.getProperty("os.name").toLowerCase(Locale.ROOT).contains("win")) {
+                    new ProcessBuilder("explorer.exe", "/select,", file.toString()).start();
+                } else if (Desktop.isDesktopSupported() && file.getParent() != null) {
+                    Desktop.getDesktop().open(file.getParent().toFile());
+                }
+            } catch (IOException e) {}
+        });
+    }
+
+    // --- Result Cell ---
+
+    private final class HitCell extends ListCell<Hit> {
+        private final Label name = new Label();
+        private final Label detail = new Label();
+        private final VBox box = new VBox(2, name, detail);
+
+        HitCell() {
+            name.setStyle("-fx-font-weight: bold;");
+            detail.setStyle("-fx-text-fill: #777; -fx-font-size: 11px;");
+        }
+
+        @Override
+        protected void updateItem(Hit hit, boolean empty) {
+            super.updateItem(hit, empty);
+            if (empty || hit == null) {
+                setGraphic(null);
+                return;
+            }
+            String project = projectNames.getOrDefault(hit.folder(), hit.folder());
+            int slash = hit.path().lastIndexOf('/');
+            String dir = slash < 0 ? "" : " · " + hit.path().substring(0, slash);
+            name.setText(hit.name());
+            detail.setText(project + dir + "\n" + MODIFIED.format(Instant.ofEpochMilli(hit.modified()))
+                + " · " + String.format(Locale.ROOT, "%.1f MB", hit.size() / 1048576.0));
+            setGraphic(box);
+        }
+    }
+}
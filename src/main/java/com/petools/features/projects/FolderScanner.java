@@ -0,0 +1,404 @@
+package com.petools.features.projects;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import com.petools.features.settings.AppSettings;
+
+/**
+ * Last-touched time, file count, size and newest DWG for project folders, gathered on
+ * virtual threads so network-share latency never reaches the FX thread.
+ *
+ * Walk: one task per directory, at most folders.maxDepth levels down, with folders.threads
+ * file-system calls in flight at once across all projects.
+ *
+ * Incremental: each directory's own totals and subfolder names are cached in
+ * .petools/cache/folders/<id>.properties. On a refresh a directory whose modified time hasn't
+ * changed costs one stat instead of a listing. Edits to existing files don't change their
+ * folder's time, so the top levels are watched (WatchService marks a folder dirty and
+ * re-scans the project a few seconds later), and every folders.fullRescanHours a project
+ * is listed in full again.
+ *
+ * Every listing also goes to the FileIndex, so the file search is kept current by the same walk.
+ */
+public class FolderScanner {
+
+    public static final String KEY_MAX_DEPTH = "folders.maxDepth";
+    public static final String KEY_THREADS = "folders.threads";
+    public static final String KEY_FULL_RESCAN_HOURS = "folders.fullRescanHours";
+
+    private static final Path DEFAULT_DIR = Paths.get(System.getProperty("user.home"), ".petools", "cache", "folders");
+
+    // Levels below each project folder that get a WatchService registration
+    private static final int WATCH_DEPTH = 2;
+    private static final long WATCH_DEBOUNCE_MS = 3000;
+
+    private final Path cacheDir;
+    private final int maxDepth;
+    private final Semaphore io;
+    private final Duration fullRescan;
+    private final BiConsumer<String, FolderStats> listener;
+    private final FileIndex index;
+
+    private final Set<String> scanning = ConcurrentHashMap.newKeySet();
+    private final Set<String> again = ConcurrentHashMap.newKeySet();     // changed while being scanned
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();     // directories to list, not trust by mtime
+    private final Map<String, ScheduledFuture<?>> debounce = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Watched> keys = new ConcurrentHashMap<>();
+    private final Set<Path> watchedDirs = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "folder-scan-timer");
+        t.setDaemon(true);
+        return t;
+    });
+    private WatchService watcher;
+
+    private record Watched(String root, Path dir) {}
+
+    /** Listener is called from a background thread, once with the cached stats and again when the scan ends. */
+    public FolderScanner(Path cacheDir, int maxDepth, int threads, Duration fullRescan, FileIndex index, BiConsumer<String, FolderStats> listener) {
+        this.cacheDir = cacheDir;
+        this.maxDepth = Math.max(0, maxDepth);
+        this.io = new Semaphore(Math.max(1, threads));
+        this.fullRescan = fullRescan;
+        this.index = index;
+        this.listener = listener;
+    }
+
+    public static FolderScanner standard(FileIndex index, BiConsumer<String, FolderStats> listener) {
+        return new FolderScanner(DEFAULT_DIR,
+            AppSettings.getInt(KEY_MAX_DEPTH, 8),
+            AppSettings.getInt(KEY_THREADS, 8),
+            Duration.ofHours(AppSettings.getInt(KEY_FULL_RESCAN_HOURS, 24)),
+            index,
+            listener);
+    }
+
+    /** Refreshes each folder in the background; returns immediately. */
+    public void scan(Collection<String> folders) {
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String f : folders) {
+            if (f != null && !f.isBlank()) distinct.add(f);
+        }
+        for (String folder : distinct) Thread.ofVirtual().name("folder-scan").start(() -> refresh(folder, true));
+    }
+
+    // --- Scan ---
+
+    private void refresh(String folder, boolean reportCached) {
+        if (!scanning.add(folder)) {
+            again.add(folder);
+            return;
+        }
+        try {
+            Path cacheFile = cacheDir.resolve(UUID.nameUUIDFromBytes(folder.getBytes(StandardCharsets.UTF_8)) + ".properties");
+            Properties cache = load(cacheFile);
+            if (!folder.equals(cache.getProperty("folder"))) cache.clear();
+            index.load(folder);
+
+            if (reportCached && cache.getProperty("stats") != null) {
+                listener.accept(folder, parseStats(cache.getProperty("stats")));
+            }
+
+            long now = System.currentTimeMillis();
+            long fullScanAt = Long.parseLong(cache.getProperty("fullScanAt", "0"));
+            boolean full = now - fullScanAt > fullRescan.toMillis();
+
+            Path root = Paths.get(folder);
+            Properties next = new Properties();
+            Totals totals;
+            try (ExecutorService walkers = Executors.newVirtualThreadPerTaskExecutor()) {
+                totals = walk(folder, root, "", 0, full ? new Properties() : cache, next, walkers);
+            }
+            if (totals == null) return; // folder gone or offline: keep the last stats
+
+            Set<String> seen = new HashSet<>();
+            for (String key : next.stringPropertyNames()) {
+                if (key.startsWith("d.")) seen.add(key.substring(2));
+            }
+            index.finish(folder, seen);
+
+            FolderStats stats = new FolderStats(totals.lastModified, totals.files, totals.bytes, totals.dwg, now);
+            next.setProperty("folder", folder);
+            next.setProperty("stats", formatStats(stats));
+            next.setProperty("fullScanAt", Long.toString(full ? now : fullScanAt));
+            store(cacheFile, next);
+            listener.accept(folder, stats);
+        } finally {
+            scanning.remove(folder);
+            if (again.remove(folder)) refresh(folder, false);
+        }
+    }
+
+    /** Totals for {@code dir} and everything below it (to maxDepth); null when it can't be read. */
+    private Totals walk(String root, Path dir, String rel, int depth, Properties cache, Properties next, ExecutorService walkers) {
+        Dir own;
+        try {
+            long mtime = withIo(() -> Files.getLastModifiedTime(dir).toMillis());
+            boolean changed = dirty.remove(dir.toString());
+            Dir cached = Dir.parse(cache.getProperty("d." + rel));
+            boolean reuse = cached != null && cached.mtime == mtime && !changed && index.hasDir(root, rel);
+            own = reuse ? cached : withIo(() -> list(root, dir, rel, mtime));
+        } catch (IOException e) {
+            return null;
+        }
+        next.setProperty("d." + rel, own.format());
+        if (depth < WATCH_DEPTH) watch(root, dir);
+
+        Totals totals = new Totals(own, rel);
+        if (depth >= maxDepth) return totals;
+
+        List<Future<Totals>> children = new ArrayList<>();
+        for (String sub : own.subdirs) {
+            String subRel = rel.isEmpty() ? sub : rel + "/" + sub;
+            children.add(walkers.submit(() -> walk(root, dir.resolve(sub), subRel, depth + 1, cache, next, walkers)));
+        }
+        for (Future<Totals> child : children) {
+            try {
+                totals.add(child.get());
+            } catch (InterruptedException | ExecutionException e) {}
+        }
+        return totals;
+    }
+
+    /** One directory listing. On Windows the attributes come with the listing, so this is one round trip. */
+    private Dir list(String root, Path dir, String rel, long mtime) throws IOException {
+        List<String> names = new ArrayList<>();
+        List<Long> sizes = new ArrayList<>();
+        List<Long> times = new ArrayList<>();
+        Dir d = new Dir();
+        d.mtime = mtime;
+        d.newest = mtime;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path p : entries) {
+                BasicFileAttributes a;
+                try {
+                    a = Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException e) {
+                    continue;
+                }
+                String name = p.getFileName().toString();
+                long modified = a.lastModifiedTime().toMillis();
+                if (a.isDirectory()) {
+                    d.subdirs.add(name);
+                } else if (a.isRegularFile()) {
+                    d.files++;
+                    d.bytes += a.size();
+                    d.newest = Math.max(d.newest, modified);
+                    names.add(name);
+                    sizes.add(a.size());
+                    times.add(modified);
+                    if (name.toLowerCase(Locale.ROOT).endsWith(".dwg") && modified > d.dwgTime) {
+                        d.dwgTime = modified;
+                        d.dwg = name;
+                    }
+                }
+            }
+        }
+        index.putDir(root, rel, names, sizes, times);
+        return d;
+    }
+
+    private interface IoCall<T> {
+        T call() throws IOException;
+    }
+
+    private <T> T withIo(IoCall<T> call) throws IOException {
+        io.acquireUninterruptibly();
+        try {
+            return call.call();
+        } finally {
+            io.release();
+        }
+    }
+
+    // --- Watching ---
+
+    private void watch(String root, Path dir) {
+        if (!watchedDirs.add(dir)) return;
+        try {
+            WatchKey key = dir.register(watcher(), ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+            keys.put(key, new Watched(root, dir));
+        } catch (IOException | UnsupportedOperationException e) {
+            watchedDirs.remove(dir);
+        }
+    }
+
+    private synchronized WatchService watcher() throws IOException {
+        if (watcher == null) {
+            watcher = FileSystems.getDefault().newWatchService();
+            Thread t = new Thread(this::watchLoop, "folder-watcher");
+            t.setDaemon(true);
+            t.start();
+        }
+        return watcher;
+    }
+
+    private void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watcher.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Watched w = keys.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (w == null) continue;
+                dirty.add(w.dir().toString());
+                // A changed subfolder has to be listed too
+                if (event.context() instanceof Path child) dirty.add(w.dir().resolve(child).toString());
+            }
+            if (!key.reset()) {
+                keys.remove(key);
+                if (w != null) watchedDirs.remove(w.dir());
+            }
+            if (w != null) rescanSoon(w.root());
+        }
+    }
+
+    // Saves and copies fire bursts of events; wait for them to settle
+    private void rescanSoon(String root) {
+        ScheduledFuture<?> previous = debounce.put(root, timer.schedule(() -> {
+            debounce.remove(root);
+            Thread.ofVirtual().name("folder-scan").start(() -> refresh(root, false));
+        }, WATCH_DEBOUNCE_MS, TimeUnit.MILLISECONDS));
+        if (previous != null) previous.cancel(false);
+    }
+
+    // --- Totals ---
+
+    /** One directory's own files; cached as mtime|files|bytes|newest|dwgTime|dwg|sub|sub... */
+    private static final class Dir {
+        long mtime, files, bytes, newest, dwgTime;
+        String dwg = "";
+        final List<String> subdirs = new ArrayList<>();
+
+        String format() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(mtime).append('|').append(files).append('|').append(bytes).append('|')
+              .append(newest).append('|').append(dwgTime).append('|').append(dwg);
+            for (String s : subdirs) sb.append('|').append(s);
+            return sb.toString();
+        }
+
+        static Dir parse(String value) {
+            if (value == null) return null;
+            String[] parts = value.split("\\|", -1);
+            if (parts.length < 6) return null;
+            try {
+                Dir d = new Dir();
+                d.mtime = Long.parseLong(parts[0]);
+                d.files = Long.parseLong(parts[1]);
+                d.bytes = Long.parseLong(parts[2]);
+                d.newest = Long.parseLong(parts[3]);
+                d.dwgTime = Long.parseLong(parts[4]);
+                d.dwg = parts[5];
+                for (int i = 6; i < parts.length; i++) d.subdirs.add(parts[i]);
+                return d;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    private static final class Totals {
+        long lastModified, files, bytes, dwgTime;
+        String dwg;
+
+        Totals(Dir own, String rel) {
+            lastModified = own.newest;
+            files = own.files;
+            bytes = own.bytes;
+            if (!own.dwg.isEmpty()) {
+                dwgTime = own.dwgTime;
+                dwg = rel.isEmpty() ? own.dwg : rel + "/" + own.dwg;
+            }
+        }
+
+        void add(Totals other) {
+            if (other == null) return;
+            lastModified = Math.max(lastModified, other.lastModified);
+            files += other.files;
+            bytes += other.bytes;
+            if (other.dwg != null && other.dwgTime > dwgTime) {
+                dwgTime = other.dwgTime;
+                dwg = other.dwg;
+            }
+        }
+    }
+
+    private static String formatStats(FolderStats s) {
+        return s.lastModified() + "|" + s.files() + "|" + s.bytes() + "|" + s.scannedAt() + "|" + (s.latestDwg() == null ? "" : s.latestDwg());
+    }
+
+    private static FolderStats parseStats(String value) {
+        String[] parts = value.split("\\|", 5);
+        if (parts.length < 5) return null;
+        try {
+            return new FolderStats(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+                parts[4].isEmpty() ? null : parts[4], Long.parseLong(parts[3]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // --- Cache files ---
+
+    private static Properties load(Path path) {
+        Properties props = new Properties();
+        if (Files.exists(path)) {
+            try (Reader reader = Files.newBufferedReader(path)) {
+                props.load(reader);
+            } catch (IOException | IllegalArgumentException e) {}
+        }
+        return props;
+    }
+
+    private static void store(Path path, Properties props) {
+        try {
+            Files.createDirectories(path.getParent());
+            try (Writer writer = Files.newBufferedWriter(path)) {
+                props.store(writer, "Project folder stats: d.<subfolder> = mtime|files|bytes|newest|dwgTime|dwg|subfolders...");
+            }
+        } catch (IOException e) {}
+    }
+}
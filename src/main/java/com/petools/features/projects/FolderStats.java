@@ -0,0 +1,7 @@
+package com.petools.features.projects;
+
+/**
+ * What the Project Database shows about a project folder. {@code lastModified} is the newest
+ * file or folder time in the tree; {@code latestDwg} is relative to the folder, or null.
+ */
+public record FolderStats(long lastModified, long files, long bytes, String latestDwg, long scannedAt) {}
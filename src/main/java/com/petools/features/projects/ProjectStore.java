@@ -0,0 +1,118 @@
+package com.petools.features.projects;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+import com.petools.features.projects.ProjectView.Project;
+
+/**
+ * Persistence and search for the project list, kept out of ProjectView so it
+ * can run (and be benchmarked) without a JavaFX stage.
+ */
+public final class ProjectStore {
+
+    // Save File: .petools/projects.csv
+    public static final Path DATA_FILE = Paths.get(System.getProperty("user.home"), ".petools", "projects.csv");
+
+    private ProjectStore() {}
+
+    // --- Persistence (CSV) ---
+
+    public static void save(Path file, List<Project> projects) {
+        try {
+            write(file, projects);
+        } catch (IOException e) {}
+    }
+
+    public static List<Project> load(Path file) {
+        List<Project> list = new ArrayList<>();
+        if (!Files.exists(file)) return list;
+        try {
+            readInto(file, list);
+        } catch (IOException e) {}
+        return list;
+    }
+
+    /** Like {@link #save}, but a failed write is reported instead of leaving a short file behind silently. */
+    static void write(Path file, List<Project> projects) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (Project p : projects) {
+                // CSV: Name,Client,Status,Folder,Address,Id
+                String line = String.format("%s,%s,%s,%s,%s,%s",
+                    escape(p.getName()),
+                    escape(p.getClient()),
+                    p.getStatus(),
+                    escape(p.getFolderPath()),
+                    escape(p.getAddress()),
+                    p.getId());
+                writer.write(line);
+                writer.newLine();
+            }
+        }
+    }
+
+    /** Like {@link #load}, but a missing or unreadable file is an error rather than an empty list. */
+    static List<Project> read(Path file) throws IOException {
+        List<Project> list = new ArrayList<>();
+        readInto(file, list);
+        return list;
+    }
+
+    private static void readInto(Path file, List<Project> list) throws IOException {
+        Map<String, Integer> seen = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",", -1);
+                if (parts.length >= 4) {
+                    String folder = (parts.length > 3) ? unescape(parts[3]) : "";
+                    String address = (parts.length > 4) ? unescape(parts[4]) : "";
+                    String id = (parts.length > 5 && !parts[5].isEmpty()) ? parts[5] : legacyId(parts[0], parts[1], seen);
+                    list.add(new Project(
+                        id,
+                        unescape(parts[0]),
+                        unescape(parts[1]),
+                        parts[2],
+                        folder,
+                        address
+                    ));
+                }
+            }
+        }
+    }
+
+    /**
+     * Rows written before the Id column get one derived from name and client, so every
+     * install reading the same old file agrees on it (needed for ProjectSync's merge).
+     */
+    private static String legacyId(String name, String client, Map<String, Integer> seen) {
+        String key = name + "," + client;
+        int n = seen.merge(key, 1, Integer::sum);
+        return UUID.nameUUIDFromBytes((key + "#" + n).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    static String escape(String s) { return s == null ? "" : s.replace(",", ";"); }
+    static String unescape(String s) { return s == null ? "" : s.replace(";", ","); }
+
+    // --- Search ---
+
+    /** Case-insensitive match on name or client; blank text matches everything. */
+    public static Predicate<Project> filter(String text) {
+        if (text == null || text.isEmpty()) return p -> true;
+        String lower = text.toLowerCase();
+        return p ->
+            p.getName().toLowerCase().contains(lower) ||
+            p.getClient().toLowerCase().contains(lower);
+    }
+}
@@ -0,0 +1,280 @@
+package com.petools.features.projects;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.petools.features.projects.ProjectView.Project;
+import com.petools.features.settings.AppSettings;
+
+/**
+ * Keeps the local projects.csv (which every view reads) in step with a shared copy on a
+ * network drive (projects.sharedFile). Nothing on the FX thread touches the share.
+ *
+ * Each sync is a three-way merge: the last synced state (.petools/sync/projects-base.csv)
+ * against local edits and the shared file, per record (by Id) and per field; when both
+ * sides changed the same field, the local edit wins. The write is guarded by an exclusive
+ * lock on <shared>.lock and a version number in <shared>.version, bumped on every write.
+ * Other installs poll the version file (a few bytes) every projects.syncSeconds and only
+ * read the full file when it has moved.
+ */
+public class ProjectSync {
+
+    public static final String KEY_SHARED_FILE = "projects.sharedFile";
+    public static final String KEY_SYNC_SECONDS = "projects.syncSeconds";
+
+    private static final Path SYNC_DIR = Paths.get(System.getProperty("user.home"), ".petools", "sync");
+    private static final long LOCK_TIMEOUT_MS = 10_000;
+    private static final long LOCAL_DEBOUNCE_MS = 2000;
+
+    /** One project as plain values, safe to pass between threads. */
+    public record Row(String id, String name, String client, String status, String folder, String address) {
+        public static Row of(Project p) {
+            return new Row(p.getId(), p.getName(), p.getClient(), p.getStatus(), p.getFolderPath(), p.getAddress());
+        }
+
+        public Project toProject() {
+            return new Project(id, name, client, status, folder, address);
+        }
+    }
+
+    private final Path shared;
+    private final Path lockFile;
+    private final Path versionFile;
+    private final Path baseFile;
+    private final Path baseVersionFile;
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "project-sync");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile Runnable syncRequest = () -> {};
+    private volatile String status = "Not synced yet";
+    private ScheduledFuture<?> pendingLocal;
+
+    public ProjectSync(Path shared, Path syncDir) {
+        this.shared = shared;
+        this.lockFile = shared.resolveSibling(shared.getFileName() + ".lock");
+        this.versionFile = shared.resolveSibling(shared.getFileName() + ".version");
+        this.baseFile = syncDir.resolve("projects-base.csv");
+        this.baseVersionFile = syncDir.resolve("projects-base.version");
+    }
+
+    /** The configured shared file, or null when the projects list is local only. */
+    public static ProjectSync standard() {
+        String path = AppSettings.get(KEY_SHARED_FILE, "").trim();
+        return path.isEmpty() ? null : new ProjectSync(Paths.get(path), SYNC_DIR);
+    }
+
+    /**
+     * Starts polling the shared version. {@code request} is called (from the sync thread) when
+     * a sync is due; it should snapshot the local rows and hand them to {@link #sync}.
+     */
+    public void start(Runnable request) {
+        this.syncRequest = request;
+        int seconds = Math.max(5, AppSettings.getInt(KEY_SYNC_SECONDS, 15));
+        worker.execute(() -> syncRequest.run()); // once at startup, to push edits made while offline
+        worker.scheduleWithFixedDelay(() -> {
+            if (remoteVersion() != baseVersion()) syncRequest.run();
+        }, seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    /** A local edit was saved; sync shortly (edits in quick succession share one sync). */
+    public synchronized void localChanged() {
+        if (pendingLocal != null) pendingLocal.cancel(false);
+        pendingLocal = worker.schedule(() -> syncRequest.run(), LOCAL_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public String status() {
+        return status;
+    }
+
+    // --- Sync ---
+
+    /** Merges {@code local} with the shared file and writes the result back; completes with the merged rows. */
+    public CompletableFuture<List<Row>> sync(List<Row> local) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                List<Row> merged = syncLocked(local);
+                status = "Synced " + LocalTime.now().withNano(0) + " (" + merged.size() + " projects)";
+                return merged;
+            } catch (IOException e) {
+                status = "Sync failed: " + e.getMessage();
+                throw new UncheckedIOException(e);
+            }
+        }, worker);
+    }
+
+    private List<Row> syncLocked(List<Row> local) throws IOException {
+        Files.createDirectories(baseFile.getParent());
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock lock = acquire(channel);
+            try {
+                return mergeAndWrite(local);
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    private List<Row> mergeAndWrite(List<Row> local) throws IOException {
+        long version = remoteVersion();
+        long synced = baseVersion();
+        List<Row> base = synced > 0 && Files.exists(baseFile) ? read(baseFile) : List.of(); // first sync: no common ancestor
+
+        // Once the shared file has existed, not seeing it means the share is unreachable (or the
+        // file was removed): merging against an empty list would delete every project everywhere
+        List<Row> remote;
+        if (Files.exists(shared)) remote = read(shared);
+        else if (synced > 0 || version > 0) throw new IOException("shared projects file not found: " + shared);
+        else remote = List.of();
+
+        List<Row> merged = merge(base, local, remote);
+
+        if (!merged.equals(remote) || version == 0) {
+            write(shared, merged);
+            version++;
+            Files.writeString(versionFile, version + " " + hostName() + "\n");
+        }
+        write(baseFile, merged);
+        Files.writeString(baseVersionFile, version + " " + shared);
+        return merged;
+    }
+
+    private FileLock acquire(FileChannel channel) throws IOException {
+        long deadline = System.currentTimeMillis() + LOCK_TIMEOUT_MS;
+        while (true) {
+            try {
+                FileLock lock = channel.tryLock();
+                if (lock != null) return lock;
+            } catch (OverlappingFileLockException e) {
+                // held by this JVM; wait like any other holder
+            }
+            if (System.currentTimeMillis() > deadline) throw new IOException("shared projects file is locked by another install");
+            try {
+                Thread.sleep(250);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted waiting for lock");
+            }
+        }
+    }
+
+    /**
+     * Three-way merge by Id. A record changed on one side only takes that side (including
+     * deletion); changed on both, fields merge individually with local winning a clash;
+     * deleted on one side and edited on the other, the edit is kept.
+     */
+    static List<Row> merge(List<Row> base, List<Row> local, List<Row> remote) {
+        Map<String, Row> b = byId(base), l = byId(local), r = byId(remote);
+        Set<String> ids = new LinkedHashSet<>(r.keySet()); // shared order first, local additions after
+        ids.addAll(l.keySet());
+
+        List<Row> merged = new ArrayList<>();
+        for (String id : ids) {
+            Row was = b.get(id), mine = l.get(id), theirs = r.get(id);
+            Row result;
+            if (Objects.equals(mine, was)) result = theirs;
+            else if (Objects.equals(theirs, was)) result = mine;
+            else if (mine == null) result = theirs;
+            else if (theirs == null) result = mine;
+            else result = new Row(id,
+                pick(was == null ? null : was.name(), mine.name(), theirs.name()),
+                pick(was == null ? null : was.client(), mine.client(), theirs.client()),
+                pick(was == null ? null : was.status(), mine.status(), theirs.status()),
+                pick(was == null ? null : was.folder(), mine.folder(), theirs.folder()),
+                pick(was == null ? null : was.address(), mine.address(), theirs.address()));
+            if (result != null) merged.add(result);
+        }
+        return merged;
+    }
+
+    private static String pick(String was, String mine, String theirs) {
+        return Objects.equals(mine, was) ? theirs : mine;
+    }
+
+    private static Map<String, Row> byId(List<Row> rows) {
+        Map<String, Row> map = new LinkedHashMap<>();
+        for (Row row : rows) map.putIfAbsent(row.id(), row);
+        return map;
+    }
+
+    // --- Files ---
+
+    private long remoteVersion() {
+        return readVersion(versionFile);
+    }
+
+    // The base only counts for the shared file it was synced with
+    private long baseVersion() {
+        try {
+            String text = Files.readString(baseVersionFile).trim();
+            int space = text.indexOf(' ');
+            if (space < 0 || !text.substring(space + 1).equals(shared.toString())) return 0;
+            return Long.parseLong(text.substring(0, space));
+        } catch (IOException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static long readVersion(Path file) {
+        try {
+            String text = Files.readString(file).trim();
+            int space = text.indexOf(' ');
+            return Long.parseLong(space < 0 ? text : text.substring(0, space));
+        } catch (IOException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // Read errors fail the sync; a partial list would read as remote deletions
+    private static List<Row> read(Path file) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        for (Project p : ProjectStore.read(file)) rows.add(Row.of(p));
+        return rows;
+    }
+
+    // Temp file + move, so a reader never sees half a file; a failed write never replaces it
+    private static void write(Path file, List<Row> rows) throws IOException {
+        List<Project> projects = new ArrayList<>();
+        for (Row row : rows) projects.add(row.toProject());
+        Path temp = file.resolveSibling(file.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        try {
+            ProjectStore.write(temp, projects);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+}
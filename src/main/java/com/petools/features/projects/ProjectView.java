@@ -1,14 +1,29 @@
 package com.petools.features.projects;
 
 import java.awt.Desktop;
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import com.petools.features.settings.AppSettings;
+
+import javafx.application.Platform;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -47,11 +62,42 @@ public class ProjectView extends BorderPane {
     private final FilteredList<Project> filteredData;
 
     // Input Fields
-    private final TextField pNameField, clientField, folderField;
+    private final TextField pNameField, clientField, addressField, folderField;
     private final ComboBox<String> statusBox;
 
-    // Save File: .petools/projects.csv
-    private static final Path DATA_FILE = Paths.get(System.getProperty("user.home"), ".petools", "projects.csv");
+    private static final Path DATA_FILE = ProjectStore.DATA_FILE;
+
+    // Settings key: project count at which the table switches to high-volume mode (0 = always)
+    public static final String KEY_HIGH_VOLUME_ROWS = "projects.highVolumeRows";
+
+    // High-volume mode: fixed row height (no per-row layout pass) and rows handed to the table a page per pulse
+    private static final double FIXED_ROW_HEIGHT = 28;
+    private static final int LOAD_PAGE_SIZE = 2000;
+
+    private static final Map<String, String> STATUS_STYLES = Map.of(
+        "Active", "-fx-text-fill: #28a745; -fx-font-weight: bold;",
+        "Inactive", "-fx-text-fill: #d81414; -fx-font-weight: bold;",
+        "On Hold", "-fx-text-fill: #ffc107; -fx-font-weight: bold;");
+    private static final String STATUS_STYLE_OTHER = "-fx-text-fill: #6c757d; -fx-font-weight: bold";
+    private static final String ADD_HINT_STYLE = "-fx-text-fill: #ccc; -fx-alignment: CENTER;";
+
+    private static final DateTimeFormatter TOUCHED = DateTimeFormatter.ofPattern("MMM d, yyyy").withZone(ZoneId.systemDefault());
+
+    // Folder stats arrive on background threads; SMB latency never reaches the FX thread
+    private final FileIndex fileIndex = FileIndex.standard();
+    private final FolderScanner folderScanner = FolderScanner.standard(fileIndex, this::onFolderStats);
+    private FileSearchPanel fileSearch; // created on first use
+    private final Map<String, FolderStats> scanResults = new ConcurrentHashMap<>(); // not yet applied
+    private final Map<String, FolderStats> latestStats = new ConcurrentHashMap<>();  // rows added later start from these
+    private final AtomicBoolean statsUpdateQueued = new AtomicBoolean();
+
+    // Shared projects.csv on a network drive, if configured; reads stay on the local copy
+    private final ProjectSync sync = ProjectSync.standard();
+    private boolean syncing;
+    private boolean syncAgain;
+
+    private boolean loading;        // paged load still adding rows
+    private boolean saveAfterLoad;  // an edit came in meanwhile; save once every row is back
 
     public ProjectView() {
         this.setStyle("-fx-background-color: #F9FBFD;");
@@ -72,7 +118,10 @@ public class ProjectView extends BorderPane {
         searchField.setPrefWidth(250);
         searchField.textProperty().addListener((obs, oldVal, newVal) -> filterList(newVal));
 
-        topBar.getChildren().addAll(title, spacer, searchField);
+        Button findFilesBtn = new Button("🔎 Find Files");
+        findFilesBtn.setOnAction(e -> toggleFileSearch());
+
+        topBar.getChildren().addAll(title, spacer, findFilesBtn, searchField);
         this.setTop(topBar);
 
         // --- 2. The Table ---
@@ -126,16 +175,8 @@ public class ProjectView extends BorderPane {
             @Override
             public void updateItem(String item, boolean empty) {
                 super.updateItem(item, empty);
-                if (empty || item == null) {
-                    setStyle("");
-                } else {
-                    switch (item) {
-                        case "Active" -> setStyle("-fx-text-fill: #28a745; -fx-font-weight: bold;");
-                        case "Inactive" -> setStyle("-fx-text-fill: #d81414; -fx-font-weight: bold;");
-                        case "On Hold" -> setStyle("-fx-text-fill: #ffc107; -fx-font-weight: bold;");
-                        default -> setStyle("-fx-text-fill: #6c757d; -fx-font-weight: bold");
-                    }
-                }
+                // Precomputed strings: an unchanged style is a no-op, so recycling a cell re-parses nothing
+                setStyle(empty || item == null ? "" : STATUS_STYLES.getOrDefault(item, STATUS_STYLE_OTHER));
             }
         });
 
@@ -151,46 +192,28 @@ public class ProjectView extends BorderPane {
         colFolder.setPrefWidth(60);
         colFolder.setCellValueFactory(data -> data.getValue().folderPathProperty()); // Bind property
 
-        colFolder.setCellFactory(col -> new TableCell<>() {
-            private final Button btn = new Button("📂");
-            {
-                btn.setStyle("-fx-background-color: transparent; -fx-cursor: hand; -fx-font-size: 14px;");
-                btn.setFocusTraversable(false);
-                btn.setOnAction(e -> {
-                    Project p = getTableView().getItems().get(getIndex());
-                    openProjectFolder(p.getFolderPath());
-                });
-            }
+        colFolder.setCellFactory(col -> new FolderCell());
 
-            @Override
-            protected void updateItem(String item, boolean empty) {
-                super.updateItem(item, empty);
-
-                // 1. Handle Double Click to Browse
-                this.setOnMouseClicked((MouseEvent event) -> {
-                    if (event.getButton().equals(MouseButton.PRIMARY) && event.getClickCount() == 2 && !empty) {
-                        chooseFolderForProject(getTableView().getItems().get(getIndex()));
-                    }
-                });
-
-                if (empty) {
-                    setGraphic(null);
-                } else {
-                    // Show button if path exists
-                    if (item != null && !item.isEmpty()) {
-                        setGraphic(btn);
-                        Tooltip.install(btn, new Tooltip(item + "\n(Double-click cell to change)"));
-                    } else {
-                        // Show "Add" hint if missing
-                        setGraphic(null);
-                        setText("Add +");
-                        setStyle("-fx-text-fill: #ccc; -fx-alignment: CENTER;");
-                    }
-                }
-            }
+        // --- COL 5: Site Address (Editable, used by the background prefetch) ---
+        TableColumn<Project, String> colAddress = new TableColumn<>("Site Address");
+        colAddress.setCellValueFactory(data -> data.getValue().addressProperty());
+        colAddress.setCellFactory(TextFieldTableCell.forTableColumn());
+        colAddress.setOnEditCommit(e -> {
+            e.getRowValue().addressProperty().set(e.getNewValue());
+            saveData();
         });
 
-        table.getColumns().addAll(colName, colClient, colStatus, colFolder);
+        // --- COL 6-9: Folder stats (filled in by the background FolderScanner) ---
+        TableColumn<Project, FolderStats> colTouched = statsColumn("Last Touched", 110,
+            st -> TOUCHED.format(Instant.ofEpochMilli(st.lastModified())), Comparator.comparingLong(FolderStats::lastModified));
+        TableColumn<Project, FolderStats> colFiles = statsColumn("Files", 60,
+            st -> String.format("%,d", st.files()), Comparator.comparingLong(FolderStats::files));
+        TableColumn<Project, FolderStats> colSize = statsColumn("Size", 70,
+            st -> formatSize(st.bytes()), Comparator.comparingLong(FolderStats::bytes));
+        TableColumn<Project, FolderStats> colDwg = statsColumn("Latest DWG", 140,
+            st -> st.latestDwg() != null ? st.latestDwg() : "—", Comparator.comparing(st -> st.latestDwg() != null ? st.latestDwg() : ""));
+
+        table.getColumns().addAll(colName, colClient, colStatus, colAddress, colFolder, colTouched, colFiles, colSize, colDwg);
 
         // Delete Key Handler
         table.setOnKeyPressed(event -> {
@@ -240,6 +263,10 @@ public class ProjectView extends BorderPane {
         clientField.setPromptText("Client");
         clientField.setPrefWidth(120);
 
+        addressField = new TextField();
+        addressField.setPromptText("Site Address");
+        addressField.setPrefWidth(160);
+
         statusBox = new ComboBox<>(FXCollections.observableArrayList(statusOptions));
         statusBox.getSelectionModel().selectFirst();
         statusBox.setPrefWidth(100);
@@ -261,10 +288,144 @@ public class ProjectView extends BorderPane {
         addBtn.setStyle("-fx-background-color: #0078d7; -fx-text-fill: white; -fx-font-weight: bold;");
         addBtn.setOnAction(e -> addProject());
 
-        inputBar.getChildren().addAll(pNameField, clientField, statusBox, folderField, browseBtn, addBtn);
+        inputBar.getChildren().addAll(pNameField, clientField, addressField, statusBox, folderField, browseBtn, addBtn);
         inputSection.getChildren().addAll(addLabel, inputBar);
 
         this.setBottom(inputSection);
+
+        if (sync != null) sync.start(() -> Platform.runLater(this::syncNow));
+    }
+
+    // --- File Search ---
+
+    private void toggleFileSearch() {
+        if (fileSearch != null && getRight() == fileSearch) {
+            setRight(null);
+            return;
+        }
+        if (fileSearch == null) fileSearch = new FileSearchPanel(fileIndex, () -> masterData);
+        setRight(fileSearch);
+        fileSearch.refresh();
+    }
+
+    // --- Folder Stats ---
+
+    private TableColumn<Project, FolderStats> statsColumn(String title, double width,
+            Function<FolderStats, String> format, Comparator<FolderStats> order) {
+        TableColumn<Project, FolderStats> col = new TableColumn<>(title);
+        col.setPrefWidth(width);
+        col.setEditable(false);
+        col.setCellValueFactory(data -> data.getValue().folderStatsProperty());
+        col.setComparator(Comparator.nullsFirst(order));
+        col.setCellFactory(c -> new TableCell<>() {
+            private FolderStats shown; // recycled cells skip re-formatting the same stats
+
+            @Override
+            protected void updateItem(FolderStats item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    shown = null;
+                    setText(null);
+                } else if (item != shown) {
+                    shown = item;
+                    setText(format.apply(item));
+                }
+            }
+        });
+        return col;
+    }
+
+    private static String formatSize(long bytes) {
+        if (bytes < 1024 * 1024) return String.format("%.0f KB", bytes / 1024.0);
+        if (bytes < 1024L * 1024 * 1024) return String.format("%.1f MB", bytes / 1048576.0);
+        return String.format("%.2f GB", bytes / 1073741824.0);
+    }
+
+    private void scanFolders(List<Project> projects) {
+        List<String> folders = new ArrayList<>();
+        for (Project p : projects) folders.add(p.getFolderPath());
+        folderScanner.scan(folders);
+    }
+
+    // Called from scanner threads; results are applied in batches, one pass over the list per pulse
+    private void onFolderStats(String folder, FolderStats stats) {
+        if (stats == null) return;
+        latestStats.put(folder, stats);
+        scanResults.put(folder, stats);
+        if (!statsUpdateQueued.getAndSet(true)) {
+            Platform.runLater(() -> {
+                statsUpdateQueued.set(false);
+                Map<String, FolderStats> batch = new HashMap<>(scanResults);
+                batch.forEach(scanResults::remove); // keeps anything newer that arrived meanwhile
+                for (Project p : masterData) {
+                    FolderStats st = batch.get(p.getFolderPath());
+                    if (st != null) p.folderStatsProperty().set(st);
+                }
+            });
+        }
+    }
+
+    // Rows joining the table after their folder reported (later pages, synced rows) would miss the batch
+    private void applyKnownStats(List<Project> projects) {
+        for (Project p : projects) {
+            FolderStats st = p.getFolderPath() == null ? null : latestStats.get(p.getFolderPath());
+            if (st != null) p.folderStatsProperty().set(st);
+        }
+    }
+
+    // --- Folder Cell ---
+
+    /**
+     * Everything a folder cell needs is created once per cell, not per update: the click
+     * handler is set in the constructor, and the tooltip is made on first hover with its text
+     * read when it shows. updateItem only swaps graphic / text, so scrolling allocates nothing.
+     */
+    private final class FolderCell extends TableCell<Project, String> {
+        private final Button btn = new Button("📂");
+        private Tooltip tip;
+
+        FolderCell() {
+            btn.setStyle("-fx-background-color: transparent; -fx-cursor: hand; -fx-font-size: 14px;");
+            btn.setFocusTraversable(false);
+            btn.setOnAction(e -> {
+                Project p = getTableRow().getItem();
+                if (p != null) openProjectFolder(p.getFolderPath());
+            });
+            btn.setOnMouseEntered(e -> {
+                if (tip != null) return;
+                tip = new Tooltip();
+                tip.setOnShowing(ev -> tip.setText(getItem() + "\n(Double-click cell to change)"));
+                Tooltip.install(btn, tip);
+            });
+
+            // Double Click to Browse
+            this.setOnMouseClicked((MouseEvent event) -> {
+                if (event.getButton() == MouseButton.PRIMARY && event.getClickCount() == 2 && !isEmpty()) {
+                    Project p = getTableRow().getItem();
+                    if (p != null) chooseFolderForProject(p);
+                }
+            });
+        }
+
+        @Override
+        protected void updateItem(String item, boolean empty) {
+            super.updateItem(item, empty);
+            if (empty) {
+                setGraphic(null);
+                setText(null);
+                setStyle("");
+            } else if (item != null && !item.isEmpty()) {
+                // Show button if path exists
+                setGraphic(btn);
+                setText(null);
+                setStyle("");
+            } else {
+                // Show "Add" hint if missing
+                setGraphic(null);
+                setText("Add +");
+                setStyle(ADD_HINT_STYLE);
+            }
+        }
     }
 
     // --- Actions ---
@@ -275,7 +436,9 @@ public class ProjectView extends BorderPane {
         File f = dc.showDialog(getScene().getWindow());
         if (f != null) {
             p.folderPathProperty().set(f.getAbsolutePath());
+            p.folderStatsProperty().set(null);
             saveData();
+            scanFolders(List.of(p));
             table.refresh(); // Force UI update
         }
     }
@@ -287,13 +450,16 @@ public class ProjectView extends BorderPane {
             pNameField.getText(),
             clientField.getText(),
             statusBox.getValue(),
-            folderField.getText()
+            folderField.getText(),
+            addressField.getText()
         );
         masterData.add(newP);
         saveData();
+        scanFolders(List.of(newP));
 
         pNameField.clear();
         clientField.clear();
+        addressField.clear();
         folderField.clear();
     }
 
@@ -330,70 +496,155 @@ public class ProjectView extends BorderPane {
     }
 
     private void filterList(String text) {
-        if (text == null || text.isEmpty()) {
-            filteredData.setPredicate(p -> true);
-        } else {
-            String lower = text.toLowerCase();
-            filteredData.setPredicate(p ->
-                p.getName().toLowerCase().contains(lower) ||
-                p.getClient().toLowerCase().contains(lower)
-            );
-        }
+        filteredData.setPredicate(ProjectStore.filter(text));
     }
 
     // --- Persistence (CSV) ---
 
     private void saveData() {
-        try (BufferedWriter writer = Files.newBufferedWriter(DATA_FILE)) {
-            for (Project p : masterData) {
-                // CSV: Name,Client,Status,Folder
-                String line = String.format("%s,%s,%s,%s",
-                    escape(p.getName()),
-                    escape(p.getClient()),
-                    p.getStatus(),
-                    escape(p.getFolderPath()));
-                writer.write(line);
-                writer.newLine();
+        // Saving half-loaded data would drop the rest of the file
+        if (loading) {
+            saveAfterLoad = true;
+            return;
+        }
+        ProjectStore.save(DATA_FILE, masterData);
+        if (sync != null) sync.localChanged();
+    }
+
+    // --- Shared Database Sync ---
+
+    private void syncNow() {
+        if (sync == null || loading) return; // the next poll comes round again
+        if (syncing) {
+            syncAgain = true;
+            return;
+        }
+        syncing = true;
+        List<ProjectSync.Row> before = new ArrayList<>(masterData.size());
+        for (Project p : masterData) before.add(ProjectSync.Row.of(p));
+
+        sync.sync(before).whenComplete((merged, error) -> Platform.runLater(() -> {
+            syncing = false;
+            if (merged != null) applyMerged(before, merged);
+            if (syncAgain) {
+                syncAgain = false;
+                syncNow();
             }
-        } catch (IOException e) {}
+        }));
     }
 
-    private void loadData() {
-        if (!Files.exists(DATA_FILE)) return;
-        try (BufferedReader reader = Files.newBufferedReader(DATA_FILE)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",", -1);
-                if (parts.length >= 4) {
-                    String folder = (parts.length > 3) ? unescape(parts[3]) : "";
-                    masterData.add(new Project(
-                        unescape(parts[0]),
-                        unescape(parts[1]),
-                        parts[2],
-                        folder
-                    ));
-                }
+    /**
+     * Applies a sync result record by record, so the table keeps its selection and scroll
+     * position. Rows edited while the sync ran keep the edit; it goes out with the next sync.
+     */
+    private void applyMerged(List<ProjectSync.Row> before, List<ProjectSync.Row> merged) {
+        Map<String, ProjectSync.Row> was = new HashMap<>();
+        for (ProjectSync.Row row : before) was.put(row.id(), row);
+        Map<String, Project> current = new HashMap<>();
+        for (Project p : masterData) current.put(p.getId(), p);
+
+        Set<String> mergedIds = new HashSet<>();
+        List<Project> added = new ArrayList<>();
+        List<Project> moved = new ArrayList<>(); // folder changed: needs a fresh scan
+        boolean changed = false;
+
+        for (ProjectSync.Row m : merged) {
+            mergedIds.add(m.id());
+            Project p = current.get(m.id());
+            ProjectSync.Row b = was.get(m.id());
+            if (p == null) {
+                if (b == null) added.add(m.toProject()); // new elsewhere (else: deleted here meanwhile)
+                continue;
             }
-        } catch (IOException e) {}
+            if (b == null || b.equals(m) || !ProjectSync.Row.of(p).equals(b)) continue;
+
+            if (!Objects.equals(p.getFolderPath(), m.folder())) {
+                p.folderStatsProperty().set(null);
+                moved.add(p);
+            }
+            p.nameProperty().set(m.name());
+            p.clientProperty().set(m.client());
+            p.statusProperty().set(m.status());
+            p.folderPathProperty().set(m.folder());
+            p.addressProperty().set(m.address());
+            changed = true;
+        }
+
+        Set<Project> removed = new HashSet<>();
+        for (Project p : masterData) {
+            ProjectSync.Row b = was.get(p.getId());
+            if (b != null && !mergedIds.contains(p.getId()) && ProjectSync.Row.of(p).equals(b)) removed.add(p);
+        }
+        if (!removed.isEmpty()) masterData.removeIf(removed::contains);
+        applyKnownStats(added);
+        masterData.addAll(added);
+
+        if (changed || !added.isEmpty() || !removed.isEmpty()) {
+            ProjectStore.save(DATA_FILE, masterData); // local replica only; this is not a new edit
+            moved.addAll(added);
+            scanFolders(moved);
+        }
     }
 
-    private String escape(String s) { return s == null ? "" : s.replace(",", ";"); }
-    private String unescape(String s) { return s == null ? "" : s.replace(";", ","); }
+    private void loadData() {
+        List<Project> all = ProjectStore.load(DATA_FILE);
+        scanFolders(all);
+        if (all.size() < AppSettings.getInt(KEY_HIGH_VOLUME_ROWS, 5000)) {
+            masterData.setAll(all);
+            return;
+        }
+
+        // High-volume mode: the first page shows at once, the rest follow a page per pulse
+        table.setFixedCellSize(FIXED_ROW_HEIGHT);
+        loading = true;
+        masterData.setAll(all.subList(0, Math.min(LOAD_PAGE_SIZE, all.size())));
+        loadPage(all, LOAD_PAGE_SIZE);
+    }
+
+    private void loadPage(List<Project> all, int from) {
+        if (from >= all.size()) {
+            loading = false;
+            if (saveAfterLoad) {
+                saveAfterLoad = false;
+                saveData();
+            }
+            syncNow();
+            return;
+        }
+        Platform.runLater(() -> {
+            int to = Math.min(from + LOAD_PAGE_SIZE, all.size());
+            List<Project> page = all.subList(from, to);
+            applyKnownStats(page);
+            masterData.addAll(page);
+            loadPage(all, to);
+        });
+    }
 
     // --- Internal Model Class (Using Properties for TableView compatibility) --- //
     public static class Project {
+        private final String id; // stable across renames; ProjectSync merges by it
         private final SimpleStringProperty name;
         private final SimpleStringProperty client;
         private final SimpleStringProperty status;
         private final SimpleStringProperty folderPath;
+        private final SimpleStringProperty address;
+        private final SimpleObjectProperty<FolderStats> folderStats = new SimpleObjectProperty<>(); // not saved; see FolderScanner
 
-        public Project(String name, String client, String status, String folderPath) {
+        public Project(String name, String client, String status, String folderPath, String address) {
+            this(UUID.randomUUID().toString(), name, client, status, folderPath, address);
+        }
+
+        public Project(String id, String name, String client, String status, String folderPath, String address) {
+            this.id = id;
             this.name = new SimpleStringProperty(name);
             this.client = new SimpleStringProperty(client);
             this.status = new SimpleStringProperty(status);
             this.folderPath = new SimpleStringProperty(folderPath);
+            this.address = new SimpleStringProperty(address);
         }
 
+        public String getId() { return id; }
+
         public String getName() { return name.get(); }
         public SimpleStringProperty nameProperty() { return name; }
 
@@ -405,5 +656,11 @@ public class ProjectView extends BorderPane {
 
         public String getFolderPath() { return folderPath.get(); }
         public SimpleStringProperty folderPathProperty() { return folderPath; }
+
+        public String getAddress() { return address.get(); }
+        public SimpleStringProperty addressProperty() { return address; }
+
+        public FolderStats getFolderStats() { return folderStats.get(); }
+        public SimpleObjectProperty<FolderStats> folderStatsProperty() { return folderStats; }
     }
 }
\ No newline at end of file
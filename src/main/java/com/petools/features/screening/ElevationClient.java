@@ -0,0 +1,49 @@
+package com.petools.features.screening;
+
+import java.net.http.HttpRequest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.petools.util.Json;
+
+/** USGS Elevation Point Query Service (3DEP): ground elevation at the site. */
+public class ElevationClient implements ScreeningClient {
+
+    public static final String DEFAULT_URL = "https://epqs.nationalmap.gov/v1/json";
+
+    private final String baseUrl;
+
+    public ElevationClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    @Override
+    public String id() {
+        return "elevation";
+    }
+
+    @Override
+    public String title() {
+        return "Elevation (USGS 3DEP)";
+    }
+
+    @Override
+    public HttpRequest request(Site site) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("x", Double.toString(site.lon()));
+        params.put("y", Double.toString(site.lat()));
+        params.put("wkid", "4326");
+        params.put("units", "Feet");
+        params.put("includeDate", "false");
+        return HttpRequest.newBuilder(ScreeningClient.withQuery(baseUrl, params)).GET().build();
+    }
+
+    @Override
+    public String summarize(Object json) {
+        Double feet = Json.number(json, "value");
+        if (feet == null) throw new IllegalStateException("No elevation in response");
+        // EPQS answers -1000000 outside its coverage
+        if (feet < -10000) return "No elevation data at this point";
+        return String.format("%.1f ft (NAVD 88)", feet);
+    }
+}
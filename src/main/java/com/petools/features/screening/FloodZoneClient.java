@@ -0,0 +1,59 @@
+package com.petools.features.screening;
+
+import java.net.http.HttpRequest;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import com.petools.util.Json;
+
+/** FEMA National Flood Hazard Layer: flood zone at the site point. */
+public class FloodZoneClient implements ScreeningClient {
+
+    public static final String DEFAULT_URL = "https://hazards.fema.gov/arcgis/rest/services/public/NFHL/MapServer/28/query";
+
+    private final String baseUrl;
+
+    public FloodZoneClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    @Override
+    public String id() {
+        return "flood";
+    }
+
+    @Override
+    public String title() {
+        return "Flood Zone (FEMA NFHL)";
+    }
+
+    @Override
+    public HttpRequest request(Site site) {
+        return HttpRequest.newBuilder(ScreeningClient.withQuery(baseUrl,
+            ScreeningClient.pointQuery(site, "FLD_ZONE,ZONE_SUBTY,SFHA_TF,STATIC_BFE"))).GET().build();
+    }
+
+    @Override
+    public String summarize(Object json) {
+        ScreeningClient.checkArcGisError(json);
+
+        Set<String> zones = new LinkedHashSet<>();
+        boolean sfha = false;
+        Double bfe = null;
+        for (Object feature : Json.list(json, "features")) {
+            String zone = Json.string(feature, "attributes", "FLD_ZONE");
+            if (zone == null) continue;
+            String subtype = Json.string(feature, "attributes", "ZONE_SUBTY");
+            zones.add(subtype != null && !subtype.isBlank() ? zone + " (" + subtype.trim().toLowerCase() + ")" : zone);
+            sfha |= "T".equals(Json.string(feature, "attributes", "SFHA_TF"));
+            Double b = Json.number(feature, "attributes", "STATIC_BFE");
+            if (b != null && b > -9000) bfe = b;
+        }
+
+        if (zones.isEmpty()) return "No mapped flood zone at this point";
+        String summary = "Zone " + String.join(", ", zones);
+        if (sfha) summary += " — in the Special Flood Hazard Area";
+        if (bfe != null) summary += String.format(", BFE %.1f ft", bfe);
+        return summary;
+    }
+}
@@ -0,0 +1,38 @@
+package com.petools.features.screening;
+
+import java.net.http.HttpRequest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.petools.util.Json;
+
+/** ArcGIS World geocoder (the same one the AutoCAD engine uses), asked for WGS84 output. */
+public class GeocodeClient {
+
+    public static final String DEFAULT_URL = "https://geocode.arcgis.com/arcgis/rest/services/World/GeocodeServer/findAddressCandidates";
+
+    private final String baseUrl;
+
+    public GeocodeClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public HttpRequest request(String address) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("SingleLine", address);
+        params.put("outSR", "4326");
+        params.put("maxLocations", "1");
+        params.put("f", "json");
+        return HttpRequest.newBuilder(ScreeningClient.withQuery(baseUrl, params)).GET().build();
+    }
+
+    /** The best candidate, or null when the address wasn't found. */
+    public Site parse(String address, Object json) {
+        ScreeningClient.checkArcGisError(json);
+        Double x = Json.number(json, "candidates", 0, "location", "x");
+        Double y = Json.number(json, "candidates", 0, "location", "y");
+        if (x == null || y == null) return null;
+        String matched = Json.string(json, "candidates", 0, "address");
+        return new Site(matched != null ? matched : address, y, x);
+    }
+}
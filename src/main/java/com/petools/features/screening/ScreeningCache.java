@@ -0,0 +1,106 @@
+package com.petools.features.screening;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Properties;
+
+import com.petools.features.screening.ScreeningClient.Finding;
+import com.petools.features.screening.ScreeningClient.Status;
+
+/**
+ * Screening results per site (.petools/cache/screening/<lat>_<lon>.properties) and
+ * geocoded addresses (geocodes.properties). Flood maps and soil surveys change on a
+ * scale of years, so results are kept for screening.cacheDays (default 30).
+ */
+public class ScreeningCache {
+
+    public static final String KEY_CACHE_DAYS = "screening.cacheDays";
+
+    private static final Path DEFAULT_DIR = Paths.get(System.getProperty("user.home"), ".petools", "cache", "screening");
+
+    private final Path dir;
+    private final Duration maxAge;
+
+    public ScreeningCache(Duration maxAge) {
+        this(DEFAULT_DIR, maxAge);
+    }
+
+    public ScreeningCache(Path dir, Duration maxAge) {
+        this.dir = dir;
+        this.maxAge = maxAge;
+    }
+
+    // --- Findings ---
+
+    public synchronized Finding get(Site site, ScreeningClient client) {
+        Properties props = load(sitePath(site));
+        String prefix = client.id() + ".";
+        String summary = props.getProperty(prefix + "summary");
+        long checkedAt = Long.parseLong(props.getProperty(prefix + "checkedAt", "0"));
+        if (summary == null || System.currentTimeMillis() - checkedAt > maxAge.toMillis()) return null;
+        return new Finding(client.id(), client.title(), Status.OK, summary, checkedAt, true);
+    }
+
+    /** Only successful lookups are kept; failures are retried next time. */
+    public synchronized void put(Site site, Finding finding) {
+        if (finding.status() != Status.OK) return;
+        Path path = sitePath(site);
+        Properties props = load(path);
+        props.setProperty("address", site.address());
+        props.setProperty(finding.id() + ".summary", finding.summary());
+        props.setProperty(finding.id() + ".checkedAt", Long.toString(finding.checkedAt()));
+        store(path, props, "Site screening: " + site.coordinates());
+    }
+
+    // --- Geocodes ---
+
+    public synchronized Site geocode(String address) {
+        String value = load(dir.resolve("geocodes.properties")).getProperty(normalize(address));
+        if (value == null) return null;
+        String[] parts = value.split("\\|", 3);
+        if (parts.length < 3) return null;
+        return new Site(parts[2], Double.parseDouble(parts[0]), Double.parseDouble(parts[1]));
+    }
+
+    public synchronized void putGeocode(String address, Site site) {
+        Path path = dir.resolve("geocodes.properties");
+        Properties props = load(path);
+        props.setProperty(normalize(address), site.lat() + "|" + site.lon() + "|" + site.address());
+        store(path, props, "Screening geocodes: address -> lat|lon|matched address");
+    }
+
+    private static String normalize(String address) {
+        return address.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // --- Files ---
+
+    private Path sitePath(Site site) {
+        return dir.resolve(site.key() + ".properties");
+    }
+
+    private static Properties load(Path path) {
+        Properties props = new Properties();
+        if (Files.exists(path)) {
+            try (Reader reader = Files.newBufferedReader(path)) {
+                props.load(reader);
+            } catch (IOException | IllegalArgumentException e) {}
+        }
+        return props;
+    }
+
+    private static void store(Path path, Properties props, String comment) {
+        try {
+            Files.createDirectories(path.getParent());
+            try (Writer writer = Files.newBufferedWriter(path)) {
+                props.store(writer, comment);
+            }
+        } catch (IOException e) {}
+    }
+}
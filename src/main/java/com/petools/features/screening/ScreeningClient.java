@@ -0,0 +1,67 @@
+package com.petools.features.screening;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.petools.util.Json;
+
+/**
+ * One screening source (flood zone, soils, wetlands, elevation). A client builds a single
+ * request for the site and turns the JSON reply into a one-line finding; SiteScreener runs
+ * them concurrently. Base URLs are constructor arguments, so a local stub can stand in.
+ */
+public interface ScreeningClient {
+
+    enum Status { OK, FAILED, TIMED_OUT }
+
+    record Finding(String id, String title, Status status, String summary, long checkedAt, boolean cached) {
+
+        public Finding asCached() {
+            return new Finding(id, title, status, summary, checkedAt, true);
+        }
+    }
+
+    /** Short stable id, used for settings keys and the cache ("flood", "soils", ...). */
+    String id();
+
+    /** Label shown in the summary panel. */
+    String title();
+
+    HttpRequest request(Site site);
+
+    /** Turns the parsed JSON reply into the summary line; throw to report a failure. */
+    String summarize(Object json);
+
+    // --- Helpers for ArcGIS-style GET endpoints ---
+
+    static URI withQuery(String baseUrl, Map<String, String> params) {
+        String query = params.entrySet().stream()
+            .map(e -> e.getKey() + "=" + URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))
+            .collect(Collectors.joining("&"));
+        return URI.create(baseUrl + (baseUrl.contains("?") ? "&" : "?") + query);
+    }
+
+    /** Point-in-polygon (or point-within-distance) query on an ArcGIS MapServer/FeatureServer layer. */
+    static Map<String, String> pointQuery(Site site, String outFields) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("geometry", site.lon() + "," + site.lat());
+        params.put("geometryType", "esriGeometryPoint");
+        params.put("inSR", "4326");
+        params.put("spatialRel", "esriSpatialRelIntersects");
+        params.put("outFields", outFields);
+        params.put("returnGeometry", "false");
+        params.put("f", "json");
+        return params;
+    }
+
+    /** ArcGIS reports errors with HTTP 200 and an "error" object. */
+    static void checkArcGisError(Object json) {
+        String message = Json.string(json, "error", "message");
+        if (message != null) throw new IllegalStateException(message);
+    }
+}
@@ -0,0 +1,150 @@
+package com.petools.features.screening;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.petools.features.screening.ScreeningClient.Finding;
+
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.Separator;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+
+/**
+ * Side panel for the Site Locator: one address in, a compact flood / soils / wetlands /
+ * elevation summary out, filled in as each service answers.
+ */
+public class ScreeningPanel extends VBox {
+
+    private static final DateTimeFormatter CHECKED = DateTimeFormatter.ofPattern("MMM d, yyyy").withZone(ZoneId.systemDefault());
+
+    private final SiteScreener screener;
+    private final TextField addressField;
+    private final Label siteLabel;
+    private final Button screenBtn;
+    private final Button refreshBtn;
+    private final Map<String, Label> results = new LinkedHashMap<>();
+
+    private Site currentSite;
+    private String currentAddress;
+    private int generation; // ignore answers from an earlier address
+
+    public ScreeningPanel(SiteScreener screener) {
+        this.screener = screener;
+        this.setSpacing(10);
+        this.setPadding(new Insets(15));
+        this.setPrefWidth(340);
+        this.setStyle("-fx-background-color: white; -fx-border-color: #ddd; -fx-border-width: 0 0 0 1;");
+
+        Label header = new Label("Site Screening");
+        header.setStyle("-fx-font-size: 16px; -fx-font-weight: bold;");
+
+        addressField = new TextField();
+        addressField.setPromptText("e.g. 123 Main St, Raleigh");
+        addressField.setOnAction(e -> screen(false));
+        HBox.setHgrow(addressField, Priority.ALWAYS);
+
+        screenBtn = new Button("Screen");
+        screenBtn.setStyle("-fx-background-color: #0078d7; -fx-text-fill: white;");
+        screenBtn.setOnAction(e -> screen(false));
+
+        refreshBtn = new Button("⟳");
+        refreshBtn.setDisable(true);
+        refreshBtn.setOnAction(e -> screen(true));
+
+        siteLabel = new Label("Enter an address to check flood zone, soils, wetlands and elevation.");
+        siteLabel.setWrapText(true);
+        siteLabel.setStyle("-fx-text-fill: #555;");
+
+        this.getChildren().addAll(header, new HBox(5, addressField, screenBtn, refreshBtn), siteLabel, new Separator());
+
+        for (ScreeningClient client : screener.clients()) {
+            Label title = new Label(client.title());
+            title.setStyle("-fx-font-weight: bold;");
+            Label result = new Label("—");
+            result.setWrapText(true);
+            result.setStyle("-fx-text-fill: #999;");
+            results.put(client.id(), result);
+            this.getChildren().add(new VBox(3, title, result));
+        }
+    }
+
+    /** Pre-fills the address (e.g. from the locator's search box) without running anything. */
+    public void setAddress(String address) {
+        if (address != null && !address.isBlank() && !address.startsWith("http")) addressField.setText(address.trim());
+    }
+
+    private void screen(boolean refresh) {
+        String address = addressField.getText().trim();
+        if (address.isEmpty()) return;
+
+        int run = ++generation;
+        screenBtn.setDisable(true);
+        refreshBtn.setDisable(true);
+        results.values().forEach(l -> show(l, "Checking…", "#999"));
+
+        if (refresh && currentSite != null && address.equals(currentAddress)) {
+            runScreening(run, currentSite, true);
+            return;
+        }
+
+        siteLabel.setText("📍 Locating…");
+        screener.locate(address).whenComplete((site, error) -> Platform.runLater(() -> {
+            if (run != generation) return;
+            if (error != null || site == null) {
+                siteLabel.setText(error != null ? "❌ Geocoder unavailable: " + rootMessage(error) : "❌ Address not found.");
+                results.values().forEach(l -> show(l, "—", "#999"));
+                screenBtn.setDisable(false);
+                return;
+            }
+            currentSite = site;
+            currentAddress = address;
+            runScreening(run, site, refresh);
+        }));
+    }
+
+    private void runScreening(int run, Site site, boolean refresh) {
+        siteLabel.setText("📍 " + site.address() + "\n" + site.coordinates());
+        long started = System.currentTimeMillis();
+
+        screener.screen(site, refresh, finding -> Platform.runLater(() -> {
+            if (run == generation) showFinding(finding);
+        })).whenComplete((v, e) -> Platform.runLater(() -> {
+            if (run != generation) return;
+            screenBtn.setDisable(false);
+            refreshBtn.setDisable(false);
+            siteLabel.setText("📍 " + site.address() + "\n" + site.coordinates()
+                + String.format("  (%.1f s)", (System.currentTimeMillis() - started) / 1000.0));
+        }));
+    }
+
+    private void showFinding(Finding finding) {
+        Label label = results.get(finding.id());
+        if (label == null) return;
+        switch (finding.status()) {
+            case OK -> show(label, finding.cached()
+                ? finding.summary() + "\n(saved " + CHECKED.format(Instant.ofEpochMilli(finding.checkedAt())) + ")"
+                : finding.summary(), "#333");
+            case TIMED_OUT -> show(label, "⚠️ " + finding.summary(), "#b8860b");
+            case FAILED -> show(label, "❌ " + finding.summary(), "#dc3545");
+        }
+    }
+
+    private static void show(Label label, String text, String color) {
+        label.setText(text);
+        label.setStyle("-fx-text-fill: " + color + ";");
+    }
+
+    private static String rootMessage(Throwable e) {
+        while (e.getCause() != null) e = e.getCause();
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+}
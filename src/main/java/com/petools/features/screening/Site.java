@@ -0,0 +1,16 @@
+package com.petools.features.screening;
+
+import java.util.Locale;
+
+/** A geocoded site in WGS84, as the screening services expect it. */
+public record Site(String address, double lat, double lon) {
+
+    /** Cache key: ~1 m of precision, so re-geocoding the same address lands on the same key. */
+    public String key() {
+        return String.format(Locale.ROOT, "%.5f_%.5f", lat, lon);
+    }
+
+    public String coordinates() {
+        return String.format(Locale.ROOT, "%.5f, %.5f", lat, lon);
+    }
+}
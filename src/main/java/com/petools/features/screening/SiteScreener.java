@@ -0,0 +1,151 @@
+package com.petools.features.screening;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import com.petools.features.screening.ScreeningClient.Finding;
+import com.petools.features.screening.ScreeningClient.Status;
+import com.petools.features.settings.AppSettings;
+import com.petools.features.webcache.CachingProxy;
+import com.petools.util.Json;
+
+/**
+ * Answers "flood zone, soils, wetlands, elevation?" for an address in one go: geocodes it,
+ * then queries every screening service at once, each with its own timeout, reporting
+ * findings as they arrive. Results are cached per site (ScreeningCache).
+ */
+public class SiteScreener {
+
+    // Settings: screening.<id>.url overrides a service's base URL (e.g. a local stub server)
+    public static final String KEY_TIMEOUT_SECONDS = "screening.timeoutSeconds";
+
+    private final HttpClient http;
+    private final GeocodeClient geocoder;
+    private final List<ScreeningClient> clients;
+    private final ScreeningCache cache;
+    private final Duration timeout;
+
+    public SiteScreener(HttpClient http, GeocodeClient geocoder, List<ScreeningClient> clients,
+                        ScreeningCache cache, Duration timeout) {
+        this.http = http;
+        this.geocoder = geocoder;
+        this.clients = List.copyOf(clients);
+        this.cache = cache;
+        this.timeout = timeout;
+    }
+
+    /** The production services, with any base URL overrides from settings. */
+    public static SiteScreener standard() {
+        HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            // Plain JSON calls: skip the WebView cache, keep any corporate proxy
+            .proxy(CachingProxy.upstreamSelector())
+            .build();
+
+        return new SiteScreener(http,
+            new GeocodeClient(url("geocode", GeocodeClient.DEFAULT_URL)),
+            List.of(
+                new FloodZoneClient(url("flood", FloodZoneClient.DEFAULT_URL)),
+                new SoilsClient(url("soils", SoilsClient.DEFAULT_URL)),
+                new WetlandsClient(url("wetlands", WetlandsClient.DEFAULT_URL)),
+                new ElevationClient(url("elevation", ElevationClient.DEFAULT_URL))),
+            new ScreeningCache(Duration.ofDays(AppSettings.getInt(ScreeningCache.KEY_CACHE_DAYS, 30))),
+            Duration.ofSeconds(AppSettings.getInt(KEY_TIMEOUT_SECONDS, 10)));
+    }
+
+    private static String url(String id, String fallback) {
+        return AppSettings.get("screening." + id + ".url", fallback);
+    }
+
+    public List<ScreeningClient> clients() {
+        return clients;
+    }
+
+    // --- Geocode ---
+
+    /** Completes with the site, or null when the address can't be found. */
+    public CompletableFuture<Site> locate(String address) {
+        String query = address.matches("(?i).*\\b(NC|North Carolina)\\b.*") ? address : address + ", NC";
+        Site cached = cache.geocode(query);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+
+        return http.sendAsync(withTimeout(geocoder.request(query)),
+                HttpResponse.BodyHandlers.ofString())
+            .thenApply(response -> {
+                Site site = geocoder.parse(query, Json.parse(body(response)));
+                if (site != null) cache.putGeocode(query, site);
+                return site;
+            });
+    }
+
+    // --- Screening ---
+
+    /**
+     * Runs every client concurrently; {@code onFinding} is called once per client, from
+     * whichever thread finishes it. The returned future completes when all have reported.
+     */
+    public CompletableFuture<Void> screen(Site site, boolean refresh, Consumer<Finding> onFinding) {
+        CompletableFuture<?>[] runs = clients.stream().map(client -> {
+            Finding cached = refresh ? null : cache.get(site, client);
+            if (cached != null) {
+                onFinding.accept(cached);
+                return CompletableFuture.completedFuture(cached);
+            }
+            return query(site, client).thenApply(finding -> {
+                cache.put(site, finding);
+                onFinding.accept(finding);
+                return finding;
+            });
+        }).toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(runs);
+    }
+
+    private CompletableFuture<Finding> query(Site site, ScreeningClient client) {
+        return http.sendAsync(withTimeout(client.request(site)),
+                HttpResponse.BodyHandlers.ofString())
+            .orTimeout(timeout.toMillis() + 1000, TimeUnit.MILLISECONDS)
+            .thenApply(response -> finding(client, Status.OK, client.summarize(Json.parse(body(response)))))
+            .exceptionally(e -> {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                boolean timedOut = cause instanceof TimeoutException || cause instanceof HttpTimeoutException;
+                return timedOut
+                    ? finding(client, Status.TIMED_OUT, "No answer within " + timeout.toSeconds() + " s")
+                    : finding(client, Status.FAILED, describe(cause));
+            });
+    }
+
+    private HttpRequest withTimeout(HttpRequest request) {
+        return HttpRequest.newBuilder(request, (name, value) -> true).timeout(timeout).build();
+    }
+
+    private static Finding finding(ScreeningClient client, Status status, String summary) {
+        return new Finding(client.id(), client.title(), status, summary, System.currentTimeMillis(), false);
+    }
+
+    private static String body(HttpResponse<String> response) {
+        if (response.statusCode() >= 400) {
+            throw new CompletionException(new IOException("HTTP " + response.statusCode()));
+        }
+        return response.body();
+    }
+
+    private static String describe(Throwable e) {
+        if (e instanceof IOException && e.getMessage() != null && e.getMessage().startsWith("HTTP ")) {
+            return "Service error (" + e.getMessage() + ")";
+        }
+        if (e instanceof IllegalArgumentException) return "Unreadable response";
+        String message = e.getMessage();
+        return message == null || message.isBlank() ? e.getClass().getSimpleName() : message;
+    }
+}
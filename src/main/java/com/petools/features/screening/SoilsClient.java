@@ -0,0 +1,64 @@
+package com.petools.features.screening;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import com.petools.util.Json;
+
+/** NRCS Soil Data Access: map unit, hydrologic soil group and drainage class at the site. */
+public class SoilsClient implements ScreeningClient {
+
+    public static final String DEFAULT_URL = "https://sdmdataaccess.sc.egov.usda.gov/Tabular/post.rest";
+
+    private final String baseUrl;
+
+    public SoilsClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    @Override
+    public String id() {
+        return "soils";
+    }
+
+    @Override
+    public String title() {
+        return "Soils (NRCS SSURGO)";
+    }
+
+    @Override
+    public HttpRequest request(Site site) {
+        String sql = String.format(Locale.ROOT,
+            "SELECT mu.musym, mu.muname, ma.hydgrpdcd, ma.drclassdcd FROM mapunit mu "
+            + "INNER JOIN muaggatt ma ON ma.mukey = mu.mukey "
+            + "WHERE mu.mukey IN (SELECT * FROM SDA_Get_Mukey_from_intersection_with_WktWgs84('point(%f %f)'))",
+            site.lon(), site.lat());
+        String body = "{\"format\":\"JSON+COLUMNNAME\",\"query\":\"" + sql.replace("\"", "\\\"") + "\"}";
+        return HttpRequest.newBuilder(URI.create(baseUrl))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    }
+
+    @Override
+    public String summarize(Object json) {
+        // {"Table": [[column names...], [row...], ...]}; an empty result has no "Table" at all
+        List<?> table = Json.list(json, "Table");
+        if (table.size() < 2) return "No soil map unit found";
+
+        List<String> units = new ArrayList<>();
+        for (Object row : table.subList(1, table.size())) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(Json.string(row, 0)).append(" – ").append(Json.string(row, 1));
+            String group = Json.string(row, 2);
+            String drainage = Json.string(row, 3);
+            if (group != null) sb.append("; HSG ").append(group);
+            if (drainage != null) sb.append(", ").append(drainage.toLowerCase(Locale.ROOT));
+            units.add(sb.toString());
+        }
+        return String.join("\n", units);
+    }
+}
@@ -0,0 +1,62 @@
+package com.petools.features.screening;
+
+import java.net.http.HttpRequest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.petools.util.Json;
+
+/** US FWS National Wetlands Inventory: mapped wetlands within a short distance of the site. */
+public class WetlandsClient implements ScreeningClient {
+
+    public static final String DEFAULT_URL = "https://fwspublicservices.wim.usgs.gov/wetlandsmapservice/rest/services/Wetlands/MapServer/0/query";
+    private static final int SEARCH_FEET = 150;
+
+    private final String baseUrl;
+
+    public WetlandsClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    @Override
+    public String id() {
+        return "wetlands";
+    }
+
+    @Override
+    public String title() {
+        return "Wetlands (FWS NWI)";
+    }
+
+    @Override
+    public HttpRequest request(Site site) {
+        Map<String, String> params = ScreeningClient.pointQuery(site, "WETLAND_TYPE,ATTRIBUTE,ACRES");
+        params.put("distance", Integer.toString(SEARCH_FEET));
+        params.put("units", "esriSRUnit_Foot");
+        return HttpRequest.newBuilder(ScreeningClient.withQuery(baseUrl, params)).GET().build();
+    }
+
+    @Override
+    public String summarize(Object json) {
+        ScreeningClient.checkArcGisError(json);
+
+        // Type (code) -> total acres
+        Map<String, Double> types = new LinkedHashMap<>();
+        for (Object feature : Json.list(json, "features")) {
+            String type = Json.string(feature, "attributes", "WETLAND_TYPE");
+            if (type == null) continue;
+            String code = Json.string(feature, "attributes", "ATTRIBUTE");
+            Double acres = Json.number(feature, "attributes", "ACRES");
+            types.merge(code != null ? type + " (" + code + ")" : type, acres != null ? acres : 0, Double::sum);
+        }
+
+        if (types.isEmpty()) return "None mapped within " + SEARCH_FEET + " ft";
+        StringBuilder sb = new StringBuilder();
+        types.forEach((type, acres) -> {
+            if (sb.length() > 0) sb.append("; ");
+            sb.append(type);
+            if (acres > 0) sb.append(String.format(", %.2f ac", acres));
+        });
+        return sb.toString();
+    }
+}
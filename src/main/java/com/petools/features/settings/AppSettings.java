@@ -0,0 +1,66 @@
+package com.petools.features.settings;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * App-wide preferences stored in .petools/settings.properties.
+ * Read once on first use; every setter writes the file straight back.
+ */
+public final class AppSettings {
+
+    // Save File: .petools/settings.properties
+    private static final Path SETTINGS_FILE = Paths.get(System.getProperty("user.home"), ".petools", "settings.properties");
+
+    private static Properties props;
+
+    private AppSettings() {}
+
+    private static synchronized Properties props() {
+        if (props == null) {
+            props = new Properties();
+            if (Files.exists(SETTINGS_FILE)) {
+                try (Reader reader = Files.newBufferedReader(SETTINGS_FILE)) {
+                    props.load(reader);
+                } catch (IOException e) {}
+            }
+        }
+        return props;
+    }
+
+    public static synchronized String get(String key, String fallback) {
+        return props().getProperty(key, fallback);
+    }
+
+    public static int getInt(String key, int fallback) {
+        try {
+            return Integer.parseInt(get(key, Integer.toString(fallback)).trim());
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    public static boolean getBoolean(String key, boolean fallback) {
+        return Boolean.parseBoolean(get(key, Boolean.toString(fallback)).trim());
+    }
+
+    public static synchronized void set(String key, String value) {
+        if (value == null || value.isEmpty()) props().remove(key);
+        else props().setProperty(key, value);
+        save();
+    }
+
+    private static void save() {
+        try {
+            Files.createDirectories(SETTINGS_FILE.getParent());
+            try (Writer writer = Files.newBufferedWriter(SETTINGS_FILE)) {
+                props().store(writer, "PE Tools settings");
+            }
+        } catch (IOException e) {}
+    }
+}
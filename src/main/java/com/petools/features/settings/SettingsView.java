@@ -8,10 +8,18 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 
+import com.petools.features.autocad.EngineRunner;
+import com.petools.features.autocad.PrefetchScheduler;
+import com.petools.features.projects.ProjectSync;
+import com.petools.features.todo.NoteStore;
+import com.petools.features.webcache.WebCache;
+
 import javafx.geometry.Insets;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.Separator;
+import javafx.scene.control.TextField;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 
@@ -89,7 +97,201 @@ public class SettingsView extends VBox {
             openScriptFolder
         );
 
-        this.getChildren().addAll(header, infoSection, diagSection);
+        // --- Section 3: Background Prefetch ---
+        VBox prefetchSection = new VBox(10);
+        prefetchSection.setStyle("-fx-background-color: white; -fx-padding: 20; -fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.1), 0, 0, 0, 1); -fx-background-radius: 5;");
+
+        Label prefetchLabel = new Label("Background Prefetch");
+        prefetchLabel.setStyle("-fx-font-size: 16px; -fx-font-weight: bold;");
+
+        CheckBox prefetchEnabled = new CheckBox("Prepare active projects (with a site address) while the app is idle");
+        prefetchEnabled.setSelected(AppSettings.getBoolean(PrefetchScheduler.KEY_ENABLED, true));
+
+        TextField timeField = createSettingField(PrefetchScheduler.KEY_TIME, "", "e.g. 02:00");
+        TextField kbpsField = createSettingField(PrefetchScheduler.KEY_MAX_KBPS, "2000", "0 = unlimited");
+        TextField cpuField = createSettingField(PrefetchScheduler.KEY_MAX_CPU, "50", "percent");
+        TextField idleField = createSettingField(PrefetchScheduler.KEY_IDLE_MINUTES, "5", "minutes");
+
+        Label prefetchStatus = new Label("Status: " + PrefetchScheduler.shared().status());
+        prefetchStatus.setStyle("-fx-text-fill: #555;");
+
+        Button savePrefetch = new Button("Save");
+        savePrefetch.setOnAction(e -> {
+            AppSettings.set(PrefetchScheduler.KEY_ENABLED, Boolean.toString(prefetchEnabled.isSelected()));
+            AppSettings.set(PrefetchScheduler.KEY_TIME, timeField.getText().trim());
+            AppSettings.set(PrefetchScheduler.KEY_MAX_KBPS, kbpsField.getText().trim());
+            AppSettings.set(PrefetchScheduler.KEY_MAX_CPU, cpuField.getText().trim());
+            AppSettings.set(PrefetchScheduler.KEY_IDLE_MINUTES, idleField.getText().trim());
+            prefetchStatus.setText("Status: " + PrefetchScheduler.shared().status());
+        });
+
+        prefetchSection.getChildren().addAll(
+            prefetchLabel,
+            new Separator(),
+            prefetchEnabled,
+            createFieldRow("Daily Start Time:", timeField),
+            createFieldRow("Max Download (KB/s):", kbpsField),
+            createFieldRow("Max System CPU (%):", cpuField),
+            createFieldRow("Idle Before Start (min):", idleField),
+            savePrefetch,
+            prefetchStatus
+        );
+
+        // --- Section 4: Web Cache ---
+        VBox webCacheSection = new VBox(10);
+        webCacheSection.setStyle("-fx-background-color: white; -fx-padding: 20; -fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.1), 0, 0, 0, 1); -fx-background-radius: 5;");
+
+        Label webCacheLabel = new Label("Map & Web Tool Cache");
+        webCacheLabel.setStyle("-fx-font-size: 16px; -fx-font-weight: bold;");
+
+        CheckBox webCacheEnabled = new CheckBox("Cache Site Locator / Project Map downloads on disk (applies after restart)");
+        webCacheEnabled.setSelected(AppSettings.getBoolean(WebCache.KEY_ENABLED, true));
+
+        TextField maxMbField = createSettingField(WebCache.KEY_MAX_MB, "512", "MB");
+        TextField staticDaysField = createSettingField(WebCache.KEY_STATIC_DAYS, "7", "days");
+
+        Label webCacheStats = new Label(webCacheSummary());
+        webCacheStats.setStyle("-fx-text-fill: #555;");
+
+        Button saveWebCache = new Button("Save");
+        saveWebCache.setOnAction(e -> {
+            AppSettings.set(WebCache.KEY_ENABLED, Boolean.toString(webCacheEnabled.isSelected()));
+            AppSettings.set(WebCache.KEY_MAX_MB, maxMbField.getText().trim());
+            AppSettings.set(WebCache.KEY_STATIC_DAYS, staticDaysField.getText().trim());
+            webCacheStats.setText(webCacheSummary());
+        });
+
+        Button clearWebCache = new Button("Clear Cache");
+        clearWebCache.setOnAction(e -> {
+            WebCache.shared().clear();
+            webCacheStats.setText(webCacheSummary());
+        });
+
+        webCacheSection.getChildren().addAll(
+            webCacheLabel,
+            new Separator(),
+            webCacheEnabled,
+            createFieldRow("Max Cache Size (MB):", maxMbField),
+            createFieldRow("Keep Static Files (days):", staticDaysField),
+            new HBox(10, saveWebCache, clearWebCache),
+            webCacheStats
+        );
+
+        // --- Section 5: Notes Archive ---
+        VBox archiveSection = new VBox(10);
+        archiveSection.setStyle("-fx-background-color: white; -fx-padding: 20; -fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.1), 0, 0, 0, 1); -fx-background-radius: 5;");
+
+        Label archiveLabel = new Label("Notes Archive");
+        archiveLabel.setStyle("-fx-font-size: 16px; -fx-font-weight: bold;");
+
+        TextField archiveWeeksField = createSettingField(NoteStore.KEY_ARCHIVE_WEEKS, "26", "weeks, 0 = never");
+
+        Label archiveHint = new Label("Week pages older than this are packed into compressed files under notes/archive (checked at startup). They still open normally.");
+        archiveHint.setWrapText(true);
+
+        Label archiveStats = new Label(archiveSummary());
+        archiveStats.setStyle("-fx-text-fill: #555;");
+
+        Button saveArchive = new Button("Save");
+        saveArchive.setOnAction(e -> {
+            AppSettings.set(NoteStore.KEY_ARCHIVE_WEEKS, archiveWeeksField.getText().trim());
+            archiveStats.setText(archiveSummary());
+        });
+
+        archiveSection.getChildren().addAll(
+            archiveLabel,
+            new Separator(),
+            archiveHint,
+            createFieldRow("Archive After (weeks):", archiveWeeksField),
+            saveArchive,
+            archiveStats
+        );
+
+        // --- Section 6: Shared Project Database ---
+        VBox sharedSection = new VBox(10);
+        sharedSection.setStyle("-fx-background-color: white; -fx-padding: 20; -fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.1), 0, 0, 0, 1); -fx-background-radius: 5;");
+
+        Label sharedLabel = new Label("Shared Project Database");
+        sharedLabel.setStyle("-fx-font-size: 16px; -fx-font-weight: bold;");
+
+        Label sharedHint = new Label("Point several installs at one projects.csv on a shared drive. Each keeps a local copy and merges its edits with the others' in the background (applies after restart).");
+        sharedHint.setWrapText(true);
+
+        TextField sharedField = createSettingField(ProjectSync.KEY_SHARED_FILE, "", "blank = this computer only");
+        sharedField.setPrefWidth(360);
+        TextField syncSecondsField = createSettingField(ProjectSync.KEY_SYNC_SECONDS, "15", "seconds");
+
+        Button saveShared = new Button("Save");
+        saveShared.setOnAction(e -> {
+            AppSettings.set(ProjectSync.KEY_SHARED_FILE, sharedField.getText().trim());
+            AppSettings.set(ProjectSync.KEY_SYNC_SECONDS, syncSecondsField.getText().trim());
+        });
+
+        sharedSection.getChildren().addAll(
+            sharedLabel,
+            new Separator(),
+            sharedHint,
+            createFieldRow("Shared projects.csv:", sharedField),
+            createFieldRow("Check Every (s):", syncSecondsField),
+            saveShared
+        );
+
+        // --- Section 7: Layer Download Extent ---
+        VBox extentSection = new VBox(10);
+        extentSection.setStyle("-fx-background-color: white; -fx-padding: 20; -fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.1), 0, 0, 0, 1); -fx-background-radius: 5;");
+
+        Label extentLabel = new Label("Layer Download Extent");
+        extentLabel.setStyle("-fx-font-size: 16px; -fx-font-weight: bold;");
+
+        Label extentHint = new Label("Layers are downloaded for the subject parcel plus this buffer (up to 5000 ft from the site). Without a parcel match the full 10,000 ft square is used.");
+        extentHint.setWrapText(true);
+
+        TextField bufferField = createSettingField(EngineRunner.KEY_EXTENT_BUFFER, "", "ft, default 500");
+        TextField layerBuffersField = createSettingField(EngineRunner.KEY_LAYER_BUFFERS, "", "e.g. roads=1000, stream=1500");
+        layerBuffersField.setPrefWidth(360);
+
+        Button saveExtent = new Button("Save");
+        saveExtent.setOnAction(e -> {
+            AppSettings.set(EngineRunner.KEY_EXTENT_BUFFER, bufferField.getText().trim());
+            AppSettings.set(EngineRunner.KEY_LAYER_BUFFERS, layerBuffersField.getText().trim());
+        });
+
+        extentSection.getChildren().addAll(
+            extentLabel,
+            new Separator(),
+            extentHint,
+            createFieldRow("Buffer (ft):", bufferField),
+            createFieldRow("Per-Layer Buffers:", layerBuffersField),
+            saveExtent
+        );
+
+        this.getChildren().addAll(header, infoSection, diagSection, prefetchSection, webCacheSection, archiveSection, sharedSection, extentSection);
+    }
+
+    private String archiveSummary() {
+        NoteStore notes = new NoteStore(NoteStore.DATA_DIR);
+        return String.format("Archived: %d week pages, %.1f MB on disk", notes.archivedPages(), notes.archiveBytes() / 1048576.0);
+    }
+
+    private String webCacheSummary() {
+        WebCache.Stats stats = WebCache.shared().stats();
+        return String.format("This session: %.0f%% hit rate (%d from cache, %d revalidated, %d downloaded), %.1f MB served locally%n"
+                + "On disk: %d files, %.1f MB",
+            stats.hitRate() * 100, stats.hits(), stats.revalidated(), stats.misses(),
+            stats.bytesFromCache() / 1048576.0, stats.entries(), stats.diskBytes() / 1048576.0);
+    }
+
+    private TextField createSettingField(String key, String fallback, String prompt) {
+        TextField field = new TextField(AppSettings.get(key, fallback));
+        field.setPromptText(prompt);
+        field.setPrefWidth(120);
+        return field;
+    }
+
+    private HBox createFieldRow(String label, TextField field) {
+        Label l = new Label(label);
+        l.setStyle("-fx-font-weight: bold; -fx-min-width: 150;");
+        return new HBox(10, l, field);
     }
 
     private HBox createInfoRow(String label, String value) {
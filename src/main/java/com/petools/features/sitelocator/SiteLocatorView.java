@@ -5,6 +5,9 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 
+import com.petools.features.screening.ScreeningPanel;
+import com.petools.features.screening.SiteScreener;
+
 import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -24,6 +27,8 @@ public class SiteLocatorView extends BorderPane {
     private WebEngine engine;
     private TextField urlField;
     private final ComboBox<String> toolSelector;
+    private ScreeningPanel screeningPanel;
+    private String lastSearch;
 
     // Common Engineering Tools
     private static final String GOOGLE_MAPS = "https://www.google.com/maps";
@@ -71,7 +76,11 @@ public class SiteLocatorView extends BorderPane {
         openExternalBtn.setStyle("-fx-background-color: #0078d7; -fx-text-fill: white;");
         openExternalBtn.setOnAction(e -> openInSystemBrowser(engine.getLocation()));
 
-        toolbar.getChildren().addAll(toolLabel, toolSelector, backBtn, refreshBtn, urlField, openExternalBtn);
+        // Flood / soils / wetlands / elevation summary without stepping through each tool
+        Button screenBtn = new Button("Site Screening");
+        screenBtn.setOnAction(e -> toggleScreening());
+
+        toolbar.getChildren().addAll(toolLabel, toolSelector, backBtn, refreshBtn, urlField, screenBtn, openExternalBtn);
         this.setTop(toolbar);
 
         // --- Browser ---
@@ -98,8 +107,19 @@ public class SiteLocatorView extends BorderPane {
         }
     }
 
+    private void toggleScreening() {
+        if (getRight() != null) {
+            setRight(null);
+            return;
+        }
+        if (screeningPanel == null) screeningPanel = new ScreeningPanel(SiteScreener.standard());
+        screeningPanel.setAddress(lastSearch);
+        setRight(screeningPanel);
+    }
+
     private void loadUrl(String url) {
         if (!url.startsWith("http")) {
+            lastSearch = url;
             // If it's not a URL, treat it as a Google Search
             url = "https://www.google.com/maps/search/" + url.replace(" ", "+");
         }
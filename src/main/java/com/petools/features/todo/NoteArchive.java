@@ -0,0 +1,136 @@
+package com.petools.features.todo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Old note pages packed into compressed segments, notes/archive/notes-YYYY.zip (one per
+ * year). A zip's central directory is the random-access index: reading a page seeks straight
+ * to its entry and inflates only that one. Which segment holds which page is cached in memory
+ * after the first lookup.
+ */
+final class NoteArchive {
+
+    private final Path dir;
+    private Map<String, Path> index; // file name -> segment
+
+    NoteArchive(Path dir) {
+        this.dir = dir;
+    }
+
+    Path dir() {
+        return dir;
+    }
+
+    /** Archived page contents, or null when the page isn't archived. */
+    String read(String fileName) {
+        Path segment = index().get(fileName);
+        if (segment == null) return null;
+        try (ZipFile zip = new ZipFile(segment.toFile())) {
+            ZipEntry entry = zip.getEntry(fileName);
+            if (entry == null) return null;
+            try (InputStream in = zip.getInputStream(entry)) {
+                return new String(in.readAllBytes()); // same decoding as NoteStore.read
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /** File names of every archived page. */
+    Set<String> fileNames() {
+        return Collections.unmodifiableSet(index().keySet());
+    }
+
+    /**
+     * Adds (or replaces) pages in a year's segment. The segment is rewritten to a temp file
+     * and moved into place, so a crash leaves the old segment intact; the caller deletes the
+     * live files only after this returns.
+     */
+    synchronized void add(int year, List<Path> files) throws IOException {
+        Files.createDirectories(dir);
+        Path segment = dir.resolve("notes-" + year + ".zip");
+        Path temp = dir.resolve("notes-" + year + ".zip.tmp");
+
+        Set<String> replaced = new HashSet<>();
+        for (Path f : files) replaced.add(f.getFileName().toString());
+
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(temp))) {
+            out.setLevel(9);
+            if (Files.exists(segment)) {
+                try (ZipFile old = new ZipFile(segment.toFile())) {
+                    for (ZipEntry e : Collections.list(old.entries())) {
+                        if (replaced.contains(e.getName())) continue;
+                        ZipEntry copy = new ZipEntry(e.getName());
+                        copy.setLastModifiedTime(e.getLastModifiedTime());
+                        out.putNextEntry(copy);
+                        try (InputStream in = old.getInputStream(e)) {
+                            in.transferTo(out);
+                        }
+                        out.closeEntry();
+                    }
+                }
+            }
+            for (Path f : files) {
+                ZipEntry entry = new ZipEntry(f.getFileName().toString());
+                entry.setLastModifiedTime(Files.getLastModifiedTime(f));
+                out.putNextEntry(entry);
+                Files.copy(f, out);
+                out.closeEntry();
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, segment, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        for (String name : replaced) index().put(name, segment);
+    }
+
+    /** Total size of the segments on disk. */
+    long diskBytes() {
+        if (!Files.isDirectory(dir)) return 0;
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(NoteArchive::isSegment).mapToLong(p -> p.toFile().length()).sum();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // --- Index: entry names from each segment's central directory ---
+
+    private synchronized Map<String, Path> index() {
+        if (index == null) {
+            Map<String, Path> idx = new ConcurrentHashMap<>();
+            if (Files.isDirectory(dir)) {
+                try (Stream<Path> files = Files.list(dir)) {
+                    files.filter(NoteArchive::isSegment).sorted().forEach(segment -> {
+                        try (ZipFile zip = new ZipFile(segment.toFile())) {
+                            zip.stream().forEach(e -> idx.put(e.getName(), segment));
+                        } catch (IOException e) {}
+                    });
+                } catch (IOException e) {}
+            }
+            index = idx;
+        }
+        return index;
+    }
+
+    private static boolean isSegment(Path p) {
+        String name = p.getFileName().toString();
+        return name.startsWith("notes-") && name.endsWith(".zip");
+    }
+}
@@ -0,0 +1,335 @@
+package com.petools.features.todo;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Builds a new week's page from last week's: only the open tasks and pinned sections,
+ * plus a link back to the source week. Parses the note once with a small tolerant HTML
+ * reader (HTMLEditor output is regular enough that no full parser is needed).
+ *
+ * Conventions (see the ☐ / 📌 buttons in TodoView):
+ *   task     a list item, or a block starting with ☐; done when it starts with ☑ / ✔ / ✅,
+ *            has a checked checkbox, or all of its text is struck through
+ *   pinned   a block starting with 📌, together with the blocks under it up to the
+ *            next heading, horizontal rule or pinned block
+ * Headings are carried along with the first open task beneath them, to keep the grouping.
+ * A line counts as a block too: bare text at the top of the body (WebKit leaves the first
+ * typed line unwrapped) and each {@code <br>}-separated line inside one block.
+ */
+final class NoteCarryForward {
+
+    static final String NOTE_LINK_SCHEME = "petools-note:";
+
+    private static final Set<String> VOID_TAGS = Set.of("br", "hr", "img", "input", "meta", "link", "col", "wbr");
+    private static final Set<String> LIST_TAGS = Set.of("ul", "ol");
+    private static final Set<String> HEADINGS = Set.of("h1", "h2", "h3", "h4", "h5", "h6");
+    private static final Set<String> INLINE_TAGS = Set.of("a", "b", "big", "code", "del", "em", "font", "i", "img",
+        "input", "ins", "label", "mark", "s", "small", "span", "strike", "strong", "sub", "sup", "tt", "u", "wbr");
+    private static final String PIN = "📌";
+
+    private NoteCarryForward() {}
+
+    /** The new week's HTML, carrying open tasks and pinned sections from {@code previousHtml}. */
+    static String build(String previousHtml, String previousTitle) {
+        Node root = parse(previousHtml);
+        Node body = root.find("body");
+        if (body == null) body = root;
+
+        StringBuilder carried = new StringBuilder();
+        boolean inPin = false;
+        Node heading = null;
+
+        for (Node block : lines(body, "div", "")) {
+            if (block.isWhitespace()) continue;
+            if (block.isHeading() || block.is("hr")) inPin = false;
+            if (block.text().startsWith(PIN)) inPin = true;
+
+            if (inPin) {
+                block.write(carried);
+                heading = null;
+                continue;
+            }
+            if (block.isHeading()) {
+                heading = block;
+                continue;
+            }
+
+            List<Node> open = new ArrayList<>();
+            collectOpen(block, open);
+            if (open.isEmpty()) continue;
+            if (heading != null) {
+                heading.write(carried);
+                heading = null;
+            }
+            for (Node n : open) n.write(carried);
+        }
+
+        String link = NOTE_LINK_SCHEME + URLEncoder.encode(previousTitle, StandardCharsets.UTF_8).replace("+", "%20");
+        return "<html dir=\"ltr\"><head></head><body contenteditable=\"true\">"
+            + "<p style=\"color: #888; font-size: 11px;\">↪ Carried forward from <a href=\"" + link + "\">"
+            + escape(previousTitle) + "</a> (Ctrl+click to open)</p>"
+            + carried
+            + "<p><br></p></body></html>";
+    }
+
+    // --- Task detection ---
+
+    private static void collectOpen(Node node, List<Node> out) {
+        if (node.tag == null) return;
+        if (LIST_TAGS.contains(node.tag)) {
+            Node list = openItems(node);
+            if (list != null) out.add(list);
+        } else if (node.children.stream().anyMatch(c -> c.is("br"))) {
+            // Each line on its own, in a copy of the block it came from
+            for (Node line : lines(node, node.tag, node.attrs)) collectOpen(line, out);
+        } else if (node.text().startsWith("☐") || node.hasCheckbox(false)) {
+            if (!isDone(node)) out.add(node);
+        } else {
+            // WebKit wraps lists in <div>s; look inside
+            for (Node child : node.children) collectOpen(child, out);
+        }
+    }
+
+    /**
+     * The children of {@code parent} as blocks: block elements as they are, and every run of
+     * text and inline elements up to a {@code <br>} wrapped in a new {@code <tag attrs>}.
+     */
+    private static List<Node> lines(Node parent, String tag, String attrs) {
+        List<Node> out = new ArrayList<>();
+        Node line = null;
+        for (Node child : parent.children) {
+            if (child.is("br") || (child.tag != null && !INLINE_TAGS.contains(child.tag))) {
+                addLine(line, out);
+                line = null;
+                if (!child.is("br")) out.add(child);
+                continue;
+            }
+            if (line == null) line = new Node(tag, attrs, null);
+            line.children.add(child);
+        }
+        addLine(line, out);
+        return out;
+    }
+
+    private static void addLine(Node line, List<Node> out) {
+        if (line == null) return;
+        if (line.text().isEmpty() && line.children.stream().allMatch(c -> c.tag == null)) return; // blank line
+        out.add(line);
+    }
+
+    /** Copy of the list with done items removed, or null when nothing is left. */
+    private static Node openItems(Node list) {
+        Node copy = new Node(list.tag, list.attrs, null);
+        for (Node item : list.children) {
+            if (!item.is("li")) continue;
+
+            Node li = new Node("li", item.attrs, null);
+            boolean nestedOpen = false;
+            for (Node child : item.children) {
+                if (child.tag != null && LIST_TAGS.contains(child.tag)) {
+                    Node nested = openItems(child);
+                    if (nested != null) {
+                        li.children.add(nested);
+                        nestedOpen = true;
+                    }
+                } else {
+                    li.children.add(child);
+                }
+            }
+            if (!isDone(li) || nestedOpen) copy.children.add(li);
+        }
+        return copy.children.isEmpty() ? null : copy;
+    }
+
+    private static boolean isDone(Node item) {
+        String text = item.ownText();
+        if (text.isEmpty() && !item.hasCheckbox(null)) return true; // empty bullet
+        if (text.startsWith("☑") || text.startsWith("✔") || text.startsWith("✅") || text.toLowerCase(Locale.ROOT).startsWith("[x]")) return true;
+        if (item.hasCheckbox(true)) return true;
+        int[] counts = new int[2]; // plain, struck
+        item.countText(false, counts);
+        return counts[0] == 0 && counts[1] > 0;
+    }
+
+    // --- Minimal HTML tree ---
+
+    static final class Node {
+        final String tag;    // lower case; null for text
+        final String attrs;  // raw attribute text, written back unchanged
+        final String raw;    // text nodes: raw (still escaped) text
+        final List<Node> children = new ArrayList<>();
+
+        Node(String tag, String attrs, String raw) {
+            this.tag = tag;
+            this.attrs = attrs;
+            this.raw = raw;
+        }
+
+        boolean is(String name) {
+            return name.equals(tag);
+        }
+
+        boolean isHeading() {
+            return tag != null && HEADINGS.contains(tag);
+        }
+
+        boolean isWhitespace() {
+            return tag == null && raw.isBlank();
+        }
+
+        boolean isStrike() {
+            return is("s") || is("strike") || is("del")
+                || attrs.toLowerCase(Locale.ROOT).contains("line-through");
+        }
+
+        Node find(String name) {
+            if (is(name)) return this;
+            for (Node child : children) {
+                Node found = child.find(name);
+                if (found != null) return found;
+            }
+            return null;
+        }
+
+        /** Checkbox present; {@code checked} null = either state. */
+        boolean hasCheckbox(Boolean checked) {
+            if (is("input") && attrs.toLowerCase(Locale.ROOT).contains("checkbox")) {
+                boolean isChecked = attrs.toLowerCase(Locale.ROOT).matches("(?s).*\\bchecked\\b.*");
+                return checked == null || checked == isChecked;
+            }
+            for (Node child : children) {
+                if (child.tag != null && LIST_TAGS.contains(child.tag)) continue;
+                if (child.hasCheckbox(checked)) return true;
+            }
+            return false;
+        }
+
+        String text() {
+            StringBuilder sb = new StringBuilder();
+            appendText(sb, true);
+            return sb.toString().trim();
+        }
+
+        /** Text of a list item without its nested lists. */
+        String ownText() {
+            StringBuilder sb = new StringBuilder();
+            appendText(sb, false);
+            return sb.toString().trim();
+        }
+
+        private void appendText(StringBuilder sb, boolean nestedLists) {
+            if (tag == null) {
+                sb.append(unescape(raw));
+                return;
+            }
+            for (Node child : children) {
+                if (!nestedLists && child.tag != null && LIST_TAGS.contains(child.tag)) continue;
+                child.appendText(sb, nestedLists);
+            }
+        }
+
+        private void countText(boolean struck, int[] counts) {
+            if (tag == null) {
+                int n = (int) unescape(raw).chars().filter(c -> !Character.isWhitespace(c)).count();
+                counts[struck ? 1 : 0] += n;
+                return;
+            }
+            for (Node child : children) {
+                if (child.tag != null && LIST_TAGS.contains(child.tag)) continue;
+                child.countText(struck || child.isStrike(), counts);
+            }
+        }
+
+        void write(StringBuilder out) {
+            if (tag == null) {
+                out.append(raw);
+                return;
+            }
+            out.append('<').append(tag).append(attrs).append('>');
+            if (VOID_TAGS.contains(tag)) return;
+            for (Node child : children) child.write(out);
+            out.append("</").append(tag).append('>');
+        }
+    }
+
+    static Node parse(String html) {
+        Node root = new Node("#root", "", null);
+        Deque<Node> open = new ArrayDeque<>();
+        open.push(root);
+
+        int i = 0, n = html.length();
+        while (i < n) {
+            int lt = html.indexOf('<', i);
+            if (lt < 0) lt = n;
+            if (lt > i) open.peek().children.add(new Node(null, "", html.substring(i, lt)));
+            if (lt >= n) break;
+
+            if (html.startsWith("<!--", lt)) {
+                int end = html.indexOf("-->", lt);
+                i = end < 0 ? n : end + 3;
+                continue;
+            }
+            int gt = tagEnd(html, lt);
+            String inner = html.substring(lt + 1, gt);
+            i = Math.min(n, gt + 1);
+            if (inner.isEmpty() || inner.startsWith("!") || inner.startsWith("?")) continue;
+
+            if (inner.startsWith("/")) {
+                String name = inner.substring(1).trim().toLowerCase(Locale.ROOT);
+                // Close up to the matching element; stray end tags are ignored
+                if (open.stream().anyMatch(e -> e.is(name))) {
+                    while (!open.peek().is(name)) open.pop();
+                    open.pop();
+                }
+                continue;
+            }
+
+            int nameEnd = 0;
+            while (nameEnd < inner.length() && !Character.isWhitespace(inner.charAt(nameEnd))
+                    && inner.charAt(nameEnd) != '/') nameEnd++;
+            String name = inner.substring(0, nameEnd).toLowerCase(Locale.ROOT);
+            boolean selfClosing = inner.endsWith("/");
+            String attrs = inner.substring(nameEnd, selfClosing ? inner.length() - 1 : inner.length());
+
+            // <li> / <p> implicitly close an open sibling of the same kind
+            if ((name.equals("li") || name.equals("p")) && open.peek().is(name)) open.pop();
+
+            Node element = new Node(name, attrs, null);
+            open.peek().children.add(element);
+            if (!selfClosing && !VOID_TAGS.contains(name)) open.push(element);
+        }
+        return root;
+    }
+
+    private static int tagEnd(String html, int lt) {
+        char quote = 0;
+        for (int i = lt + 1; i < html.length(); i++) {
+            char c = html.charAt(i);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i;
+            }
+        }
+        return html.length();
+    }
+
+    private static String unescape(String raw) {
+        if (raw.indexOf('&') < 0) return raw;
+        return raw.replace("&nbsp;", " ").replace("&lt;", "<").replace("&gt;", ">")
+            .replace("&quot;", "\"").replace("&#39;", "'").replace("&amp;", "&");
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
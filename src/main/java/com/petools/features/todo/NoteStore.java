@@ -0,0 +1,180 @@
+package com.petools.features.todo;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.time.temporal.WeekFields;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * The notes folder: one HTML file per tab, plus the weekly rollover that starts
+ * a new week's page from the open items of the previous one. Old week pages move into
+ * compressed segments under notes/archive (see NoteArchive); reads fall through to them, so
+ * callers never need to know where a page lives. No JavaFX, so the benchmarks can
+ * drive it directly.
+ */
+public class NoteStore {
+
+    // File Paths
+    public static final Path DATA_DIR = Paths.get(System.getProperty("user.home"), ".petools", "notes");
+
+    // "Week 5 (2026)" and its file name, Week_5__2026_.html
+    private static final Pattern WEEK_TITLE = Pattern.compile("Week (\\d+) \\((\\d{4})\\)");
+    private static final Pattern WEEK_FILE = Pattern.compile("Week_(\\d+)__(\\d{4})_\\.html");
+
+    // Settings key: weeks before a week page is archived (0 = never)
+    public static final String KEY_ARCHIVE_WEEKS = "notes.archiveAfterWeeks";
+
+    private final Path dir;
+    private final NoteArchive archive;
+
+    public NoteStore(Path dir) {
+        this.dir = dir;
+        this.archive = new NoteArchive(dir.resolve("archive"));
+        if (!Files.exists(dir)) {
+            try { Files.createDirectories(dir); } catch (IOException e) {}
+        }
+    }
+
+    public Path dir() {
+        return dir;
+    }
+
+    public Path pathFor(String title) {
+        return dir.resolve(fileName(title));
+    }
+
+    /** Note contents, or null when the tab has never been saved. A live page wins over its archived copy. */
+    public String read(String title) {
+        Path path = pathFor(title);
+        if (!Files.exists(path)) return archive.read(fileName(title));
+        try {
+            return new String(Files.readAllBytes(path));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public void save(String title, String content) {
+        try (BufferedWriter writer = Files.newBufferedWriter(pathFor(title))) {
+            writer.write(content);
+        } catch (IOException e) {}
+    }
+
+    // --- NEW WEEK LOGIC ---
+
+    /**
+     * If this week's page doesn't exist yet (first open of the week), start it with
+     * the open tasks and pinned sections of the latest earlier week (see NoteCarryForward).
+     * Returns this week's file.
+     */
+    public Path rollover(String weekTitle) {
+        Path currentPath = pathFor(weekTitle);
+        if (!Files.exists(currentPath)) {
+            String previousTitle = findPreviousWeek(weekTitle);
+
+            String oldContent = previousTitle != null ? read(previousTitle) : null;
+            if (oldContent != null) {
+                try {
+                    Files.writeString(currentPath, NoteCarryForward.build(oldContent, previousTitle));
+                } catch (IOException e) {}
+            }
+        }
+        return currentPath;
+    }
+
+    // --- Helper: the most recent week page before this one ---
+    String findPreviousWeek(String weekTitle) {
+        Matcher current = WEEK_TITLE.matcher(weekTitle);
+        long currentOrder = current.matches() ? weekOrder(current) : Long.MAX_VALUE;
+
+        try (Stream<Path> files = Files.list(dir)) {
+            return Stream.concat(files.map(p -> p.getFileName().toString()), archive.fileNames().stream())
+                .map(WEEK_FILE::matcher)
+                .filter(m -> m.matches() && weekOrder(m) < currentOrder)
+                .max(Comparator.comparingLong(NoteStore::weekOrder))
+                .map(m -> "Week " + m.group(1) + " (" + m.group(2) + ")")
+                .orElse(null);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // --- ARCHIVE ---
+
+    /**
+     * Moves week pages older than {@code cutoff}'s week into the archive segments (one per
+     * year). Project pages stay live. A page saved again while it was being packed is left
+     * in place and picked up next time. Returns the number of pages archived.
+     */
+    public int archiveOlderThan(LocalDate cutoff) {
+        Matcher limit = WEEK_TITLE.matcher(weekTitle(cutoff));
+        if (!limit.matches()) return 0;
+        long limitOrder = weekOrder(limit);
+
+        Map<Integer, List<Path>> byYear = new TreeMap<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(p -> {
+                Matcher m = WEEK_FILE.matcher(p.getFileName().toString());
+                if (m.matches() && weekOrder(m) < limitOrder) {
+                    byYear.computeIfAbsent(Integer.parseInt(m.group(2)), y -> new ArrayList<>()).add(p);
+                }
+            });
+        } catch (IOException e) {
+            return 0;
+        }
+
+        int archived = 0;
+        for (Map.Entry<Integer, List<Path>> year : byYear.entrySet()) {
+            Map<Path, FileTime> packed = new HashMap<>();
+            try {
+                for (Path p : year.getValue()) packed.put(p, Files.getLastModifiedTime(p));
+                archive.add(year.getKey(), year.getValue());
+            } catch (IOException e) {
+                continue;
+            }
+            for (Map.Entry<Path, FileTime> page : packed.entrySet()) {
+                try {
+                    if (Files.getLastModifiedTime(page.getKey()).equals(page.getValue())) {
+                        Files.delete(page.getKey());
+                        archived++;
+                    }
+                } catch (IOException e) {}
+            }
+        }
+        return archived;
+    }
+
+    public int archivedPages() {
+        return archive.fileNames().size();
+    }
+
+    public long archiveBytes() {
+        return archive.diskBytes();
+    }
+
+    private static long weekOrder(Matcher m) {
+        return Long.parseLong(m.group(2)) * 100 + Long.parseLong(m.group(1));
+    }
+
+    public static String fileName(String title) {
+        return title.replaceAll("[^a-zA-Z0-9.-]", "_") + ".html";
+    }
+
+    public static String weekTitle(LocalDate date) {
+        return "Week " + date.get(WeekFields.of(Locale.getDefault()).weekOfWeekBasedYear()) + " (" + date.getYear() + ")";
+    }
+}
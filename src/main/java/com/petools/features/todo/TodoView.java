@@ -1,20 +1,18 @@
 package com.petools.features.todo;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
-import java.time.temporal.WeekFields;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Locale;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Stream;
+
+import com.petools.features.settings.AppSettings;
 
 import javafx.application.Platform;
 import javafx.geometry.Insets;
@@ -31,6 +29,7 @@ import javafx.scene.control.TextInputDialog;
 import javafx.scene.control.ToolBar;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
@@ -45,15 +44,10 @@ public class TodoView extends BorderPane {
     private TabPane tabPane;
     private final VBox tagSidebar;
 
-    // File Paths
-    private static final Path DATA_DIR = Paths.get(System.getProperty("user.home"), ".petools", "notes");
+    private final NoteStore notes = new NoteStore(NoteStore.DATA_DIR);
     private static final Path PROJECTS_FILE = Paths.get(System.getProperty("user.home"), ".petools", "projects.csv");
 
     public TodoView() {
-        if (!Files.exists(DATA_DIR)) {
-            try { Files.createDirectories(DATA_DIR); } catch (IOException e) {}
-        }
-
         // --- 1. Left Sidebar ---
         VBox headerBox = new VBox(5);
         headerBox.setPadding(new Insets(10));
@@ -89,21 +83,10 @@ public class TodoView extends BorderPane {
 
         // --- NEW WEEK LOGIC ---
         String currentWeekTitle = getCurrentWeekName(); // "Week 5 (2026)"
-        String currentFilename = sanitize(currentWeekTitle); // "Week_5__2026_.html"
-        Path currentPath = DATA_DIR.resolve(currentFilename);
-
-        // If today is Monday (or first open of the week) and the file doesn't exist yet...
-        if (!Files.exists(currentPath)) {
-            Path previousFile = findLatestNoteFile();
 
-            if (previousFile != null) {
-                try {
-                    String oldContent = Files.readString(previousFile);
-                    Files.writeString(currentPath, oldContent); // Create the new file with old content
-
-                } catch (IOException e) {}
-            }
-        }
+        // First open of the week: the page starts with last week's open tasks and pinned sections
+        notes.rollover(currentWeekTitle);
+        archiveOldWeeks();
 
         openTab(currentWeekTitle);
 
@@ -125,22 +108,6 @@ public class TodoView extends BorderPane {
         refreshSidebar();
     }
 
-    // --- Helper: Find the most recently modified HTML file ---
-    private Path findLatestNoteFile() {
-        try (Stream<Path> files = Files.list(DATA_DIR)) {
-            return files
-                .filter(p -> p.toString().endsWith(".html"))
-                .max(Comparator.comparingLong(p -> p.toFile().lastModified()))
-                .orElse(null);
-        } catch (IOException e) {
-            return null;
-        }
-    }
-
-    private String sanitize(String title) {
-        return title.replaceAll("[^a-zA-Z0-9.-]", "_") + ".html";
-    }
-
     public void save() {
         Tab currentTab = tabPane.getSelectionModel().getSelectedItem();
         if (currentTab != null && currentTab.getContent() instanceof HTMLEditor) {
@@ -242,11 +209,8 @@ public class TodoView extends BorderPane {
 
         customizeEditor(editor);
 
-        String filename = sanitize(title);
-        Path path = DATA_DIR.resolve(filename);
-        if (Files.exists(path)) {
-            try { editor.setHtmlText(new String(Files.readAllBytes(path))); } catch (IOException e) {}
-        }
+        String saved = notes.read(title);
+        if (saved != null) editor.setHtmlText(saved);
 
         editor.setOnKeyReleased(e -> saveTab(tab, editor.getHtmlText()));
         editor.focusedProperty().addListener((obs, oldVal, newVal) -> {
@@ -269,6 +233,7 @@ public class TodoView extends BorderPane {
             });
         }
         enableKeyboardShortcuts(editor);
+        enableNoteLinks(editor);
     }
 
     private void applyCustomizations(HTMLEditor editor) {
@@ -286,6 +251,38 @@ public class TodoView extends BorderPane {
         linkBtn.setStyle("-fx-font-size: 11px; -fx-padding: 4 8;");
         linkBtn.setOnAction(e -> promptForLink(editor));
         topToolbar.getItems().add(linkBtn);
+
+        // Markers the weekly carry-forward looks for (see NoteCarryForward)
+        Button taskBtn = new Button("☐");
+        taskBtn.setStyle("-fx-font-size: 11px; -fx-padding: 4 8;");
+        taskBtn.setOnAction(e -> insertText(editor, "☐ "));
+        topToolbar.getItems().add(taskBtn);
+
+        Button pinBtn = new Button("📌");
+        pinBtn.setStyle("-fx-font-size: 11px; -fx-padding: 4 8;");
+        pinBtn.setOnAction(e -> insertText(editor, "📌 "));
+        topToolbar.getItems().add(pinBtn);
+    }
+
+    private void insertText(HTMLEditor editor, String text) {
+        WebView view = (WebView) editor.lookup(".web-view");
+        if (view != null) view.getEngine().executeScript("document.execCommand('insertText', false, '" + text + "')");
+    }
+
+    /** Ctrl+click on a note link (e.g. "Carried forward from ...") opens that page. */
+    private void enableNoteLinks(HTMLEditor editor) {
+        editor.addEventFilter(MouseEvent.MOUSE_CLICKED, event -> {
+            if (!event.isControlDown()) return;
+            WebView view = (WebView) editor.lookup(".web-view");
+            if (view == null) return;
+            Object href = view.getEngine().executeScript(
+                "(function(){var n=window.getSelection().anchorNode;"
+                + "while(n&&n.nodeName!=='A')n=n.parentNode;return n?n.getAttribute('href'):'';})()");
+            if (href instanceof String s && s.startsWith(NoteCarryForward.NOTE_LINK_SCHEME)) {
+                openTab(URLDecoder.decode(s.substring(NoteCarryForward.NOTE_LINK_SCHEME.length()), StandardCharsets.UTF_8));
+                event.consume();
+            }
+        });
     }
 
     private void enableKeyboardShortcuts(HTMLEditor editor) {
@@ -357,15 +354,21 @@ public class TodoView extends BorderPane {
     }
 
     private void saveTab(Tab tab, String content) {
-        String filename = sanitize(tab.getText());
-        try (BufferedWriter writer = Files.newBufferedWriter(DATA_DIR.resolve(filename))) {
-            writer.write(content);
-        } catch (IOException e) {}
+        notes.save(tab.getText(), content);
+    }
+
+    // Packs week pages past the configured age into notes/archive, off the FX thread
+    private void archiveOldWeeks() {
+        int weeks = AppSettings.getInt(NoteStore.KEY_ARCHIVE_WEEKS, 26);
+        if (weeks <= 0) return;
+        Thread t = new Thread(() -> notes.archiveOlderThan(LocalDate.now().minusWeeks(weeks)), "notes-archiver");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        t.start();
     }
 
     private String getCurrentWeekName() {
-        LocalDate date = LocalDate.now();
-        return "Week " + date.get(WeekFields.of(Locale.getDefault()).weekOfWeekBasedYear()) + " (" + date.getYear() + ")";
+        return NoteStore.weekTitle(LocalDate.now());
     }
 
     private Region spacer() {
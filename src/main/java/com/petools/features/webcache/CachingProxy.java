@@ -0,0 +1,523 @@
+package com.petools.features.webcache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+import com.petools.features.settings.AppSettings;
+
+/**
+ * Localhost proxy the Site Locator and Project Map WebViews load through, so map
+ * scripts, styles and tiles come from the disk cache (WebCache) on repeat visits.
+ *
+ * HTTPS is intercepted: the WebViews trust a per-run CA (LocalCertificateAuthority) and
+ * speak TLS to the proxy, which fetches from the real site over HTTP/2 with the JDK's
+ * normal certificate checks. Hosts that refuse interception are tunnelled unchanged.
+ * Only WebKit's loader threads are routed here or trust the CA; any other
+ * HttpURLConnection in the process keeps its previous proxy and trust.
+ */
+public final class CachingProxy {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(2);
+    private static final int IDLE_TIMEOUT_MS = 60_000;
+    private static final int BUFFER = 64 * 1024;
+    private static final byte[] CRLF = { '\r', '\n' };
+
+    // WebKit's HTTP/1 loader opens every connection on threads with this name (NetworkContext)
+    private static final String WEBKIT_LOADER_THREAD = "URL-Loader-";
+
+    // Never forwarded in either direction (hop-by-hop), or set by HttpClient itself
+    private static final Set<String> HOP_BY_HOP = Set.of(
+        "connection", "keep-alive", "proxy-connection", "proxy-authorization", "te", "trailer",
+        "transfer-encoding", "upgrade", "host", "content-length", "expect", "date", "from", "via", "warning");
+
+    private static CachingProxy shared;
+
+    private final ServerSocket server;
+    private final ProxySelector previousSelector;
+    private final HttpClient upstream;
+    private final WebCache cache = WebCache.shared();
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<String> tunnelOnly = ConcurrentHashMap.newKeySet();
+
+    // The CA takes a moment to build (key generation, JDK roots); nothing needs it until the first page load
+    private final CompletableFuture<LocalCertificateAuthority> ca = CompletableFuture.supplyAsync(() -> {
+        try {
+            return new LocalCertificateAuthority();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private record Request(String method, String target, Map<String, List<String>> headers, byte[] body) {}
+
+    /**
+     * Routes the app's WebViews through the cache. Must run before the first WebView loads
+     * anything: WebKit picks its network stack once, and only the HttpURLConnection one
+     * honours the JVM proxy settings.
+     */
+    public static synchronized void install() {
+        if (shared != null || !AppSettings.getBoolean(WebCache.KEY_ENABLED, true)) return;
+        try {
+            shared = new CachingProxy();
+        } catch (IOException e) {
+            System.err.println("Web cache disabled: " + e.getMessage());
+            return;
+        }
+        System.setProperty("com.sun.webkit.useHTTP2Loader", "false");
+        HttpsURLConnection.setDefaultSSLSocketFactory(new LazySocketFactory(
+            () -> shared.ca.join().clientSocketFactory(), HttpsURLConnection.getDefaultSSLSocketFactory()));
+        ProxySelector.setDefault(shared.new Selector());
+        shared.connections.submit(shared::acceptLoop);
+    }
+
+    private static boolean onWebKitLoader() {
+        return Thread.currentThread().getName().startsWith(WEBKIT_LOADER_THREAD);
+    }
+
+    /** Route for the app's own HTTP clients: around the cache, through whatever proxy the JVM had before. */
+    public static synchronized ProxySelector upstreamSelector() {
+        ProxySelector selector = shared != null ? shared.previousSelector : ProxySelector.getDefault();
+        return selector != null ? selector : HttpClient.Builder.NO_PROXY;
+    }
+
+    private CachingProxy() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        previousSelector = ProxySelector.getDefault();
+        upstream = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .proxy(previousSelector != null ? previousSelector : HttpClient.Builder.NO_PROXY)
+            .build();
+    }
+
+    /** Sends WebView traffic to the proxy; everything else (and loopback) keeps the previous route. */
+    private final class Selector extends ProxySelector {
+        private final List<Proxy> viaCache = List.of(new Proxy(Proxy.Type.HTTP,
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort())));
+
+        @Override
+        public List<Proxy> select(URI uri) {
+            String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+            String host = uri.getHost() == null ? "" : uri.getHost();
+            boolean web = scheme.equals("http") || scheme.equals("https");
+            if (web && onWebKitLoader() && !host.equals("localhost") && !host.startsWith("127.")) return viaCache;
+            return previousSelector != null ? previousSelector.select(uri) : List.of(Proxy.NO_PROXY);
+        }
+
+        @Override
+        public void connectFailed(URI uri, SocketAddress address, IOException e) {
+            if (previousSelector != null) previousSelector.connectFailed(uri, address, e);
+        }
+    }
+
+    // --- Connections ---
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                connections.submit(() -> serve(socket));
+            } catch (IOException e) {}
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setSoTimeout(IDLE_TIMEOUT_MS);
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            Request request = readRequest(in);
+            if (request == null) return;
+
+            if (!request.method().equals("CONNECT")) {
+                exchange(in, out, request, null);
+                return;
+            }
+
+            // CONNECT host:port
+            String target = request.target();
+            int colon = target.lastIndexOf(':');
+            String host = colon > 0 ? target.substring(0, colon) : target;
+            int port = colon > 0 ? Integer.parseInt(target.substring(colon + 1)) : 443;
+            out.write("HTTP/1.1 200 Connection Established\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+
+            LocalCertificateAuthority authority = ca.isDone() && !ca.isCompletedExceptionally() ? ca.join() : null;
+            if (port != 443 || authority == null || tunnelOnly.contains(host)) {
+                cache.recordBypass();
+                tunnel(socket, in, host, port);
+                return;
+            }
+
+            // The client waits for our 200 before its ClientHello, so nothing is buffered in `in` yet
+            SSLSocket tls = (SSLSocket) authority.contextFor(host).getSocketFactory()
+                .createSocket(socket, host, port, true);
+            tls.setUseClientMode(false);
+            try {
+                tls.startHandshake();
+            } catch (SSLException e) {
+                // Client didn't accept our certificate (pinned, or created before install): leave it alone next time
+                tunnelOnly.add(host);
+                return;
+            }
+            InputStream tlsIn = new BufferedInputStream(tls.getInputStream());
+            exchange(tlsIn, new BufferedOutputStream(tls.getOutputStream()), readRequest(tlsIn), "https://" + host);
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {}
+    }
+
+    private void tunnel(Socket client, InputStream clientIn, String host, int port) throws IOException {
+        try (Socket remote = new Socket()) {
+            remote.connect(new InetSocketAddress(host, port), (int) CONNECT_TIMEOUT.toMillis());
+            client.setSoTimeout(0);
+            connections.submit(() -> {
+                try {
+                    clientIn.transferTo(remote.getOutputStream());
+                } catch (IOException e) {}
+                try {
+                    remote.shutdownOutput();
+                } catch (IOException e) {}
+            });
+            remote.getInputStream().transferTo(client.getOutputStream());
+        }
+    }
+
+    private void exchange(InputStream in, OutputStream out, Request request, String origin) throws IOException {
+        while (request != null) {
+            boolean keepAlive = respond(request, origin, out);
+            out.flush();
+            if (!keepAlive) return;
+            request = readRequest(in);
+        }
+    }
+
+    // --- Requests ---
+
+    private boolean respond(Request request, String origin, OutputStream out) throws IOException {
+        String url = origin != null ? origin + request.target() : request.target();
+        boolean head = request.method().equals("HEAD");
+        boolean keepAlive = !"close".equalsIgnoreCase(WebCache.first(request.headers(), "connection"))
+            && !"close".equalsIgnoreCase(WebCache.first(request.headers(), "proxy-connection"));
+
+        if (!url.startsWith("http://") && !url.startsWith("https://")) {
+            writeStatus(out, 400, List.of());
+            return false;
+        }
+
+        WebCache.Entry cached = request.method().equals("GET") ? cache.lookup(url, request.headers()) : null;
+        Map<String, String> rcc = WebCache.directives(request.headers());
+        boolean reload = rcc.containsKey("no-cache") || "0".equals(rcc.get("max-age"));
+        if (cached != null && cached.isFresh(System.currentTimeMillis())
+                && (!reload || WebCache.isStaticAsset(url))) {
+            cache.recordHit(cached, false);
+            writeCached(out, cached, request);
+            return keepAlive;
+        }
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+            .timeout(REQUEST_TIMEOUT)
+            .method(request.method(), request.body().length > 0
+                ? HttpRequest.BodyPublishers.ofByteArray(request.body())
+                : HttpRequest.BodyPublishers.noBody());
+        boolean haveCopy = cached != null;
+        request.headers().forEach((name, values) -> {
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (HOP_BY_HOP.contains(lower)) return;
+            // Our own validators replace the WebView's when we hold a copy
+            if (haveCopy && (lower.equals("if-none-match") || lower.equals("if-modified-since"))) return;
+            for (String value : values) builder.header(name, value);
+        });
+        if (cached != null) {
+            if (cached.header("etag") != null) builder.header("If-None-Match", cached.header("etag"));
+            if (cached.header("last-modified") != null) builder.header("If-Modified-Since", cached.header("last-modified"));
+        }
+
+        HttpResponse<InputStream> response;
+        try {
+            response = upstream.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException | IllegalArgumentException e) {
+            if (cached != null) {
+                // Site unreachable: a stale copy beats an error page
+                cache.recordHit(cached, false);
+                writeCached(out, cached, request);
+                return keepAlive;
+            }
+            writeStatus(out, 502, List.of());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(response.headers().map());
+        headers.keySet().removeIf(CachingProxy::isPseudoHeader); // HTTP/2 ":status" etc. have no HTTP/1.1 form
+
+        if (cached != null && response.statusCode() == 304) {
+            response.body().close();
+            cached = cache.revalidated(cached, headers);
+            cache.recordHit(cached, true);
+            writeCached(out, cached, request);
+            return keepAlive;
+        }
+        forward(out, request, url, response, headers);
+        return keepAlive;
+    }
+
+    private void forward(OutputStream out, Request request, String url, HttpResponse<InputStream> response,
+                         Map<String, List<String>> headers) throws IOException {
+        int status = response.statusCode();
+        boolean hasBody = !request.method().equals("HEAD") && status >= 200 && status != 204 && status != 304;
+        long length = response.headers().firstValueAsLong("content-length").orElse(-1);
+
+        WebCache.Pending pending = null;
+        if (hasBody && cache.storable(url, request.method(), request.headers(), status, headers)) {
+            cache.recordMiss();
+            pending = cache.begin(url);
+        } else {
+            cache.recordBypass();
+        }
+
+        List<String> lines = new ArrayList<>();
+        headers.forEach((name, values) -> {
+            if (!HOP_BY_HOP.contains(name.toLowerCase(Locale.ROOT)) || name.equalsIgnoreCase("date")) {
+                for (String value : values) lines.add(name + ": " + value);
+            }
+        });
+        if (!hasBody) {
+            if (length >= 0 && request.method().equals("HEAD")) lines.add("Content-Length: " + length);
+        } else if (length >= 0) {
+            lines.add("Content-Length: " + length);
+        } else {
+            lines.add("Transfer-Encoding: chunked");
+        }
+        writeStatus(out, status, lines);
+
+        try (InputStream body = response.body()) {
+            if (!hasBody) return;
+            byte[] buffer = new byte[BUFFER];
+            int n;
+            while ((n = body.read(buffer)) > 0) {
+                if (length < 0) out.write((Integer.toHexString(n) + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+                out.write(buffer, 0, n);
+                if (length < 0) out.write(CRLF);
+                if (pending != null) pending.write(buffer, n);
+            }
+            if (length < 0) out.write("0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            if (pending != null) pending.commit(status, request.headers(), headers);
+            pending = null;
+        } finally {
+            if (pending != null) pending.abort();
+        }
+    }
+
+    private void writeCached(OutputStream out, WebCache.Entry entry, Request request) throws IOException {
+        String clientTag = WebCache.first(request.headers(), "if-none-match");
+        if (clientTag != null && clientTag.equals(entry.header("etag"))) {
+            List<String> lines = new ArrayList<>();
+            lines.add("ETag: " + clientTag);
+            writeStatus(out, 304, lines);
+            return;
+        }
+
+        List<String> lines = new ArrayList<>();
+        entry.headers().forEach((name, values) -> {
+            if (!isPseudoHeader(name)) values.forEach(v -> lines.add(name + ": " + v)); // entries stored before the filter
+        });
+        lines.add("Age: " + Math.max(0, (System.currentTimeMillis() - entry.storedAt()) / 1000));
+        lines.add("Content-Length: " + entry.size());
+        writeStatus(out, entry.status(), lines);
+        if (!request.method().equals("HEAD")) Files.copy(entry.body(), out);
+    }
+
+    private static boolean isPseudoHeader(String name) {
+        return name.startsWith(":");
+    }
+
+    private static void writeStatus(OutputStream out, int status, List<String> headerLines) throws IOException {
+        StringBuilder head = new StringBuilder("HTTP/1.1 ").append(status).append(' ').append(reason(status)).append("\r\n");
+        for (String line : headerLines) head.append(line).append("\r\n");
+        if (status >= 400 && headerLines.isEmpty()) head.append("Content-Length: 0\r\nConnection: close\r\n");
+        head.append("\r\n");
+        out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private static String reason(int status) {
+        return switch (status) {
+            case 200 -> "OK";
+            case 204 -> "No Content";
+            case 206 -> "Partial Content";
+            case 301 -> "Moved Permanently";
+            case 302 -> "Found";
+            case 304 -> "Not Modified";
+            case 400 -> "Bad Request";
+            case 404 -> "Not Found";
+            case 502 -> "Bad Gateway";
+            default -> "Status";
+        };
+    }
+
+    /**
+     * Default HttpsURLConnection factory that builds the real one (JDK roots + our CA) on first
+     * use, so installing the proxy at startup costs nothing until a page actually loads.
+     * Sockets for anything but WebKit's loaders come from the factory it replaced.
+     */
+    private static final class LazySocketFactory extends SSLSocketFactory {
+        private final Callable<SSLSocketFactory> create;
+        private final SSLSocketFactory previous;
+        private volatile SSLSocketFactory delegate;
+
+        LazySocketFactory(Callable<SSLSocketFactory> create, SSLSocketFactory previous) {
+            this.create = create;
+            this.previous = previous;
+        }
+
+        private SSLSocketFactory forThread() throws IOException {
+            return onWebKitLoader() ? delegate() : previous;
+        }
+
+        private SSLSocketFactory delegate() throws IOException {
+            if (delegate == null) {
+                synchronized (this) {
+                    if (delegate == null) {
+                        try {
+                            delegate = create.call();
+                        } catch (Exception e) {
+                            throw new IOException("Web cache TLS setup failed", e);
+                        }
+                    }
+                }
+            }
+            return delegate;
+        }
+
+        private SSLSocketFactory delegateOrDefault() {
+            try {
+                return delegate();
+            } catch (IOException e) {
+                return (SSLSocketFactory) SSLSocketFactory.getDefault();
+            }
+        }
+
+        @Override
+        public String[] getDefaultCipherSuites() {
+            return delegateOrDefault().getDefaultCipherSuites();
+        }
+
+        @Override
+        public String[] getSupportedCipherSuites() {
+            return delegateOrDefault().getSupportedCipherSuites();
+        }
+
+        @Override
+        public Socket createSocket() throws IOException {
+            return forThread().createSocket();
+        }
+
+        @Override
+        public Socket createSocket(Socket s, String host, int port, boolean autoClose) throws IOException {
+            return forThread().createSocket(s, host, port, autoClose);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return forThread().createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            return forThread().createSocket(host, port, localHost, localPort);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            return forThread().createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+            return forThread().createSocket(address, port, localAddress, localPort);
+        }
+    }
+
+    // --- HTTP/1.1 request parsing ---
+
+    private static Request readRequest(InputStream in) throws IOException {
+        String requestLine = readLine(in);
+        while (requestLine != null && requestLine.isEmpty()) requestLine = readLine(in); // stray CRLF between requests
+        if (requestLine == null) return null;
+        String[] parts = requestLine.split(" ");
+        if (parts.length < 3) throw new IOException("Bad request line: " + requestLine);
+
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) headers.computeIfAbsent(line.substring(0, colon).trim(), k -> new ArrayList<>())
+                .add(line.substring(colon + 1).trim());
+        }
+
+        byte[] body = new byte[0];
+        String length = WebCache.first(headers, "content-length");
+        if (length != null) {
+            body = in.readNBytes(Integer.parseInt(length.trim()));
+        } else if ("chunked".equalsIgnoreCase(WebCache.first(headers, "transfer-encoding"))) {
+            ByteArrayOutputStream chunks = new ByteArrayOutputStream();
+            int size;
+            while ((size = Integer.parseInt(readLine(in).split(";")[0].trim(), 16)) > 0) {
+                chunks.write(in.readNBytes(size));
+                readLine(in);
+            }
+            while ((line = readLine(in)) != null && !line.isEmpty()) {} // trailers
+            body = chunks.toByteArray();
+        }
+        return new Request(parts[0], parts[1], headers, body);
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') break;
+            if (c != '\r') line.write(c);
+        }
+        if (c == -1 && line.size() == 0) return null;
+        return line.toString(StandardCharsets.ISO_8859_1);
+    }
+}
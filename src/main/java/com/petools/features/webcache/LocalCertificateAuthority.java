@@ -0,0 +1,202 @@
+package com.petools.features.webcache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManagerFactory;
+
+/**
+ * Issues the certificates the caching proxy shows the WebViews for intercepted HTTPS sites.
+ * A new CA is generated every run and only trusted by this JVM's HttpsURLConnections
+ * (see clientSocketFactory), so its key never touches disk or the Windows certificate store.
+ */
+final class LocalCertificateAuthority {
+
+    private static final String SIGNATURE = "SHA256withECDSA";
+    private static final String OID_ECDSA_SHA256 = "1.2.840.10045.4.3.2";
+    private static final char[] KEY_PASSWORD = "petools".toCharArray(); // in-memory keystores only
+    private static final Pattern IPV4 = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+    private static final DateTimeFormatter UTC_TIME = DateTimeFormatter.ofPattern("yyMMddHHmmss'Z'");
+
+    // DER tags
+    private static final int INTEGER = 0x02, BIT_STRING = 0x03, OCTET_STRING = 0x04, OID = 0x06;
+    private static final int UTF8_STRING = 0x0c, UTC_TIME_TAG = 0x17, SEQUENCE = 0x30, SET = 0x31;
+
+    private final SecureRandom random = new SecureRandom();
+    private final KeyPair caKeys;
+    private final X509Certificate caCert;
+    private final KeyPair hostKeys; // shared by every host certificate
+    private final Map<String, SSLContext> hostContexts = Collections.synchronizedMap(new HashMap<>());
+
+    LocalCertificateAuthority() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256, random);
+        caKeys = generator.generateKeyPair();
+        hostKeys = generator.generateKeyPair();
+
+        byte[] caExtensions = concat(
+            extension("2.5.29.19", true, der(SEQUENCE, der(0x01, new byte[] { (byte) 0xff }))), // basicConstraints CA
+            extension("2.5.29.15", true, der(BIT_STRING, new byte[] { 0x01, 0x06 })));        // keyCertSign, cRLSign
+        caCert = sign("PE Tools Web Cache CA", caKeys.getPublic(), caExtensions);
+    }
+
+    /** Server-side TLS context presenting a certificate for {@code host}. */
+    SSLContext contextFor(String host) throws GeneralSecurityException {
+        SSLContext context = hostContexts.get(host);
+        if (context != null) return context;
+
+        byte[] name = IPV4.matcher(host).matches()
+            ? der(0x87, ipv4(host))                                  // iPAddress
+            : der(0x82, host.getBytes(StandardCharsets.US_ASCII));   // dNSName
+        byte[] extensions = concat(
+            extension("2.5.29.19", true, der(SEQUENCE)),
+            extension("2.5.29.15", true, der(BIT_STRING, new byte[] { 0x07, (byte) 0x80 })), // digitalSignature
+            extension("2.5.29.37", false, der(SEQUENCE, oid("1.3.6.1.5.5.7.3.1"))),         // serverAuth
+            extension("2.5.29.17", false, der(SEQUENCE, name)));
+        X509Certificate cert = sign(host, hostKeys.getPublic(), extensions);
+
+        try {
+            KeyStore keys = KeyStore.getInstance("PKCS12");
+            keys.load(null, null);
+            keys.setKeyEntry(host, hostKeys.getPrivate(), KEY_PASSWORD, new Certificate[] { cert, caCert });
+            KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            kmf.init(keys, KEY_PASSWORD);
+
+            context = SSLContext.getInstance("TLS");
+            context.init(kmf.getKeyManagers(), null, random);
+        } catch (IOException e) {
+            throw new GeneralSecurityException(e);
+        }
+        hostContexts.put(host, context);
+        return context;
+    }
+
+    /** Client-side factory trusting the JDK's usual roots plus this run's CA. */
+    SSLSocketFactory clientSocketFactory() throws GeneralSecurityException {
+        try {
+            KeyStore trust = KeyStore.getInstance(KeyStore.getDefaultType());
+            trust.load(null, null);
+
+            Path cacerts = Paths.get(System.getProperty("java.home"), "lib", "security", "cacerts");
+            KeyStore roots = KeyStore.getInstance(cacerts.toFile(), (char[]) null);
+            for (String alias : Collections.list(roots.aliases())) {
+                if (roots.isCertificateEntry(alias)) trust.setCertificateEntry(alias, roots.getCertificate(alias));
+            }
+            trust.setCertificateEntry("petools-web-cache", caCert);
+
+            TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            tmf.init(trust);
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, tmf.getTrustManagers(), random);
+            return context.getSocketFactory();
+        } catch (IOException e) {
+            throw new GeneralSecurityException(e);
+        }
+    }
+
+    // --- X.509 (DER) ---
+
+    private X509Certificate sign(String subject, PublicKey key, byte[] extensions) throws GeneralSecurityException {
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        byte[] algorithm = der(SEQUENCE, oid(OID_ECDSA_SHA256));
+        byte[] tbs = der(SEQUENCE,
+            der(0xa0, der(INTEGER, new byte[] { 2 })),                 // v3
+            der(INTEGER, new BigInteger(63, random).add(BigInteger.ONE).toByteArray()),
+            algorithm,
+            name("PE Tools Web Cache CA"),
+            der(SEQUENCE, utcTime(now.minusDays(1)), utcTime(now.plusDays(30))),
+            name(subject),
+            key.getEncoded(),                                          // SubjectPublicKeyInfo
+            der(0xa3, der(SEQUENCE, extensions)));
+
+        Signature signer = Signature.getInstance(SIGNATURE);
+        signer.initSign(caKeys.getPrivate());
+        signer.update(tbs);
+        byte[] cert = der(SEQUENCE, tbs, algorithm, der(BIT_STRING, new byte[] { 0 }, signer.sign()));
+
+        return (X509Certificate) CertificateFactory.getInstance("X.509")
+            .generateCertificate(new ByteArrayInputStream(cert));
+    }
+
+    private static byte[] name(String commonName) {
+        return der(SEQUENCE, der(SET, der(SEQUENCE, oid("2.5.4.3"),
+            der(UTF8_STRING, commonName.getBytes(StandardCharsets.UTF_8)))));
+    }
+
+    private static byte[] extension(String oid, boolean critical, byte[] value) {
+        return critical
+            ? der(SEQUENCE, oid(oid), der(0x01, new byte[] { (byte) 0xff }), der(OCTET_STRING, value))
+            : der(SEQUENCE, oid(oid), der(OCTET_STRING, value));
+    }
+
+    private static byte[] utcTime(ZonedDateTime time) {
+        return der(UTC_TIME_TAG, time.format(UTC_TIME).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static byte[] oid(String dotted) {
+        String[] parts = dotted.split("\\.");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(Integer.parseInt(parts[0]) * 40 + Integer.parseInt(parts[1]));
+        for (int i = 2; i < parts.length; i++) {
+            long value = Long.parseLong(parts[i]);
+            int shift = 63 - Long.numberOfLeadingZeros(value | 1);
+            for (int s = shift / 7 * 7; s > 0; s -= 7) out.write((int) ((value >> s) & 0x7f) | 0x80);
+            out.write((int) (value & 0x7f));
+        }
+        return der(OID, out.toByteArray());
+    }
+
+    private static byte[] ipv4(String host) {
+        String[] parts = host.split("\\.");
+        byte[] bytes = new byte[4];
+        for (int i = 0; i < 4; i++) bytes[i] = (byte) Integer.parseInt(parts[i]);
+        return bytes;
+    }
+
+    private static byte[] der(int tag, byte[]... parts) {
+        byte[] content = concat(parts);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length + 6);
+        out.write(tag);
+        int length = content.length;
+        if (length < 0x80) {
+            out.write(length);
+        } else {
+            int bytes = (32 - Integer.numberOfLeadingZeros(length) + 7) / 8;
+            out.write(0x80 | bytes);
+            for (int i = bytes - 1; i >= 0; i--) out.write(length >> (8 * i));
+        }
+        out.writeBytes(content);
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) out.writeBytes(part);
+        return out.toByteArray();
+    }
+}
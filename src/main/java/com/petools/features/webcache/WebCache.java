@@ -0,0 +1,471 @@
+package com.petools.features.webcache;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import com.petools.features.settings.AppSettings;
+
+/**
+ * Disk cache behind the WebView proxy (.petools/cache/web), bounded by size with the
+ * least recently used entries evicted first. Freshness follows Cache-Control / Expires;
+ * static assets (scripts, styles, fonts, images) are kept at least webcache.staticDays
+ * even when the server asks for less, since the map sites version them by URL.
+ */
+public final class WebCache {
+
+    // Settings keys (see SettingsView)
+    public static final String KEY_ENABLED = "webcache.enabled";
+    public static final String KEY_MAX_MB = "webcache.maxMb";
+    public static final String KEY_STATIC_DAYS = "webcache.staticDays";
+
+    private static final Path CACHE_DIR = Paths.get(System.getProperty("user.home"), ".petools", "cache", "web");
+
+    private static final Pattern STATIC_ASSET = Pattern.compile(
+        "\\.(js|mjs|css|woff2?|ttf|otf|eot|png|jpe?g|gif|svg|webp|ico)$", Pattern.CASE_INSENSITIVE);
+    private static final Set<Integer> CACHEABLE_STATUS = Set.of(200, 203, 204, 300, 301, 308, 404, 410);
+    private static final Set<String> NOT_STORED = Set.of(
+        "connection", "keep-alive", "proxy-connection", "transfer-encoding", "te", "trailer", "upgrade",
+        "content-length", "set-cookie", "age");
+    private static final Duration HEURISTIC_CAP = Duration.ofDays(1);
+
+    private static WebCache shared;
+
+    // Key -> bytes on disk, in access order (eldest = least recently used)
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(256, 0.75f, true);
+    private long diskBytes;
+    private boolean loaded;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong revalidated = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bypassed = new AtomicLong();
+    private final AtomicLong bytesFromCache = new AtomicLong();
+
+    public record Stats(long hits, long revalidated, long misses, long bypassed,
+                        long bytesFromCache, int entries, long diskBytes) {
+        /** Share of cacheable requests answered from disk (fresh or after a 304). */
+        public double hitRate() {
+            long lookups = hits + revalidated + misses;
+            return lookups == 0 ? 0 : (double) (hits + revalidated) / lookups;
+        }
+    }
+
+    /** A stored response. Headers use a case-insensitive map. */
+    record Entry(String key, String url, int status, long storedAt, long freshUntil,
+                 Map<String, String> vary, Map<String, List<String>> headers, Path body) {
+
+        boolean isFresh(long now) {
+            return now < freshUntil;
+        }
+
+        String header(String name) {
+            List<String> values = headers.get(name);
+            return values == null || values.isEmpty() ? null : values.get(0);
+        }
+
+        long size() {
+            try {
+                return Files.size(body);
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+    }
+
+    /** A response body being written while it streams to the WebView. */
+    final class Pending {
+        private final String key;
+        private final String url;
+        private final Path temp;
+        private final OutputStream out;
+        private final long limit;
+        private long written;
+        private boolean failed;
+
+        private Pending(String key, String url, Path temp, long limit) throws IOException {
+            this.key = key;
+            this.url = url;
+            this.temp = temp;
+            this.limit = limit;
+            this.out = Files.newOutputStream(temp);
+        }
+
+        void write(byte[] buffer, int length) {
+            if (failed) return;
+            written += length;
+            try {
+                if (written > limit) throw new IOException("Entry too large");
+                out.write(buffer, 0, length);
+            } catch (IOException e) {
+                abort();
+            }
+        }
+
+        void commit(int status, Map<String, List<String>> requestHeaders, Map<String, List<String>> responseHeaders) {
+            if (failed) return;
+            try {
+                out.close();
+                long now = System.currentTimeMillis();
+                Entry entry = new Entry(key, url, status, now, freshUntil(url, responseHeaders, now),
+                    varyValues(requestHeaders, responseHeaders), storedHeaders(responseHeaders), bodyPath(key));
+                Files.move(temp, entry.body(), StandardCopyOption.REPLACE_EXISTING);
+                writeMeta(entry);
+                added(key, written + Files.size(metaPath(key)));
+            } catch (IOException e) {
+                abort();
+            }
+        }
+
+        void abort() {
+            failed = true;
+            try {
+                out.close();
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {}
+        }
+    }
+
+    public static synchronized WebCache shared() {
+        if (shared == null) shared = new WebCache();
+        return shared;
+    }
+
+    // --- Lookup ---
+
+    /** The stored response for a GET, or null when absent or stored for different Vary headers. */
+    Entry lookup(String url, Map<String, List<String>> requestHeaders) {
+        String key = key(url);
+        synchronized (this) {
+            load();
+            if (!index.containsKey(key)) return null;
+            index.get(key); // touch for LRU order
+        }
+        Entry entry = readMeta(key);
+        if (entry == null || !entry.url().equals(url) || !Files.exists(entry.body())) return null;
+        for (Map.Entry<String, String> v : entry.vary().entrySet()) {
+            if (!v.getValue().equals(String.join(", ", requestHeaders.getOrDefault(v.getKey(), List.of())))) return null;
+        }
+        try {
+            Files.setLastModifiedTime(metaPath(key), FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {}
+        return entry;
+    }
+
+    /** Whether a response may be written to disk at all. */
+    boolean storable(String url, String method, Map<String, List<String>> requestHeaders,
+                     int status, Map<String, List<String>> responseHeaders) {
+        if (!"GET".equals(method) || !CACHEABLE_STATUS.contains(status)) return false;
+        if (requestHeaders.containsKey("authorization")) return false;
+        if (directives(requestHeaders).containsKey("no-store")) return false;
+        if (directives(responseHeaders).containsKey("no-store")) return false;
+        if ("*".equals(first(responseHeaders, "vary"))) return false;
+
+        // Worth keeping only if it can be served fresh or revalidated cheaply later
+        return freshUntil(url, responseHeaders, System.currentTimeMillis()) > System.currentTimeMillis()
+            || responseHeaders.containsKey("etag") || responseHeaders.containsKey("last-modified");
+    }
+
+    Pending begin(String url) {
+        try {
+            Files.createDirectories(CACHE_DIR);
+            Path temp = Files.createTempFile(CACHE_DIR, "pending", ".tmp");
+            return new Pending(key(url), url, temp, maxBytes() / 8);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /** After a 304: keep the body, take the new headers and freshness. */
+    Entry revalidated(Entry entry, Map<String, List<String>> responseHeaders) {
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(entry.headers());
+        headers.putAll(storedHeaders(responseHeaders));
+        long now = System.currentTimeMillis();
+        Entry updated = new Entry(entry.key(), entry.url(), entry.status(), now,
+            freshUntil(entry.url(), headers, now), entry.vary(), headers, entry.body());
+        try {
+            writeMeta(updated);
+        } catch (IOException e) {}
+        return updated;
+    }
+
+    // --- Freshness (RFC 9111, private cache) ---
+
+    long freshUntil(String url, Map<String, List<String>> headers, long now) {
+        Map<String, String> cc = directives(headers);
+        Long date = httpDate(first(headers, "date"));
+        long base = date != null ? date : now;
+
+        long lifetime = 0;
+        if (cc.containsKey("no-cache")) {
+            lifetime = 0;
+        } else if (cc.containsKey("max-age")) {
+            lifetime = seconds(cc.get("max-age")) * 1000;
+        } else if (headers.containsKey("expires")) {
+            Long expires = httpDate(first(headers, "expires"));
+            lifetime = expires == null ? 0 : expires - base;
+        } else {
+            Long lastModified = httpDate(first(headers, "last-modified"));
+            if (lastModified != null) lifetime = Math.min((base - lastModified) / 10, HEURISTIC_CAP.toMillis());
+        }
+
+        if (!cc.containsKey("no-cache") && isStaticAsset(url)) {
+            lifetime = Math.max(lifetime, Duration.ofDays(AppSettings.getInt(KEY_STATIC_DAYS, 7)).toMillis());
+        }
+        long age = seconds(first(headers, "age")) * 1000;
+        return now + Math.max(0, lifetime - age);
+    }
+
+    static boolean isStaticAsset(String url) {
+        int query = url.indexOf('?');
+        return STATIC_ASSET.matcher(query < 0 ? url : url.substring(0, query)).find();
+    }
+
+    static Map<String, String> directives(Map<String, List<String>> headers) {
+        Map<String, String> result = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (String value : headers.getOrDefault("cache-control", List.of())) {
+            for (String part : value.split(",")) {
+                String[] kv = part.trim().split("=", 2);
+                if (!kv[0].isEmpty()) result.put(kv[0], kv.length > 1 ? kv[1].replace("\"", "") : "");
+            }
+        }
+        if (result.isEmpty() && "no-cache".equalsIgnoreCase(first(headers, "pragma"))) result.put("no-cache", "");
+        return result;
+    }
+
+    private static long seconds(String value) {
+        if (value == null) return 0;
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static Long httpDate(String value) {
+        if (value == null) return null;
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    static String first(Map<String, List<String>> headers, String name) {
+        List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    // --- Metrics ---
+
+    void recordHit(Entry entry, boolean afterRevalidation) {
+        (afterRevalidation ? revalidated : hits).incrementAndGet();
+        bytesFromCache.addAndGet(Math.max(0, entry.size()));
+    }
+
+    void recordMiss() {
+        misses.incrementAndGet();
+    }
+
+    void recordBypass() {
+        bypassed.incrementAndGet();
+    }
+
+    public synchronized Stats stats() {
+        load();
+        return new Stats(hits.get(), revalidated.get(), misses.get(), bypassed.get(),
+            bytesFromCache.get(), index.size(), diskBytes);
+    }
+
+    public synchronized void clear() {
+        load();
+        for (String key : new ArrayList<>(index.keySet())) remove(key);
+        index.clear();
+        diskBytes = 0;
+    }
+
+    // --- Index & eviction ---
+
+    private synchronized void load() {
+        if (loaded) return;
+        loaded = true;
+        if (!Files.isDirectory(CACHE_DIR)) return;
+
+        // Rebuild LRU order from the meta files' last access time
+        List<Path> metas = new ArrayList<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(CACHE_DIR)) {
+            for (Path p : dir) {
+                String name = p.getFileName().toString();
+                if (name.endsWith(".meta")) metas.add(p);
+                else if (name.endsWith(".tmp")) Files.deleteIfExists(p); // left over from a crash
+            }
+        } catch (IOException e) {}
+        metas.sort((a, b) -> Long.compare(lastModified(a), lastModified(b)));
+
+        for (Path meta : metas) {
+            String key = meta.getFileName().toString().replace(".meta", "");
+            try {
+                long size = Files.size(meta) + Files.size(bodyPath(key));
+                index.put(key, size);
+                diskBytes += size;
+            } catch (IOException e) {
+                remove(key);
+            }
+        }
+        evict();
+    }
+
+    private synchronized void added(String key, long size) {
+        load();
+        Long previous = index.put(key, size);
+        if (previous != null) diskBytes -= previous;
+        diskBytes += size;
+        evict();
+    }
+
+    private void evict() {
+        long max = maxBytes();
+        Iterator<Map.Entry<String, Long>> eldest = index.entrySet().iterator();
+        while (diskBytes > max && eldest.hasNext()) {
+            Map.Entry<String, Long> e = eldest.next();
+            diskBytes -= e.getValue();
+            eldest.remove();
+            remove(e.getKey());
+        }
+    }
+
+    private void remove(String key) {
+        try {
+            Files.deleteIfExists(metaPath(key));
+            Files.deleteIfExists(bodyPath(key));
+        } catch (IOException e) {}
+    }
+
+    private static long maxBytes() {
+        return Math.max(16, AppSettings.getInt(KEY_MAX_MB, 512)) * 1024L * 1024L;
+    }
+
+    private static long lastModified(Path p) {
+        try {
+            return Files.getLastModifiedTime(p).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // --- Files: <key>.meta (text) + <key>.body ---
+
+    private static String key(String url) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 20);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Path metaPath(String key) {
+        return CACHE_DIR.resolve(key + ".meta");
+    }
+
+    private static Path bodyPath(String key) {
+        return CACHE_DIR.resolve(key + ".body");
+    }
+
+    private static Map<String, String> varyValues(Map<String, List<String>> requestHeaders,
+                                                  Map<String, List<String>> responseHeaders) {
+        Map<String, String> vary = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (String value : responseHeaders.getOrDefault("vary", List.of())) {
+            for (String name : value.split(",")) {
+                name = name.trim().toLowerCase(Locale.ROOT);
+                if (!name.isEmpty()) vary.put(name, String.join(", ", requestHeaders.getOrDefault(name, List.of())));
+            }
+        }
+        return vary;
+    }
+
+    private static Map<String, List<String>> storedHeaders(Map<String, List<String>> headers) {
+        Map<String, List<String>> stored = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.forEach((name, values) -> {
+            if (!NOT_STORED.contains(name.toLowerCase(Locale.ROOT))) stored.put(name, values);
+        });
+        return stored;
+    }
+
+    private static void writeMeta(Entry entry) throws IOException {
+        Path temp = metaPath(entry.key()).resolveSibling(entry.key() + ".meta.tmp");
+        try (BufferedWriter w = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            w.write("url " + entry.url() + "\n");
+            w.write("status " + entry.status() + "\n");
+            w.write("stored " + entry.storedAt() + "\n");
+            w.write("fresh " + entry.freshUntil() + "\n");
+            for (Map.Entry<String, String> v : entry.vary().entrySet()) {
+                w.write("vary " + v.getKey() + ": " + v.getValue() + "\n");
+            }
+            w.write("\n");
+            for (Map.Entry<String, List<String>> h : entry.headers().entrySet()) {
+                for (String value : h.getValue()) w.write(h.getKey() + ": " + value + "\n");
+            }
+        }
+        Files.move(temp, metaPath(entry.key()), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static Entry readMeta(String key) {
+        String url = null;
+        int status = 0;
+        long stored = 0, fresh = 0;
+        Map<String, String> vary = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+        try (BufferedReader r = Files.newBufferedReader(metaPath(key), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = r.readLine()) != null && !line.isEmpty()) {
+                String[] kv = line.split(" ", 2);
+                switch (kv[0]) {
+                    case "url" -> url = kv[1];
+                    case "status" -> status = Integer.parseInt(kv[1]);
+                    case "stored" -> stored = Long.parseLong(kv[1]);
+                    case "fresh" -> fresh = Long.parseLong(kv[1]);
+                    case "vary" -> {
+                        int colon = kv[1].indexOf(':');
+                        vary.put(kv[1].substring(0, colon), kv[1].substring(colon + 1).trim());
+                    }
+                }
+            }
+            while ((line = r.readLine()) != null) {
+                int colon = line.indexOf(':');
+                if (colon > 0) headers.computeIfAbsent(line.substring(0, colon), k -> new ArrayList<>())
+                    .add(line.substring(colon + 1).trim());
+            }
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+        return url == null ? null : new Entry(key, url, status, stored, fresh, vary, headers, bodyPath(key));
+    }
+}
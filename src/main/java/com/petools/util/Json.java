@@ -0,0 +1,190 @@
+package com.petools.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON reader, shared by the screening services (responses) and the feature store (file headers).
+ * Objects become Map, arrays List, numbers Double; plus String, Boolean and null.
+ */
+public final class Json {
+
+    private final String text;
+    private int pos;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    public static Object parse(String text) {
+        Json json = new Json(text);
+        json.skipWhitespace();
+        Object value = json.value();
+        json.skipWhitespace();
+        if (json.pos != text.length()) throw json.error("Trailing characters");
+        return value;
+    }
+
+    // --- Navigation helpers (null-safe, so callers can chain) ---
+
+    public static Object at(Object node, Object... path) {
+        for (Object step : path) {
+            if (step instanceof String key && node instanceof Map<?, ?> map) node = map.get(key);
+            else if (step instanceof Integer i && node instanceof List<?> list) node = i < list.size() ? list.get(i) : null;
+            else return null;
+        }
+        return node;
+    }
+
+    public static List<?> list(Object node, Object... path) {
+        return at(node, path) instanceof List<?> list ? list : List.of();
+    }
+
+    public static String string(Object node, Object... path) {
+        Object value = at(node, path);
+        if (value == null) return null;
+        if (value instanceof Double d && d == Math.rint(d) && !d.isInfinite()) return Long.toString(d.longValue());
+        return value.toString();
+    }
+
+    public static Double number(Object node, Object... path) {
+        Object value = at(node, path);
+        if (value instanceof Double d) return d;
+        if (value instanceof String s) {
+            try {
+                return Double.parseDouble(s.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    // --- Parser ---
+
+    private Object value() {
+        if (pos >= text.length()) throw error("Unexpected end");
+        char c = text.charAt(pos);
+        return switch (c) {
+            case '{' -> object();
+            case '[' -> array();
+            case '"' -> string();
+            case 't' -> literal("true", Boolean.TRUE);
+            case 'f' -> literal("false", Boolean.FALSE);
+            case 'n' -> literal("null", null);
+            default -> number();
+        };
+    }
+
+    private Map<String, Object> object() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        pos++; // {
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return map;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') throw error("Expected key");
+            String key = string();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            map.put(key, value());
+            skipWhitespace();
+            if (peek() == ',') {
+                pos++;
+            } else {
+                expect('}');
+                return map;
+            }
+        }
+    }
+
+    private List<Object> array() {
+        List<Object> list = new ArrayList<>();
+        pos++; // [
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+            return list;
+        }
+        while (true) {
+            skipWhitespace();
+            list.add(value());
+            skipWhitespace();
+            if (peek() == ',') {
+                pos++;
+            } else {
+                expect(']');
+                return list;
+            }
+        }
+    }
+
+    private String string() {
+        pos++; // opening quote
+        StringBuilder sb = new StringBuilder();
+        while (pos < text.length()) {
+            char c = text.charAt(pos++);
+            if (c == '"') return sb.toString();
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (pos >= text.length()) break;
+            char e = text.charAt(pos++);
+            switch (e) {
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'u' -> {
+                    if (pos + 4 > text.length()) throw error("Bad escape");
+                    sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                    pos += 4;
+                }
+                default -> sb.append(e); // \" \\ \/
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private Double number() {
+        int start = pos;
+        while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) pos++;
+        if (start == pos) throw error("Unexpected character '" + text.charAt(pos) + "'");
+        try {
+            return Double.parseDouble(text.substring(start, pos));
+        } catch (NumberFormatException e) {
+            throw error("Bad number");
+        }
+    }
+
+    private Object literal(String word, Object value) {
+        if (!text.startsWith(word, pos)) throw error("Unexpected token");
+        pos += word.length();
+        return value;
+    }
+
+    private char peek() {
+        return pos < text.length() ? text.charAt(pos) : '\0';
+    }
+
+    private void expect(char c) {
+        if (peek() != c) throw error("Expected '" + c + "'");
+        pos++;
+    }
+
+    private void skipWhitespace() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at offset " + pos);
+    }
+}
@@ -3,6 +3,8 @@ module com.petools {
     requires javafx.fxml;
     requires javafx.web;
     requires java.desktop;
+    requires java.net.http;
+    requires jdk.management;
     requires transitive javafx.graphics;
 
     opens com.petools to javafx.fxml;
@@ -0,0 +1,69 @@
+;; The one pass over a layer's freshly imported entities (everything after mark), run
+;; right after its MAPIMPORT. In the same entmod each entity is tagged with the xdata app
+;; PETOOLS_<TABLE> (the import profile creates no object data, so this tag is what a later
+;; refresh selects by), and LWPOLYLINEs get linetype generation (bit 128) if the import
+;; didn't set it.
+(defun PetoolsPostImport ( table mark / app ent data flags lt count )
+
+  (setq app (strcat "PETOOLS_" (strcase table)))
+  (regapp app)
+  (setq ent (if mark (entnext mark) (entnext)))
+  (setq count 0 lt 0)
+
+  (while ent
+    (setq data (entget ent))
+    (if (not (member (cdr (assoc 0 data)) '("VERTEX" "SEQEND" "ATTRIB")))
+      (progn
+        (if (and (= (cdr (assoc 0 data)) "LWPOLYLINE")
+                 (zerop (logand (setq flags (cdr (assoc 70 data))) 128)))
+          (setq data (subst (cons 70 (logior flags 128)) (assoc 70 data) data)
+                lt (1+ lt))
+        )
+        (if (entmod (append data (list (list -3 (list app (cons 1000 table))))))
+          (setq count (1+ count))
+        )
+      )
+    )
+    (setq ent (entnext ent))
+  )
+
+  (prompt (strcat "\n✅ " table ": tagged " (itoa count) " entities, linetype generation enabled on "
+                  (itoa lt) " polylines."))
+  (princ)
+)
+
+;; True once any layer has been imported with PetoolsPostImport (or baked with its topo tag)
+(defun PetoolsTagged ( / rec found )
+  (setq rec (tblnext "APPID" T))
+  (while (and rec (not found))
+    (if (wcmatch (strcase (cdr (assoc 2 rec))) "PETOOLS_*") (setq found T))
+    (setq rec (tblnext "APPID"))
+  )
+  found
+)
+
+;; Erases what an earlier import of this site put in the drawing, before a
+;; delta refresh re-imports the layer: everything carrying the layer's tag
+;; (PetoolsPostImport for shapefiles, written by topo.lsp for baked contours).
+;; A drawing imported before tagging has no tags at all; there the import's
+;; target layer is cleared instead, which takes anything drawn on it by hand too.
+(defun PetoolsClearImport ( table layer / ss i count )
+
+  (setq count 0)
+  (setq ss (ssget "_X" (list (list -3 (list (strcat "PETOOLS_" (strcase table)))))))
+  (if (and (not ss) layer (not (PetoolsTagged)))
+    (progn
+      (prompt (strcat "\n⚠️ No import tags in this drawing (imported before tagging), clearing layer " layer " for " table "."))
+      (setq ss (ssget "_X" (list (cons 8 layer))))
+    )
+  )
+  (if ss
+    (repeat (setq i (sslength ss))
+      (entdel (ssname ss (setq i (1- i))))
+      (setq count (1+ count))
+    )
+  )
+
+  (prompt (strcat "\n♻️ Cleared " (itoa count) " entities from " table "."))
+  (princ)
+)